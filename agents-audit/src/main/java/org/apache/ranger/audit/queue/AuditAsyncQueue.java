@@ -81,6 +81,11 @@ public class AuditAsyncQueue extends AuditQueue implements Runnable {
 	 *
 	 * @see org.apache.ranger.audit.provider.AuditProvider#start()
 	 */
+	@Override
+	public int getQueueSize() {
+		return queue.size();
+	}
+
 	@Override
 	public void start() {
 		if (consumer != null) {
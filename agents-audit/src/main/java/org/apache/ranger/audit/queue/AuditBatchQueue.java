@@ -89,6 +89,13 @@ public class AuditBatchQueue extends AuditQueue implements Runnable {
 	 *
 	 * @see org.apache.ranger.audit.provider.AuditProvider#start()
 	 */
+	@Override
+	public int getQueueSize() {
+		BlockingQueue<AuditEventBase> queue = this.queue;
+
+		return queue != null ? queue.size() : 0;
+	}
+
 	@Override
 	synchronized public void start() {
 		if (consumerThread != null) {
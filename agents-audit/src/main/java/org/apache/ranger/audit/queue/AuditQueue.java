@@ -176,6 +176,11 @@ public abstract class AuditQueue extends BaseAuditHandler {
 		return maxQueueSize;
 	}
 
+	/**
+	 * @return the number of events waiting in this queue to be sent to the consumer
+	 */
+	public abstract int getQueueSize();
+
 	public void setMaxQueueSize(int maxQueueSize) {
 		this.maxQueueSize = maxQueueSize;
 	}
@@ -54,6 +54,7 @@ public class RangerAdminRESTClient extends AbstractRangerAdminClient {
 	private RangerRESTUtils  restUtils   = new RangerRESTUtils();
 	private String 		     supportsPolicyDeltas;
 	private String 		     supportsTagDeltas;
+	private String 		     supportsRoleDeltas;
 
 	public static <T> GenericType<List<T>> getGenericType(final T clazz) {
 
@@ -90,6 +91,8 @@ public class RangerAdminRESTClient extends AbstractRangerAdminClient {
 		int	 restClientReadTimeOutMs	= RangerConfiguration.getInstance().getInt(propertyPrefix + ".policy.rest.client.read.timeoutMs", 30 * 1000);
 		supportsPolicyDeltas            = RangerConfiguration.getInstance().get(propertyPrefix + ".policy.rest.supports.policy.deltas", "false");
 		supportsTagDeltas               = RangerConfiguration.getInstance().get(propertyPrefix + ".tag.rest.supports.tag.deltas", "false");
+		supportsRoleDeltas              = RangerConfiguration.getInstance().get(propertyPrefix + ".role.rest.supports.role.deltas", "false");
+		boolean isGzipEnabled           = RangerConfiguration.getInstance().getBoolean(propertyPrefix + ".policy.rest.client.gzip.enabled", RangerRESTClient.RANGER_POLICYMGR_CLIENT_GZIP_ENABLED_DEFAULT);
 
         if (!StringUtil.isEmpty(tmpUrl)) {
             url = tmpUrl.trim();
@@ -103,8 +106,11 @@ public class RangerAdminRESTClient extends AbstractRangerAdminClient {
 		if (!"true".equalsIgnoreCase(supportsTagDeltas)) {
 			supportsTagDeltas = "false";
 		}
+		if (!"true".equalsIgnoreCase(supportsRoleDeltas)) {
+			supportsRoleDeltas = "false";
+		}
 
-		init(url, sslConfigFileName, restClientConnTimeOutMs , restClientReadTimeOutMs);
+		init(url, sslConfigFileName, restClientConnTimeOutMs , restClientReadTimeOutMs, isGzipEnabled);
 
         try {
             this.serviceNameUrlParam = URLEncoderUtil.encodeURIParam(serviceName);
@@ -210,6 +216,7 @@ public class RangerAdminRESTClient extends AbstractRangerAdminClient {
 		queryParams.put(RangerRESTUtils.REST_PARAM_LAST_ACTIVATION_TIME, Long.toString(lastActivationTimeInMillis));
 		queryParams.put(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId);
 		queryParams.put(RangerRESTUtils.REST_PARAM_CLUSTER_NAME, clusterName);
+		queryParams.put(RangerRESTUtils.REST_PARAM_SUPPORTS_ROLE_DELTAS, supportsRoleDeltas);
 
 		if (isSecureMode) {
 			if (LOG.isDebugEnabled()) {
@@ -759,7 +766,7 @@ public class RangerAdminRESTClient extends AbstractRangerAdminClient {
 		}
 	}
 
-	private void init(String url, String sslConfigFileName, int restClientConnTimeOutMs , int restClientReadTimeOutMs ) {
+	private void init(String url, String sslConfigFileName, int restClientConnTimeOutMs , int restClientReadTimeOutMs, boolean isGzipEnabled) {
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerAdminRESTClient.init(" + url + ", " + sslConfigFileName + ")");
 		}
@@ -767,6 +774,7 @@ public class RangerAdminRESTClient extends AbstractRangerAdminClient {
 		restClient = new RangerRESTClient(url, sslConfigFileName);
 		restClient.setRestClientConnTimeOutMs(restClientConnTimeOutMs);
 		restClient.setRestClientReadTimeOutMs(restClientReadTimeOutMs);
+		restClient.setGzipEnabled(isGzipEnabled);
 
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("<== RangerAdminRESTClient.init(" + url + ", " + sslConfigFileName + ")");
@@ -24,6 +24,8 @@ public class RangerHadoopConstants {
 	public static final String RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_PROP = "ranger.optimize-subaccess-authorization" ;
 	public static final boolean RANGER_ADD_HDFS_PERMISSION_DEFAULT = false;
 	public static final boolean RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_DEFAULT = false ;
+	public static final String RANGER_SUBACCESS_SUBTREE_INDEX_PROP = "ranger.subaccess-subtree-index" ;
+	public static final boolean RANGER_SUBACCESS_SUBTREE_INDEX_DEFAULT = true ;
 	public static final String READ_ACCCESS_TYPE = "read";
 	public static final String WRITE_ACCCESS_TYPE = "write";
 	public static final String EXECUTE_ACCCESS_TYPE = "execute";
@@ -37,6 +39,10 @@ public class RangerHadoopConstants {
 	public static final boolean HIVE_BLOCK_UPDATE_IF_ROWFILTER_COLUMNMASK_SPECIFIED_DEFAULT_VALUE = true;
 	public static final String  HIVE_DESCRIBE_TABLE_SHOW_COLUMNS_AUTH_OPTION_PROP	= "xasecure.hive.describetable.showcolumns.authorization.option";
 	public static final String  HIVE_DESCRIBE_TABLE_SHOW_COLUMNS_AUTH_OPTION_PROP_DEFAULT_VALUE	= "NONE";
+	public static final String  HIVE_ROWFILTER_DATAMASK_CACHE_SIZE_PROP          = "xasecure.hive.rowfilter.datamask.cache.size";
+	public static final int     HIVE_ROWFILTER_DATAMASK_CACHE_SIZE_DEFAULT_VALUE = 1000;
+	public static final String  HIVE_ROWFILTER_DATAMASK_CACHE_MAX_COLUMNS_PROP          = "xasecure.hive.rowfilter.datamask.cache.max.columns";
+	public static final int     HIVE_ROWFILTER_DATAMASK_CACHE_MAX_COLUMNS_DEFAULT_VALUE = 1000;
 
 	public static final String  HBASE_UPDATE_RANGER_POLICIES_ON_GRANT_REVOKE_PROP 	     = "xasecure.hbase.update.xapolicies.on.grant.revoke";
 	public static final boolean HBASE_UPDATE_RANGER_POLICIES_ON_GRANT_REVOKE_DEFAULT_VALUE = true;
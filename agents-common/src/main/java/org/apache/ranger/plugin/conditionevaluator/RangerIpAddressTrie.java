@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.plugin.conditionevaluator;
+
+import java.util.Arrays;
+
+/**
+ * Binary prefix trie of IPv4 or IPv6 address prefixes (CIDR blocks), stored in parallel int arrays.
+ * A lookup walks at most 32 (IPv4) or 128 (IPv6) bits of the address, and stops at the first node that ends a prefix.
+ *
+ * Addresses are given as two longs: the high-order and the low-order 64 bits; an IPv4 address is held in the low-order 32 bits.
+ * The parse methods read addresses from strings without creating intermediate strings; they return -1/null for strings that
+ * are not addresses in the accepted notation.
+ */
+final class RangerIpAddressTrie {
+	static final int IPV4_BITS = 32;
+	static final int IPV6_BITS = 128;
+
+	private static final int NO_CHILD = 0; // root is node 0, and is never a child
+
+	private final int addressBits;
+	private int[]     zeroChildren = new int[16];
+	private int[]     oneChildren  = new int[16];
+	private boolean[] isPrefixEnd  = new boolean[16];
+	private int       nodeCount    = 1;
+
+	RangerIpAddressTrie(int addressBits) {
+		this.addressBits = addressBits;
+	}
+
+	void add(long high, long low, int prefixLength) {
+		int node = 0;
+
+		for (int i = 0; i < prefixLength && !isPrefixEnd[node]; i++) {
+			int[] children = bit(high, low, i) == 0 ? zeroChildren : oneChildren;
+			int   child    = children[node];
+
+			if (child == NO_CHILD) {
+				child = newNode();
+
+				// arrays may have been reallocated by newNode()
+				children = bit(high, low, i) == 0 ? zeroChildren : oneChildren;
+
+				children[node] = child;
+			}
+
+			node = child;
+		}
+
+		isPrefixEnd[node] = true;
+	}
+
+	boolean contains(long high, long low) {
+		int node = 0;
+
+		for (int i = 0; i < addressBits; i++) {
+			if (isPrefixEnd[node]) {
+				return true;
+			}
+
+			node = bit(high, low, i) == 0 ? zeroChildren[node] : oneChildren[node];
+
+			if (node == NO_CHILD) {
+				return false;
+			}
+		}
+
+		return isPrefixEnd[node];
+	}
+
+	int getNodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * Releases unused capacity, once all prefixes are added
+	 */
+	void compact() {
+		zeroChildren = Arrays.copyOf(zeroChildren, nodeCount);
+		oneChildren  = Arrays.copyOf(oneChildren, nodeCount);
+		isPrefixEnd  = Arrays.copyOf(isPrefixEnd, nodeCount);
+	}
+
+	private int newNode() {
+		if (nodeCount == zeroChildren.length) {
+			int newLength = nodeCount * 2;
+
+			zeroChildren = Arrays.copyOf(zeroChildren, newLength);
+			oneChildren  = Arrays.copyOf(oneChildren, newLength);
+			isPrefixEnd  = Arrays.copyOf(isPrefixEnd, newLength);
+		}
+
+		return nodeCount++;
+	}
+
+	private int bit(long high, long low, int index) {
+		if (addressBits == IPV4_BITS) {
+			return (int) (low >>> (IPV4_BITS - 1 - index)) & 1;
+		}
+
+		return (int) (index < 64 ? (high >>> (63 - index)) : (low >>> (127 - index))) & 1;
+	}
+
+	/**
+	 * Parses an IPv4 address in dotted-decimal notation; octets with leading zeros are not accepted, as their value is ambiguous.
+	 * @return the address, or -1 if str is not an IPv4 address
+	 */
+	static long parseIPv4(String str) {
+		long ret = parseIPv4Octets(str, 0, str.length());
+
+		return (ret >= 0 && (ret >>> IPV4_BITS) == 4) ? (ret & 0xFFFFFFFFL) : -1;
+	}
+
+	/**
+	 * Parses an IPv6 address of eight groups of 1-4 hex digits, where consecutive zero groups may be replaced by "::".
+	 * @return {high-order 64 bits, low-order 64 bits} of the address, or null if str is not an IPv6 address in this notation
+	 */
+	static long[] parseIPv6(String str) {
+		int[] groups = new int[8];
+		int   count  = parseIPv6Groups(str, 0, str.length(), groups, true);
+
+		return count == 8 ? toIPv6Address(groups, 8) : null;
+	}
+
+	/**
+	 * Parses a prefix of a wildcard IP address, as left by RangerIpMatcher.digestPolicyIp(): "10.20." or "a0:b0:"
+	 * A prefix with "::", like "fe80::", is not a bit prefix of the addresses it matches by string comparison, and isn't parsed.
+	 * @return {high-order 64 bits, low-order 64 bits, prefix length}, or null if the prefix can't be parsed
+	 */
+	static long[] parseWildcardPrefix(String str) {
+		long[] ret    = null;
+		int    length = str.length();
+
+		if (length > 1 && str.charAt(length - 1) == '.') {
+			long octets = parseIPv4Octets(str, 0, length - 1);
+
+			if (octets >= 0) {
+				int count = (int) (octets >>> IPV4_BITS);
+
+				if (count < 4) {
+					ret = new long[] { 0L, (octets & 0xFFFFFFFFL) << (8 * (4 - count)), 8 * count };
+				}
+			}
+		} else if (length > 1 && str.charAt(length - 1) == ':') {
+			int[] groups = new int[8];
+			int   count  = parseIPv6Groups(str, 0, length - 1, groups, false);
+
+			if (count > 0 && count < 8) {
+				long[] address = toIPv6Address(groups, count);
+
+				ret = new long[] { address[0], address[1], 16 * count };
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Parses a CIDR block, like "10.20.0.0/16" or "2001:db8::/32"
+	 * @return {high-order 64 bits, low-order 64 bits, prefix length, address bits}, or null if str is not a CIDR block
+	 */
+	static long[] parseCidr(String str) {
+		long[] ret   = null;
+		int    slash = str.indexOf('/');
+
+		if (slash > 0 && slash < str.length() - 1 && str.length() - slash <= 4) {
+			int prefixLength = 0;
+
+			for (int i = slash + 1; i < str.length(); i++) {
+				char c = str.charAt(i);
+
+				if (c < '0' || c > '9') {
+					return null;
+				}
+
+				prefixLength = prefixLength * 10 + (c - '0');
+			}
+
+			String address = str.substring(0, slash);
+			long   ipv4    = parseIPv4(address);
+
+			if (ipv4 >= 0) {
+				if (prefixLength <= IPV4_BITS) {
+					ret = new long[] { 0L, ipv4, prefixLength, IPV4_BITS };
+				}
+			} else {
+				long[] ipv6 = parseIPv6(address);
+
+				if (ipv6 != null && prefixLength <= IPV6_BITS) {
+					ret = new long[] { ipv6[0], ipv6[1], prefixLength, IPV6_BITS };
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	/*
+	 * returns (octet-count << 32) | value-of-octets, or -1 if str[from, to) is not a sequence of up to 4 dot-separated octets
+	 */
+	private static long parseIPv4Octets(String str, int from, int to) {
+		long value  = 0L;
+		int  count  = 0;
+		int  octet  = 0;
+		int  digits = 0;
+
+		for (int i = from; i <= to; i++) {
+			char c = i < to ? str.charAt(i) : '.';
+
+			if (c >= '0' && c <= '9') {
+				if (digits == 1 && octet == 0) { // leading zero
+					return -1L;
+				}
+
+				octet = octet * 10 + (c - '0');
+				digits++;
+
+				if (octet > 255) {
+					return -1L;
+				}
+			} else if (c == '.' && digits > 0 && count < 4) {
+				value = (value << 8) | octet;
+				count++;
+				octet  = 0;
+				digits = 0;
+			} else {
+				return -1L;
+			}
+		}
+
+		return ((long) count << IPV4_BITS) | value;
+	}
+
+	/*
+	 * parses groups of str[from, to) into groups, expanding "::" if allowed; returns the number of groups, or -1 on error
+	 */
+	private static int parseIPv6Groups(String str, int from, int to, int[] groups, boolean allowCompression) {
+		int count        = 0;
+		int compressedAt = -1;
+		int i            = from;
+
+		if (to - from >= 2 && str.charAt(from) == ':' && str.charAt(from + 1) == ':') {
+			if (!allowCompression) {
+				return -1;
+			}
+
+			compressedAt = 0;
+			i            = from + 2;
+		}
+
+		while (i < to) {
+			int value  = 0;
+			int digits = 0;
+
+			for (; i < to; i++) {
+				int digit = Character.digit(str.charAt(i), 16);
+
+				if (digit < 0) {
+					break;
+				}
+
+				value = (value << 4) | digit;
+
+				if (++digits > 4) {
+					return -1;
+				}
+			}
+
+			if (digits == 0 || count == 8) {
+				return -1;
+			}
+
+			groups[count++] = value;
+
+			if (i == to) {
+				break;
+			}
+
+			if (str.charAt(i) != ':' || ++i == to) {
+				return -1;
+			}
+
+			if (str.charAt(i) == ':') {
+				if (!allowCompression || compressedAt >= 0) {
+					return -1;
+				}
+
+				compressedAt = count;
+
+				i++;
+			}
+		}
+
+		if (compressedAt >= 0) {
+			if (count > 7) {
+				return -1;
+			}
+
+			int zeroGroups = 8 - count;
+
+			System.arraycopy(groups, compressedAt, groups, compressedAt + zeroGroups, count - compressedAt);
+			Arrays.fill(groups, compressedAt, compressedAt + zeroGroups, 0);
+
+			count = 8;
+		}
+
+		return count;
+	}
+
+	private static long[] toIPv6Address(int[] groups, int count) {
+		long high = 0L, low = 0L;
+
+		for (int i = 0; i < 8; i++) {
+			long group = i < count ? groups[i] : 0;
+
+			if (i < 4) {
+				high = (high << 16) | group;
+			} else {
+				low = (low << 16) | group;
+			}
+		}
+
+		return new long[] { high, low };
+	}
+}
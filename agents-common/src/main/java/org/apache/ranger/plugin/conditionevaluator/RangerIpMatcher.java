@@ -40,6 +40,12 @@ public class RangerIpMatcher extends RangerAbstractConditionEvaluator {
 	private List<String> _exactIps = new ArrayList<>();
 	private List<String> _wildCardIps = new ArrayList<>();
 	private boolean _allowAny;
+	// exact, wildcard and CIDR policy ips compiled into prefix tries; request ips that are not IPv4/IPv6 addresses are matched against the string lists above
+	private final RangerIpAddressTrie _ipv4Trie = new RangerIpAddressTrie(RangerIpAddressTrie.IPV4_BITS);
+	private final RangerIpAddressTrie _ipv6Trie = new RangerIpAddressTrie(RangerIpAddressTrie.IPV6_BITS);
+	// policy ips that can't be compiled into the tries, like "fe80::" (from "fe80::*"); IPv4/IPv6 addresses are matched against these by string comparison
+	private List<String> _uncompiledExactIps = new ArrayList<>();
+	private List<String> _uncompiledWildCardIps = new ArrayList<>();
 	
 	@Override
 	public void init() {
@@ -67,14 +73,23 @@ public class RangerIpMatcher extends RangerAbstractConditionEvaluator {
 					_allowAny = true;
 				} else if (digestedIp.equals(ip)) {
 					_exactIps.add(ip);
+					if (!addToTrie(ip, false)) {
+						_uncompiledExactIps.add(ip);
+					}
 				} else {
 					_wildCardIps.add(digestedIp);
+					if (!addToTrie(digestedIp, true)) {
+						_uncompiledWildCardIps.add(digestedIp);
+					}
 				}
 			}
+
+			_ipv4Trie.compact();
+			_ipv6Trie.compact();
 		}
 
 		if(LOG.isDebugEnabled()) {
-			LOG.debug("<== RangerIpMatcher.init(" + condition + "): exact-ips[" + _exactIps + "], wildcard-ips[" + _wildCardIps + "]");
+			LOG.debug("<== RangerIpMatcher.init(" + condition + "): exact-ips[" + _exactIps + "], wildcard-ips[" + _wildCardIps + "], uncompiled-exact-ips[" + _uncompiledExactIps + "], uncompiled-wildcard-ips[" + _uncompiledWildCardIps + "], ipv4-trie-nodes[" + _ipv4Trie.getNodeCount() + "], ipv6-trie-nodes[" + _ipv6Trie.getNodeCount() + "]");
 		}
 	}
 
@@ -92,7 +107,7 @@ public class RangerIpMatcher extends RangerAbstractConditionEvaluator {
 			if (requestIp == null) {
 				LOG.debug("isMatched: couldn't get ip address from request.  Ok.  Implicitly matched!");
 			} else {
-				ipMatched = isWildcardMatched(_wildCardIps, requestIp) || isExactlyMatched(_exactIps, requestIp);
+				ipMatched = isMatchedByTrie(requestIp);
 			}
 		}
 		
@@ -103,6 +118,84 @@ public class RangerIpMatcher extends RangerAbstractConditionEvaluator {
 		return ipMatched;
 	}
 	
+	/**
+	 * Matches IPv4 and IPv6 addresses by walking the prefix tries, and by string comparison against the policy ips that couldn't be compiled into them.
+	 * Other strings are matched as before, by string comparison against all policy ips. For an address, both give the same result.
+	 * @param requestIp
+	 * @return
+	 */
+	boolean isMatchedByTrie(final String requestIp) {
+		final boolean ret;
+		final long    ipv4 = RangerIpAddressTrie.parseIPv4(requestIp);
+
+		if (ipv4 >= 0) {
+			ret = _ipv4Trie.contains(0L, ipv4) || isUncompiledMatched(requestIp);
+		} else {
+			long[] ipv6 = requestIp.indexOf(':') >= 0 ? RangerIpAddressTrie.parseIPv6(requestIp) : null;
+
+			if (ipv6 != null) {
+				ret = _ipv6Trie.contains(ipv6[0], ipv6[1]) || isUncompiledMatched(requestIp);
+			} else {
+				ret = isWildcardMatched(_wildCardIps, requestIp) || isExactlyMatched(_exactIps, requestIp);
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("RangerIpMatcher.isMatchedByTrie(" + requestIp + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	private boolean isUncompiledMatched(final String requestIp) {
+		return (!_uncompiledWildCardIps.isEmpty() && isWildcardMatched(_uncompiledWildCardIps, requestIp))
+				|| (!_uncompiledExactIps.isEmpty() && isExactlyMatched(_uncompiledExactIps, requestIp));
+	}
+
+	/**
+	 * Compiles a policy ip into the prefix trie for its address family: an exact address, a wildcard prefix digested by digestPolicyIp(), or a CIDR block
+	 * @param ip
+	 * @param isWildcard
+	 * @return false if the ip can't be compiled, like a wildcard prefix ending with "::"; it must then be matched by string comparison
+	 */
+	private boolean addToTrie(final String ip, final boolean isWildcard) {
+		boolean ret = false;
+
+		if (isWildcard) {
+			long[] prefix = RangerIpAddressTrie.parseWildcardPrefix(ip);
+
+			if (prefix != null) {
+				(ip.indexOf(':') >= 0 ? _ipv6Trie : _ipv4Trie).add(prefix[0], prefix[1], (int) prefix[2]);
+				ret = true;
+			}
+		} else if (ip.indexOf('/') >= 0) {
+			long[] cidr = RangerIpAddressTrie.parseCidr(ip);
+
+			if (cidr != null) {
+				(cidr[3] == RangerIpAddressTrie.IPV6_BITS ? _ipv6Trie : _ipv4Trie).add(cidr[0], cidr[1], (int) cidr[2]);
+				ret = true;
+			} else {
+				LOG.warn("RangerIpMatcher: invalid CIDR block [" + ip + "]; it will be matched by string comparison");
+			}
+		} else {
+			long ipv4 = RangerIpAddressTrie.parseIPv4(ip);
+
+			if (ipv4 >= 0) {
+				_ipv4Trie.add(0L, ipv4, RangerIpAddressTrie.IPV4_BITS);
+				ret = true;
+			} else {
+				long[] ipv6 = ip.indexOf(':') >= 0 ? RangerIpAddressTrie.parseIPv6(ip) : null;
+
+				if (ipv6 != null) {
+					_ipv6Trie.add(ipv6[0], ipv6[1], RangerIpAddressTrie.IPV6_BITS);
+					ret = true;
+				}
+			}
+		}
+
+		return ret;
+	}
+
 	/**
 	 * Pre-digests the policy ip address to drop any trailing wildcard specifiers such that a simple beginsWith match can be done to check for match during authorization calls
 	 * @param ip
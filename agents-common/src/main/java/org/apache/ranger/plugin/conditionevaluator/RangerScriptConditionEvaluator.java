@@ -26,19 +26,44 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 import javax.script.ScriptException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+/*
+ * Evaluates a script condition, in JavaScript by default. The script is compiled once per evaluator, when first used, if the
+ * script engine supports compilation; each evaluation runs with new bindings, so that nothing set by a script is seen by others.
+ *
+ * Results are cached only when the condition-def opts in with evaluator options resultCacheSize and resultCacheKeyAttributes, a
+ * comma-separated list of the tag attributes the result depends on: results are then cached by the values of these attributes of
+ * the current tag. Only scripts whose result depends on nothing else - not on the user, the clock or other attributes - may do so.
+ */
 public class RangerScriptConditionEvaluator extends RangerAbstractConditionEvaluator {
 	private static final Log LOG = LogFactory.getLog(RangerScriptConditionEvaluator.class);
 
-	private ScriptEngine scriptEngine;
+	public static final String OPTION_ENGINE_NAME                 = "engineName";
+	public static final String OPTION_RESULT_CACHE_SIZE           = "resultCacheSize";
+	public static final String OPTION_RESULT_CACHE_KEY_ATTRIBUTES = "resultCacheKeyAttributes";
+
+	private static final String DEFAULT_ENGINE_NAME = "JavaScript";
+
+	private ScriptEngine                 scriptEngine;
+	private volatile boolean             isScriptCompiled;
+	private CompiledScript               compiledScript;
+	private List<String>                 cacheKeyAttributes;
+	private Cache<List<String>, Boolean> resultCache;
 
 	@Override
 	public void init() {
@@ -49,20 +74,36 @@ public class RangerScriptConditionEvaluator extends RangerAbstractConditionEvalu
 
 		super.init();
 
-		String engineName = "JavaScript";
+		String engineName      = DEFAULT_ENGINE_NAME;
+		int    resultCacheSize = 0;
 
 		Map<String, String> evalOptions = conditionDef. getEvaluatorOptions();
 
 		if (MapUtils.isNotEmpty(evalOptions)) {
-			engineName = evalOptions.get("engineName");
+			engineName      = evalOptions.get(OPTION_ENGINE_NAME);
+			resultCacheSize = MapUtils.getIntValue(evalOptions, OPTION_RESULT_CACHE_SIZE, 0);
+
+			String keyAttributes = evalOptions.get(OPTION_RESULT_CACHE_KEY_ATTRIBUTES);
+
+			if (resultCacheSize > 0 && StringUtils.isNotBlank(keyAttributes)) {
+				cacheKeyAttributes = new ArrayList<>();
+
+				for (String attrName : keyAttributes.split(",")) {
+					if (StringUtils.isNotBlank(attrName)) {
+						cacheKeyAttributes.add(attrName.trim());
+					}
+				}
+
+				resultCache = CacheBuilder.newBuilder().maximumSize(resultCacheSize).<List<String>, Boolean>build();
+			}
 		}
 
 		if (StringUtils.isBlank(engineName)) {
-			engineName = "JavaScript";
+			engineName = DEFAULT_ENGINE_NAME;
 		}
 
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("RangerScriptConditionEvaluator.init() - engineName=" + engineName);
+			LOG.debug("RangerScriptConditionEvaluator.init() - engineName=" + engineName + ", resultCacheSize=" + resultCacheSize + ", resultCacheKeyAttributes=" + cacheKeyAttributes);
 		}
 
 		try {
@@ -89,39 +130,61 @@ public class RangerScriptConditionEvaluator extends RangerAbstractConditionEvalu
 			String script = getScript();
 
 			if (StringUtils.isNotBlank(script)) {
+				if (!isScriptCompiled) {
+					compileScript(script);
+				}
 
-				RangerAccessRequest readOnlyRequest = request.getReadOnlyCopy();
-
-				RangerScriptExecutionContext context    = new RangerScriptExecutionContext(readOnlyRequest);
-				RangerTagForEval             currentTag = context.getCurrentTag();
-				Map<String, String>          tagAttribs = currentTag != null ? currentTag.getAttributes() : Collections.<String, String>emptyMap();
+				RangerTagForEval    currentTag = getCurrentTag(request);
+				Map<String, String> tagAttribs = currentTag != null ? currentTag.getAttributes() : Collections.<String, String>emptyMap();
+				List<String>        cacheKey   = null;
+				Boolean             cachedRet  = null;
 
-				Bindings bindings = scriptEngine.createBindings();
+				if (resultCache != null) {
+					cacheKey = new ArrayList<>(cacheKeyAttributes.size());
 
-				bindings.put("ctx", context);
-				bindings.put("tag", currentTag);
-				bindings.put("tagAttr", tagAttribs);
+					for (String attrName : cacheKeyAttributes) {
+						cacheKey.add(tagAttribs == null ? null : tagAttribs.get(attrName));
+					}
 
-				if (LOG.isDebugEnabled()) {
-					LOG.debug("RangerScriptConditionEvaluator.isMatched(): script={" + script + "}");
+					cachedRet = resultCache.getIfPresent(cacheKey);
 				}
-				try {
 
-					Object ret = scriptEngine.eval(script, bindings);
+				if (cachedRet != null) {
+					result = cachedRet;
+				} else {
+					RangerAccessRequest          readOnlyRequest = request.getReadOnlyCopy();
+					RangerScriptExecutionContext context         = new RangerScriptExecutionContext(readOnlyRequest);
+					Bindings                     bindings        = scriptEngine.createBindings();
 
-					if (ret == null) {
-						ret = context.getResult();
-					}
-					if (ret instanceof Boolean) {
-						result = (Boolean) ret;
+					bindings.put("ctx", context);
+					bindings.put("tag", currentTag);
+					bindings.put("tagAttr", tagAttribs);
+
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("RangerScriptConditionEvaluator.isMatched(): script={" + script + "}");
 					}
+					try {
 
-				} catch (NullPointerException nullp) {
-					LOG.error("RangerScriptConditionEvaluator.isMatched(): eval called with NULL argument(s)", nullp);
+						Object ret = compiledScript != null ? compiledScript.eval(bindings) : scriptEngine.eval(script, bindings);
 
-				} catch (ScriptException exception) {
-					LOG.error("RangerScriptConditionEvaluator.isMatched(): failed to evaluate script," +
-							" exception=" + exception);
+						if (ret == null) {
+							ret = context.getResult();
+						}
+						if (ret instanceof Boolean) {
+							result = (Boolean) ret;
+						}
+
+						if (cacheKey != null) {
+							resultCache.put(cacheKey, result);
+						}
+
+					} catch (NullPointerException nullp) {
+						LOG.error("RangerScriptConditionEvaluator.isMatched(): eval called with NULL argument(s)", nullp);
+
+					} catch (ScriptException exception) {
+						LOG.error("RangerScriptConditionEvaluator.isMatched(): failed to evaluate script," +
+								" exception=" + exception);
+					}
 				}
 			}
 
@@ -135,6 +198,38 @@ public class RangerScriptConditionEvaluator extends RangerAbstractConditionEvalu
 
 	}
 
+	boolean isScriptCompiled() {
+		return compiledScript != null;
+	}
+
+	boolean isResultCacheEnabled() {
+		return resultCache != null;
+	}
+
+	private synchronized void compileScript(String script) {
+		if (isScriptCompiled) {
+			return;
+		}
+
+		if (scriptEngine instanceof Compilable) {
+			try {
+				compiledScript = ((Compilable) scriptEngine).compile(script);
+			} catch (ScriptException exception) {
+				LOG.error("RangerScriptConditionEvaluator.compileScript(): failed to compile script, script will be evaluated on each call," +
+						" exception=" + exception);
+			}
+		}
+
+		isScriptCompiled = true;
+	}
+
+	// same as RangerScriptExecutionContext.getCurrentTag(), without creating the context for cached results
+	private static RangerTagForEval getCurrentTag(RangerAccessRequest request) {
+		Object val = request.getContext() != null ? request.getContext().get(RangerAccessRequestUtil.KEY_CONTEXT_TAG_OBJECT) : null;
+
+		return val instanceof RangerTagForEval ? (RangerTagForEval) val : null;
+	}
+
 	protected String getScript() {
 		String ret = null;
 
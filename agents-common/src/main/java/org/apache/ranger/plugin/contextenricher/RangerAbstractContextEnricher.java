@@ -188,6 +188,17 @@ public abstract class RangerAbstractContextEnricher implements RangerContextEnri
 		return ret;
 	}
 
+	public int getIntOption(String name, int defaultValue) {
+		int    ret = defaultValue;
+		String val = getOption(name);
+
+		if(val != null) {
+			ret = Integer.parseInt(val);
+		}
+
+		return ret;
+	}
+
 	public long getLongOption(String name, long defaultValue) {
 		long ret = defaultValue;
 		String  val = getOption(name);
@@ -0,0 +1,376 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.contextenricher;
+
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.util.ServiceTags;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Array based replacement for ServiceTags.tags and ServiceTags.resourceToTagIds, used by RangerTagEnricher once
+ * tags are processed. Both maps hold a boxed Long per entry, and resourceToTagIds a List<Long> per tagged resource;
+ * here tag-ids and resource-ids are kept in sorted long[] and the resource-to-tag mapping as an adjacency list of
+ * int indexes into the tags array. Tags are copies of the given ones, which share strings and unmodifiable attribute
+ * maps repeated across tags; the given tags are not modified.
+ */
+final class RangerCompactTagStore {
+	private static final long[]      EMPTY_IDS     = new long[0];
+	private static final RangerTag[] EMPTY_TAGS    = new RangerTag[0];
+	private static final int[]       EMPTY_INDEXES = new int[0];
+
+	private final long[]      tagIds;             // sorted
+	private final RangerTag[] tags;               // tags[i] is the tag with id tagIds[i]
+	private final long[]      resourceIds;        // sorted
+	private final int[]       resourceTagOffsets; // tags of resourceIds[i] are at resourceTagIndexes[resourceTagOffsets[i] .. resourceTagOffsets[i + 1])
+	private final int[]       resourceTagIndexes; // indexes into tags
+
+	RangerCompactTagStore(Map<Long, RangerTag> tags, Map<Long, List<Long>> resourceToTagIds) {
+		if (MapUtils.isEmpty(tags)) {
+			this.tagIds = EMPTY_IDS;
+			this.tags   = EMPTY_TAGS;
+		} else {
+			Interner interner = new Interner();
+
+			this.tagIds = toSortedArray(tags.keySet());
+			this.tags   = new RangerTag[tagIds.length];
+
+			for (int i = 0; i < tagIds.length; i++) {
+				this.tags[i] = interner.intern(tags.get(tagIds[i]));
+			}
+		}
+
+		if (MapUtils.isEmpty(resourceToTagIds)) {
+			this.resourceIds        = EMPTY_IDS;
+			this.resourceTagOffsets = new int[] { 0 };
+			this.resourceTagIndexes = EMPTY_INDEXES;
+		} else {
+			long[] resourceIds = toSortedArray(resourceToTagIds.keySet());
+			int[]  offsets     = new int[resourceIds.length + 1];
+			int[]  indexes     = new int[countValues(resourceToTagIds)];
+			int    count       = 0;
+
+			for (int i = 0; i < resourceIds.length; i++) {
+				List<Long> resourceTagIds = resourceToTagIds.get(resourceIds[i]);
+
+				offsets[i] = count;
+
+				if (resourceTagIds != null) {
+					for (Long tagId : resourceTagIds) {
+						int tagIdx = tagId == null ? -1 : Arrays.binarySearch(tagIds, tagId);
+
+						if (tagIdx >= 0) {
+							indexes[count++] = tagIdx;
+						}
+					}
+				}
+			}
+
+			offsets[resourceIds.length] = count;
+
+			this.resourceIds        = resourceIds;
+			this.resourceTagOffsets = offsets;
+			this.resourceTagIndexes = count == indexes.length ? indexes : Arrays.copyOf(indexes, count);
+		}
+	}
+
+	private RangerCompactTagStore(long[] tagIds, RangerTag[] tags, long[] resourceIds, int[] resourceTagOffsets, int[] resourceTagIndexes) {
+		this.tagIds             = tagIds;
+		this.tags               = tags;
+		this.resourceIds        = resourceIds;
+		this.resourceTagOffsets = resourceTagOffsets;
+		this.resourceTagIndexes = resourceTagIndexes;
+	}
+
+	/*
+	 * Returns a new store with the tag-delta applied, with the same result as RangerServiceTagsDeltaUtil.applyDelta() on
+	 * ServiceTags: tags with empty type are removed, other tags of the delta are added or replaced; tag-ids of deleted
+	 * service-resources - those with empty resource-signature - are removed, then resource-to-tag-ids of the delta are
+	 * added or replaced. Tags and mappings not in the delta are reused from this store, without building maps of them.
+	 * Must be called before RangerServiceTagsDeltaUtil.applyDelta(), which modifies the service-resources of the delta.
+	 */
+	RangerCompactTagStore applyDelta(ServiceTags delta) {
+		Map<Long, RangerTag>  deltaTags             = delta.getTags() != null ? delta.getTags() : Collections.<Long, RangerTag>emptyMap();
+		Map<Long, List<Long>> deltaResourceToTagIds = delta.getResourceToTagIds() != null ? delta.getResourceToTagIds() : Collections.<Long, List<Long>>emptyMap();
+		Interner              interner              = new Interner();
+
+		// merge tags; tagIdxMap maps the index of a tag in this store to its index in the new store, -1 if removed
+		long[]      changedTagIds = toSortedArray(deltaTags.keySet());
+		long[]      newTagIds     = new long[tagIds.length + changedTagIds.length];
+		RangerTag[] newTags       = new RangerTag[newTagIds.length];
+		int[]       tagIdxMap     = new int[tagIds.length];
+		int         tagCount      = 0;
+
+		for (int i = 0, j = 0; i < tagIds.length || j < changedTagIds.length; ) {
+			if (j == changedTagIds.length || (i < tagIds.length && tagIds[i] < changedTagIds[j])) {
+				tagIdxMap[i]        = tagCount;
+				newTagIds[tagCount] = tagIds[i];
+				newTags[tagCount++] = tags[i++];
+			} else {
+				RangerTag tag       = deltaTags.get(changedTagIds[j]);
+				boolean   isRemoved = tag == null || StringUtils.isEmpty(tag.getType());
+
+				if (i < tagIds.length && tagIds[i] == changedTagIds[j]) {
+					tagIdxMap[i++] = isRemoved ? -1 : tagCount;
+				}
+
+				if (!isRemoved) {
+					newTagIds[tagCount] = changedTagIds[j];
+					newTags[tagCount++] = interner.intern(tag);
+				}
+
+				j++;
+			}
+		}
+
+		newTagIds = Arrays.copyOf(newTagIds, tagCount);
+		newTags   = Arrays.copyOf(newTags, tagCount);
+
+		// merge resources
+		Set<Long> deletedResourceIds = new HashSet<>();
+
+		if (delta.getServiceResources() != null) {
+			for (RangerServiceResource serviceResource : delta.getServiceResources()) {
+				if (StringUtils.isEmpty(serviceResource.getResourceSignature())) {
+					deletedResourceIds.add(serviceResource.getId());
+				}
+			}
+		}
+
+		long[] changedResourceIds = toSortedArray(deltaResourceToTagIds.keySet());
+		long[] newResourceIds     = new long[resourceIds.length + changedResourceIds.length];
+		int[]  newOffsets         = new int[newResourceIds.length + 1];
+		int[]  newIndexes         = new int[resourceTagIndexes.length + countValues(deltaResourceToTagIds)];
+		int    resourceCount      = 0;
+		int    indexCount         = 0;
+
+		for (int i = 0, j = 0; i < resourceIds.length || j < changedResourceIds.length; ) {
+			if (j == changedResourceIds.length || (i < resourceIds.length && resourceIds[i] < changedResourceIds[j])) {
+				if (!deletedResourceIds.contains(resourceIds[i])) {
+					newResourceIds[resourceCount] = resourceIds[i];
+					newOffsets[resourceCount++]   = indexCount;
+
+					for (int k = resourceTagOffsets[i]; k < resourceTagOffsets[i + 1]; k++) {
+						int tagIdx = tagIdxMap[resourceTagIndexes[k]];
+
+						if (tagIdx >= 0) {
+							newIndexes[indexCount++] = tagIdx;
+						}
+					}
+				}
+
+				i++;
+			} else {
+				if (i < resourceIds.length && resourceIds[i] == changedResourceIds[j]) {
+					i++;
+				}
+
+				List<Long> resourceTagIds = deltaResourceToTagIds.get(changedResourceIds[j]);
+
+				newResourceIds[resourceCount] = changedResourceIds[j];
+				newOffsets[resourceCount++]   = indexCount;
+
+				if (resourceTagIds != null) {
+					for (Long tagId : resourceTagIds) {
+						int tagIdx = tagId == null ? -1 : Arrays.binarySearch(newTagIds, tagId);
+
+						if (tagIdx >= 0) {
+							newIndexes[indexCount++] = tagIdx;
+						}
+					}
+				}
+
+				j++;
+			}
+		}
+
+		newOffsets[resourceCount] = indexCount;
+
+		return new RangerCompactTagStore(newTagIds, newTags, Arrays.copyOf(newResourceIds, resourceCount), Arrays.copyOf(newOffsets, resourceCount + 1), Arrays.copyOf(newIndexes, indexCount));
+	}
+
+	int getTagCount() {
+		return tags.length;
+	}
+
+	int getTaggedResourceCount() {
+		return resourceIds.length;
+	}
+
+	RangerTag[] getTags() {
+		return tags;
+	}
+
+	List<RangerTag> getTagsForResource(Long resourceId) {
+		int resourceIdx = resourceId == null ? -1 : Arrays.binarySearch(resourceIds, resourceId);
+
+		if (resourceIdx < 0) {
+			return Collections.emptyList();
+		}
+
+		int             start = resourceTagOffsets[resourceIdx];
+		int             end   = resourceTagOffsets[resourceIdx + 1];
+		List<RangerTag> ret   = new ArrayList<>(end - start);
+
+		for (int i = start; i < end; i++) {
+			ret.add(tags[resourceTagIndexes[i]]);
+		}
+
+		return ret;
+	}
+
+	// the maps returned below are new and can be modified by the caller, for example to apply tag-deltas
+	Map<Long, RangerTag> toTagsMap() {
+		Map<Long, RangerTag> ret = new HashMap<>(tagIds.length * 4 / 3 + 1);
+
+		for (int i = 0; i < tagIds.length; i++) {
+			ret.put(tagIds[i], tags[i]);
+		}
+
+		return ret;
+	}
+
+	Map<Long, List<Long>> toResourceToTagIdsMap() {
+		Map<Long, List<Long>> ret = new HashMap<>(resourceIds.length * 4 / 3 + 1);
+
+		for (int i = 0; i < resourceIds.length; i++) {
+			int        start          = resourceTagOffsets[i];
+			int        end            = resourceTagOffsets[i + 1];
+			List<Long> resourceTagIds = new ArrayList<>(end - start);
+
+			for (int j = start; j < end; j++) {
+				resourceTagIds.add(tagIds[resourceTagIndexes[j]]);
+			}
+
+			ret.put(resourceIds[i], resourceTagIds);
+		}
+
+		return ret;
+	}
+
+	private static long[] toSortedArray(Iterable<Long> values) {
+		long[] ret   = new long[16];
+		int    count = 0;
+
+		for (Long value : values) {
+			if (value != null) {
+				if (count == ret.length) {
+					ret = Arrays.copyOf(ret, count * 2);
+				}
+
+				ret[count++] = value;
+			}
+		}
+
+		ret = Arrays.copyOf(ret, count);
+
+		Arrays.sort(ret);
+
+		return ret;
+	}
+
+	private static int countValues(Map<Long, List<Long>> resourceToTagIds) {
+		int ret = 0;
+
+		for (List<Long> tagIds : resourceToTagIds.values()) {
+			if (tagIds != null) {
+				ret += tagIds.size();
+			}
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Tags of a type usually carry the same attribute names and often the same values (like PII, level=high);
+	 * share one String per distinct value and one unmodifiable attribute map per distinct set of attributes.
+	 * intern() returns a copy of the tag, so that tags given by the caller are neither modified nor share maps.
+	 */
+	private static final class Interner {
+		private final Map<String, String>                           strings    = new HashMap<>();
+		private final Map<Map<String, String>, Map<String, String>> attributes = new HashMap<>();
+
+		RangerTag intern(RangerTag tag) {
+			if (tag == null) {
+				return null;
+			}
+
+			RangerTag ret = new RangerTag(tag.getGuid(), intern(tag.getType()), intern(tag.getAttributes()), tag.getOwner(), tag.getOptions(), tag.getValidityPeriods());
+
+			ret.setId(tag.getId());
+			ret.setIsEnabled(tag.getIsEnabled());
+			ret.setCreatedBy(tag.getCreatedBy());
+			ret.setUpdatedBy(tag.getUpdatedBy());
+			ret.setCreateTime(tag.getCreateTime());
+			ret.setUpdateTime(tag.getUpdateTime());
+			ret.setVersion(tag.getVersion());
+
+			return ret;
+		}
+
+		Map<String, String> intern(Map<String, String> tagAttributes) {
+			if (MapUtils.isEmpty(tagAttributes)) {
+				return Collections.emptyMap();
+			}
+
+			Map<String, String> ret = attributes.get(tagAttributes);
+
+			if (ret == null) {
+				Map<String, String> shared = new HashMap<>(tagAttributes.size() * 4 / 3 + 1);
+
+				for (Map.Entry<String, String> entry : tagAttributes.entrySet()) {
+					shared.put(intern(entry.getKey()), intern(entry.getValue()));
+				}
+
+				ret = Collections.unmodifiableMap(shared);
+
+				attributes.put(ret, ret);
+			}
+
+			return ret;
+		}
+
+		String intern(String str) {
+			if (str == null) {
+				return null;
+			}
+
+			String ret = strings.get(str);
+
+			if (ret == null) {
+				ret = str;
+
+				strings.put(str, str);
+			}
+
+			return ret;
+		}
+	}
+}
@@ -19,14 +19,18 @@
 
 package org.apache.ranger.plugin.contextenricher;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
+import org.apache.ranger.plugin.metrics.RangerCounter;
+import org.apache.ranger.plugin.metrics.RangerHistogram;
+import org.apache.ranger.plugin.metrics.RangerMetricsRegistry;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.model.RangerServiceResource;
@@ -42,6 +46,7 @@ import org.apache.ranger.plugin.util.DownloaderTask;
 import org.apache.ranger.plugin.service.RangerAuthContext;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerObjectDeduplicator;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerResourceTrie;
 import org.apache.ranger.plugin.util.RangerServiceNotFoundException;
@@ -64,6 +69,7 @@ import java.util.Set;
 import java.util.Timer;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class RangerTagEnricher extends RangerAbstractContextEnricher {
 	private static final Log LOG = LogFactory.getLog(RangerTagEnricher.class);
@@ -76,12 +82,21 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 	private static final String TAG_REFRESHER_POLLINGINTERVAL_OPTION = "tagRefresherPollingInterval";
 	private static final String TAG_RETRIEVER_CLASSNAME_OPTION       = "tagRetrieverClassName";
 	private static final String TAG_DISABLE_TRIE_PREFILTER_OPTION    = "disableTrieLookupPrefilter";
+	private static final String TAG_LOOKUP_CACHE_SIZE_OPTION         = "tagLookupCacheSize";
+	private static final String TAG_DEDUPLICATE_STRINGS_OPTION       = "deduplicateStrings";
+
+	private static final int    TAG_LOOKUP_CACHE_SIZE_DEFAULT        = 10000;
 
 	private RangerTagRefresher                 tagRefresher;
 	private RangerTagRetriever                 tagRetriever;
 	private boolean                            disableTrieLookupPrefilter;
+	private int                                tagLookupCacheSize = TAG_LOOKUP_CACHE_SIZE_DEFAULT;
+	private boolean                            deduplicateStrings = true;
 	private EnrichedServiceTags                enrichedServiceTags;
 	private boolean                            disableCacheIfServiceNotFound = true;
+	private RangerHistogram                    enrichLatency;
+	private RangerCounter                      tagLookupCacheHits;
+	private RangerCounter                      tagLookupCacheMisses;
 
 	private final BlockingQueue<DownloadTrigger> tagDownloadQueue = new LinkedBlockingQueue<>();
 	private Timer                              tagDownloadTimer;
@@ -99,6 +114,16 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 		long pollingIntervalMs = getLongOption(TAG_REFRESHER_POLLINGINTERVAL_OPTION, 60 * 1000);
 
 		disableTrieLookupPrefilter = getBooleanOption(TAG_DISABLE_TRIE_PREFILTER_OPTION, false);
+		tagLookupCacheSize         = getIntOption(TAG_LOOKUP_CACHE_SIZE_OPTION, TAG_LOOKUP_CACHE_SIZE_DEFAULT);
+		deduplicateStrings         = getBooleanOption(TAG_DEDUPLICATE_STRINGS_OPTION, true);
+
+		RangerMetricsRegistry metricsRegistry = RangerMetricsRegistry.getInstance();
+
+		enrichLatency        = metricsRegistry.getHistogram("ranger_tagenricher_enrich_latency_microseconds", "service", serviceName);
+		tagLookupCacheHits   = metricsRegistry.getCounter("ranger_tagenricher_lookup_cache_hits_total", "service", serviceName);
+		tagLookupCacheMisses = metricsRegistry.getCounter("ranger_tagenricher_lookup_cache_misses_total", "service", serviceName);
+
+		metricsRegistry.registerGauge(this::getServiceTagsVersion, "ranger_tagenricher_tag_version", "service", serviceName);
 
 		if (StringUtils.isNotBlank(tagRetrieverClassName)) {
 
@@ -196,10 +221,15 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 			}
 		}
 
-		final Set<RangerTagForEval> matchedTags = enrichedServiceTags == null ? null : findMatchingTags(request, enrichedServiceTags);
+		final long                  startTimeNanos = System.nanoTime();
+		final Set<RangerTagForEval> matchedTags    = enrichedServiceTags == null ? null : findMatchingTags(request, enrichedServiceTags);
 
 		RangerAccessRequestUtil.setRequestTagsInContext(request.getContext(), matchedTags);
 
+		if (enrichLatency != null) {
+			enrichLatency.recordElapsedNanos(startTimeNanos);
+		}
+
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("<== RangerTagEnricher.enrich(" + request + ") with dataStore:[" + dataStore + "]): tags count=" + (matchedTags == null ? 0 : matchedTags.size()));
 		}
@@ -267,6 +297,10 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 		} else  {
 			RangerPerfTracer perf = null;
 
+			if (deduplicateStrings && !rebuildOnlyIndex) {
+				RangerObjectDeduplicator.deduplicate(serviceTags, serviceName);
+			}
+
 			if(RangerPerfTracer.isPerfTraceEnabled(PERF_SET_SERVICETAGS_LOG)) {
 				perf = RangerPerfTracer.getPerfTracer(PERF_SET_SERVICETAGS_LOG, "RangerTagEnricher.setServiceTags(newTagVersion=" + serviceTags.getTagVersion() + ",isDelta=" + serviceTags.getIsDelta() + ")");
 			}
@@ -278,8 +312,11 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 					LOG.debug("Received service-tag deltas:" + serviceTags);
 				}
 
-				ServiceTags oldServiceTags = enrichedServiceTags != null ? enrichedServiceTags.getServiceTags() : new ServiceTags();
-				ServiceTags allServiceTags = rebuildOnlyIndex ? oldServiceTags : RangerServiceTagsDeltaUtil.applyDelta(oldServiceTags, serviceTags);
+				// tags and resourceToTagIds are merged into the compact tag-store, without building maps of all tags
+				RangerCompactTagStore oldTagStore    = enrichedServiceTags != null ? enrichedServiceTags.getTagStore() : new RangerCompactTagStore(null, null);
+				RangerCompactTagStore allTagStore    = rebuildOnlyIndex ? oldTagStore : oldTagStore.applyDelta(serviceTags);
+				ServiceTags           oldServiceTags = enrichedServiceTags != null ? enrichedServiceTags.getServiceTagsWithoutTags() : new ServiceTags();
+				ServiceTags           allServiceTags = rebuildOnlyIndex ? oldServiceTags : RangerServiceTagsDeltaUtil.applyDelta(oldServiceTags, serviceTags);
 
 				if (serviceTags.getTagsChangeExtent() == ServiceTags.TagsChangeExtent.NONE) {
 					if (LOG.isDebugEnabled()) {
@@ -287,14 +324,14 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 					}
 				} else {
 					if (serviceTags.getTagsChangeExtent() != ServiceTags.TagsChangeExtent.TAGS) {
-						processServiceTagDeltas(serviceTags, allServiceTags);
+						processServiceTagDeltas(serviceTags, allServiceTags, allTagStore);
 					} else {
 						if (LOG.isDebugEnabled()) {
 							LOG.debug("Delta contains only tag attribute changes");
 						}
 						List<RangerServiceResourceMatcher>                            resourceMatchers    = enrichedServiceTags != null ? enrichedServiceTags.getServiceResourceMatchers() : new ArrayList<>();
 						Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie = enrichedServiceTags != null ? enrichedServiceTags.getServiceResourceTrie() : new HashMap<>();
-						enrichedServiceTags = new EnrichedServiceTags(allServiceTags, resourceMatchers, serviceResourceTrie);
+						enrichedServiceTags = new EnrichedServiceTags(allServiceTags, allTagStore, resourceMatchers, serviceResourceTrie, tagLookupCacheSize);
 					}
 				}
 			}
@@ -310,13 +347,25 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 	}
 
 	protected Long getServiceTagsVersion() {
-		return enrichedServiceTags != null ? enrichedServiceTags.getServiceTags().getTagVersion() : -1L;
+		return enrichedServiceTags != null ? enrichedServiceTags.getTagVersion() : -1L;
 	}
 
 	protected Long getResourceTrieVersion() {
 		return enrichedServiceTags != null ? enrichedServiceTags.getResourceTrieVersion() : -1L;
 	}
 
+	public long getTagLookupCacheHitCount() {
+		final EnrichedServiceTags enrichedServiceTags = this.enrichedServiceTags;
+
+		return enrichedServiceTags != null && enrichedServiceTags.getTagLookupCache() != null ? enrichedServiceTags.getTagLookupCache().getHitCount() : 0;
+	}
+
+	public long getTagLookupCacheMissCount() {
+		final EnrichedServiceTags enrichedServiceTags = this.enrichedServiceTags;
+
+		return enrichedServiceTags != null && enrichedServiceTags.getTagLookupCache() != null ? enrichedServiceTags.getTagLookupCache().getMissCount() : 0;
+	}
+
 	@Override
 	public boolean preCleanup() {
 		if (LOG.isDebugEnabled()) {
@@ -439,12 +488,12 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 						serviceResourceTrie.put(resourceDef.getName(), new RangerResourceTrie<>(resourceDef, resourceMatchers));
 					}
 				}
-				enrichedServiceTags = new EnrichedServiceTags(serviceTags, resourceMatchers, serviceResourceTrie);
+				enrichedServiceTags = new EnrichedServiceTags(serviceTags, resourceMatchers, serviceResourceTrie, tagLookupCacheSize);
 			}
 		}
 	}
 
-	private void processServiceTagDeltas(ServiceTags deltas, ServiceTags allServiceTags) {
+	private void processServiceTagDeltas(ServiceTags deltas, ServiceTags allServiceTags, RangerCompactTagStore allTagStore) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("Delta contains changes other than tag attribute changes, [" + deltas.getTagsChangeExtent() + "]");
 		}
@@ -528,7 +577,7 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 			LOG.error("Error in processing tag-deltas. Will continue to use old tags");
 			deltas.setTagVersion(-1L);
 		} else {
-			enrichedServiceTags = new EnrichedServiceTags(allServiceTags, resourceMatchers, serviceResourceTrie);
+			enrichedServiceTags = new EnrichedServiceTags(allServiceTags, allTagStore, resourceMatchers, serviceResourceTrie, tagLookupCacheSize);
 		}
 
 	}
@@ -673,6 +722,26 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 		if ((resource == null || resource.getKeys() == null || resource.getKeys().isEmpty()) && request.isAccessTypeAny()) {
 			ret = enrichedServiceTags.getTagsForEmptyResourceAndAnyAccess();
 		} else {
+			final TagLookupCache tagLookupCache = enrichedServiceTags.getTagLookupCache();
+			final String         cacheKey       = tagLookupCache != null ? TagLookupCache.getCacheKey(request) : null;
+
+			if (cacheKey != null) {
+				ret = tagLookupCache.get(cacheKey);
+
+				RangerCounter lookupCounter = ret != null ? tagLookupCacheHits : tagLookupCacheMisses;
+
+				if (lookupCounter != null) {
+					lookupCounter.increment();
+				}
+
+				if (ret != null) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("<== RangerTagEnricher.findMatchingTags(" + request + "): found in tag-lookup cache");
+					}
+
+					return ret.isEmpty() ? null : ret;
+				}
+			}
 
 			final List<RangerServiceResourceMatcher> serviceResourceMatchers = getEvaluators(resource, enrichedServiceTags);
 
@@ -696,11 +765,17 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 						if (ret == null) {
 							ret = new HashSet<>();
 						}
-						ret.addAll(getTagsForServiceResource(enrichedServiceTags.getServiceTags(), resourceMatcher.getServiceResource(), matchType));
+						ret.addAll(getTagsForServiceResource(enrichedServiceTags.getTagStore(), resourceMatcher.getServiceResource(), matchType));
 					}
 
 				}
 			}
+
+			if (cacheKey != null) {
+				ret = ret == null ? null : Collections.unmodifiableSet(ret);
+
+				tagLookupCache.put(cacheKey, ret == null ? Collections.<RangerTagForEval>emptySet() : ret);
+			}
 		}
 
 		if (CollectionUtils.isEmpty(ret)) {
@@ -803,63 +878,125 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 		return ret;
 	}
 
-	private static Set<RangerTagForEval> getTagsForServiceResource(final ServiceTags serviceTags, final RangerServiceResource serviceResource, final RangerPolicyResourceMatcher.MatchType matchType) {
+	private static Set<RangerTagForEval> getTagsForServiceResource(final RangerCompactTagStore tagStore, final RangerServiceResource serviceResource, final RangerPolicyResourceMatcher.MatchType matchType) {
 		Set<RangerTagForEval> ret = new HashSet<>();
 
 		final Long resourceId = serviceResource.getId();
 
-		final Map<Long, List<Long>> resourceToTagIds = serviceTags.getResourceToTagIds();
-		final Map<Long, RangerTag> tags = serviceTags.getTags();
-
-		if (resourceId != null && MapUtils.isNotEmpty(resourceToTagIds) && MapUtils.isNotEmpty(tags)) {
-
-			List<Long> tagIds = resourceToTagIds.get(resourceId);
-
-			if (CollectionUtils.isNotEmpty(tagIds)) {
-
-				for (Long tagId : tagIds) {
+		if (resourceId != null && tagStore.getTaggedResourceCount() > 0) {
 
-					RangerTag tag = tags.get(tagId);
-
-					if (tag != null) {
-						ret.add(new RangerTagForEval(tag, matchType));
-					}
-				}
+			for (RangerTag tag : tagStore.getTagsForResource(resourceId)) {
+				ret.add(new RangerTagForEval(tag, matchType));
 			}
 		}
 
 		return ret;
 	}
 
+	/*
+	 * ServiceTags kept here does not hold tags and resourceToTagIds; these are in tagStore. getServiceTags() rebuilds
+	 * the complete ServiceTags, which is needed only to save tags to the cache file and to compare; tag-deltas are
+	 * applied to tagStore and to getServiceTagsWithoutTags().
+	 */
 	static private final class EnrichedServiceTags {
 		final private ServiceTags                                                      serviceTags;
+		final private RangerCompactTagStore                                            tagStore;
 		final private List<RangerServiceResourceMatcher>                               serviceResourceMatchers;
 		final private Map<String, RangerResourceTrie<RangerServiceResourceMatcher>>    serviceResourceTrie;
 		final private Set<RangerTagForEval>                                            tagsForEmptyResourceAndAnyAccess; // Used only when accessed resource is empty and access type is 'any'
 		final private Long                                                             resourceTrieVersion;
+		final private TagLookupCache                                                   tagLookupCache;
+
+		EnrichedServiceTags(ServiceTags serviceTags, List<RangerServiceResourceMatcher> serviceResourceMatchers, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie, int tagLookupCacheSize) {
+			this(serviceTags, new RangerCompactTagStore(serviceTags.getTags(), serviceTags.getResourceToTagIds()), serviceResourceMatchers, serviceResourceTrie, tagLookupCacheSize);
+		}
 
-		EnrichedServiceTags(ServiceTags serviceTags, List<RangerServiceResourceMatcher> serviceResourceMatchers, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie) {
-			this.serviceTags                      = serviceTags;
+		EnrichedServiceTags(ServiceTags serviceTags, RangerCompactTagStore tagStore, List<RangerServiceResourceMatcher> serviceResourceMatchers, Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> serviceResourceTrie, int tagLookupCacheSize) {
+			this.tagStore                         = tagStore;
+			this.serviceTags                      = new ServiceTags(serviceTags.getOp(), serviceTags.getServiceName(), serviceTags.getTagVersion(), serviceTags.getTagUpdateTime(),
+			                                                        serviceTags.getTagDefinitions(), null, serviceTags.getServiceResources(), null,
+			                                                        serviceTags.getIsDelta(), serviceTags.getTagsChangeExtent());
 			this.serviceResourceMatchers          = serviceResourceMatchers;
 			this.serviceResourceTrie              = serviceResourceTrie;
 			this.tagsForEmptyResourceAndAnyAccess = createTagsForEmptyResourceAndAnyAccess();
 			this.resourceTrieVersion              = serviceTags.getTagVersion();
+			this.tagLookupCache                   = tagLookupCacheSize > 0 ? new TagLookupCache(tagLookupCacheSize) : null;
+		}
+		ServiceTags                                                   getServiceTags() {
+			return new ServiceTags(serviceTags.getOp(), serviceTags.getServiceName(), serviceTags.getTagVersion(), serviceTags.getTagUpdateTime(),
+			                       serviceTags.getTagDefinitions(), tagStore.toTagsMap(), new ArrayList<>(serviceTags.getServiceResources()), tagStore.toResourceToTagIdsMap(),
+			                       serviceTags.getIsDelta(), serviceTags.getTagsChangeExtent());
 		}
-		ServiceTags                                                   getServiceTags() {return serviceTags;}
+		ServiceTags                                                   getServiceTagsWithoutTags() {
+			return new ServiceTags(serviceTags.getOp(), serviceTags.getServiceName(), serviceTags.getTagVersion(), serviceTags.getTagUpdateTime(),
+			                       serviceTags.getTagDefinitions(), new HashMap<Long, RangerTag>(), new ArrayList<>(serviceTags.getServiceResources()), new HashMap<Long, List<Long>>(),
+			                       serviceTags.getIsDelta(), serviceTags.getTagsChangeExtent());
+		}
+		Long                                                          getTagVersion() { return serviceTags.getTagVersion();}
+		RangerCompactTagStore                                         getTagStore() { return tagStore;}
 		List<RangerServiceResourceMatcher>                            getServiceResourceMatchers() { return serviceResourceMatchers;}
 		Map<String, RangerResourceTrie<RangerServiceResourceMatcher>> getServiceResourceTrie() { return serviceResourceTrie;}
 		Long                                                          getResourceTrieVersion() { return resourceTrieVersion;}
 		Set<RangerTagForEval>                                         getTagsForEmptyResourceAndAnyAccess() { return tagsForEmptyResourceAndAnyAccess;}
+		TagLookupCache                                                getTagLookupCache() { return tagLookupCache;}
 
 		private Set<RangerTagForEval> createTagsForEmptyResourceAndAnyAccess() {
 			Set<RangerTagForEval> tagsForEmptyResourceAndAnyAccess = new HashSet<>();
-			for (Map.Entry<Long, RangerTag> entry : serviceTags.getTags().entrySet()) {
-				tagsForEmptyResourceAndAnyAccess.add(new RangerTagForEval(entry.getValue(), RangerPolicyResourceMatcher.MatchType.DESCENDANT));
+			for (RangerTag tag : tagStore.getTags()) {
+				tagsForEmptyResourceAndAnyAccess.add(new RangerTagForEval(tag, RangerPolicyResourceMatcher.MatchType.DESCENDANT));
 			}
 			return tagsForEmptyResourceAndAnyAccess;
 		}
 	}
 
+	/*
+	 * Bounded cache of tags matched for a resource, owned by one EnrichedServiceTags instance. As every
+	 * setServiceTags() - full download or delta - builds a new EnrichedServiceTags, cached entries never outlive
+	 * the resourceTrieVersion they were computed for. Cached sets are unmodifiable and shared across requests.
+	 */
+	static private final class TagLookupCache {
+		private final Cache<String, Set<RangerTagForEval>> cache;
+		private final AtomicLong                           hitCount  = new AtomicLong();
+		private final AtomicLong                           missCount = new AtomicLong();
+
+		TagLookupCache(int cacheSize) {
+			cache = CacheBuilder.newBuilder().maximumSize(cacheSize).<String, Set<RangerTagForEval>>build();
+		}
+
+		static String getCacheKey(RangerAccessRequest request) {
+			String resourceKey = request.getResource() != null ? request.getResource().getCacheKey() : null;
+
+			if (resourceKey == null) {
+				return null;
+			}
+
+			// matching for 'any' access and for descendants accepts every match-type other than NONE
+			boolean acceptAnyMatch = request.isAccessTypeAny() || request.getResourceMatchingScope() == RangerAccessRequest.ResourceMatchingScope.SELF_OR_DESCENDANTS;
+
+			return (acceptAnyMatch ? "A:" : "S:") + resourceKey;
+		}
+
+		Set<RangerTagForEval> get(String cacheKey) {
+			Set<RangerTagForEval> ret = cache.getIfPresent(cacheKey);
+
+			if (ret != null) {
+				hitCount.incrementAndGet();
+			} else {
+				missCount.incrementAndGet();
+			}
+
+			return ret;
+		}
+
+		void put(String cacheKey, Set<RangerTagForEval> tags) {
+			cache.put(cacheKey, tags);
+		}
+
+		long getHitCount() { return hitCount.get(); }
+
+		long getMissCount() { return missCount.get(); }
+	}
+
 	static class RangerTagRefresher extends Thread {
 		private static final Log LOG = LogFactory.getLog(RangerTagRefresher.class);
 
@@ -947,7 +1084,7 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
 					if (serviceTags != null) {
 						tagEnricher.setServiceTags(serviceTags);
 						if (serviceTags.getIsDelta() && serviceTags.getTagVersion() != -1L) {
-							saveToCache(tagEnricher.enrichedServiceTags.serviceTags);
+							saveToCache(tagEnricher.enrichedServiceTags.getServiceTags());
 						}
 						LOG.info("RangerTagRefresher.populateTags() - Updated tags-cache to new version of tags, lastKnownVersion=" + lastKnownVersion + "; newVersion="
 								+ (serviceTags.getTagVersion() == null ? -1L : serviceTags.getTagVersion()));
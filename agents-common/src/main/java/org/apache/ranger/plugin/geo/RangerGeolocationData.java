@@ -25,6 +25,7 @@ import org.apache.commons.logging.LogFactory;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.Arrays;
 import java.util.Objects;
 
 public class RangerGeolocationData implements Comparable<RangerGeolocationData>, RangeChecker<Long> {
@@ -32,7 +33,14 @@ public class RangerGeolocationData implements Comparable<RangerGeolocationData>,
 
 	private static final Character IPSegmentsSeparator = '.';
 
+	static final long MAX_IPV4_ADDRESS = 0xFFFFFFFFL;
+	static final int IPV6_ADDRESS_LENGTH = 16;
+
+	// IPv4 addresses are held in fromIPAddress/toIPAddress; IPv6 addresses are split into high-order and low-order 64 bits
+	private final boolean isIPv6;
+	private final long fromIPAddressHigh;
 	private final long fromIPAddress;
+	private final long toIPAddressHigh;
 	private final long toIPAddress;
 	private final String[] locationData;
 	private int hash;
@@ -45,38 +53,86 @@ public class RangerGeolocationData implements Comparable<RangerGeolocationData>,
 			String startAddress = fields[0];
 			String endAddress = fields[1];
 
-			if (RangerGeolocationData.validateAsIP(startAddress, useDotFormat) && RangerGeolocationData.validateAsIP(endAddress, useDotFormat)) {
+			String[] locationData = new String[fields.length-2];
+			for (int i = 2; i < fields.length; i++) {
+				locationData[i-2] = fields[i];
+			}
 
-				long startIP, endIP;
-				if (!useDotFormat) {
-					startAddress = RangerGeolocationData.unsignedIntToIPAddress(Long.valueOf(startAddress));
-					endAddress = RangerGeolocationData.unsignedIntToIPAddress(Long.valueOf(endAddress));
-				}
-				startIP = RangerGeolocationData.ipAddressToLong(startAddress);
-				endIP = RangerGeolocationData.ipAddressToLong(endAddress);
+			if (!useDotFormat) {
+				if (RangerGeolocationData.validateAsIP(startAddress, false) && RangerGeolocationData.validateAsIP(endAddress, false)) {
+					long startIP = Long.parseLong(startAddress);
+					long endIP = Long.parseLong(endAddress);
 
-				if ((endIP - startIP) >= 0) {
+					if (startIP <= endIP && endIP <= MAX_IPV4_ADDRESS) {
+						data = new RangerGeolocationData(false, 0L, startIP, 0L, endIP, locationData);
+					}
+				}
+			} else {
+				long startIP = RangerGeolocationData.parseIPv4Address(startAddress);
+				long endIP = RangerGeolocationData.parseIPv4Address(endAddress);
 
-					String[] locationData = new String[fields.length-2];
-					for (int i = 2; i < fields.length; i++) {
-						locationData[i-2] = fields[i];
+				if (startIP >= 0 && endIP >= 0) {
+					if (startIP <= endIP) {
+						data = new RangerGeolocationData(false, 0L, startIP, 0L, endIP, locationData);
+					}
+				} else {
+					byte[] startBytes = RangerGeolocationData.ipAddressToBytes(startAddress);
+					byte[] endBytes = RangerGeolocationData.ipAddressToBytes(endAddress);
+
+					if (startBytes != null && endBytes != null && startBytes.length == endBytes.length) {
+						if (startBytes.length == IPV6_ADDRESS_LENGTH) {
+							long startHigh = toLong(startBytes, 0, 8), startLow = toLong(startBytes, 8, 16);
+							long endHigh = toLong(endBytes, 0, 8), endLow = toLong(endBytes, 8, 16);
+
+							if (compareIPv6(startHigh, startLow, endHigh, endLow) <= 0) {
+								data = new RangerGeolocationData(true, startHigh, startLow, endHigh, endLow, locationData);
+							}
+						} else {
+							startIP = toLong(startBytes, 0, startBytes.length);
+							endIP = toLong(endBytes, 0, endBytes.length);
+
+							if (startIP <= endIP) {
+								data = new RangerGeolocationData(false, 0L, startIP, 0L, endIP, locationData);
+							}
+						}
 					}
-					data = new RangerGeolocationData(startIP, endIP, locationData);
 				}
 			}
-
 		} else {
 			LOG.error("GeolocationMetadata.createMetadata() - Not enough fields specified, need {start, end, location} at " + index);
 		}
 		return data;
 	}
 
-	private RangerGeolocationData(final long fromIPAddress, final long toIPAddress, final String[] locationData) {
+	RangerGeolocationData(final boolean isIPv6, final long fromIPAddressHigh, final long fromIPAddress, final long toIPAddressHigh, final long toIPAddress, final String[] locationData) {
+		this.isIPv6 = isIPv6;
+		this.fromIPAddressHigh = fromIPAddressHigh;
 		this.fromIPAddress = fromIPAddress;
+		this.toIPAddressHigh = toIPAddressHigh;
 		this.toIPAddress = toIPAddress;
 		this.locationData = locationData;
 	}
 
+	public boolean isIPv6() {
+		return isIPv6;
+	}
+
+	public long getFromIPAddressHigh() {
+		return fromIPAddressHigh;
+	}
+
+	public long getFromIPAddress() {
+		return fromIPAddress;
+	}
+
+	public long getToIPAddressHigh() {
+		return toIPAddressHigh;
+	}
+
+	public long getToIPAddress() {
+		return toIPAddress;
+	}
+
 	public String[] getLocationData() {
 		return locationData;
 	}
@@ -85,9 +141,12 @@ public class RangerGeolocationData implements Comparable<RangerGeolocationData>,
 	public int compareTo(final RangerGeolocationData other) {
 		int ret = (other == null) ? 1 : 0;
 		if (ret == 0) {
-			ret = Long.compare(fromIPAddress, other.fromIPAddress);
+			ret = Boolean.compare(isIPv6, other.isIPv6);
 			if (ret == 0) {
-				ret = Long.compare(toIPAddress, other.toIPAddress);
+				ret = compareIPv6(fromIPAddressHigh, fromIPAddress, other.fromIPAddressHigh, other.fromIPAddress);
+			}
+			if (ret == 0) {
+				ret = compareIPv6(toIPAddressHigh, toIPAddress, other.toIPAddressHigh, other.toIPAddress);
 				if (ret == 0) {
 					ret = Integer.compare(locationData.length, other.locationData.length);
 					for (int i = 0; ret == 0 && i < locationData.length; i++) {
@@ -111,13 +170,17 @@ public class RangerGeolocationData implements Comparable<RangerGeolocationData>,
 	@Override
 	public int hashCode() {
 		if (hash == 0) {
-			hash = Objects.hash(fromIPAddress, toIPAddress, locationData);
+			hash = Objects.hash(isIPv6, fromIPAddressHigh, fromIPAddress, toIPAddressHigh, toIPAddress, Arrays.hashCode(locationData));
 		}
 		return hash;
 	}
 
 	@Override
 	public int compareToRange(final Long ip) {
+		if (isIPv6) {
+			return 1; // IPv6 ranges sort after all IPv4 addresses
+		}
+
 		int ret = Long.compare(fromIPAddress, ip.longValue());
 
 		if (ret < 0) {
@@ -132,25 +195,124 @@ public class RangerGeolocationData implements Comparable<RangerGeolocationData>,
 
 	public static long ipAddressToLong(final String ipAddress) {
 
+		long ret = parseIPv4Address(ipAddress);
+
+		if (ret < 0) {
+			byte[] bytes = ipAddressToBytes(ipAddress);
+
+			ret = (bytes != null && bytes.length <= 4) ? toLong(bytes, 0, bytes.length) : 0L;
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Parses an IPv4 address in dotted-decimal notation without going through InetAddress;
+	 * returns -1 if ipAddress is not in that notation.
+	 */
+	static long parseIPv4Address(final String ipAddress) {
+		final int length = ipAddress.length();
+
 		long ret = 0L;
+		int segments = 0;
+		int segment = -1;
 
-		try {
-			byte[] bytes = InetAddress.getByName(ipAddress).getAddress();
+		for (int i = 0; i < length; i++) {
+			char c = ipAddress.charAt(i);
 
-			if (bytes != null && bytes.length <= 4) {
-				for (int i = 0; i < bytes.length; i++) {
-					int val = bytes[i] < 0 ? (256 + bytes[i]) : bytes[i];
-					ret += (val << (8 * (3 - i)));
+			if (c >= '0' && c <= '9') {
+				segment = (segment < 0 ? 0 : segment * 10) + (c - '0');
+
+				if (segment > 255) {
+					return -1L;
 				}
+			} else if (c == IPSegmentsSeparator && segment >= 0 && segments < 3) {
+				ret = (ret << 8) | segment;
+				segments++;
+				segment = -1;
+			} else {
+				return -1L;
+			}
+		}
+
+		return (segments == 3 && segment >= 0) ? ((ret << 8) | segment) : -1L;
+	}
+
+	/*
+	 * Parses an IP address literal; returns null for anything else, without a DNS lookup of it.
+	 */
+	static byte[] ipAddressToBytes(final String ipAddress) {
+		byte[] ret = null;
+
+		if (isIPv6Literal(ipAddress)) {
+			try {
+				ret = InetAddress.getByName(ipAddress).getAddress();
 			}
+			catch (UnknownHostException exception) {
+				LOG.error("RangerGeolocationData.ipAddressToBytes() - Invalid IP address " + ipAddress);
+			}
+		} else {
+			long ipv4 = parseIPv4Address(ipAddress);
+
+			if (ipv4 >= 0) {
+				ret = new byte[] { (byte) (ipv4 >> 24), (byte) (ipv4 >> 16), (byte) (ipv4 >> 8), (byte) ipv4 };
+			}
+		}
+
+		return ret;
+	}
+
+	/*
+	 * InetAddress.getByName() resolves a name through DNS when it is not an IP address literal. A string made only of
+	 * hex digits, ':' and '.' that has a ':' is parsed by it as an IPv6 literal - or rejected - without a lookup.
+	 */
+	private static boolean isIPv6Literal(final String ipAddress) {
+		if (ipAddress == null || ipAddress.indexOf(':') < 0) {
+			return false;
 		}
-		catch (UnknownHostException exception) {
-			LOG.error("RangerGeolocationData.ipAddressToLong() - Invalid IP address " + ipAddress);
+
+		for (int i = 0; i < ipAddress.length(); i++) {
+			char c = ipAddress.charAt(i);
+
+			if (c != ':' && c != IPSegmentsSeparator && Character.digit(c, 16) < 0) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	static long toLong(final byte[] bytes, final int from, final int to) {
+		long ret = 0L;
+
+		for (int i = from; i < to; i++) {
+			ret = (ret << 8) | (bytes[i] & 0xFF);
 		}
 
 		return ret;
 	}
 
+	static int compareIPv6(final long high1, final long low1, final long high2, final long low2) {
+		int ret = Long.compareUnsigned(high1, high2);
+
+		return ret != 0 ? ret : Long.compareUnsigned(low1, low2);
+	}
+
+	static String ipv6AddressToString(final long high, final long low) {
+		byte[] bytes = new byte[IPV6_ADDRESS_LENGTH];
+
+		for (int i = 0; i < 8; i++) {
+			bytes[i] = (byte) (high >>> (56 - 8 * i));
+			bytes[i + 8] = (byte) (low >>> (56 - 8 * i));
+		}
+
+		try {
+			return InetAddress.getByAddress(bytes).getHostAddress();
+		} catch (UnknownHostException exception) {
+			return "";
+		}
+	}
+
 	public static String unsignedIntToIPAddress(final long val) {
 		if (val <= 0) {
 			return "";
@@ -170,14 +332,9 @@ public class RangerGeolocationData implements Comparable<RangerGeolocationData>,
 			return StringUtils.isNumeric(ipAddress);
 		}
 
-		boolean ret = false;
+		boolean ret = ipAddress != null && ipAddressToBytes(ipAddress) != null;
 
-		try {
-			// Only to validate to see if ipAddress is in correct format
-			InetAddress.getByName(ipAddress).getAddress();
-			ret = true;
-		}
-		catch(UnknownHostException exception) {
+		if (!ret) {
 			LOG.error("RangerGeolocationData.validateAsIP() - Invalid address " + ipAddress);
 		}
 
@@ -208,9 +365,9 @@ public class RangerGeolocationData implements Comparable<RangerGeolocationData>,
 	private StringBuilder toString(StringBuilder sb) {
 		sb.append("{")
 				.append("from=")
-				.append(RangerGeolocationData.unsignedIntToIPAddress(fromIPAddress))
+				.append(isIPv6 ? ipv6AddressToString(fromIPAddressHigh, fromIPAddress) : RangerGeolocationData.unsignedIntToIPAddress(fromIPAddress))
 				.append(", to=")
-				.append(RangerGeolocationData.unsignedIntToIPAddress(toIPAddress))
+				.append(isIPv6 ? ipv6AddressToString(toIPAddressHigh, toIPAddress) : RangerGeolocationData.unsignedIntToIPAddress(toIPAddress))
 				.append(", location={");
 			for (String data : locationData) {
 				sb.append(data).append(", ");
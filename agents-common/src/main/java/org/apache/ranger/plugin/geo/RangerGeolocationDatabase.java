@@ -23,10 +23,29 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
 public class RangerGeolocationDatabase {
 	private static final Log LOG = LogFactory.getLog(RangerGeolocationDatabase.class);
 
-	private BinarySearchTree<RangerGeolocationData, Long> data = new BinarySearchTree<>();
+	// "RGEO": marks a file written by save(), which load() can memory-map instead of parsing
+	private static final int BINARY_FORMAT_MAGIC   = 0x5247454F;
+	private static final int BINARY_FORMAT_VERSION = 1;
+
+	// ranges added by insert() and not yet in the index; optimize() builds the index from them
+	private List<RangerGeolocationData> pendingData = new ArrayList<>();
+
+	private RangerGeolocationIndex rangeIndex = RangerGeolocationIndex.empty();
 
 	private GeolocationMetadata metadata = new GeolocationMetadata();
 
@@ -55,35 +74,60 @@ public class RangerGeolocationDatabase {
 	public RangerGeolocationData find(final String ipAddressStr) {
 		RangerGeolocationData ret = null;
 
-		if (StringUtils.isNotBlank(ipAddressStr) && RangerGeolocationData.validateAsIP(ipAddressStr, true)) {
-			ret = data.find(RangerGeolocationData.ipAddressToLong(ipAddressStr));
+		if (StringUtils.isNotBlank(ipAddressStr)) {
+			ret = rangeIndex.find(ipAddressStr);
 		}
 		return ret;
 	}
 
+	/*
+	 * Adds a range to the database. Added ranges are found only after optimize(), which builds the index from them in one pass.
+	 */
+	public void insert(final RangerGeolocationData geolocationData) {
+		if (geolocationData != null) {
+			pendingData.add(geolocationData);
+		}
+	}
+
 	public void optimize() {
 		long start = 0L, end = 0L;
 
 		start = System.currentTimeMillis();
-		data.rebalance();
+
+		if (!pendingData.isEmpty()) {
+			List<RangerGeolocationData> allData = new ArrayList<>(pendingData);
+
+			rangeIndex.traverse(new ValueProcessor<RangerGeolocationData>() {
+				@Override
+				public RangerGeolocationData process(RangerGeolocationData value) {
+					allData.add(value);
+
+					return value;
+				}
+			});
+
+			rangeIndex  = RangerGeolocationIndex.build(allData);
+			pendingData = new ArrayList<>();
+		}
+
 		end = System.currentTimeMillis();
 
 		if (LOG.isDebugEnabled()) {
-			LOG.debug("RangerGeolocationDatabase.optimize() - Time taken for optimizing database = " + (end - start) + " milliseconds");
+			LOG.debug("RangerGeolocationDatabase.optimize() - Time taken for optimizing database = " + (end - start) + " milliseconds; ipv4Ranges=" + rangeIndex.getIPv4RangeCount() + ", ipv6Ranges=" + rangeIndex.getIPv6RangeCount() + ", locations=" + rangeIndex.getLocationCount());
 		}
 	}
 
-	public void setData(final BinarySearchTree<RangerGeolocationData, Long> dataArg) { data = dataArg != null ? dataArg : new BinarySearchTree<RangerGeolocationData, Long>();}
+	public void setIndex(final RangerGeolocationIndex indexArg) { rangeIndex = indexArg != null ? indexArg : RangerGeolocationIndex.empty();}
+
+	public RangerGeolocationIndex getIndex() { return rangeIndex; }
 
 	public void setMetadata(final GeolocationMetadata metadataArg) { metadata = metadataArg != null ? metadataArg : new GeolocationMetadata();}
 
 	public GeolocationMetadata getMetadata() { return metadata; }
 
-	public BinarySearchTree<RangerGeolocationData, Long> getData() { return data; }
-
 	public void dump(ValuePrinter<RangerGeolocationData> processor) {
 
-		BinarySearchTree<RangerGeolocationData, Long> geoDatabase = getData();
+		RangerGeolocationIndex geoDatabase = getIndex();
 		GeolocationMetadata metadata = getMetadata();
 		processor.build();
 
@@ -91,9 +135,80 @@ public class RangerGeolocationDatabase {
 		processor.print(metadata.toString());
 
 		processor.print("#================== Dump of geoDatabase - START ==================");
-		geoDatabase.preOrderTraverseTree(processor);
+		geoDatabase.traverse(processor);
 		processor.print("#================== Dump of geoDatabase - END   ==================");
 
 		processor.close();
 	}
+
+	/*
+	 * Writes metadata and the index in the binary form read by load()
+	 */
+	public void save(final File file) throws IOException {
+		optimize();
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			String[] itemNames = metadata.getLocationDataItemNames();
+
+			out.writeInt(BINARY_FORMAT_MAGIC);
+			out.writeInt(BINARY_FORMAT_VERSION);
+			out.writeInt(itemNames.length);
+
+			for (String itemName : itemNames) {
+				RangerGeolocationIndex.writeString(out, itemName);
+			}
+
+			rangeIndex.writeTo(out);
+		}
+	}
+
+	/*
+	 * Memory-maps a file written by save(); the ranges are searched in the mapped file, only metadata and location data are read into the heap
+	 */
+	public static RangerGeolocationDatabase load(final File file) throws IOException {
+		MappedByteBuffer buffer;
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		if (buffer.remaining() < 8 || buffer.getInt() != BINARY_FORMAT_MAGIC) {
+			throw new IOException(file + ": not a geolocation database file");
+		}
+
+		int version = buffer.getInt();
+
+		if (version != BINARY_FORMAT_VERSION) {
+			throw new IOException(file + ": unsupported geolocation database file version " + version);
+		}
+
+		String[] itemNames = new String[buffer.getInt()];
+
+		for (int i = 0; i < itemNames.length; i++) {
+			itemNames[i] = RangerGeolocationIndex.readString(buffer);
+		}
+
+		RangerGeolocationDatabase ret = new RangerGeolocationDatabase();
+
+		ret.setMetadata(new GeolocationMetadata(itemNames));
+		ret.setIndex(RangerGeolocationIndex.readFrom(buffer));
+
+		return ret;
+	}
+
+	public static boolean isBinaryFile(final File file) {
+		boolean ret = false;
+
+		if (file.isFile() && file.length() >= 8) {
+			try (FileInputStream in = new FileInputStream(file)) {
+				byte[] header = new byte[4];
+
+				ret = in.read(header) == header.length && (int) RangerGeolocationData.toLong(header, 0, header.length) == BINARY_FORMAT_MAGIC;
+			} catch (IOException excp) {
+				LOG.warn("RangerGeolocationDatabase.isBinaryFile(" + file + ") - failed to read header", excp);
+			}
+		}
+
+		return ret;
+	}
 }
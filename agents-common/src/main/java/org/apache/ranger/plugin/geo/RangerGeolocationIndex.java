@@ -0,0 +1,356 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.plugin.geo;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Immutable index of geolocation ranges, built in bulk from the ranges read at load time.
+ * Range boundaries are kept in sorted primitive arrays - one set for IPv4 and one for IPv6 - and looked up by binary search.
+ * Location data shared by many ranges is stored once and referred to by position.
+ *
+ * The arrays are accessed through LongBuffer/IntBuffer, so that an index read by readFrom() can be searched in place
+ * in a memory-mapped file, without copying the ranges into the heap.
+ */
+public final class RangerGeolocationIndex {
+	private static final Log LOG = LogFactory.getLog(RangerGeolocationIndex.class);
+
+	private final String[][]  locations;
+	private final LongBuffer  ipv4Starts;
+	private final LongBuffer  ipv4Ends;
+	private final IntBuffer   ipv4Locations;
+	private final LongBuffer  ipv6StartsHigh;
+	private final LongBuffer  ipv6StartsLow;
+	private final LongBuffer  ipv6EndsHigh;
+	private final LongBuffer  ipv6EndsLow;
+	private final IntBuffer   ipv6Locations;
+
+	private RangerGeolocationIndex(String[][] locations, LongBuffer ipv4Starts, LongBuffer ipv4Ends, IntBuffer ipv4Locations,
+								   LongBuffer ipv6StartsHigh, LongBuffer ipv6StartsLow, LongBuffer ipv6EndsHigh, LongBuffer ipv6EndsLow, IntBuffer ipv6Locations) {
+		this.locations      = locations;
+		this.ipv4Starts     = ipv4Starts;
+		this.ipv4Ends       = ipv4Ends;
+		this.ipv4Locations  = ipv4Locations;
+		this.ipv6StartsHigh = ipv6StartsHigh;
+		this.ipv6StartsLow  = ipv6StartsLow;
+		this.ipv6EndsHigh   = ipv6EndsHigh;
+		this.ipv6EndsLow    = ipv6EndsLow;
+		this.ipv6Locations  = ipv6Locations;
+	}
+
+	public static RangerGeolocationIndex build(final Collection<RangerGeolocationData> ranges) {
+		List<RangerGeolocationData> sorted = new ArrayList<>(ranges);
+
+		Collections.sort(sorted);
+
+		int ipv4Count = 0, ipv6Count = 0, overlapCount = 0;
+		RangerGeolocationData prev = null;
+
+		// drop duplicates, like BinarySearchTree.insert() does
+		for (int i = 0; i < sorted.size(); i++) {
+			RangerGeolocationData range = sorted.get(i);
+
+			if (prev != null && prev.equals(range)) {
+				continue;
+			}
+
+			if (prev != null && prev.isIPv6() == range.isIPv6() && RangerGeolocationData.compareIPv6(prev.getToIPAddressHigh(), prev.getToIPAddress(), range.getFromIPAddressHigh(), range.getFromIPAddress()) >= 0) {
+				overlapCount++;
+			}
+
+			sorted.set(ipv4Count + ipv6Count, range);
+
+			if (range.isIPv6()) {
+				ipv6Count++;
+			} else {
+				ipv4Count++;
+			}
+
+			prev = range;
+		}
+
+		if (overlapCount > 0) {
+			LOG.warn("RangerGeolocationIndex.build(): " + overlapCount + " ranges overlap the preceding range; lookups of addresses in overlapping ranges may not find all of them");
+		}
+
+		Map<List<String>, Integer> locationIndexes = new HashMap<>();
+		List<String[]>             locations       = new ArrayList<>();
+
+		long[] ipv4Starts     = new long[ipv4Count];
+		long[] ipv4Ends       = new long[ipv4Count];
+		int[]  ipv4Locations  = new int[ipv4Count];
+		long[] ipv6StartsHigh = new long[ipv6Count];
+		long[] ipv6StartsLow  = new long[ipv6Count];
+		long[] ipv6EndsHigh   = new long[ipv6Count];
+		long[] ipv6EndsLow    = new long[ipv6Count];
+		int[]  ipv6Locations  = new int[ipv6Count];
+
+		for (int i = 0; i < ipv4Count + ipv6Count; i++) {
+			RangerGeolocationData range         = sorted.get(i);
+			Integer               locationIndex = locationIndexes.get(Arrays.asList(range.getLocationData()));
+
+			if (locationIndex == null) {
+				locationIndex = locations.size();
+
+				locations.add(range.getLocationData());
+				locationIndexes.put(Arrays.asList(range.getLocationData()), locationIndex);
+			}
+
+			if (i < ipv4Count) {
+				ipv4Starts[i]    = range.getFromIPAddress();
+				ipv4Ends[i]      = range.getToIPAddress();
+				ipv4Locations[i] = locationIndex;
+			} else {
+				int j = i - ipv4Count;
+
+				ipv6StartsHigh[j] = range.getFromIPAddressHigh();
+				ipv6StartsLow[j]  = range.getFromIPAddress();
+				ipv6EndsHigh[j]   = range.getToIPAddressHigh();
+				ipv6EndsLow[j]    = range.getToIPAddress();
+				ipv6Locations[j]  = locationIndex;
+			}
+		}
+
+		return new RangerGeolocationIndex(locations.toArray(new String[locations.size()][]),
+				LongBuffer.wrap(ipv4Starts), LongBuffer.wrap(ipv4Ends), IntBuffer.wrap(ipv4Locations),
+				LongBuffer.wrap(ipv6StartsHigh), LongBuffer.wrap(ipv6StartsLow), LongBuffer.wrap(ipv6EndsHigh), LongBuffer.wrap(ipv6EndsLow), IntBuffer.wrap(ipv6Locations));
+	}
+
+	public static RangerGeolocationIndex empty() {
+		return build(Collections.<RangerGeolocationData>emptyList());
+	}
+
+	public int getIPv4RangeCount() {
+		return ipv4Starts.limit();
+	}
+
+	public int getIPv6RangeCount() {
+		return ipv6StartsHigh.limit();
+	}
+
+	public int getLocationCount() {
+		return locations.length;
+	}
+
+	public RangerGeolocationData find(final String ipAddress) {
+		RangerGeolocationData ret = null;
+		long                  ipv4 = RangerGeolocationData.parseIPv4Address(ipAddress);
+
+		if (ipv4 >= 0) {
+			ret = findIPv4(ipv4);
+		} else {
+			byte[] bytes = RangerGeolocationData.ipAddressToBytes(ipAddress);
+
+			if (bytes != null) {
+				if (bytes.length == RangerGeolocationData.IPV6_ADDRESS_LENGTH) {
+					ret = findIPv6(RangerGeolocationData.toLong(bytes, 0, 8), RangerGeolocationData.toLong(bytes, 8, 16));
+				} else {
+					ret = findIPv4(RangerGeolocationData.toLong(bytes, 0, bytes.length));
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	public RangerGeolocationData findIPv4(final long ip) {
+		// index of the last range that starts at or before ip
+		int low = 0, high = ipv4Starts.limit() - 1;
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+
+			if (ipv4Starts.get(mid) <= ip) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		RangerGeolocationData ret = null;
+
+		if (high >= 0 && ipv4Ends.get(high) >= ip) {
+			ret = new RangerGeolocationData(false, 0L, ipv4Starts.get(high), 0L, ipv4Ends.get(high), locations[ipv4Locations.get(high)]);
+		}
+
+		return ret;
+	}
+
+	public RangerGeolocationData findIPv6(final long ipHigh, final long ipLow) {
+		int low = 0, high = ipv6StartsHigh.limit() - 1;
+
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+
+			if (RangerGeolocationData.compareIPv6(ipv6StartsHigh.get(mid), ipv6StartsLow.get(mid), ipHigh, ipLow) <= 0) {
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		RangerGeolocationData ret = null;
+
+		if (high >= 0 && RangerGeolocationData.compareIPv6(ipv6EndsHigh.get(high), ipv6EndsLow.get(high), ipHigh, ipLow) >= 0) {
+			ret = new RangerGeolocationData(true, ipv6StartsHigh.get(high), ipv6StartsLow.get(high), ipv6EndsHigh.get(high), ipv6EndsLow.get(high), locations[ipv6Locations.get(high)]);
+		}
+
+		return ret;
+	}
+
+	public void traverse(final ValueProcessor<RangerGeolocationData> processor) {
+		for (int i = 0; i < ipv4Starts.limit(); i++) {
+			processor.process(new RangerGeolocationData(false, 0L, ipv4Starts.get(i), 0L, ipv4Ends.get(i), locations[ipv4Locations.get(i)]));
+		}
+
+		for (int i = 0; i < ipv6StartsHigh.limit(); i++) {
+			processor.process(new RangerGeolocationData(true, ipv6StartsHigh.get(i), ipv6StartsLow.get(i), ipv6EndsHigh.get(i), ipv6EndsLow.get(i), locations[ipv6Locations.get(i)]));
+		}
+	}
+
+	/*
+	 * Binary form, all values big-endian:
+	 *   int locationCount, then for each location: int itemCount, then for each item: string
+	 *   int ipv4Count, long[ipv4Count] starts, long[ipv4Count] ends, int[ipv4Count] location indexes
+	 *   int ipv6Count, long[ipv6Count] starts-high, starts-low, ends-high, ends-low, int[ipv6Count] location indexes
+	 * where a string is int byteCount (-1 for null) followed by its UTF-8 bytes. Ranges have fixed-width entries,
+	 * so readFrom() can search them in place.
+	 */
+	void writeTo(final DataOutputStream out) throws IOException {
+		out.writeInt(locations.length);
+
+		for (String[] location : locations) {
+			out.writeInt(location.length);
+
+			for (String item : location) {
+				writeString(out, item);
+			}
+		}
+
+		out.writeInt(ipv4Starts.limit());
+		writeLongs(out, ipv4Starts);
+		writeLongs(out, ipv4Ends);
+		writeInts(out, ipv4Locations);
+
+		out.writeInt(ipv6StartsHigh.limit());
+		writeLongs(out, ipv6StartsHigh);
+		writeLongs(out, ipv6StartsLow);
+		writeLongs(out, ipv6EndsHigh);
+		writeLongs(out, ipv6EndsLow);
+		writeInts(out, ipv6Locations);
+	}
+
+	static RangerGeolocationIndex readFrom(final ByteBuffer buffer) {
+		String[][] locations = new String[buffer.getInt()][];
+
+		for (int i = 0; i < locations.length; i++) {
+			String[] location = new String[buffer.getInt()];
+
+			for (int j = 0; j < location.length; j++) {
+				location[j] = readString(buffer);
+			}
+
+			locations[i] = location;
+		}
+
+		int        ipv4Count     = buffer.getInt();
+		LongBuffer ipv4Starts    = sliceLongs(buffer, ipv4Count);
+		LongBuffer ipv4Ends      = sliceLongs(buffer, ipv4Count);
+		IntBuffer  ipv4Locations = sliceInts(buffer, ipv4Count);
+
+		int        ipv6Count      = buffer.getInt();
+		LongBuffer ipv6StartsHigh = sliceLongs(buffer, ipv6Count);
+		LongBuffer ipv6StartsLow  = sliceLongs(buffer, ipv6Count);
+		LongBuffer ipv6EndsHigh   = sliceLongs(buffer, ipv6Count);
+		LongBuffer ipv6EndsLow    = sliceLongs(buffer, ipv6Count);
+		IntBuffer  ipv6Locations  = sliceInts(buffer, ipv6Count);
+
+		return new RangerGeolocationIndex(locations, ipv4Starts, ipv4Ends, ipv4Locations, ipv6StartsHigh, ipv6StartsLow, ipv6EndsHigh, ipv6EndsLow, ipv6Locations);
+	}
+
+	static void writeString(final DataOutputStream out, final String str) throws IOException {
+		if (str == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	static String readString(final ByteBuffer buffer) {
+		int length = buffer.getInt();
+
+		if (length < 0) {
+			return null;
+		}
+
+		byte[] bytes = new byte[length];
+
+		buffer.get(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeLongs(final DataOutputStream out, final LongBuffer values) throws IOException {
+		for (int i = 0; i < values.limit(); i++) {
+			out.writeLong(values.get(i));
+		}
+	}
+
+	private static void writeInts(final DataOutputStream out, final IntBuffer values) throws IOException {
+		for (int i = 0; i < values.limit(); i++) {
+			out.writeInt(values.get(i));
+		}
+	}
+
+	private static LongBuffer sliceLongs(final ByteBuffer buffer, final int count) {
+		ByteBuffer slice = buffer.slice();
+
+		slice.limit(count * 8);
+		buffer.position(buffer.position() + count * 8);
+
+		return slice.asLongBuffer();
+	}
+
+	private static IntBuffer sliceInts(final ByteBuffer buffer, final int count) {
+		ByteBuffer slice = buffer.slice();
+
+		slice.limit(count * 4);
+		buffer.position(buffer.position() + count * 4);
+
+		return slice.asIntBuffer();
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Histogram of non-negative values, like latencies in microseconds, with buckets laid out as in HdrHistogram: values
+ * below 16 have a bucket each; above that, every power of two is split into 16 linear sub-buckets. Percentiles are
+ * hence reported within 6.25% of the recorded value, for any value from 1 to Long.MAX_VALUE, with a fixed set of 960
+ * buckets. Recording a value is a few atomic increments, with no allocation and no lock.
+ */
+public class RangerHistogram {
+	static final int SUB_BUCKET_BITS  = 4;
+	static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	static final int BUCKET_COUNT     = SUB_BUCKET_COUNT + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder       count   = new LongAdder();
+	private final LongAdder       sum     = new LongAdder();
+	private final AtomicLong      max     = new AtomicLong();
+
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+
+		buckets.incrementAndGet(getBucketIndex(value));
+		count.increment();
+		sum.add(value);
+
+		for (long currentMax = max.get(); value > currentMax; currentMax = max.get()) {
+			if (max.compareAndSet(currentMax, value)) {
+				break;
+			}
+		}
+	}
+
+	public void recordElapsedNanos(long startTimeNanos) {
+		record((System.nanoTime() - startTimeNanos) / 1000);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getSum() {
+		return sum.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long count = getCount();
+
+		return count > 0 ? ((double) getSum()) / count : 0;
+	}
+
+	public long getValueAtPercentile(double percentile) {
+		return getValuesAtPercentiles(percentile)[0];
+	}
+
+	/*
+	 * Returns, for each of the given percentiles (in increasing order), the highest value that is equivalent to the
+	 * recorded value at that percentile; all percentiles are computed from one snapshot of the buckets.
+	 */
+	public long[] getValuesAtPercentiles(double... percentiles) {
+		long[] ret        = new long[percentiles.length];
+		long[] counts     = new long[BUCKET_COUNT];
+		long   totalCount = 0;
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i]   = buckets.get(i);
+			totalCount += counts[i];
+		}
+
+		if (totalCount > 0) {
+			long maxValue   = getMax();
+			int  bucket     = 0;
+			long countSoFar = counts[0];
+
+			for (int i = 0; i < percentiles.length; i++) {
+				double percentile  = Math.min(Math.max(percentiles[i], 0), 100);
+				long   targetCount = Math.max(1, (long) Math.ceil(percentile * totalCount / 100));
+
+				while (countSoFar < targetCount && bucket < BUCKET_COUNT - 1) {
+					countSoFar += counts[++bucket];
+				}
+
+				ret[i] = Math.min(getBucketUpperBound(bucket), maxValue);
+			}
+		}
+
+		return ret;
+	}
+
+	@Override
+	public String toString() {
+		long[] percentiles = getValuesAtPercentiles(50, 99);
+
+		return "{count=" + getCount() + ", mean=" + getMean() + ", p50=" + percentiles[0] + ", p99=" + percentiles[1] + ", max=" + getMax() + "}";
+	}
+
+	static int getBucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+
+		int exponent  = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1));
+
+		return SUB_BUCKET_COUNT + (exponent - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	static long getBucketUpperBound(int bucketIndex) {
+		if (bucketIndex < SUB_BUCKET_COUNT) {
+			return bucketIndex;
+		}
+
+		int  exponent   = (bucketIndex - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT + SUB_BUCKET_BITS;
+		long subBucket  = (bucketIndex - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+		long lowerBound = (1L << exponent) | (subBucket << (exponent - SUB_BUCKET_BITS));
+
+		return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+
+/*
+ * Read-only view of RangerMetricsRegistry through JMX. Metrics are registered while the plugin runs, so attributes
+ * are listed afresh every time the MBeanInfo is asked for: one attribute for a counter or a gauge and, for a
+ * histogram, one each for count, mean, p50, p90, p99 and max. Label quotes are left out of attribute names.
+ */
+class RangerMetricsMBean implements DynamicMBean {
+	private static final String[] HISTOGRAM_ATTRIBUTES  = { "count", "mean", "p50", "p90", "p99", "max" };
+	private static final double[] HISTOGRAM_PERCENTILES = { 50, 90, 99 };
+
+	private final RangerMetricsRegistry registry;
+
+	RangerMetricsMBean(RangerMetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		Object ret = getAttributes().get(attribute);
+
+		if (ret == null) {
+			throw new AttributeNotFoundException(attribute);
+		}
+
+		return ret;
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException(attribute.getName() + " is read-only");
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		AttributeList       ret    = new AttributeList();
+		Map<String, Object> values = getAttributes();
+
+		for (String attribute : attributes) {
+			Object value = values.get(attribute);
+
+			if (value != null) {
+				ret.add(new Attribute(attribute, value));
+			}
+		}
+
+		return ret;
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) {
+		throw new UnsupportedOperationException(actionName);
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		List<MBeanAttributeInfo> attributes = new ArrayList<>();
+
+		for (Map.Entry<String, Object> entry : getAttributes().entrySet()) {
+			attributes.add(new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(), entry.getKey(), true, false, false));
+		}
+
+		return new MBeanInfo(getClass().getName(), "Apache Ranger plugin metrics", attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null, new MBeanOperationInfo[0], null);
+	}
+
+	private SortedMap<String, Object> getAttributes() {
+		SortedMap<String, Object> ret = new TreeMap<>();
+
+		for (Map.Entry<String, RangerCounter> entry : registry.getCounters().entrySet()) {
+			ret.put(toAttributeName(entry.getKey()), entry.getValue().getValue());
+		}
+
+		for (Map.Entry<String, Long> entry : registry.getGaugeValues().entrySet()) {
+			ret.put(toAttributeName(entry.getKey()), entry.getValue());
+		}
+
+		for (Map.Entry<String, RangerHistogram> entry : registry.getHistograms().entrySet()) {
+			String          name        = toAttributeName(entry.getKey());
+			RangerHistogram histogram   = entry.getValue();
+			long[]          percentiles = histogram.getValuesAtPercentiles(HISTOGRAM_PERCENTILES);
+
+			ret.put(name + "." + HISTOGRAM_ATTRIBUTES[0], histogram.getCount());
+			ret.put(name + "." + HISTOGRAM_ATTRIBUTES[1], histogram.getMean());
+			ret.put(name + "." + HISTOGRAM_ATTRIBUTES[2], percentiles[0]);
+			ret.put(name + "." + HISTOGRAM_ATTRIBUTES[3], percentiles[1]);
+			ret.put(name + "." + HISTOGRAM_ATTRIBUTES[4], percentiles[2]);
+			ret.put(name + "." + HISTOGRAM_ATTRIBUTES[5], histogram.getMax());
+		}
+
+		return ret;
+	}
+
+	private static String toAttributeName(String metricName) {
+		return metricName.replace("\"", "");
+	}
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
+
+/*
+ * Metrics of the plugin - policy engine, tag enricher, policy refresher and audit queues - kept in memory for the
+ * host service to look at: through JMX, as attributes of the MBean org.apache.ranger:type=PluginMetrics, and as text
+ * written by a RangerMetricsExporter that the host can serve from its own metrics endpoint.
+ *
+ * A metric is named like a Prometheus metric, with optional labels: getMetricName("x_total", "service", "dev_hive")
+ * returns x_total{service="dev_hive"}. Counters and histograms are created on first lookup; callers on hot paths
+ * should look them up once and keep the reference. Gauges are read only when the metrics are exported; registering a
+ * gauge with the name of an existing one replaces it.
+ */
+public class RangerMetricsRegistry {
+	private static final Log LOG = LogFactory.getLog(RangerMetricsRegistry.class);
+
+	public static final String PROP_METRICS_JMX_ENABLED   = "ranger.plugin.metrics.jmx.enabled";
+	public static final String PROP_METRICS_EXPORTER_IMPL = "ranger.plugin.metrics.exporter.impl";
+	public static final String JMX_OBJECT_NAME            = "org.apache.ranger:type=PluginMetrics";
+
+	private static volatile RangerMetricsRegistry instance;
+
+	private final ConcurrentMap<String, RangerCounter>   counters   = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, RangerHistogram> histograms = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, LongSupplier>    gauges     = new ConcurrentHashMap<>();
+	private volatile RangerMetricsExporter               exporter;
+
+	public static RangerMetricsRegistry getInstance() {
+		RangerMetricsRegistry ret = instance;
+
+		if (ret == null) {
+			synchronized (RangerMetricsRegistry.class) {
+				ret = instance;
+
+				if (ret == null) {
+					ret      = new RangerMetricsRegistry();
+					instance = ret;
+
+					if (RangerConfiguration.getInstance().getBoolean(PROP_METRICS_JMX_ENABLED, true)) {
+						ret.registerMBean();
+					}
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	public static String getMetricName(String name, String... labelNamesAndValues) {
+		if (labelNamesAndValues == null || labelNamesAndValues.length == 0) {
+			return name;
+		}
+
+		StringBuilder sb = new StringBuilder(name).append('{');
+
+		for (int i = 0; i + 1 < labelNamesAndValues.length; i += 2) {
+			if (i > 0) {
+				sb.append(',');
+			}
+
+			sb.append(labelNamesAndValues[i]).append("=\"").append(escapeLabelValue(labelNamesAndValues[i + 1])).append('"');
+		}
+
+		return sb.append('}').toString();
+	}
+
+	public RangerCounter getCounter(String name, String... labelNamesAndValues) {
+		String        metricName = getMetricName(name, labelNamesAndValues);
+		RangerCounter ret        = counters.get(metricName);
+
+		if (ret == null) {
+			ret = counters.computeIfAbsent(metricName, k -> new RangerCounter());
+		}
+
+		return ret;
+	}
+
+	public RangerHistogram getHistogram(String name, String... labelNamesAndValues) {
+		String          metricName = getMetricName(name, labelNamesAndValues);
+		RangerHistogram ret        = histograms.get(metricName);
+
+		if (ret == null) {
+			ret = histograms.computeIfAbsent(metricName, k -> new RangerHistogram());
+		}
+
+		return ret;
+	}
+
+	public void registerGauge(LongSupplier gauge, String name, String... labelNamesAndValues) {
+		gauges.put(getMetricName(name, labelNamesAndValues), gauge);
+	}
+
+	public void unregisterGauge(String name, String... labelNamesAndValues) {
+		gauges.remove(getMetricName(name, labelNamesAndValues));
+	}
+
+	public SortedMap<String, RangerCounter> getCounters() {
+		return new TreeMap<>(counters);
+	}
+
+	public SortedMap<String, RangerHistogram> getHistograms() {
+		return new TreeMap<>(histograms);
+	}
+
+	/*
+	 * Returns the current value of every gauge; a gauge that fails to read is left out.
+	 */
+	public SortedMap<String, Long> getGaugeValues() {
+		SortedMap<String, Long> ret = new TreeMap<>();
+
+		for (Map.Entry<String, LongSupplier> entry : gauges.entrySet()) {
+			try {
+				ret.put(entry.getKey(), entry.getValue().getAsLong());
+			} catch (Exception excp) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("RangerMetricsRegistry.getGaugeValues(): failed to read gauge " + entry.getKey(), excp);
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	public RangerMetricsExporter getExporter() {
+		RangerMetricsExporter ret = exporter;
+
+		if (ret == null) {
+			String exporterClassName = RangerConfiguration.getInstance().get(PROP_METRICS_EXPORTER_IMPL);
+
+			if (StringUtils.isNotBlank(exporterClassName)) {
+				try {
+					@SuppressWarnings("unchecked")
+					Class<RangerMetricsExporter> exporterClass = (Class<RangerMetricsExporter>) Class.forName(exporterClassName.trim());
+
+					ret = exporterClass.newInstance();
+				} catch (Exception excp) {
+					LOG.error("failed to instantiate metrics exporter of type '" + exporterClassName + "'. Will use RangerPrometheusMetricsExporter", excp);
+				}
+			}
+
+			if (ret == null) {
+				ret = new RangerPrometheusMetricsExporter();
+			}
+
+			exporter = ret;
+		}
+
+		return ret;
+	}
+
+	public void setExporter(RangerMetricsExporter exporter) {
+		this.exporter = exporter;
+	}
+
+	/*
+	 * Writes all metrics to the given writer, in the format of the configured exporter; for the host service to serve
+	 * from its metrics endpoint, with the content-type given by getExporter().getContentType().
+	 */
+	public void export(Writer writer) throws IOException {
+		getExporter().export(this, writer);
+	}
+
+	private void registerMBean() {
+		try {
+			MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+			ObjectName  objectName  = new ObjectName(JMX_OBJECT_NAME);
+
+			if (!mbeanServer.isRegistered(objectName)) {
+				mbeanServer.registerMBean(new RangerMetricsMBean(this), objectName);
+			} else {
+				LOG.info("RangerMetricsRegistry: " + JMX_OBJECT_NAME + " is already registered, possibly by another class-loader. Metrics of this registry will not be available through JMX");
+			}
+		} catch (Exception excp) {
+			LOG.warn("RangerMetricsRegistry: failed to register " + JMX_OBJECT_NAME + ". Metrics will not be available through JMX", excp);
+		}
+	}
+
+	private static String escapeLabelValue(String value) {
+		if (value == null) {
+			return "";
+		}
+
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/*
+ * Writes metrics in the Prometheus text exposition format (version 0.0.4). Histograms are written as summaries,
+ * with quantiles 0.5, 0.9, 0.99 and 1 (the maximum).
+ */
+public class RangerPrometheusMetricsExporter implements RangerMetricsExporter {
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private static final double[] QUANTILES   = { 0.5, 0.9, 0.99 };
+	private static final double[] PERCENTILES = { 50, 90, 99 };
+
+	@Override
+	public String getContentType() {
+		return CONTENT_TYPE;
+	}
+
+	@Override
+	public void export(RangerMetricsRegistry registry, Writer writer) throws IOException {
+		String lastBaseName = null;
+
+		for (Map.Entry<String, RangerCounter> entry : registry.getCounters().entrySet()) {
+			lastBaseName = writeType(writer, entry.getKey(), "counter", lastBaseName);
+
+			writeSample(writer, entry.getKey(), null, null, Long.toString(entry.getValue().getValue()));
+		}
+
+		for (Map.Entry<String, Long> entry : registry.getGaugeValues().entrySet()) {
+			lastBaseName = writeType(writer, entry.getKey(), "gauge", lastBaseName);
+
+			writeSample(writer, entry.getKey(), null, null, Long.toString(entry.getValue()));
+		}
+
+		for (Map.Entry<String, RangerHistogram> entry : registry.getHistograms().entrySet()) {
+			String          metricName = entry.getKey();
+			RangerHistogram histogram  = entry.getValue();
+			long[]          values     = histogram.getValuesAtPercentiles(PERCENTILES);
+
+			lastBaseName = writeType(writer, metricName, "summary", lastBaseName);
+
+			for (int i = 0; i < QUANTILES.length; i++) {
+				writeSample(writer, metricName, null, Double.toString(QUANTILES[i]), Long.toString(values[i]));
+			}
+
+			writeSample(writer, metricName, null, "1.0", Long.toString(histogram.getMax()));
+			writeSample(writer, metricName, "_sum", null, Long.toString(histogram.getSum()));
+			writeSample(writer, metricName, "_count", null, Long.toString(histogram.getCount()));
+		}
+
+		writer.flush();
+	}
+
+	private static String writeType(Writer writer, String metricName, String type, String lastBaseName) throws IOException {
+		String baseName = getBaseName(metricName);
+
+		if (!baseName.equals(lastBaseName)) {
+			writer.write("# TYPE " + baseName + " " + type + "\n");
+		}
+
+		return baseName;
+	}
+
+	private static void writeSample(Writer writer, String metricName, String suffix, String quantile, String value) throws IOException {
+		int    labelsStart = metricName.indexOf('{');
+		String baseName    = labelsStart == -1 ? metricName : metricName.substring(0, labelsStart);
+		String labels      = labelsStart == -1 ? "" : metricName.substring(labelsStart + 1, metricName.length() - 1);
+
+		writer.write(baseName);
+
+		if (suffix != null) {
+			writer.write(suffix);
+		}
+
+		if (quantile != null) {
+			labels = labels.isEmpty() ? ("quantile=\"" + quantile + "\"") : (labels + ",quantile=\"" + quantile + "\"");
+		}
+
+		if (!labels.isEmpty()) {
+			writer.write("{" + labels + "}");
+		}
+
+		writer.write(" " + value + "\n");
+	}
+
+	private static String getBaseName(String metricName) {
+		int labelsStart = metricName.indexOf('{');
+
+		return labelsStart == -1 ? metricName : metricName.substring(0, labelsStart);
+	}
+}
@@ -0,0 +1,350 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+
+/*
+ * Decides access to the children of a parent resource - for example the tables of a database - for one user, without
+ * a full policy evaluation per child. Policies that can match a child are looked up once, in the resource trie, using
+ * the parent resource; of these only the policies having an allow or deny item for the user, the user's groups or
+ * roles, or for {OWNER}, are retained. Each child is then evaluated against the retained policies, in the same order and with the same
+ * rules as RangerPolicyEngine.evaluatePolicies(). The same works for data-mask and row-filter policies - for example to
+ * resolve the masks of all columns of a table.
+ *
+ * isAccessible() and filter() don't look at audit. Results of getResult() carry the audit flag as evaluatePolicies()
+ * would set it, so that callers can audit them: policies not retained for the user are still looked at, for audit
+ * only - for data-mask policies, only when a mask applies, as results with no mask are not audited.
+ *
+ * Instances are created by RangerPolicyEngine.getChildResourceFilter(), which returns null when the policies can't be
+ * evaluated this way (tag policies, security zones, policies with conditions); callers must then evaluate each child.
+ */
+public class RangerChildResourceFilter {
+	private static final Log LOG = LogFactory.getLog(RangerChildResourceFilter.class);
+
+	private final String                      serviceName;
+	private final RangerServiceDef            serviceDef;
+	private final Map<String, Object>         parentElements;
+	private final String                      childResourceName;
+	private final String                      user;
+	private final Set<String>                 userGroups;
+	private final Set<String>                 userRoles;
+	private final String                      accessType;
+	private final Date                        accessTime;
+	private final int                         policyType;
+	private final List<RangerPolicyEvaluator> evaluators; // null entries stand for skipped evaluators that have no deny
+	private final List<RangerPolicyEvaluator> auditEvaluators;
+	private final Boolean                     isAuditedByDefault;
+	private final boolean                     isCacheable;
+
+	RangerChildResourceFilter(String serviceName, RangerServiceDef serviceDef, RangerAccessResource parentResource, String childResourceName, String user, Set<String> userGroups, Set<String> userRoles, String accessType, Date accessTime, int policyType, List<RangerPolicyEvaluator> evaluators, List<RangerPolicyEvaluator> auditEvaluators, Boolean isAuditedByDefault) {
+		this.serviceName        = serviceName;
+		this.serviceDef         = serviceDef;
+		this.parentElements     = getElements(parentResource);
+		this.childResourceName  = childResourceName;
+		this.user               = user;
+		this.userGroups         = userGroups;
+		this.userRoles          = userRoles;
+		this.accessType         = accessType;
+		this.accessTime         = accessTime;
+		this.policyType         = policyType;
+		this.evaluators         = evaluators;
+		this.auditEvaluators    = auditEvaluators;
+		this.isAuditedByDefault = isAuditedByDefault;
+		this.isCacheable        = !hasValiditySchedules(evaluators) && !hasValiditySchedules(auditEvaluators);
+	}
+
+	public String getChildResourceName() {
+		return childResourceName;
+	}
+
+	public int getPolicyType() {
+		return policyType;
+	}
+
+	/*
+	 * Returns true if results depend only on the child name and the policies, so can be reused for other requests by
+	 * the same user; false when a retained policy has a validity schedule.
+	 */
+	public boolean isCacheable() {
+		return isCacheable;
+	}
+
+	public boolean isNoneAccessible() {
+		return evaluators.isEmpty();
+	}
+
+	public boolean isAccessible(String childName) {
+		return isAccessible(childName, null);
+	}
+
+	/*
+	 * Returns true if the user has access to the child owned by the given user; for policies having items for {OWNER}.
+	 */
+	public boolean isAccessible(String childName, String ownerUser) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerChildResourceFilter.isAccessible(" + childName + ", " + ownerUser + ")");
+		}
+
+		boolean ret = !evaluators.isEmpty() && evaluate(childName, ownerUser, false).getIsAllowed();
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerChildResourceFilter.isAccessible(" + childName + ", " + ownerUser + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Returns the result of evaluating the policies for the child, as RangerPolicyEngine.evaluatePolicies() would for
+	 * the given policy-type; for data-mask and row-filter policies, the mask or filter is in the result.
+	 */
+	public RangerAccessResult getResult(String childName) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerChildResourceFilter.getResult(" + childName + ")");
+		}
+
+		RangerAccessResult ret = evaluate(childName, null, true);
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerChildResourceFilter.getResult(" + childName + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	public List<String> filter(Collection<String> childNames) {
+		final List<String> ret;
+
+		if (CollectionUtils.isEmpty(childNames) || evaluators.isEmpty()) {
+			ret = Collections.emptyList();
+		} else {
+			ret = new ArrayList<>();
+
+			for (String childName : childNames) {
+				if (isAccessible(childName)) {
+					ret.add(childName);
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	private RangerAccessResult evaluate(String childName, String ownerUser, boolean isAuditNeeded) {
+		RangerAccessRequest request = createRequest(childName, ownerUser);
+		RangerAccessResult  ret     = new RangerAccessResult(policyType, serviceName, serviceDef, request);
+
+		if (isAuditedByDefault != null) {
+			ret.setIsAudited(isAuditedByDefault);
+		}
+
+		for (RangerPolicyEvaluator evaluator : evaluators) {
+			if (evaluator == null) {
+				if (ret.getIsAllowed()) { // a skipped evaluator with no deny: same as in evaluatePolicies(), no more deny policies left
+					ret.setIsAccessDetermined(true);
+				}
+			} else {
+				ret.incrementEvaluatedPoliciesCount();
+				evaluator.evaluate(request, ret);
+
+				if (ret.getIsAllowed()) {
+					if (!evaluator.hasDeny()) { // No more deny policies left
+						ret.setIsAccessDetermined(true);
+					}
+				}
+			}
+
+			if (ret.getIsAccessDetermined() && (!isAuditNeeded || ret.getIsAuditedDetermined() || auditEvaluators.isEmpty())) {
+				break;
+			}
+		}
+
+		// policies not retained for the user can only enable audit; for data-mask policies that matters only when a mask applies
+		if (isAuditNeeded && !ret.getIsAuditedDetermined() && (ret.getIsAllowed() || policyType != RangerPolicy.POLICY_TYPE_DATAMASK)) {
+			for (RangerPolicyEvaluator evaluator : auditEvaluators) {
+				ret.incrementEvaluatedPoliciesCount();
+				evaluator.evaluate(request, ret);
+
+				if (ret.getIsAuditedDetermined()) {
+					break;
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Returns the evaluators, in evaluation order, that can affect the access of the user; consecutive evaluators
+	 * skipped in between are replaced by a null when at least one of them has no deny, so that access gets determined
+	 * at the same point as in RangerPolicyEngine.evaluatePolicies().
+	 */
+	static List<RangerPolicyEvaluator> getRelevantEvaluators(List<RangerPolicyEvaluator> evaluators, String user, Set<String> userGroups, Set<String> userRoles, Date accessTime) {
+		return getRelevantEvaluators(evaluators, RangerPolicy.POLICY_TYPE_ACCESS, user, userGroups, userRoles, accessTime);
+	}
+
+	static List<RangerPolicyEvaluator> getRelevantEvaluators(List<RangerPolicyEvaluator> evaluators, int policyType, String user, Set<String> userGroups, Set<String> userRoles, Date accessTime) {
+		List<RangerPolicyEvaluator> ret           = new ArrayList<>();
+		boolean                     isSkipPending = false;
+
+		for (RangerPolicyEvaluator evaluator : evaluators) {
+			if (!evaluator.isApplicable(accessTime)) {
+				continue;
+			}
+
+			if (isRelevant(evaluator.getPolicy(), policyType, user, userGroups, userRoles)) {
+				if (isSkipPending) {
+					ret.add(null);
+
+					isSkipPending = false;
+				}
+
+				ret.add(evaluator);
+			} else if (!evaluator.hasDeny() && !ret.isEmpty()) {
+				isSkipPending = true;
+			}
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Returns the applicable evaluators, in evaluation order, that are not retained for the user but have audit enabled.
+	 */
+	static List<RangerPolicyEvaluator> getAuditEvaluators(List<RangerPolicyEvaluator> evaluators, List<RangerPolicyEvaluator> relevantEvaluators, Date accessTime) {
+		List<RangerPolicyEvaluator> ret      = new ArrayList<>();
+		Set<RangerPolicyEvaluator>  relevant = Collections.newSetFromMap(new IdentityHashMap<RangerPolicyEvaluator, Boolean>());
+
+		relevant.addAll(relevantEvaluators);
+
+		for (RangerPolicyEvaluator evaluator : evaluators) {
+			if (evaluator.isAuditEnabled() && !relevant.contains(evaluator) && evaluator.isApplicable(accessTime)) {
+				ret.add(evaluator);
+			}
+		}
+
+		return ret;
+	}
+
+	private static boolean isRelevant(RangerPolicy policy, int policyType, String user, Set<String> userGroups, Set<String> userRoles) {
+		switch (policyType) {
+			case RangerPolicy.POLICY_TYPE_DATAMASK:
+				return isRelevant(policy.getDataMaskPolicyItems(), user, userGroups, userRoles);
+
+			case RangerPolicy.POLICY_TYPE_ROWFILTER:
+				return isRelevant(policy.getRowFilterPolicyItems(), user, userGroups, userRoles);
+
+			default:
+				return Boolean.TRUE.equals(policy.getIsDenyAllElse())
+						|| isRelevant(policy.getPolicyItems(), user, userGroups, userRoles)
+						|| isRelevant(policy.getDenyPolicyItems(), user, userGroups, userRoles);
+		}
+	}
+
+	private static boolean hasValiditySchedules(List<RangerPolicyEvaluator> evaluators) {
+		for (RangerPolicyEvaluator evaluator : evaluators) {
+			if (evaluator != null && evaluator.getValidityScheduleEvaluatorsCount() > 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean isRelevant(List<? extends RangerPolicyItem> policyItems, String user, Set<String> userGroups, Set<String> userRoles) {
+		if (policyItems != null) {
+			for (RangerPolicyItem policyItem : policyItems) {
+				List<String> users  = policyItem.getUsers();
+				List<String> groups = policyItem.getGroups();
+				List<String> roles  = policyItem.getRoles();
+
+				if (users != null && (users.contains(RangerPolicyEngine.USER_CURRENT) || users.contains(RangerPolicyEngine.RESOURCE_OWNER) || (user != null && users.contains(user)))) {
+					return true;
+				}
+
+				if (groups != null && (groups.contains(RangerPolicyEngine.GROUP_PUBLIC) || (userGroups != null && !Collections.disjoint(groups, userGroups)))) {
+					return true;
+				}
+
+				if (roles != null && userRoles != null && !Collections.disjoint(roles, userRoles)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private RangerAccessRequest createRequest(String childName, String ownerUser) {
+		Map<String, Object> elements = new HashMap<>(parentElements);
+
+		elements.put(childResourceName, childName);
+
+		RangerAccessResourceImpl resource = new RangerAccessResourceImpl(elements, ownerUser);
+
+		resource.setServiceDef(serviceDef);
+
+		RangerAccessRequestImpl ret = new RangerAccessRequestImpl(resource, accessType, user, userGroups);
+
+		ret.setAccessTime(accessTime);
+
+		RangerAccessRequestUtil.setCurrentUserInContext(ret.getContext(), user);
+
+		if (CollectionUtils.isNotEmpty(userRoles)) {
+			RangerAccessRequestUtil.setCurrentUserRolesInContext(ret.getContext(), userRoles);
+		}
+
+		if (ownerUser != null) {
+			RangerAccessRequestUtil.setOwnerInContext(ret.getContext(), ownerUser);
+		}
+
+		return ret;
+	}
+
+	private static Map<String, Object> getElements(RangerAccessResource resource) {
+		Map<String, Object> ret = new HashMap<>();
+
+		if (resource != null && resource.getKeys() != null) {
+			for (String key : resource.getKeys()) {
+				ret.put(key, resource.getValue(key));
+			}
+		}
+
+		return ret;
+	}
+}
@@ -102,4 +102,8 @@ public interface RangerPolicyEngine {
 
 	Set<String> getRolesFromUserAndGroups(String user, Set<String> groups);
 
+	RangerChildResourceFilter getChildResourceFilter(RangerAccessResource parentResource, String childResourceName, String user, Set<String> userGroups, String accessType);
+
+	RangerChildResourceFilter getChildResourceFilter(RangerAccessResource parentResource, String childResourceName, String user, Set<String> userGroups, String accessType, int policyType);
+
 }
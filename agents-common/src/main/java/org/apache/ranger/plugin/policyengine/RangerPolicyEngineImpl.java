@@ -28,6 +28,8 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
 import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
+import org.apache.ranger.plugin.metrics.RangerHistogram;
+import org.apache.ranger.plugin.metrics.RangerMetricsRegistry;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerPolicyDelta;
 import org.apache.ranger.plugin.model.RangerRole;
@@ -44,6 +46,8 @@ import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerResourceTrie;
 import org.apache.ranger.plugin.util.RangerPolicyDeltaUtil;
+import org.apache.ranger.plugin.util.RangerRequestProfile;
+import org.apache.ranger.plugin.util.RangerRequestProfiler;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.RangerRolesUtil;
 import org.apache.ranger.plugin.util.ServicePolicies;
@@ -51,6 +55,7 @@ import org.apache.ranger.plugin.util.ServicePolicies;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -84,11 +89,14 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 	private Map<String, RangerPolicyRepository> policyRepositories = new HashMap<>();
 
-	private       Map<String, RangerResourceTrie>   trieMap;
+	private       RangerSecurityZoneIndex           zoneIndex;
+	private       int                               zoneLookupCacheSize;
 	private       Map<String, String>               zoneTagServiceMap;
-	private       Map<String, Set<String>>          userRoleMapping;
-	private       Map<String, Set<String>>          groupRoleMapping;
+	private       RangerRolesUtil                   rolesUtil;
+	private       int                               roleLookupCacheSize;
 	private final RangerPluginContext               pluginContext;
+	private final RangerHistogram[]                 evaluateLatencies; // indexed by policyType
+	private final RangerRequestProfiler             profiler;
 
 	public RangerPolicyEngineImpl(final RangerPolicyEngineImpl other, ServicePolicies servicePolicies) {
 		this(other,servicePolicies, null);
@@ -101,12 +109,22 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		this.useForwardedIPAddress = other.useForwardedIPAddress;
 		this.trustedProxyAddresses = other.trustedProxyAddresses;
 
+		this.roleLookupCacheSize = other.roleLookupCacheSize;
+		this.zoneLookupCacheSize = other.zoneLookupCacheSize;
+
 		if (rangerRoles != null) {
 			this.rangerRoles = rangerRoles;
-			setUserGroupRoleMapping(rangerRoles);
+
+			if (rangerRoles == other.rangerRoles) {
+				this.rolesUtil = other.rolesUtil;
+			} else {
+				setUserGroupRoleMapping(rangerRoles);
+			}
 		}
 
-		this.pluginContext = other.pluginContext;
+		this.pluginContext     = other.pluginContext;
+		this.evaluateLatencies = other.evaluateLatencies;
+		this.profiler          = other.profiler;
 
 		List<RangerPolicyDelta> defaultZoneDeltas = new ArrayList<>();
 		List<RangerPolicyDelta> defaultZoneDeltasForTagPolicies = new ArrayList<>();
@@ -226,6 +244,8 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 		reorderPolicyEvaluators();
 
+		registerPolicyRepositoryGauges();
+
 		RangerAuthContext oldContext = pluginContext.getAuthContext();
 		this.pluginContext.setAuthContext(new RangerAuthContext(this, oldContext));
 
@@ -260,6 +280,11 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 		this.pluginContext = (rangerPluginContext != null) ? rangerPluginContext : new RangerPluginContext(servicePolicies.getServiceDef().getName());
 
+		this.roleLookupCacheSize = options.roleLookupCacheSize;
+		this.zoneLookupCacheSize = options.zoneLookupCacheSize;
+		this.evaluateLatencies   = getEvaluateLatencyHistograms(servicePolicies.getServiceName());
+		this.profiler            = RangerRequestProfiler.getInstance(servicePolicies.getServiceName(), options.profilerSampleInterval, options.profilerSlowRequestThresholdMs, options.profilerSlowRequestsBufferSize);
+
 		if (rangerRoles != null) {
 			this.rangerRoles = rangerRoles;
 			setUserGroupRoleMapping(rangerRoles);
@@ -335,6 +360,8 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			}
 		}
 
+		registerPolicyRepositoryGauges();
+
 		RangerPerfTracer.log(perf);
 
 		if (PERF_POLICYENGINE_INIT_LOG.isDebugEnabled()) {
@@ -494,6 +521,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		}
 
 		List<RangerContextEnricher> enrichers = allContextEnrichers;
+		RangerRequestProfile        profile   = profiler.sampleProfile(request);
 
 		if(!CollectionUtils.isEmpty(enrichers)) {
 
@@ -505,8 +533,14 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 					perf = RangerPerfTracer.getPerfTracer(PERF_CONTEXTENRICHER_REQUEST_LOG, "RangerContextEnricher.enrich(requestHashCode=" + Integer.toHexString(System.identityHashCode(request)) + ", enricherName=" + enricher.getName() + ")");
 				}
 
+				long startTimeNanos = profile != null ? System.nanoTime() : 0;
+
 				enricher.enrich(request);
 
+				if (profile != null) {
+					profile.addEnricher(enricher.getName(), System.nanoTime() - startTimeNanos);
+				}
+
 				RangerPerfTracer.log(perf);
 			}
 
@@ -548,21 +582,45 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			LOG.info("RangerPolicyEngineImpl.evaluatePolicies(" + requestHashCode + ", " + request + ")");
 		}
 
-		RangerAccessResult ret = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
+		RangerRequestProfile profile        = profiler.startProfile(request);
+		long                 startTimeNanos = System.nanoTime();
+		RangerAccessResult   ret;
 
-		updatePolicyUsageCounts(request, ret);
-
-		if (resultProcessor != null) {
+		try {
+			ret = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
 
-			RangerPerfTracer perfAuditTracer = null;
-			if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_AUDIT_LOG)) {
-				String requestHashCode = Integer.toHexString(System.identityHashCode(request)) + "_" + Integer.toString(policyType);
-				perfAuditTracer = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_AUDIT_LOG, "RangerPolicyEngine.processAudit(requestHashCode=" + requestHashCode + ")");
+			if (policyType >= 0 && policyType < evaluateLatencies.length) {
+				evaluateLatencies[policyType].recordElapsedNanos(startTimeNanos);
 			}
 
-			resultProcessor.processResult(ret);
+			updatePolicyUsageCounts(request, ret);
+
+			if (resultProcessor != null) {
+
+				RangerPerfTracer perfAuditTracer = null;
+				if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_AUDIT_LOG)) {
+					String requestHashCode = Integer.toHexString(System.identityHashCode(request)) + "_" + Integer.toString(policyType);
+					perfAuditTracer = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_AUDIT_LOG, "RangerPolicyEngine.processAudit(requestHashCode=" + requestHashCode + ")");
+				}
+
+				long auditStartTimeNanos = profile != null ? System.nanoTime() : 0;
+
+				resultProcessor.processResult(ret);
+
+				if (profile != null) {
+					profile.setAuditNanos(System.nanoTime() - auditStartTimeNanos);
+				}
 
-			RangerPerfTracer.log(perfAuditTracer);
+				RangerPerfTracer.log(perfAuditTracer);
+			}
+
+			if (profile != null || profiler.isSlowRequestTrackingEnabled()) {
+				profiler.finishProfile(profile, request, policyType, ret, System.nanoTime() - startTimeNanos);
+			}
+		} finally {
+			if (profile != null) {
+				profiler.endProfile();
+			}
 		}
 
 		RangerPerfTracer.log(perf);
@@ -615,7 +673,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_GET_ACLS_LOG, "RangerPolicyEngine.getResourceACLs(requestHashCode=" + request.getResource().getAsString() + ")");
 		}
 
-		String zoneName = trieMap == null ? null : getMatchedZoneName(request.getResource());
+		String zoneName = zoneIndex == null ? null : getMatchedZoneName(request.getResource());
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("zoneName:[" + zoneName + "]");
@@ -902,7 +960,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 			perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_REQUEST_LOG, "RangerPolicyEngine.isAccessAllowed(user=" + user + ",accessType=" + accessType + "resource=" + resource.getAsString() + ")");
 		}
 
-		String zoneName = trieMap == null ? null : getMatchedZoneName(resource);
+		String zoneName = zoneIndex == null ? null : getMatchedZoneName(resource);
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("zoneName:[" + zoneName + "]");
@@ -947,6 +1005,70 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		return ret;
 	}
 
+	/*
+	 * Returns a filter to decide access to children of parentResource, or null if the policies in effect can't be
+	 * evaluated without the context of each request - in which case access must be checked for each child.
+	 */
+	@Override
+	public RangerChildResourceFilter getChildResourceFilter(RangerAccessResource parentResource, String childResourceName, String user, Set<String> userGroups, String accessType) {
+		return getChildResourceFilter(parentResource, childResourceName, user, userGroups, accessType, RangerPolicy.POLICY_TYPE_ACCESS);
+	}
+
+	@Override
+	public RangerChildResourceFilter getChildResourceFilter(RangerAccessResource parentResource, String childResourceName, String user, Set<String> userGroups, String accessType, int policyType) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerPolicyEngineImpl.getChildResourceFilter(" + parentResource + ", " + childResourceName + ", " + user + ", " + userGroups + ", " + accessType + ", policyType=" + policyType + ")");
+		}
+
+		RangerChildResourceFilter ret = null;
+
+		RangerPerfTracer perf = null;
+
+		if(RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_REQUEST_LOG)) {
+			perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_REQUEST_LOG, "RangerPolicyEngine.getChildResourceFilter(user=" + user + ",accessType=" + accessType + ",childResource=" + childResourceName + ",policyType=" + policyType + ")");
+		}
+
+		RangerPolicyRepository policyRepository = this.policyRepository;
+
+		if (zoneIndex == null && !hasTagPolicies(tagPolicyRepository) && policyRepository != null) {
+			RangerAccessResourceImpl parent = new RangerAccessResourceImpl();
+
+			if (parentResource != null && parentResource.getKeys() != null) {
+				for (String key : parentResource.getKeys()) {
+					parent.setValue(key, parentResource.getValue(key));
+				}
+			}
+
+			parent.setServiceDef(getServiceDef());
+
+			Date                        accessTime = new Date();
+			Set<String>                 roles      = getRolesFromUserAndGroups(user, userGroups);
+			List<RangerPolicyEvaluator> evaluators = hasResourcePolicies(policyRepository) ? policyRepository.getLikelyMatchPolicyEvaluators(parent, policyType) : Collections.<RangerPolicyEvaluator>emptyList();
+			List<RangerPolicyEvaluator> relevant   = RangerChildResourceFilter.getRelevantEvaluators(evaluators, policyType, user, userGroups, roles, accessTime);
+			List<RangerPolicyEvaluator> audit      = RangerChildResourceFilter.getAuditEvaluators(evaluators, relevant, accessTime);
+			boolean                     hasConditions = hasCustomConditions(relevant) || hasPolicyConditions(audit); // only policy-level conditions can affect audit
+
+			if (!hasConditions) {
+				RangerAccessResult defaultResult      = createAccessResult(null, policyType);
+				Boolean            isAuditedByDefault = defaultResult.getIsAuditedDetermined() ? defaultResult.getIsAudited() : null;
+
+				ret = new RangerChildResourceFilter(getServiceName(), getServiceDef(), parent, childResourceName, user, userGroups, roles, accessType, accessTime, policyType, relevant, audit, isAuditedByDefault);
+			}
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("RangerPolicyEngineImpl.getChildResourceFilter(): likelyMatchEvaluators=" + evaluators.size() + ", relevantEvaluators=" + relevant.size() + ", auditEvaluators=" + audit.size() + ", hasConditions=" + hasConditions);
+			}
+		}
+
+		RangerPerfTracer.log(perf);
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerPolicyEngineImpl.getChildResourceFilter(" + parentResource + ", " + childResourceName + ", " + user + ", " + userGroups + ", " + accessType + ", policyType=" + policyType + "): " + (ret != null));
+		}
+
+		return ret;
+	}
+
 	/*
 	 * This API is used by ranger-admin - kept for backward compatibility
 	 */
@@ -984,7 +1106,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
                         perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_REQUEST_LOG, "RangerPolicyEngine.isAccessAllowed(user=" + user + "," + userGroups + ", roles=" + roles + ",accessType=" + accessType + ")");
 		}
 
-		String zoneName = trieMap == null ? null : policy.getZoneName();
+		String zoneName = zoneIndex == null ? null : policy.getZoneName();
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("zoneName:[" + zoneName + "]");
@@ -1040,7 +1162,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 		RangerPolicyRepository policyRepository = this.policyRepository;
 
-		String zoneName = trieMap == null ? null : getMatchedZoneName(resource);
+		String zoneName = zoneIndex == null ? null : getMatchedZoneName(resource);
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("zoneName:[" + zoneName + "]");
@@ -1086,7 +1208,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		List<RangerPolicy> ret = null;
 		RangerPolicyRepository policyRepository = this.policyRepository;
 
-		String zoneName = trieMap == null ? null : policy.getZoneName();
+		String zoneName = zoneIndex == null ? null : policy.getZoneName();
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("zoneName:[" + zoneName + "]");
@@ -1156,7 +1278,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 		List<RangerPolicy> ret = new ArrayList<>();
 
-		String zoneName = trieMap == null ? null : getMatchedZoneName(request.getResource());
+		String zoneName = zoneIndex == null ? null : getMatchedZoneName(request.getResource());
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("zoneName:[" + zoneName + "]");
@@ -1233,7 +1355,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 		RangerResourceAccessInfo ret = new RangerResourceAccessInfo(request);
 
-		String zoneName = trieMap == null ? null : getMatchedZoneName(request.getResource());
+		String zoneName = zoneIndex == null ? null : getMatchedZoneName(request.getResource());
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("zoneName:[" + zoneName + "]");
@@ -1361,34 +1483,12 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		return ret;
 	}
 
-        @Override
-        public Set<String> getRolesFromUserAndGroups(String user, Set<String> groups) {
-                Set<String> allRoles = new HashSet<>();
-
-				if (MapUtils.isNotEmpty(userRoleMapping) && StringUtils.isNotEmpty(user)) {
-                        Set<String> userRoles = userRoleMapping.get(user);
-                        if (CollectionUtils.isNotEmpty(userRoles)) {
-                                allRoles.addAll(userRoles);
-                        }
-                }
-
-                if (MapUtils.isNotEmpty(groupRoleMapping)) {
-                        if (CollectionUtils.isNotEmpty(groups)) {
-                                for (String group : groups) {
-                                        Set<String> groupRoles = groupRoleMapping.get(group);
-                                        if (CollectionUtils.isNotEmpty(groupRoles)) {
-                                                allRoles.addAll(groupRoles);
-                                        }
-                                }
-                        }
-                        Set<String> publicGroupRoles = groupRoleMapping.get(RangerPolicyEngine.GROUP_PUBLIC);
-                        if (CollectionUtils.isNotEmpty(publicGroupRoles)) {
-                                allRoles.addAll(publicGroupRoles);
-                        }
-                }
+	@Override
+	public Set<String> getRolesFromUserAndGroups(String user, Set<String> groups) {
+		RangerRolesUtil rolesUtil = this.rolesUtil;
 
-                return allRoles;
-        }
+		return rolesUtil != null ? rolesUtil.getRoles(user, groups) : Collections.<String>emptySet();
+	}
 
 	public RangerRoles getRangerRoles() {
 		return this.rangerRoles;
@@ -1396,6 +1496,12 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 	public void setRangerRoles(RangerRoles rangerRoles) {
 		this.rangerRoles = rangerRoles;
+
+		if (rangerRoles != null) {
+			setUserGroupRoleMapping(rangerRoles);
+		} else {
+			rolesUtil = null;
+		}
 	}
 
 	public List<RangerPolicy> getResourcePolicies(String zoneName) {
@@ -1417,8 +1523,15 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		RangerPolicyRepository policyRepository = this.policyRepository;
 		RangerPolicyRepository tagPolicyRepository = this.tagPolicyRepository;
 
+		RangerRequestProfile profile        = zoneIndex == null ? null : profiler.getProfile(request);
+		long                 startTimeNanos = profile != null ? System.nanoTime() : 0;
+
 		// Evaluate zone-name from request
-		String zoneName = trieMap == null ? null : getMatchedZoneName(request.getResource());
+		String zoneName = zoneIndex == null ? null : getMatchedZoneName(request.getResource());
+
+		if (profile != null) {
+			profile.setZoneMatch(zoneName, System.nanoTime() - startTimeNanos);
+		}
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("zoneName:[" + zoneName + "]");
@@ -1475,7 +1588,13 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 				ret.setIsAccessDetermined(false); // discard result by tag-policies, to evaluate resource policies for possible override
 
-				List<RangerPolicyEvaluator> evaluators = policyRepository.getLikelyMatchPolicyEvaluators(request.getResource(), policyType);
+				RangerRequestProfile        profile        = profiler.getProfile(request);
+				long                        startTimeNanos = profile != null ? System.nanoTime() : 0;
+				List<RangerPolicyEvaluator> evaluators     = policyRepository.getLikelyMatchPolicyEvaluators(request.getResource(), policyType);
+
+				if (profile != null) {
+					profile.addTrieLookup(policyRepository.getServiceName(), System.nanoTime() - startTimeNanos, evaluators.size());
+				}
 
 				for (RangerPolicyEvaluator evaluator : evaluators) {
 					if (!evaluator.isApplicable(accessTime)) {
@@ -1493,8 +1612,17 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 					}
 
 					ret.incrementEvaluatedPoliciesCount();
+
+					if (profile != null) {
+						startTimeNanos = System.nanoTime();
+					}
+
 					evaluator.evaluate(request, ret);
 
+					if (profile != null) {
+						profile.addEvaluator(evaluator.getId(), System.nanoTime() - startTimeNanos);
+					}
+
 					if (ret.getIsAllowed()) {
 						if (!evaluator.hasDeny()) { // No more deny policies left
 							ret.setIsAccessDetermined(true);
@@ -1548,8 +1676,14 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 		Set<RangerTagForEval> tags = RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
 
+		RangerRequestProfile        profile          = tagPolicyRepository == null ? null : profiler.getProfile(request);
+		long                        startTimeNanos   = profile != null ? System.nanoTime() : 0;
 		List<PolicyEvaluatorForTag> policyEvaluators = tagPolicyRepository == null ? null : tagPolicyRepository.getLikelyMatchPolicyEvaluators(tags, policyType, accessTime);
 
+		if (profile != null) {
+			profile.addTrieLookup(tagPolicyRepository.getServiceName(), System.nanoTime() - startTimeNanos, policyEvaluators == null ? 0 : policyEvaluators.size());
+		}
+
 		if (CollectionUtils.isNotEmpty(policyEvaluators)) {
 			for (PolicyEvaluatorForTag policyEvaluator : policyEvaluators) {
 				RangerPolicyEvaluator evaluator = policyEvaluator.getEvaluator();
@@ -1576,8 +1710,16 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
 				result.incrementEvaluatedPoliciesCount();
 
+				if (profile != null) {
+					startTimeNanos = System.nanoTime();
+				}
+
 				evaluator.evaluate(tagEvalRequest, tagEvalResult);
 
+				if (profile != null) {
+					profile.addEvaluator(evaluator.getId(), System.nanoTime() - startTimeNanos);
+				}
+
 				if (tagEvalResult.getIsAllowed()) {
 					if (!evaluator.hasDeny()) { // No Deny policies left now
 						tagEvalResult.setIsAccessDetermined(true);
@@ -1655,6 +1797,70 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 		}
 	}
 
+	private static RangerHistogram[] getEvaluateLatencyHistograms(String serviceName) {
+		RangerMetricsRegistry registry = RangerMetricsRegistry.getInstance();
+		RangerHistogram[]     ret      = new RangerHistogram[RangerPolicy.POLICY_TYPES.length];
+
+		for (int policyType : RangerPolicy.POLICY_TYPES) {
+			ret[policyType] = registry.getHistogram("ranger_policyengine_evaluate_latency_microseconds", "service", serviceName, "policy_type", getPolicyTypeName(policyType));
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Gauges of this engine's policy version and the number of policies indexed by its tries; the values are taken
+	 * now, so that the gauges don't keep this engine alive after it is replaced.
+	 */
+	private void registerPolicyRepositoryGauges() {
+		RangerMetricsRegistry registry      = RangerMetricsRegistry.getInstance();
+		String                serviceName   = policyRepository.getServiceName();
+		final long            policyVersion = getPolicyVersion();
+		final long            zoneCount     = policyRepositories.size();
+
+		registry.registerGauge(() -> policyVersion, "ranger_policyengine_policy_version", "service", serviceName);
+		registry.registerGauge(() -> zoneCount, "ranger_policyengine_zones", "service", serviceName);
+
+		for (int policyType : RangerPolicy.POLICY_TYPES) {
+			final long resourcePolicyCount = policyRepository.getPolicyEvaluators(policyType).size();
+			final long tagPolicyCount      = tagPolicyRepository != null ? tagPolicyRepository.getPolicyEvaluators(policyType).size() : 0;
+
+			registry.registerGauge(() -> resourcePolicyCount, "ranger_policyengine_policies", "service", serviceName, "policy_type", getPolicyTypeName(policyType), "repository", "resource");
+			registry.registerGauge(() -> tagPolicyCount, "ranger_policyengine_policies", "service", serviceName, "policy_type", getPolicyTypeName(policyType), "repository", "tag");
+		}
+	}
+
+	private static String getPolicyTypeName(int policyType) {
+		switch (policyType) {
+			case RangerPolicy.POLICY_TYPE_DATAMASK:
+				return "datamask";
+			case RangerPolicy.POLICY_TYPE_ROWFILTER:
+				return "rowfilter";
+			default:
+				return "access";
+		}
+	}
+
+	private static boolean hasCustomConditions(List<RangerPolicyEvaluator> evaluators) {
+		for (RangerPolicyEvaluator evaluator : evaluators) {
+			if (evaluator != null && evaluator.getCustomConditionsCount() > 0) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean hasPolicyConditions(List<RangerPolicyEvaluator> evaluators) {
+		for (RangerPolicyEvaluator evaluator : evaluators) {
+			if (evaluator != null && CollectionUtils.isNotEmpty(evaluator.getPolicy().getConditions())) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 	private boolean hasTagPolicies(RangerPolicyRepository tagPolicyRepository) {
 		return tagPolicyRepository != null && CollectionUtils.isNotEmpty(tagPolicyRepository.getPolicies());
 	}
@@ -1769,12 +1975,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
                 LOG.debug("Built matchers for all Zones");
             }
 
-			trieMap = new HashMap<>();
-
-			for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
-            	trieMap.put(resourceDef.getName(), new RangerResourceTrie<>(resourceDef, matchers));
-            }
-
+			zoneIndex = new RangerSecurityZoneIndex(serviceDef, matchers, zoneLookupCacheSize);
         }
 
         if (LOG.isDebugEnabled()) {
@@ -1790,12 +1991,12 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
         String ret = null;
 
-        if (this.trieMap != null) {
+        if (this.zoneIndex != null) {
             Map<String, ? extends Object> resource             = grantRevokeRequest.getResource();
             Map<String, List<String>>     resourceForZoneMatch = convertFromSingleResource(resource);
             RangerAccessResource          accessResource       = convertToAccessResource(resource);
 
-            ret = getMatchedZoneName(resourceForZoneMatch, accessResource);
+            ret = zoneIndex.getMatchedZoneName(resourceForZoneMatch, accessResource);
         }
 
         if (LOG.isDebugEnabled()) {
@@ -1822,12 +2023,15 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 				ret = tagPolicyRepository == other.tagPolicyRepository;
 			}
 			if (ret) {
-				if (trieMap != null && other.trieMap != null) {
+				if (zoneIndex != null && other.zoneIndex != null) {
 					//check trieMap
-					ret = trieMap.size() == other.trieMap.size();
+					Map<String, RangerResourceTrie> trieMap      = zoneIndex.getTrieMap();
+					Map<String, RangerResourceTrie> otherTrieMap = other.zoneIndex.getTrieMap();
+
+					ret = trieMap.size() == otherTrieMap.size();
 					if (ret) {
 						for (Map.Entry<String, RangerResourceTrie> entry : trieMap.entrySet()) {
-							ret = entry.getValue().compareSubtree(other.trieMap.get(entry.getKey()));
+							ret = entry.getValue().compareSubtree(otherTrieMap.get(entry.getKey()));
 							if (!ret) {
 								break;
 							}
@@ -1835,7 +2039,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 					}
 					ret = true;
 				} else {
-					ret = trieMap == other.trieMap;
+					ret = zoneIndex == other.zoneIndex;
 				}
 				if (ret) {
 					// Check policyRepositories
@@ -1863,10 +2067,8 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 
         String ret = null;
 
-        if (this.trieMap != null) {
-            Map<String, List<String>> resource = convertFromAccessResource(accessResource);
-
-            ret = getMatchedZoneName(resource, accessResource);
+        if (this.zoneIndex != null) {
+            ret = zoneIndex.getMatchedZoneName(accessResource);
         }
 
         if (LOG.isDebugEnabled()) {
@@ -1876,115 +2078,7 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
         return ret;
     }
 
-    private String getMatchedZoneName(Map<String, List<String>> resource, RangerAccessResource accessResource) {
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("==> RangerPolicyEngineImpl.getMatchedZoneName(" + resource + ", " + accessResource + ")");
-        }
-
-        String ret = null;
-
-        if (this.trieMap != null) {
-
-            List<List<RangerZoneResourceMatcher>> zoneMatchersList = null;
-            List<RangerZoneResourceMatcher>       smallestList     = null;
-
-            for (Map.Entry<String, List<String>> entry : resource.entrySet()) {
-                String       resourceDefName = entry.getKey();
-                List<String> resourceValues  = entry.getValue();
-
-                RangerResourceTrie<RangerZoneResourceMatcher> trie         = trieMap.get(resourceDefName);
-
-                if (trie == null) {
-                    continue;
-                }
-
-                List<RangerZoneResourceMatcher>               matchedZones = trie.getEvaluatorsForResource(resourceValues);
-
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("ResourceDefName:[" + resourceDefName + "], values:[" + resourceValues + "], matched-zones:[" + matchedZones + "]");
-                }
-                if (CollectionUtils.isEmpty(matchedZones)) { // no policies for this resource, bail out
-                    zoneMatchersList = null;
-                    smallestList     = null;
-                    break;
-                }
-
-                if (smallestList == null) {
-                    smallestList = matchedZones;
-                } else {
-                    if (zoneMatchersList == null) {
-                        zoneMatchersList = new ArrayList<>();
-                        zoneMatchersList.add(smallestList);
-                    }
-                    zoneMatchersList.add(matchedZones);
-
-                    if (smallestList.size() > matchedZones.size()) {
-                        smallestList = matchedZones;
-                    }
-                }
-            }
-            if (smallestList != null) {
-
-                final List<RangerZoneResourceMatcher> intersection;
-
-                if (zoneMatchersList != null) {
-                    intersection = new ArrayList<>(smallestList);
-                    for (List<RangerZoneResourceMatcher> zoneMatchers : zoneMatchersList) {
-                        if (zoneMatchers != smallestList) {
-                            // remove zones from intersection that are not in zoneMatchers
-                            intersection.retainAll(zoneMatchers);
-                            if (CollectionUtils.isEmpty(intersection)) { // if no zoneMatcher exists, bail out and return empty list
-                                break;
-                            }
-                        }
-                    }
-                } else {
-                    intersection = smallestList;
-                }
-
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("Resource:[" + resource + "], matched-zones:[" + intersection + "]");
-                }
-
-                if (intersection.size() > 0) {
-                    Set<String> matchedZoneNames = new HashSet<>();
-
-                    for (RangerZoneResourceMatcher zoneMatcher : intersection) {
-                        if (LOG.isDebugEnabled()) {
-                            LOG.debug("Trying to match resource:[" + accessResource + "] using zoneMatcher:[" + zoneMatcher + "]");
-                        }
-                        // These are potential matches. Try to really match them
-                        if (zoneMatcher.getPolicyResourceMatcher().isMatch(accessResource, RangerPolicyResourceMatcher.MatchScope.ANY, null)) {
-                            if (LOG.isDebugEnabled()) {
-                                LOG.debug("Matched resource:[" + accessResource + "] using zoneMatcher:[" + zoneMatcher + "]");
-                            }
-                            // Actual match happened
-                            matchedZoneNames.add(zoneMatcher.getSecurityZoneName());
-                        } else {
-                            if (LOG.isDebugEnabled()) {
-                                LOG.debug("Did not match resource:[" + accessResource + "] using zoneMatcher:[" + zoneMatcher + "]");
-                            }
-                        }
-                    }
-                    LOG.info("The following zone-names matched resource:[" + accessResource + "]: " + matchedZoneNames);
-
-                    if (matchedZoneNames.size() == 1) {
-                        String[] zones = new String[1];
-                        matchedZoneNames.toArray(zones);
-                        ret = zones[0];
-                    } else {
-                        LOG.error("Internal error, multiple zone-names are matched. The following zone-names matched resource:[" + resource + "]: " + matchedZoneNames);
-                    }
-                }
-            }
-        }
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("<== RangerPolicyEngineImpl.getMatchedZoneName(" + resource + ", " + accessResource + ") : " + ret);
-        }
-        return ret;
-    }
-
-    private static Map<String, List<String>> convertFromAccessResource(RangerAccessResource accessResource) {
+    static Map<String, List<String>> convertFromAccessResource(RangerAccessResource accessResource) {
         return convertFromSingleResource(accessResource.getAsMap());
     }
 
@@ -2034,13 +2128,11 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
 	private void setUserGroupRoleMapping(RangerRoles rangerRoles) {
 		Set<RangerRole> rangerRoleSet = rangerRoles.getRangerRoles();
 		if (CollectionUtils.isNotEmpty(rangerRoleSet)) {
-			RangerRolesUtil rangerRolesUtil = new RangerRolesUtil();
+			RangerRolesUtil rangerRolesUtil = new RangerRolesUtil(roleLookupCacheSize);
 			rangerRolesUtil.init(rangerRoleSet);
-			userRoleMapping  = rangerRolesUtil.getUserRoleMapping();
-			groupRoleMapping = rangerRolesUtil.getGroupRoleMapping();
+			rolesUtil = rangerRolesUtil;
 		} else {
-			userRoleMapping  = null;
-			groupRoleMapping = null;
+			rolesUtil = null;
 		}
 	}
 }
@@ -21,6 +21,8 @@ package org.apache.ranger.plugin.policyengine;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.ranger.plugin.model.validation.RangerServiceDefHelper;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.util.RangerRequestProfiler;
+import org.apache.ranger.plugin.util.RangerRolesUtil;
 
 public class RangerPolicyEngineOptions {
 	public String evaluatorType = RangerPolicyEvaluator.EVALUATOR_TYPE_AUTO;
@@ -34,6 +36,13 @@ public class RangerPolicyEngineOptions {
 	public boolean enableTagEnricherWithLocalRefresher = false;
 	public boolean disableAccessEvaluationWithPolicyACLSummary = true;
 	public boolean optimizeTrieForRetrieval = false;
+	public int     roleLookupCacheSize = RangerRolesUtil.DEFAULT_ROLE_LOOKUP_CACHE_SIZE;
+	public int     zoneLookupCacheSize = RangerSecurityZoneIndex.DEFAULT_ZONE_LOOKUP_CACHE_SIZE;
+	public int     profilerSampleInterval = 0;
+	public long    profilerSlowRequestThresholdMs = 0;
+	public int     profilerSlowRequestsBufferSize = RangerRequestProfiler.DEFAULT_SLOW_REQUESTS_BUFFER_SIZE;
+	public boolean deduplicateStrings = true;
+	public int     policyEvaluatorBuildParallelism = 0; // 0: number of available processors; 1: build policy evaluators in the calling thread
 
 	private RangerServiceDefHelper serviceDefHelper;
 
@@ -49,6 +58,13 @@ public class RangerPolicyEngineOptions {
 		this.enableTagEnricherWithLocalRefresher = other.enableTagEnricherWithLocalRefresher;
 		this.disableAccessEvaluationWithPolicyACLSummary = other.disableAccessEvaluationWithPolicyACLSummary;
 		this.optimizeTrieForRetrieval = other.optimizeTrieForRetrieval;
+		this.roleLookupCacheSize = other.roleLookupCacheSize;
+		this.zoneLookupCacheSize = other.zoneLookupCacheSize;
+		this.profilerSampleInterval = other.profilerSampleInterval;
+		this.profilerSlowRequestThresholdMs = other.profilerSlowRequestThresholdMs;
+		this.profilerSlowRequestsBufferSize = other.profilerSlowRequestsBufferSize;
+		this.policyEvaluatorBuildParallelism = other.policyEvaluatorBuildParallelism;
+		this.deduplicateStrings = other.deduplicateStrings;
 		this.serviceDefHelper = null;
 	}
 
@@ -67,6 +83,13 @@ public class RangerPolicyEngineOptions {
 		enableTagEnricherWithLocalRefresher = false;
 		disableAccessEvaluationWithPolicyACLSummary = conf.getBoolean(propertyPrefix + ".policyengine.option.disable.access.evaluation.with.policy.acl.summary", true);
 		optimizeTrieForRetrieval = conf.getBoolean(propertyPrefix + ".policyengine.option.optimize.trie.for.retrieval", false);
+		roleLookupCacheSize = conf.getInt(propertyPrefix + ".policyengine.option.role.lookup.cache.size", RangerRolesUtil.DEFAULT_ROLE_LOOKUP_CACHE_SIZE);
+		zoneLookupCacheSize = conf.getInt(propertyPrefix + ".policyengine.option.zone.lookup.cache.size", RangerSecurityZoneIndex.DEFAULT_ZONE_LOOKUP_CACHE_SIZE);
+		profilerSampleInterval = conf.getInt(propertyPrefix + ".policyengine.option.profiler.sample.interval", 0);
+		profilerSlowRequestThresholdMs = conf.getLong(propertyPrefix + ".policyengine.option.profiler.slow.request.threshold.ms", 0);
+		profilerSlowRequestsBufferSize = conf.getInt(propertyPrefix + ".policyengine.option.profiler.slow.requests.buffer.size", RangerRequestProfiler.DEFAULT_SLOW_REQUESTS_BUFFER_SIZE);
+		policyEvaluatorBuildParallelism = conf.getInt(propertyPrefix + ".policyengine.option.evaluator.build.parallelism", 0);
+		deduplicateStrings = conf.getBoolean(propertyPrefix + ".policyengine.option.deduplicate.strings", true);
 
 	}
 
@@ -175,6 +198,12 @@ public class RangerPolicyEngineOptions {
 				", disableTrieLookupPrefilter: " + disableTrieLookupPrefilter +
 				", optimizeTrieForRetrieval: " + optimizeTrieForRetrieval +
 				", cacheAuditResult: " + cacheAuditResults +
+				", roleLookupCacheSize: " + roleLookupCacheSize +
+				", zoneLookupCacheSize: " + zoneLookupCacheSize +
+				", profilerSampleInterval: " + profilerSampleInterval +
+				", profilerSlowRequestThresholdMs: " + profilerSlowRequestThresholdMs +
+				", policyEvaluatorBuildParallelism: " + policyEvaluatorBuildParallelism +
+				", deduplicateStrings: " + deduplicateStrings +
 				" }";
 
 	}
@@ -51,12 +51,20 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class RangerPolicyRepository {
     private static final Log LOG = LogFactory.getLog(RangerPolicyRepository.class);
 
     private static final Log PERF_CONTEXTENRICHER_INIT_LOG = RangerPerfTracer.getPerfLogger("contextenricher.init");
     private static final Log PERF_TRIE_OP_LOG = RangerPerfTracer.getPerfLogger("resourcetrie.retrieval");
+    private static final Log PERF_EVALUATORS_INIT_LOG = RangerPerfTracer.getPerfLogger("policyevaluators.init");
+
+    private static final int PARALLEL_BUILD_MIN_POLICIES = 1000;
+    private static final int PARALLEL_BUILD_BATCH_SIZE   = 64;
 
     enum AuditModeEnum {
         AUDIT_ALL, AUDIT_NONE, AUDIT_DEFAULT
@@ -856,13 +864,13 @@ class RangerPolicyRepository {
         List<RangerPolicyEvaluator> policyEvaluators = new ArrayList<>();
         List<RangerPolicyEvaluator> dataMaskPolicyEvaluators  = new ArrayList<>();
         List<RangerPolicyEvaluator> rowFilterPolicyEvaluators = new ArrayList<>();
+        RangerPolicyEvaluator[]     evaluators                = buildPolicyEvaluators(policies, options);
 
-        for (RangerPolicy policy : policies) {
-            if (skipBuildingPolicyEvaluator(policy, options)) {
-                continue;
-            }
-
-            RangerPolicyEvaluator evaluator = buildPolicyEvaluator(policy, serviceDef, options);
+        // evaluators are partitioned in the order of policies, whether built in parallel or not; together with the stable
+        // sort below, this keeps the evaluation order of policies with equal eval-order the same across engine rebuilds
+        for (int i = 0; i < evaluators.length; i++) {
+            RangerPolicy          policy    = policies.get(i);
+            RangerPolicyEvaluator evaluator = evaluators[i];
 
             if (evaluator != null) {
                 if(policy.getPolicyType() == null || policy.getPolicyType() == RangerPolicy.POLICY_TYPE_ACCESS) {
@@ -993,6 +1001,126 @@ class RangerPolicyRepository {
         return ret;
     }
 
+    /*
+     * Builds evaluators of the given policies; the evaluator of policies.get(i), or null if it is skipped, is at index i of
+     * the returned array. Evaluators are built in a fork-join pool when there are at least PARALLEL_BUILD_MIN_POLICIES
+     * policies and options.policyEvaluatorBuildParallelism is not 1.
+     */
+    private RangerPolicyEvaluator[] buildPolicyEvaluators(List<RangerPolicy> policies, RangerPolicyEngineOptions options) {
+        final RangerPolicyEvaluator[] ret         = new RangerPolicyEvaluator[policies.size()];
+        final int                     parallelism = getPolicyEvaluatorBuildParallelism(options, policies.size());
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerPolicyRepository.buildPolicyEvaluators(policyCount=" + policies.size() + ", parallelism=" + parallelism + ")");
+        }
+
+        RangerPerfTracer perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_EVALUATORS_INIT_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_EVALUATORS_INIT_LOG, "RangerPolicyRepository.buildPolicyEvaluators(serviceName=" + serviceName + ",zoneName=" + zoneName + ",policyCount=" + policies.size() + ",parallelism=" + parallelism + ")");
+        }
+
+        if (parallelism > 1) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism, new PolicyEvaluatorBuilderThreadFactory(serviceName), null, false);
+
+            try {
+                pool.invoke(new PolicyEvaluatorBuilderTask(policies, options, ret, 0, policies.size()));
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            buildPolicyEvaluators(policies, options, ret, 0, policies.size());
+        }
+
+        RangerPerfTracer.log(perf);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerPolicyRepository.buildPolicyEvaluators(policyCount=" + policies.size() + ", parallelism=" + parallelism + ")");
+        }
+
+        return ret;
+    }
+
+    private void buildPolicyEvaluators(List<RangerPolicy> policies, RangerPolicyEngineOptions options, RangerPolicyEvaluator[] evaluators, int fromIndex, int toIndex) {
+        for (int i = fromIndex; i < toIndex; i++) {
+            RangerPolicy policy = policies.get(i);
+
+            if (!skipBuildingPolicyEvaluator(policy, options)) {
+                evaluators[i] = buildPolicyEvaluator(policy, serviceDef, options);
+            }
+        }
+    }
+
+    private static int getPolicyEvaluatorBuildParallelism(RangerPolicyEngineOptions options, int policyCount) {
+        int ret = options.policyEvaluatorBuildParallelism;
+
+        if (ret <= 0) {
+            ret = Runtime.getRuntime().availableProcessors();
+        }
+
+        if (policyCount < PARALLEL_BUILD_MIN_POLICIES) {
+            ret = 1;
+        } else {
+            ret = Math.min(ret, (policyCount + PARALLEL_BUILD_BATCH_SIZE - 1) / PARALLEL_BUILD_BATCH_SIZE);
+        }
+
+        return ret;
+    }
+
+    private final class PolicyEvaluatorBuilderTask extends RecursiveAction {
+        private final List<RangerPolicy>        policies;
+        private final RangerPolicyEngineOptions options;
+        private final RangerPolicyEvaluator[]   evaluators;
+        private final int                       fromIndex;
+        private final int                       toIndex;
+
+        PolicyEvaluatorBuilderTask(List<RangerPolicy> policies, RangerPolicyEngineOptions options, RangerPolicyEvaluator[] evaluators, int fromIndex, int toIndex) {
+            this.policies   = policies;
+            this.options    = options;
+            this.evaluators = evaluators;
+            this.fromIndex  = fromIndex;
+            this.toIndex    = toIndex;
+        }
+
+        @Override
+        protected void compute() {
+            if (toIndex - fromIndex <= PARALLEL_BUILD_BATCH_SIZE) {
+                buildPolicyEvaluators(policies, options, evaluators, fromIndex, toIndex);
+            } else {
+                int midIndex = (fromIndex + toIndex) >>> 1;
+
+                invokeAll(new PolicyEvaluatorBuilderTask(policies, options, evaluators, fromIndex, midIndex),
+                          new PolicyEvaluatorBuilderTask(policies, options, evaluators, midIndex, toIndex));
+            }
+        }
+    }
+
+    /*
+     * Worker threads are daemons, so that a pool left behind by a failed build does not keep the JVM up, and use the
+     * context class-loader of the thread building the engine, as custom condition evaluators and script engines are
+     * loaded with it.
+     */
+    private static final class PolicyEvaluatorBuilderThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        private final String        threadNamePrefix;
+        private final ClassLoader   contextClassLoader = Thread.currentThread().getContextClassLoader();
+        private final AtomicInteger threadCount        = new AtomicInteger();
+
+        PolicyEvaluatorBuilderThreadFactory(String serviceName) {
+            this.threadNamePrefix = "PolicyEvaluatorBuilder-" + serviceName + "-";
+        }
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread ret = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+
+            ret.setName(threadNamePrefix + threadCount.incrementAndGet());
+            ret.setDaemon(true);
+            ret.setContextClassLoader(contextClassLoader);
+
+            return ret;
+        }
+    }
+
     private RangerPolicyEvaluator buildPolicyEvaluator(RangerPolicy policy, RangerServiceDef serviceDef, RangerPolicyEngineOptions options) {
         if(LOG.isDebugEnabled()) {
             LOG.debug("==> RangerPolicyRepository.buildPolicyEvaluator(" + policy + "," + serviceDef + ", " + options + ")");
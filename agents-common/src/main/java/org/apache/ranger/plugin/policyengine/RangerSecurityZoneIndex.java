@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.plugin.policyengine;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.validation.RangerZoneResourceMatcher;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
+import org.apache.ranger.plugin.util.RangerResourceTrie;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Resolves the security zone of a resource. Zone resource matchers are indexed in one trie per resource-def, as before;
+ * the candidates found in the tries for the resource's elements are intersected in a single pass using bitsets of
+ * matcher positions, instead of intersecting lists. Resolved zones are memoized by resource cache-key.
+ */
+class RangerSecurityZoneIndex {
+	private static final Log LOG = LogFactory.getLog(RangerSecurityZoneIndex.class);
+
+	public static final int DEFAULT_ZONE_LOOKUP_CACHE_SIZE = 10000;
+
+	private static final String NO_ZONE = ""; // cached for resources that are not in any zone
+
+	private final Map<String, RangerResourceTrie>         trieMap;
+	private final Map<RangerZoneResourceMatcher, Integer> matcherPositions;
+	private final RangerZoneResourceMatcher[]             matchers;
+	private final List<String>                            resourceDefNames;
+	private final Cache<String, String>                   zoneLookupCache;
+
+	RangerSecurityZoneIndex(RangerServiceDef serviceDef, List<RangerZoneResourceMatcher> matchers, int zoneLookupCacheSize) {
+		this.trieMap          = new HashMap<>();
+		this.matcherPositions = new IdentityHashMap<>();
+		this.matchers         = matchers.toArray(new RangerZoneResourceMatcher[matchers.size()]);
+		this.resourceDefNames = new ArrayList<>();
+		this.zoneLookupCache  = zoneLookupCacheSize > 0 ? CacheBuilder.newBuilder().maximumSize(zoneLookupCacheSize).<String, String>build() : null;
+
+		for (int i = 0; i < this.matchers.length; i++) {
+			matcherPositions.put(this.matchers[i], i);
+		}
+
+		for (RangerServiceDef.RangerResourceDef resourceDef : serviceDef.getResources()) {
+			trieMap.put(resourceDef.getName(), new RangerResourceTrie<>(resourceDef, matchers));
+			resourceDefNames.add(resourceDef.getName());
+		}
+	}
+
+	Map<String, RangerResourceTrie> getTrieMap() {
+		return trieMap;
+	}
+
+	String getMatchedZoneName(RangerAccessResource accessResource) {
+		String cacheKey = zoneLookupCache != null ? getCacheKey(accessResource) : null;
+		String ret      = cacheKey != null ? zoneLookupCache.getIfPresent(cacheKey) : null;
+
+		if (ret == null) {
+			ret = getMatchedZoneName(RangerPolicyEngineImpl.convertFromAccessResource(accessResource), accessResource);
+
+			if (cacheKey != null) {
+				zoneLookupCache.put(cacheKey, ret != null ? ret : NO_ZONE);
+			}
+		} else if (ret == NO_ZONE) {
+			ret = null;
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Resources built by callers, like in isAccessAllowed(resource, ...), may not have the service-def needed for RangerAccessResource.getCacheKey()
+	 */
+	private String getCacheKey(RangerAccessResource accessResource) {
+		String ret = accessResource.getCacheKey();
+
+		if (ret == null) {
+			StringBuilder sb = new StringBuilder();
+
+			for (String resourceDefName : resourceDefNames) {
+				if (accessResource.exists(resourceDefName)) {
+					if (sb.length() > 0) {
+						sb.append(RangerAccessResource.RESOURCE_SEP);
+					}
+
+					sb.append(resourceDefName).append(RangerAccessResource.RESOURCE_NAME_VAL_SEP).append(accessResource.getValue(resourceDefName));
+				}
+			}
+
+			ret = sb.length() > 0 ? sb.toString() : null;
+		}
+
+		return ret;
+	}
+
+	String getMatchedZoneName(Map<String, List<String>> resource, RangerAccessResource accessResource) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerSecurityZoneIndex.getMatchedZoneName(" + resource + ", " + accessResource + ")");
+		}
+
+		String ret        = null;
+		BitSet candidates = null;
+
+		for (Map.Entry<String, List<String>> entry : resource.entrySet()) {
+			RangerResourceTrie<RangerZoneResourceMatcher> trie = trieMap.get(entry.getKey());
+
+			if (trie == null) {
+				continue;
+			}
+
+			List<RangerZoneResourceMatcher> matchedZones = trie.getEvaluatorsForResource(entry.getValue());
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("ResourceDefName:[" + entry.getKey() + "], values:[" + entry.getValue() + "], matched-zones:[" + matchedZones + "]");
+			}
+
+			if (CollectionUtils.isEmpty(matchedZones)) { // no zone for this resource, bail out
+				candidates = null;
+				break;
+			}
+
+			BitSet matched = new BitSet(matchers.length);
+
+			for (RangerZoneResourceMatcher matcher : matchedZones) {
+				matched.set(matcherPositions.get(matcher));
+			}
+
+			if (candidates == null) {
+				candidates = matched;
+			} else {
+				candidates.and(matched);
+			}
+
+			if (candidates.isEmpty()) {
+				break;
+			}
+		}
+
+		if (candidates != null) {
+			String  matchedZoneName = null;
+			boolean isMultipleZones = false;
+
+			for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+				RangerZoneResourceMatcher zoneMatcher = matchers[i];
+
+				if (zoneMatcher.getSecurityZoneName().equals(matchedZoneName)) {
+					continue;
+				}
+
+				// These are potential matches. Try to really match them
+				if (zoneMatcher.getPolicyResourceMatcher().isMatch(accessResource, RangerPolicyResourceMatcher.MatchScope.ANY, null)) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("Matched resource:[" + accessResource + "] using zoneMatcher:[" + zoneMatcher + "]");
+					}
+
+					if (matchedZoneName == null) {
+						matchedZoneName = zoneMatcher.getSecurityZoneName();
+					} else {
+						LOG.error("Internal error, multiple zone-names are matched. Zone-names [" + matchedZoneName + ", " + zoneMatcher.getSecurityZoneName() + "] matched resource:[" + resource + "]");
+
+						isMultipleZones = true;
+						break;
+					}
+				}
+			}
+
+			if (!isMultipleZones) {
+				ret = matchedZoneName;
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerSecurityZoneIndex.getMatchedZoneName(" + resource + ", " + accessResource + ") : " + ret);
+		}
+
+		return ret;
+	}
+}
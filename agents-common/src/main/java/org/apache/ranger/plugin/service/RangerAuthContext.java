@@ -32,6 +32,7 @@ import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
 import org.apache.ranger.plugin.policyengine.RangerAccessResultProcessor;
+import org.apache.ranger.plugin.policyengine.RangerChildResourceFilter;
 import org.apache.ranger.plugin.policyengine.RangerMutableResource;
 import org.apache.ranger.plugin.policyengine.RangerPluginContext;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
@@ -389,4 +390,20 @@ public class RangerAuthContext implements RangerPolicyEngine {
             policyEngine.setRangerRoles(rangerRoles);
         }
     }
+
+    @Override
+    public RangerChildResourceFilter getChildResourceFilter(RangerAccessResource parentResource, String childResourceName, String user, Set<String> userGroups, String accessType) {
+        if (policyEngine != null) {
+            return policyEngine.getChildResourceFilter(parentResource, childResourceName, user, userGroups, accessType);
+        }
+        return null;
+    }
+
+    @Override
+    public RangerChildResourceFilter getChildResourceFilter(RangerAccessResource parentResource, String childResourceName, String user, Set<String> userGroups, String accessType, int policyType) {
+        if (policyEngine != null) {
+            return policyEngine.getChildResourceFilter(parentResource, childResourceName, user, userGroups, accessType, policyType);
+        }
+        return null;
+    }
 }
@@ -32,19 +32,25 @@ import org.apache.ranger.admin.client.RangerAdminClient;
 import org.apache.ranger.admin.client.RangerAdminRESTClient;
 import org.apache.ranger.audit.provider.AuditHandler;
 import org.apache.ranger.audit.provider.AuditProviderFactory;
+import org.apache.ranger.audit.provider.BaseAuditHandler;
+import org.apache.ranger.audit.provider.MultiDestAuditProvider;
+import org.apache.ranger.audit.queue.AuditQueue;
 import org.apache.ranger.audit.provider.StandAloneAuditProviderFactory;
 import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.authorization.utils.StringUtil;
 import org.apache.ranger.plugin.contextenricher.RangerContextEnricher;
 import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
+import org.apache.ranger.plugin.metrics.RangerMetricsRegistry;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerRole;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
 import org.apache.ranger.plugin.policyengine.RangerAccessResultProcessor;
+import org.apache.ranger.plugin.policyengine.RangerChildResourceFilter;
 import org.apache.ranger.plugin.policyengine.RangerPluginContext;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
@@ -158,6 +164,10 @@ public class RangerBasePlugin {
 	}
 
 	public void setRangerRoles(RangerRoles rangerRoles) {
+		if (policyEngineOptions.deduplicateStrings) {
+			RangerObjectDeduplicator.deduplicate(rangerRoles, serviceName);
+		}
+
 		this.rangerRoles = rangerRoles;
 	}
 
@@ -224,6 +234,8 @@ public class RangerBasePlugin {
 		if (configuration.getProperties() != null) {
 			auditProviderFactory = new AuditProviderFactory();
 			auditProviderFactory.init(configuration.getProperties(), appId);
+
+			registerAuditGauges(auditProviderFactory.getAuditProvider());
 		} else {
 			LOG.error("Audit subsystem is not initialized correctly. Please check audit configuration. ");
 			LOG.error("No authorization audits will be generated. ");
@@ -303,6 +315,10 @@ public class RangerBasePlugin {
 			boolean            usePolicyDeltas = false;
 			boolean            updateRangerRolesOnly = false;
 
+			if (policies != null && policyEngineOptions.deduplicateStrings) {
+				RangerObjectDeduplicator.deduplicate(policies, serviceName);
+			}
+
 			if (policies == null) {
 				policies = getDefaultSvcPolicies();
 				if (policies == null) {
@@ -529,6 +545,20 @@ public class RangerBasePlugin {
 		return null;
 	}
 
+	/*
+	 * Returns a filter to check access to children of parentResource in one pass, like tables listed in a database; or
+	 * null, in which case the caller should check access for each child using isAccessAllowed().
+	 */
+	public RangerChildResourceFilter getChildResourceFilter(RangerAccessResource parentResource, String childResourceName, String user, Set<String> userGroups, String accessType) {
+		RangerPolicyEngine policyEngine = this.policyEngine;
+
+		if(policyEngine != null) {
+			return policyEngine.getChildResourceFilter(parentResource, childResourceName, user, userGroups, accessType);
+		}
+
+		return null;
+	}
+
 	public RangerRole createRole(RangerRole request, RangerAccessResultProcessor resultProcessor) throws Exception {
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("==> RangerBasePlugin.createRole(" + request + ")");
@@ -844,6 +874,32 @@ public class RangerBasePlugin {
 		token.waitForCompletion();
 	}
 
+	/*
+	 * Registers gauges of the depth and outcome counts of each queue in the chain of audit handlers.
+	 */
+	private void registerAuditGauges(AuditHandler auditHandler) {
+		if (auditHandler instanceof BaseAuditHandler) {
+			final BaseAuditHandler handler         = (BaseAuditHandler) auditHandler;
+			RangerMetricsRegistry  metricsRegistry = RangerMetricsRegistry.getInstance();
+			String                 handlerName     = handler.getFinalPath();
+
+			if (handler instanceof AuditQueue) {
+				final AuditQueue queue = (AuditQueue) handler;
+
+				metricsRegistry.registerGauge(queue::getQueueSize, "ranger_audit_queue_size", "service", serviceName, "queue", handlerName);
+				metricsRegistry.registerGauge(queue::getMaxQueueSize, "ranger_audit_queue_max_size", "service", serviceName, "queue", handlerName);
+				metricsRegistry.registerGauge(handler::getTotalFailedCount, "ranger_audit_failed_events", "service", serviceName, "queue", handlerName);
+				metricsRegistry.registerGauge(handler::getTotalStashedCount, "ranger_audit_stashed_events", "service", serviceName, "queue", handlerName);
+
+				registerAuditGauges(queue.getConsumer());
+			} else if (handler instanceof MultiDestAuditProvider) {
+				for (AuditHandler provider : ((MultiDestAuditProvider) handler).getAuditProviders()) {
+					registerAuditGauges(provider);
+				}
+			}
+		}
+	}
+
 	private RangerTagEnricher getTagEnricher() {
 		RangerTagEnricher ret = null;
 		RangerAuthContext authContext = getCurrentRangerAuthContext();
@@ -49,6 +49,10 @@ public class PList<T> implements java.io.Serializable {
 	 * Comma seperated list of the fields for sorting
 	 */
 	protected String sortBy;
+	/**
+	 * Token to read the next page with keyset pagination; null on the last page, or when not paginating by token
+	 */
+	protected String nextToken;
 
 	protected long queryTimeMS = System.currentTimeMillis();
 
@@ -172,6 +176,11 @@ public class PList<T> implements java.io.Serializable {
 	}
 	public String getSortBy() { return sortBy; }
 
+	public void setNextToken(String nextToken) {
+		this.nextToken = nextToken;
+	}
+	public String getNextToken() { return nextToken; }
+
 
 
 
@@ -188,7 +197,8 @@ public class PList<T> implements java.io.Serializable {
 		return "PList [startIndex=" + startIndex + ", pageSize="
 				+ pageSize + ", totalCount=" + totalCount
 				+ ", resultSize=" + resultSize + ", sortType="
-				+ sortType + ", sortBy=" + sortBy + ", queryTimeMS="
+				+ sortType + ", sortBy=" + sortBy + ", nextToken="
+				+ nextToken + ", queryTimeMS="
 				+ queryTimeMS + "]";
 	}
 }
\ No newline at end of file
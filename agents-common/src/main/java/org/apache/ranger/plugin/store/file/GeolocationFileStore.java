@@ -162,6 +162,12 @@ public class GeolocationFileStore implements GeolocationStore {
 
 	RangerGeolocationDatabase build(String dataFileName) {
 
+		File dataFile = new File(dataFileName);
+
+		if (RangerGeolocationDatabase.isBinaryFile(dataFile)) {
+			return load(dataFile);
+		}
+
 		RangerGeolocationDatabase database = null;
 
 		BufferedReader bufferedReader = null;
@@ -220,6 +226,26 @@ public class GeolocationFileStore implements GeolocationStore {
 		return database;
 	}
 
+	private RangerGeolocationDatabase load(File dataFile) {
+		RangerGeolocationDatabase ret = null;
+
+		long start = System.currentTimeMillis();
+
+		try {
+			LOG.info("GeolocationFileStore: mapping location data from binary file '" + dataFile + "'");
+
+			ret = RangerGeolocationDatabase.load(dataFile);
+		} catch (IOException ex) {
+			LOG.error("RangerGeolocationDatabaseBuilder.load() - Error reading file '" + dataFile + "', " + ex);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("RangerGeolocationDatabaseBuilder.load() - Time taken for mapping file = " + (System.currentTimeMillis() - start) + " milliseconds");
+		}
+
+		return ret;
+	}
+
 	private boolean processLine(int lineNumber, String line, RangerGeolocationDatabase database) {
 
 		boolean ret = true;
@@ -241,7 +267,7 @@ public class GeolocationFileStore implements GeolocationStore {
 				} else {
 					RangerGeolocationData data = RangerGeolocationData.create(fields, lineNumber, useDotFormat);
 					if (data != null) {
-						database.getData().insert(data);
+						database.insert(data);
 					} else {
 						LOG.error("GeolocationFileStore.processLine() - Invalid data specification " + lineNumber + ":" + line);
 					}
@@ -253,4 +279,29 @@ public class GeolocationFileStore implements GeolocationStore {
 		return ret;
 	}
 
+	/*
+	 * Converts a geolocation text file into the binary form, which GeolocationFileStore memory-maps instead of parsing.
+	 * Usage: GeolocationFileStore <source-text-file> <target-binary-file> [IPInDotFormat: true|false]
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: " + GeolocationFileStore.class.getName() + " <source-text-file> <target-binary-file> [IPInDotFormat: true|false]");
+			System.exit(1);
+		}
+
+		GeolocationFileStore store = new GeolocationFileStore();
+
+		store.useDotFormat = args.length < 3 || Boolean.parseBoolean(args[2]);
+
+		RangerGeolocationDatabase database = store.build(args[0]);
+
+		if (database == null) {
+			System.err.println("Failed to read geolocation data from " + args[0]);
+			System.exit(1);
+		}
+
+		database.save(new File(args[1]));
+
+		System.out.println("Wrote " + database.getIndex().getIPv4RangeCount() + " IPv4 ranges and " + database.getIndex().getIPv6RangeCount() + " IPv6 ranges to " + args[1]);
+	}
 }
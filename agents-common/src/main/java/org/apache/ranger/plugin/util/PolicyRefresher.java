@@ -31,6 +31,9 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.admin.client.RangerAdminClient;
 import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
+import org.apache.ranger.plugin.metrics.RangerCounter;
+import org.apache.ranger.plugin.metrics.RangerHistogram;
+import org.apache.ranger.plugin.metrics.RangerMetricsRegistry;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 
 import com.google.gson.Gson;
@@ -53,9 +56,12 @@ public class PolicyRefresher extends Thread {
 	private final String            cacheDir;
 	private final Gson              gson;
 	private final boolean           disableCacheIfServiceNotFound;
+	private final RangerHistogram   loadPolicyLatency;
+	private final RangerCounter     refreshFailures;
 
 	private long 	lastKnownVersion    = -1L;
 	private long	lastActivationTimeInMillis;
+	private volatile long lastRefreshTimeInMillis;
 	private boolean policiesSetInPlugin;
 	private boolean serviceDefSetInPlugin;
 	private boolean running = true;
@@ -94,6 +100,15 @@ public class PolicyRefresher extends Thread {
 		String propertyPrefix    = "ranger.plugin." + serviceType;
 		disableCacheIfServiceNotFound = RangerConfiguration.getInstance().getBoolean(propertyPrefix + ".disable.cache.if.servicenotfound", true);
 
+		RangerMetricsRegistry metricsRegistry = RangerMetricsRegistry.getInstance();
+
+		loadPolicyLatency = metricsRegistry.getHistogram("ranger_policyrefresher_load_latency_microseconds", "service", serviceName);
+		refreshFailures   = metricsRegistry.getCounter("ranger_policyrefresher_failures_total", "service", serviceName);
+
+		metricsRegistry.registerGauge(() -> lastKnownVersion, "ranger_policyrefresher_policy_version", "service", serviceName);
+		metricsRegistry.registerGauge(() -> lastActivationTimeInMillis, "ranger_policyrefresher_last_activation_time_milliseconds", "service", serviceName);
+		metricsRegistry.registerGauge(() -> lastRefreshTimeInMillis > 0 ? System.currentTimeMillis() - lastRefreshTimeInMillis : -1, "ranger_policyrefresher_lag_milliseconds", "service", serviceName);
+
 		if(LOG.isDebugEnabled()) {
 			LOG.debug("<== PolicyRefresher(serviceName=" + serviceName + ").PolicyRefresher()");
 		}
@@ -191,6 +206,8 @@ public class PolicyRefresher extends Thread {
 			PERF_POLICYENGINE_INIT_LOG.debug("In-Use memory: " + (totalMemory-freeMemory) + ", Free memory:" + freeMemory);
 		}
 
+		long startTimeNanos = System.nanoTime();
+
 		try {
 			//load policy from PolicyAdmin
 			ServicePolicies svcPolicies = loadPolicyfromPolicyAdmin();
@@ -231,6 +248,8 @@ public class PolicyRefresher extends Thread {
 			LOG.error("Encountered unexpected exception, ignoring..", excp);
 		}
 
+		loadPolicyLatency.recordElapsedNanos(startTimeNanos);
+
 		RangerPerfTracer.log(perf);
 
 		if(LOG.isDebugEnabled()) {
@@ -255,6 +274,8 @@ public class PolicyRefresher extends Thread {
 		try {
 			svcPolicies = rangerAdmin.getServicePoliciesIfUpdated(lastKnownVersion, lastActivationTimeInMillis);
 
+			lastRefreshTimeInMillis = System.currentTimeMillis();
+
 			boolean isUpdated = svcPolicies != null;
 
 			if(isUpdated) {
@@ -275,9 +296,11 @@ public class PolicyRefresher extends Thread {
 			}
 		} catch (RangerServiceNotFoundException snfe) {
 			LOG.error("PolicyRefresher(serviceName=" + serviceName + "): failed to find service. Will clean up local cache of policies (" + lastKnownVersion + ")", snfe);
+			refreshFailures.increment();
 			throw snfe;
 		} catch (Exception excp) {
 			LOG.error("PolicyRefresher(serviceName=" + serviceName + "): failed to refresh policies. Will continue to use last known version of policies (" + lastKnownVersion + ")", excp);
+			refreshFailures.increment();
 			svcPolicies = null;
 		}
 
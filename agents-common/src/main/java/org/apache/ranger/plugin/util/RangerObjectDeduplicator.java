@@ -0,0 +1,462 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerBaseModelObject;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerDataMaskPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemDataMaskInfo;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerRowFilterPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
+import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.model.RangerTagDef;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/*
+ * Replaces repeated strings in policies, tags and roles - like user, group and role names, access types, resource names
+ * and values, condition types, tag types and attributes - with a canonical instance. Canonical strings come from a weak
+ * interner shared by all plugins in the JVM, so that policies, tags and roles downloaded for different services, and
+ * their successive versions, share them; a string is released once no object refers to it.
+ *
+ * Lists are trimmed to their size as well: those deserialized by Gson and Jackson keep the default capacity of 10. Lists
+ * are not shared between objects, as policy scrubbing and delta application update them in place.
+ *
+ * An instance tracks the number of strings replaced and an estimate of the heap released, for the objects it processed.
+ */
+public class RangerObjectDeduplicator {
+	private static final Log LOG = LogFactory.getLog(RangerObjectDeduplicator.class);
+
+	private static final Interner<String> STRING_INTERNER = Interners.newWeakInterner();
+
+	private long stringCount;
+	private long deduplicatedCount;
+	private long savedBytes;
+
+	public static void deduplicate(ServicePolicies servicePolicies, String serviceName) {
+		if (servicePolicies != null) {
+			RangerObjectDeduplicator deduplicator = new RangerObjectDeduplicator();
+			long                     startTime    = System.currentTimeMillis();
+
+			deduplicator.process(servicePolicies);
+
+			deduplicator.log("policies", serviceName, servicePolicies.getPolicyVersion(), startTime);
+		}
+	}
+
+	public static void deduplicate(ServiceTags serviceTags, String serviceName) {
+		if (serviceTags != null) {
+			RangerObjectDeduplicator deduplicator = new RangerObjectDeduplicator();
+			long                     startTime    = System.currentTimeMillis();
+
+			deduplicator.process(serviceTags);
+
+			deduplicator.log("tags", serviceName, serviceTags.getTagVersion(), startTime);
+		}
+	}
+
+	public static void deduplicate(RangerRoles rangerRoles, String serviceName) {
+		if (rangerRoles != null) {
+			RangerObjectDeduplicator deduplicator = new RangerObjectDeduplicator();
+			long                     startTime    = System.currentTimeMillis();
+
+			deduplicator.process(rangerRoles);
+
+			deduplicator.log("roles", serviceName, rangerRoles.getRoleVersion(), startTime);
+		}
+	}
+
+	public long getStringCount() {
+		return stringCount;
+	}
+
+	public long getDeduplicatedCount() {
+		return deduplicatedCount;
+	}
+
+	public long getSavedBytes() {
+		return savedBytes;
+	}
+
+	public void process(ServicePolicies servicePolicies) {
+		servicePolicies.setServiceName(dedup(servicePolicies.getServiceName()));
+
+		processPolicies(servicePolicies.getPolicies());
+		processPolicyDeltas(servicePolicies.getPolicyDeltas());
+
+		if (servicePolicies.getTagPolicies() != null) {
+			processPolicies(servicePolicies.getTagPolicies().getPolicies());
+		}
+
+		if (servicePolicies.getSecurityZones() != null) {
+			for (ServicePolicies.SecurityZoneInfo zoneInfo : servicePolicies.getSecurityZones().values()) {
+				if (zoneInfo == null) {
+					continue;
+				}
+
+				zoneInfo.setZoneName(dedup(zoneInfo.getZoneName()));
+
+				if (zoneInfo.getResources() != null) {
+					for (HashMap<String, List<String>> resource : zoneInfo.getResources()) {
+						if (resource != null) {
+							dedupKeys(resource);
+
+							for (List<String> values : resource.values()) {
+								dedupStrings(values);
+							}
+						}
+					}
+				}
+
+				processPolicies(zoneInfo.getPolicies());
+				processPolicyDeltas(zoneInfo.getPolicyDeltas());
+			}
+		}
+	}
+
+	public void process(ServiceTags serviceTags) {
+		serviceTags.setServiceName(dedup(serviceTags.getServiceName()));
+
+		if (serviceTags.getTagDefinitions() != null) {
+			for (RangerTagDef tagDef : serviceTags.getTagDefinitions().values()) {
+				if (tagDef != null) {
+					tagDef.setName(dedup(tagDef.getName()));
+					tagDef.setSource(dedup(tagDef.getSource()));
+
+					if (tagDef.getAttributeDefs() != null) {
+						for (RangerTagDef.RangerTagAttributeDef attributeDef : tagDef.getAttributeDefs()) {
+							if (attributeDef != null) {
+								attributeDef.setName(dedup(attributeDef.getName()));
+								attributeDef.setType(dedup(attributeDef.getType()));
+							}
+						}
+					}
+				}
+			}
+		}
+
+		if (serviceTags.getTags() != null) {
+			for (RangerTag tag : serviceTags.getTags().values()) {
+				if (tag != null) {
+					processBaseModelObject(tag);
+
+					tag.setType(dedup(tag.getType()));
+
+					if (tag.getAttributes() != null) {
+						dedupKeys(tag.getAttributes());
+
+						for (Map.Entry<String, String> entry : tag.getAttributes().entrySet()) {
+							entry.setValue(dedup(entry.getValue()));
+						}
+					}
+				}
+			}
+		}
+
+		if (serviceTags.getServiceResources() != null) {
+			for (RangerServiceResource serviceResource : serviceTags.getServiceResources()) {
+				if (serviceResource != null) {
+					processBaseModelObject(serviceResource);
+
+					serviceResource.setServiceName(dedup(serviceResource.getServiceName()));
+
+					processResources(serviceResource.getResourceElements());
+				}
+			}
+
+			trim(serviceTags.getServiceResources());
+		}
+
+		// a tag is usually associated with many resources: share the id instances held as keys of tags
+		if (serviceTags.getResourceToTagIds() != null) {
+			Map<Long, Long> tagIds = new HashMap<>();
+
+			if (serviceTags.getTags() != null) {
+				for (Long tagId : serviceTags.getTags().keySet()) {
+					tagIds.put(tagId, tagId);
+				}
+			}
+
+			for (List<Long> resourceTagIds : serviceTags.getResourceToTagIds().values()) {
+				if (resourceTagIds != null) {
+					try {
+						for (ListIterator<Long> iter = resourceTagIds.listIterator(); iter.hasNext(); ) {
+							Long tagId          = iter.next();
+							Long canonicalTagId = tagId == null ? null : tagIds.get(tagId);
+
+							if (canonicalTagId != null && canonicalTagId != tagId) {
+								iter.set(canonicalTagId);
+							}
+						}
+					} catch (UnsupportedOperationException excp) {
+						// unmodifiable list; leave as is
+					}
+
+					trim(resourceTagIds);
+				}
+			}
+		}
+	}
+
+	public void process(RangerRoles rangerRoles) {
+		rangerRoles.setServiceName(dedup(rangerRoles.getServiceName()));
+
+		if (rangerRoles.getRangerRoles() != null) {
+			for (RangerRole role : rangerRoles.getRangerRoles()) {
+				if (role != null) {
+					processBaseModelObject(role);
+
+					role.setCreatedByUser(dedup(role.getCreatedByUser()));
+
+					processRoleMembers(role.getUsers());
+					processRoleMembers(role.getGroups());
+					processRoleMembers(role.getRoles());
+				}
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "RangerObjectDeduplicator={stringCount=" + stringCount + ", deduplicatedCount=" + deduplicatedCount + ", savedBytes=" + savedBytes + "}";
+	}
+
+	private void processPolicies(List<RangerPolicy> policies) {
+		if (policies != null) {
+			for (RangerPolicy policy : policies) {
+				processPolicy(policy);
+			}
+		}
+	}
+
+	private void processPolicyDeltas(List<RangerPolicyDelta> policyDeltas) {
+		if (policyDeltas != null) {
+			for (RangerPolicyDelta policyDelta : policyDeltas) {
+				if (policyDelta != null) {
+					processPolicy(policyDelta.getPolicy());
+				}
+			}
+		}
+	}
+
+	private void processPolicy(RangerPolicy policy) {
+		if (policy == null) {
+			return;
+		}
+
+		processBaseModelObject(policy);
+
+		policy.setService(dedup(policy.getService()));
+		policy.setServiceType(dedup(policy.getServiceType()));
+		policy.setZoneName(dedup(policy.getZoneName()));
+
+		processResources(policy.getResources());
+		processConditions(policy.getConditions());
+		processPolicyItems(policy.getPolicyItems());
+		processPolicyItems(policy.getDenyPolicyItems());
+		processPolicyItems(policy.getAllowExceptions());
+		processPolicyItems(policy.getDenyExceptions());
+		processPolicyItems(policy.getDataMaskPolicyItems());
+		processPolicyItems(policy.getRowFilterPolicyItems());
+		dedupStrings(policy.getPolicyLabels());
+
+		if (policy.getDataMaskPolicyItems() != null) {
+			for (RangerDataMaskPolicyItem policyItem : policy.getDataMaskPolicyItems()) {
+				RangerPolicyItemDataMaskInfo dataMaskInfo = policyItem == null ? null : policyItem.getDataMaskInfo();
+
+				if (dataMaskInfo != null) {
+					dataMaskInfo.setDataMaskType(dedup(dataMaskInfo.getDataMaskType()));
+				}
+			}
+		}
+
+		if (policy.getRowFilterPolicyItems() != null) {
+			for (RangerRowFilterPolicyItem policyItem : policy.getRowFilterPolicyItems()) {
+				if (policyItem != null && policyItem.getRowFilterInfo() != null) {
+					policyItem.getRowFilterInfo().setFilterExpr(dedup(policyItem.getRowFilterInfo().getFilterExpr()));
+				}
+			}
+		}
+	}
+
+	private void processBaseModelObject(RangerBaseModelObject obj) {
+		obj.setCreatedBy(dedup(obj.getCreatedBy()));
+		obj.setUpdatedBy(dedup(obj.getUpdatedBy()));
+	}
+
+	private void processResources(Map<String, RangerPolicyResource> resources) {
+		if (resources != null) {
+			dedupKeys(resources);
+
+			for (RangerPolicyResource resource : resources.values()) {
+				if (resource != null) {
+					dedupStrings(resource.getValues());
+				}
+			}
+		}
+	}
+
+	private void processPolicyItems(List<? extends RangerPolicyItem> policyItems) {
+		if (policyItems != null) {
+			for (RangerPolicyItem policyItem : policyItems) {
+				if (policyItem == null) {
+					continue;
+				}
+
+				if (policyItem.getAccesses() != null) {
+					for (RangerPolicyItemAccess access : policyItem.getAccesses()) {
+						if (access != null) {
+							access.setType(dedup(access.getType()));
+						}
+					}
+
+					trim(policyItem.getAccesses());
+				}
+
+				dedupStrings(policyItem.getUsers());
+				dedupStrings(policyItem.getGroups());
+				dedupStrings(policyItem.getRoles());
+				processConditions(policyItem.getConditions());
+			}
+
+			trim(policyItems);
+		}
+	}
+
+	private void processConditions(List<RangerPolicyItemCondition> conditions) {
+		if (conditions != null) {
+			for (RangerPolicyItemCondition condition : conditions) {
+				if (condition != null) {
+					condition.setType(dedup(condition.getType()));
+
+					dedupStrings(condition.getValues());
+				}
+			}
+
+			trim(conditions);
+		}
+	}
+
+	private void processRoleMembers(List<RangerRole.RoleMember> members) {
+		if (members != null) {
+			for (RangerRole.RoleMember member : members) {
+				if (member != null) {
+					member.setName(dedup(member.getName()));
+				}
+			}
+
+			trim(members);
+		}
+	}
+
+	private String dedup(String str) {
+		String ret = str;
+
+		if (str != null) {
+			stringCount++;
+
+			ret = STRING_INTERNER.intern(str);
+
+			if (ret != str) {
+				deduplicatedCount++;
+				savedBytes += getEstimatedSize(str);
+			}
+		}
+
+		return ret;
+	}
+
+	private void dedupStrings(List<String> strings) {
+		if (strings != null) {
+			try {
+				for (ListIterator<String> iter = strings.listIterator(); iter.hasNext(); ) {
+					String str          = iter.next();
+					String canonicalStr = dedup(str);
+
+					if (canonicalStr != str) {
+						iter.set(canonicalStr);
+					}
+				}
+			} catch (UnsupportedOperationException excp) {
+				// unmodifiable list; leave as is
+			}
+
+			trim(strings);
+		}
+	}
+
+	private <V> void dedupKeys(Map<String, V> map) {
+		boolean hasDuplicateKeys = false;
+
+		for (String key : map.keySet()) {
+			if (key != null && dedup(key) != key) {
+				hasDuplicateKeys = true;
+			}
+		}
+
+		if (hasDuplicateKeys) {
+			Map<String, V> copy = new LinkedHashMap<>(map);
+
+			try {
+				map.clear();
+
+				for (Map.Entry<String, V> entry : copy.entrySet()) {
+					map.put(entry.getKey() == null ? null : STRING_INTERNER.intern(entry.getKey()), entry.getValue());
+				}
+			} catch (UnsupportedOperationException excp) {
+				// unmodifiable map; leave as is
+			}
+		}
+	}
+
+	private static void trim(Collection<?> collection) {
+		if (collection instanceof ArrayList) {
+			((ArrayList<?>) collection).trimToSize();
+		}
+	}
+
+	// String of Java 8, with compressed references: 24 bytes, plus its char[] of 16 bytes and 2 bytes per char, 8-byte aligned
+	private static long getEstimatedSize(String str) {
+		return 24 + ((16 + 2L * str.length() + 7) & ~7L);
+	}
+
+	private void log(String objectType, String serviceName, Long version, long startTime) {
+		if (LOG.isInfoEnabled()) {
+			LOG.info("Deduplicated " + objectType + " of service " + serviceName + " (version=" + version + "): replaced " + deduplicatedCount + " of " + stringCount + " strings, releasing about " + (savedBytes / 1024) + " KB, in " + (System.currentTimeMillis() - startTime) + " ms");
+		}
+	}
+}
@@ -62,6 +62,7 @@ import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.WebResource;
 import com.sun.jersey.api.client.config.ClientConfig;
 import com.sun.jersey.api.client.config.DefaultClientConfig;
+import com.sun.jersey.api.client.filter.GZIPContentEncodingFilter;
 import com.sun.jersey.api.client.filter.HTTPBasicAuthFilter;
 import com.sun.jersey.client.urlconnection.HTTPSProperties;
 
@@ -88,6 +89,8 @@ public class RangerRESTClient {
 	public static final String RANGER_SSL_TRUSTMANAGER_ALGO_TYPE				 = TrustManagerFactory.getDefaultAlgorithm();
 	public static final String RANGER_SSL_CONTEXT_ALGO_TYPE					     = "TLS";
 
+	public static final boolean RANGER_POLICYMGR_CLIENT_GZIP_ENABLED_DEFAULT     = true;
+
 	private String  mUrl;
 	private String  mSslConfigFileName;
 	private String  mUsername;
@@ -108,6 +111,7 @@ public class RangerRESTClient {
 
 	private int  mRestClientConnTimeOutMs;
 	private int  mRestClientReadTimeOutMs;
+	private boolean mIsGzipEnabled = RANGER_POLICYMGR_CLIENT_GZIP_ENABLED_DEFAULT;
 
 	private int  lastKnownActiveUrlIndex;
 	private final List<String> configuredURLs;
@@ -157,6 +161,18 @@ public class RangerRESTClient {
 		this.mRestClientReadTimeOutMs = mRestClientReadTimeOutMs;
 	}
 
+	public boolean isGzipEnabled() {
+		return mIsGzipEnabled;
+	}
+
+	/**
+	 * When enabled, requests advertise "Accept-Encoding: gzip" and compressed responses are
+	 * decoded transparently while the entity is read. Must be set before the client is built.
+	 */
+	public void setGzipEnabled(boolean isGzipEnabled) {
+		this.mIsGzipEnabled = isGzipEnabled;
+	}
+
 	public void setBasicAuthInfo(String username, String password) {
 		mUsername = username;
 		mPassword = password;
@@ -223,6 +239,8 @@ public class RangerRESTClient {
 			client.addFilter(new HTTPBasicAuthFilter(mUsername, mPassword));
 		}
 
+		addContentEncodingFilter(client);
+
 		// Set Connection Timeout and ReadTime for the PolicyRefresh
 		client.setConnectTimeout(mRestClientConnTimeOutMs);
 		client.setReadTimeout(mRestClientReadTimeOutMs);
@@ -230,6 +248,13 @@ public class RangerRESTClient {
 		return client;
 	}
 
+	private void addContentEncodingFilter(Client client) {
+		if (mIsGzipEnabled) {
+			// only the response is compressed; request bodies are small and the server may not accept gzip
+			client.addFilter(new GZIPContentEncodingFilter(false));
+		}
+	}
+
 	public void resetClient(){
 		client = null;
 	}
@@ -579,6 +604,7 @@ public class RangerRESTClient {
 	private WebResource createWebResourceForCookieAuth(int currentIndex, String relativeURL) {
 		Client cookieClient = getClient();
 		cookieClient.removeAllFilters();
+		addContentEncodingFilter(cookieClient);
 		WebResource ret = cookieClient.resource(configuredURLs.get(currentIndex) + relativeURL);
 		return ret;
 	}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+
+/*
+ * Breakdown of the time taken to authorize one request: context enrichers (like the tag enricher), security-zone
+ * match, trie lookups with the number of candidate policies found, each policy evaluated and audit processing.
+ * A profile is filled by the thread that evaluates the request, see RangerRequestProfiler; times are in nanoseconds
+ * while filled and reported in microseconds.
+ */
+public class RangerRequestProfile {
+	static final int MAX_EVALUATORS = 100;
+
+	private final long          requestTime;
+	private final boolean       isSampled;
+	private RangerAccessRequest request;
+	private String              requestInfo;
+	private int                 policyType;
+	private final List<Step>    enrichers  = new ArrayList<>();
+	private final List<Step>    lookups    = new ArrayList<>();
+	private final List<Step>    evaluators = new ArrayList<>();
+	private int                 evaluatorsNotListed;
+	private long                zoneMatchNanos = -1;
+	private String              zoneName;
+	private long                auditNanos = -1;
+	private long                evaluationNanos;
+	private boolean             isAllowed;
+	private long                policyId = -1;
+
+	RangerRequestProfile(RangerAccessRequest request, boolean isSampled) {
+		this.requestTime = System.currentTimeMillis();
+		this.isSampled   = isSampled;
+		this.request     = request;
+	}
+
+	public boolean isSampled() {
+		return isSampled;
+	}
+
+	public void addEnricher(String enricherName, long nanos) {
+		enrichers.add(new Step(enricherName, nanos, -1));
+	}
+
+	public void setZoneMatch(String zoneName, long nanos) {
+		this.zoneName       = zoneName;
+		this.zoneMatchNanos = nanos;
+	}
+
+	public void addTrieLookup(String repositoryName, long nanos, int candidateCount) {
+		lookups.add(new Step(repositoryName, nanos, candidateCount));
+	}
+
+	public void addEvaluator(long policyId, long nanos) {
+		if (evaluators.size() < MAX_EVALUATORS) {
+			evaluators.add(new Step(Long.toString(policyId), nanos, -1));
+		} else {
+			evaluatorsNotListed++;
+		}
+	}
+
+	public void setAuditNanos(long nanos) {
+		this.auditNanos = nanos;
+	}
+
+	public long getRequestTime() {
+		return requestTime;
+	}
+
+	public long getEvaluationNanos() {
+		return evaluationNanos;
+	}
+
+	boolean isFor(RangerAccessRequest request) {
+		return this.request == request;
+	}
+
+	/*
+	 * Called once the request is evaluated; the request itself is not kept beyond this.
+	 */
+	void finish(RangerAccessRequest request, int policyType, RangerAccessResult result, long evaluationNanos) {
+		this.requestInfo     = request == null ? null : ("{user=" + request.getUser() + ", groups=" + request.getUserGroups() + ", resource=" + (request.getResource() == null ? null : request.getResource().getAsString()) + ", accessType=" + request.getAccessType() + ", action=" + request.getAction() + "}");
+		this.request         = null;
+		this.policyType      = policyType;
+		this.evaluationNanos = evaluationNanos;
+
+		if (result != null) {
+			this.isAllowed = result.getIsAllowed();
+			this.policyId  = result.getPolicyId();
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append("{\"requestTime\":").append(requestTime)
+		  .append(",\"sampled\":").append(isSampled)
+		  .append(",\"request\":\"").append(escape(requestInfo)).append('"')
+		  .append(",\"policyType\":").append(policyType)
+		  .append(",\"evaluationMicros\":").append(toMicros(evaluationNanos))
+		  .append(",\"isAllowed\":").append(isAllowed)
+		  .append(",\"policyId\":").append(policyId);
+
+		if (isSampled) {
+			appendSteps(sb, "enrichers", "name", enrichers);
+
+			if (zoneMatchNanos >= 0) {
+				sb.append(",\"zoneMatch\":{\"zone\":\"").append(escape(zoneName)).append("\",\"micros\":").append(toMicros(zoneMatchNanos)).append('}');
+			}
+
+			appendSteps(sb, "trieLookups", "repository", lookups);
+			appendSteps(sb, "evaluators", "policyId", evaluators);
+
+			if (evaluatorsNotListed > 0) {
+				sb.append(",\"evaluatorsNotListed\":").append(evaluatorsNotListed);
+			}
+
+			if (auditNanos >= 0) {
+				sb.append(",\"auditMicros\":").append(toMicros(auditNanos));
+			}
+		}
+
+		return sb.append('}').toString();
+	}
+
+	private static void appendSteps(StringBuilder sb, String listName, String stepName, List<Step> steps) {
+		sb.append(",\"").append(listName).append("\":[");
+
+		for (int i = 0; i < steps.size(); i++) {
+			Step step = steps.get(i);
+
+			if (i > 0) {
+				sb.append(',');
+			}
+
+			sb.append("{\"").append(stepName).append("\":\"").append(escape(step.name)).append("\",\"micros\":").append(toMicros(step.nanos));
+
+			if (step.count >= 0) {
+				sb.append(",\"candidates\":").append(step.count);
+			}
+
+			sb.append('}');
+		}
+
+		sb.append(']');
+	}
+
+	private static double toMicros(long nanos) {
+		return nanos / 1000.0;
+	}
+
+	private static String escape(String str) {
+		return str == null ? "" : str.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	private static final class Step {
+		final String name;
+		final long   nanos;
+		final int    count;
+
+		Step(String name, long nanos, int count) {
+			this.name  = name;
+			this.nanos = nanos;
+			this.count = count;
+		}
+	}
+}
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+
+/*
+ * Sampled, request-level profiling of the policy engine of a service. Unlike RangerPerfTracer, which traces every
+ * request once its logger is enabled, this profiles one in sampleInterval requests, picked at random: a
+ * RangerRequestProfile of each sampled request is filled by the policy engine and written to the perf logger
+ * org.apache.ranger.perf.policyengine.profile, at DEBUG level.
+ *
+ * A request is sampled by preProcess(), which keeps its profile in the request context; the profile is the current
+ * profile of the thread only while evaluatePolicies() runs, so that requests pre-processed but not evaluated, or
+ * whose evaluation fails, leave nothing behind in pooled threads.
+ *
+ * Requests whose evaluation takes longer than slowRequestThresholdMs are kept in a ring buffer of the last
+ * slowRequestsBufferSize such requests, available through JMX; slow requests that were sampled carry their full
+ * breakdown, others their total time alone. Both are disabled by default (sampleInterval and threshold of 0).
+ */
+public class RangerRequestProfiler implements RangerRequestProfilerMBean {
+	private static final Log LOG          = LogFactory.getLog(RangerRequestProfiler.class);
+	private static final Log PERF_PROFILE = RangerPerfTracer.getPerfLogger("policyengine.profile");
+
+	public static final int DEFAULT_SLOW_REQUESTS_BUFFER_SIZE = 100;
+
+	private static final ConcurrentMap<String, RangerRequestProfiler> PROFILERS       = new ConcurrentHashMap<>();
+	private static final ThreadLocal<RangerRequestProfile>            CURRENT_PROFILE = new ThreadLocal<>();
+
+	private final String                                        serviceName;
+	private volatile int                                        sampleInterval;
+	private volatile long                                       slowRequestThresholdNanos;
+	private volatile AtomicReferenceArray<RangerRequestProfile> slowRequests = new AtomicReferenceArray<>(DEFAULT_SLOW_REQUESTS_BUFFER_SIZE);
+	private final AtomicLong                                    slowRequestsNextIndex = new AtomicLong();
+	private final LongAdder                                     sampledRequestCount   = new LongAdder();
+	private final LongAdder                                     slowRequestCount      = new LongAdder();
+
+	public static RangerRequestProfiler getInstance(String serviceName) {
+		return getInstance(serviceName, 0, 0, DEFAULT_SLOW_REQUESTS_BUFFER_SIZE);
+	}
+
+	/*
+	 * Returns the profiler of the service; the given configuration is applied only when the profiler is created, and
+	 * not by policy engines rebuilt later for the same service.
+	 */
+	public static RangerRequestProfiler getInstance(String serviceName, int sampleInterval, long slowRequestThresholdMs, int slowRequestsBufferSize) {
+		String                key = serviceName == null ? "" : serviceName;
+		RangerRequestProfiler ret = PROFILERS.get(key);
+
+		if (ret == null) {
+			synchronized (PROFILERS) {
+				ret = PROFILERS.get(key);
+
+				if (ret == null) {
+					ret = new RangerRequestProfiler(key);
+
+					ret.configure(sampleInterval, slowRequestThresholdMs, slowRequestsBufferSize);
+					ret.registerMBean();
+
+					PROFILERS.put(key, ret);
+				}
+			}
+		}
+
+		return ret;
+	}
+
+	RangerRequestProfiler(String serviceName) {
+		this.serviceName = serviceName;
+	}
+
+	public void configure(int sampleInterval, long slowRequestThresholdMs, int slowRequestsBufferSize) {
+		if (slowRequestsBufferSize > 0 && slowRequestsBufferSize != slowRequests.length()) {
+			slowRequests = new AtomicReferenceArray<>(slowRequestsBufferSize);
+		}
+
+		this.sampleInterval            = Math.max(sampleInterval, 0);
+		this.slowRequestThresholdNanos = slowRequestThresholdMs > 0 ? slowRequestThresholdMs * 1000 * 1000 : 0;
+	}
+
+	public boolean isSlowRequestTrackingEnabled() {
+		return slowRequestThresholdNanos > 0;
+	}
+
+	/*
+	 * Decides whether to profile the given request; when it does, the returned profile is kept in the request context
+	 * until startProfile() is called for the request.
+	 */
+	public RangerRequestProfile sampleProfile(RangerAccessRequest request) {
+		RangerRequestProfile ret            = null;
+		int                  sampleInterval = this.sampleInterval;
+		Map<String, Object>  context        = request.getContext();
+
+		if (sampleInterval > 0 && context != null && (sampleInterval == 1 || ThreadLocalRandom.current().nextInt(sampleInterval) == 0)) {
+			ret = new RangerRequestProfile(request, true);
+
+			context.put(RangerAccessRequestUtil.KEY_CONTEXT_REQUEST_PROFILE, ret);
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Returns the profile of the given request, if it was sampled; the profile is then the one getProfile() returns for
+	 * this request, in this thread, until endProfile() is called.
+	 */
+	public RangerRequestProfile startProfile(RangerAccessRequest request) {
+		RangerRequestProfile ret     = null;
+		Map<String, Object>  context = sampleInterval > 0 ? request.getContext() : null;
+		Object               val     = context != null ? context.remove(RangerAccessRequestUtil.KEY_CONTEXT_REQUEST_PROFILE) : null;
+
+		if (val instanceof RangerRequestProfile && ((RangerRequestProfile) val).isFor(request)) {
+			ret = (RangerRequestProfile) val;
+
+			CURRENT_PROFILE.set(ret);
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Ends the profile started by startProfile() in this thread; to be called in a finally block.
+	 */
+	public void endProfile() {
+		CURRENT_PROFILE.remove();
+	}
+
+	/*
+	 * Returns the profile of the given request, if it is being profiled by this thread; null otherwise.
+	 */
+	public RangerRequestProfile getProfile(RangerAccessRequest request) {
+		RangerRequestProfile ret = null;
+
+		if (sampleInterval > 0) {
+			ret = CURRENT_PROFILE.get();
+
+			if (ret != null && !ret.isFor(request)) {
+				ret = null;
+			}
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Called once a request is evaluated, whether it was profiled or not: logs the profile of a sampled request and
+	 * keeps a slow request in the ring buffer.
+	 */
+	public void finishProfile(RangerRequestProfile profile, RangerAccessRequest request, int policyType, RangerAccessResult result, long evaluationNanos) {
+		boolean isSlow = slowRequestThresholdNanos > 0 && evaluationNanos >= slowRequestThresholdNanos;
+
+		if (profile != null) {
+			sampledRequestCount.increment();
+		} else if (isSlow) {
+			profile = new RangerRequestProfile(request, false);
+		}
+
+		if (profile != null) {
+			profile.finish(request, policyType, result, evaluationNanos);
+
+			if (isSlow) {
+				AtomicReferenceArray<RangerRequestProfile> slowRequests = this.slowRequests;
+
+				slowRequests.set((int) (slowRequestsNextIndex.getAndIncrement() % slowRequests.length()), profile);
+
+				slowRequestCount.increment();
+			}
+
+			if (profile.isSampled() && PERF_PROFILE.isDebugEnabled()) {
+				PERF_PROFILE.debug("RangerRequestProfile(serviceName=" + serviceName + "): " + profile);
+			}
+		}
+	}
+
+	/*
+	 * Returns the slow requests in the ring buffer, most recent first.
+	 */
+	public List<RangerRequestProfile> getSlowRequestProfiles() {
+		AtomicReferenceArray<RangerRequestProfile> slowRequests = this.slowRequests;
+		List<RangerRequestProfile>                 ret          = new ArrayList<>();
+		long                                       nextIndex    = slowRequestsNextIndex.get();
+
+		for (long i = nextIndex - 1; i >= 0 && i >= nextIndex - slowRequests.length(); i--) {
+			RangerRequestProfile profile = slowRequests.get((int) (i % slowRequests.length()));
+
+			if (profile != null) {
+				ret.add(profile);
+			}
+		}
+
+		return ret;
+	}
+
+	@Override
+	public int getSampleInterval() {
+		return sampleInterval;
+	}
+
+	@Override
+	public long getSlowRequestThresholdMs() {
+		return slowRequestThresholdNanos / (1000 * 1000);
+	}
+
+	@Override
+	public long getSampledRequestCount() {
+		return sampledRequestCount.sum();
+	}
+
+	@Override
+	public long getSlowRequestCount() {
+		return slowRequestCount.sum();
+	}
+
+	@Override
+	public String[] getSlowRequests() {
+		List<RangerRequestProfile> profiles = getSlowRequestProfiles();
+		String[]                   ret      = new String[profiles.size()];
+
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = profiles.get(i).toString();
+		}
+
+		return ret;
+	}
+
+	@Override
+	public void clearSlowRequests() {
+		AtomicReferenceArray<RangerRequestProfile> slowRequests = this.slowRequests;
+
+		for (int i = 0; i < slowRequests.length(); i++) {
+			slowRequests.set(i, null);
+		}
+	}
+
+	private void registerMBean() {
+		try {
+			MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+			ObjectName  objectName  = new ObjectName("org.apache.ranger:type=RequestProfiler,service=" + ObjectName.quote(serviceName));
+
+			if (!mbeanServer.isRegistered(objectName)) {
+				mbeanServer.registerMBean(this, objectName);
+			}
+		} catch (Exception excp) {
+			LOG.warn("RangerRequestProfiler(serviceName=" + serviceName + "): failed to register with JMX. Slow requests will not be available through JMX", excp);
+		}
+	}
+}
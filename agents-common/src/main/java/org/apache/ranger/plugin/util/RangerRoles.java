@@ -43,6 +43,8 @@ public class RangerRoles implements Serializable {
     private Long             roleVersion;
     private Date             roleUpdateTime;
     private Set<RangerRole>  rangerRoles;
+    private Boolean          isDelta;
+    private Set<String>      deletedRoleNames;
 
     public String getServiceName() {
         return serviceName;
@@ -75,4 +77,24 @@ public class RangerRoles implements Serializable {
     public void setRangerRoles(Set<RangerRole> rangerRoles){
         this.rangerRoles = rangerRoles;
     }
+
+    /*
+     * When true, rangerRoles has only the roles created or updated since the version the plugin asked with,
+     * and deletedRoleNames the roles removed since then
+     */
+    public Boolean getIsDelta() {
+        return isDelta == null ? Boolean.FALSE : isDelta;
+    }
+
+    public void setIsDelta(Boolean isDelta) {
+        this.isDelta = isDelta;
+    }
+
+    public Set<String> getDeletedRoleNames() {
+        return deletedRoleNames;
+    }
+
+    public void setDeletedRoleNames(Set<String> deletedRoleNames) {
+        this.deletedRoleNames = deletedRoleNames;
+    }
 }
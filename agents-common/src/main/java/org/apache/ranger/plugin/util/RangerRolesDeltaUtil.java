@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerRole;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+public class RangerRolesDeltaUtil {
+
+    private static final Log LOG = LogFactory.getLog(RangerRolesDeltaUtil.class);
+
+    private static final Log PERF_ROLES_DELTA_LOG = RangerPerfTracer.getPerfLogger("roles.delta");
+
+    /*
+    Returns the roles in newRoles that are not in oldRoles or are different, and the names of roles in oldRoles that are
+    not in newRoles. Returns null if either of the arguments is null or is a delta.
+     */
+    static public RangerRoles getRolesDelta(RangerRoles oldRoles, RangerRoles newRoles) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerRolesDeltaUtil.getRolesDelta()");
+        }
+
+        RangerRoles ret = null;
+
+        if (oldRoles != null && !oldRoles.getIsDelta() && newRoles != null && !newRoles.getIsDelta()) {
+            Map<String, RangerRole> oldRolesByName = getRolesByName(oldRoles.getRangerRoles());
+            Set<RangerRole>         changedRoles   = new HashSet<>();
+            Set<String>             deletedRoles   = new HashSet<>(oldRolesByName.keySet());
+
+            if (newRoles.getRangerRoles() != null) {
+                for (RangerRole role : newRoles.getRangerRoles()) {
+                    RangerRole oldRole = oldRolesByName.get(role.getName());
+
+                    deletedRoles.remove(role.getName());
+
+                    if (oldRole == null || !isSameRole(oldRole, role)) {
+                        changedRoles.add(role);
+                    }
+                }
+            }
+
+            ret = new RangerRoles();
+
+            ret.setServiceName(newRoles.getServiceName());
+            ret.setRoleVersion(newRoles.getRoleVersion());
+            ret.setRoleUpdateTime(newRoles.getRoleUpdateTime());
+            ret.setRangerRoles(changedRoles);
+            ret.setDeletedRoleNames(deletedRoles);
+            ret.setIsDelta(Boolean.TRUE);
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerRolesDeltaUtil.getRolesDelta(): changedRoles=" + (ret == null ? null : ret.getRangerRoles().size()) + ", deletedRoles=" + (ret == null ? null : ret.getDeletedRoleNames().size()));
+        }
+
+        return ret;
+    }
+
+    /*
+    Returns a new RangerRoles having the roles in rangerRoles updated with delta; rangerRoles is not modified.
+    Returns null if rangerRoles is null or is a delta, or if delta is not a delta.
+     */
+    static public RangerRoles applyDelta(RangerRoles rangerRoles, RangerRoles delta) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> RangerRolesDeltaUtil.applyDelta()");
+        }
+
+        RangerPerfTracer perf = null;
+
+        if(RangerPerfTracer.isPerfTraceEnabled(PERF_ROLES_DELTA_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_ROLES_DELTA_LOG, "RangerRolesDeltaUtil.applyDelta()");
+        }
+
+        RangerRoles ret = null;
+
+        if (rangerRoles != null && !rangerRoles.getIsDelta() && delta != null && delta.getIsDelta()) {
+            Map<String, RangerRole> rolesByName = getRolesByName(rangerRoles.getRangerRoles());
+
+            if (delta.getDeletedRoleNames() != null) {
+                for (String roleName : delta.getDeletedRoleNames()) {
+                    rolesByName.remove(roleName);
+                }
+            }
+
+            if (delta.getRangerRoles() != null) {
+                for (RangerRole role : delta.getRangerRoles()) {
+                    rolesByName.put(role.getName(), role);
+                }
+            }
+
+            ret = new RangerRoles();
+
+            ret.setServiceName(delta.getServiceName() != null ? delta.getServiceName() : rangerRoles.getServiceName());
+            ret.setRoleVersion(delta.getRoleVersion());
+            ret.setRoleUpdateTime(delta.getRoleUpdateTime());
+            ret.setRangerRoles(new HashSet<>(rolesByName.values()));
+        } else {
+            LOG.warn("Cannot apply role-deltas: rangerRoles=" + (rangerRoles == null ? null : rangerRoles.getRoleVersion()) + ", isDelta=" + (delta == null ? null : delta.getIsDelta()));
+        }
+
+        RangerPerfTracer.log(perf);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== RangerRolesDeltaUtil.applyDelta(): roleVersion=" + (ret == null ? null : ret.getRoleVersion()));
+        }
+
+        return ret;
+    }
+
+    private static Map<String, RangerRole> getRolesByName(Set<RangerRole> roles) {
+        Map<String, RangerRole> ret = new HashMap<>();
+
+        if (roles != null) {
+            for (RangerRole role : roles) {
+                ret.put(role.getName(), role);
+            }
+        }
+
+        return ret;
+    }
+
+    private static boolean isSameRole(RangerRole role1, RangerRole role2) {
+        return Objects.equals(role1.getId(), role2.getId())
+                && Objects.equals(role1.getVersion(), role2.getVersion())
+                && Objects.equals(role1.getUpdateTime(), role2.getUpdateTime())
+                && Objects.equals(role1.getIsEnabled(), role2.getIsEnabled())
+                && Objects.equals(role1.getDescription(), role2.getDescription())
+                && Objects.equals(role1.getOptions(), role2.getOptions())
+                && isSameMembers(role1.getUsers(), role2.getUsers())
+                && isSameMembers(role1.getGroups(), role2.getGroups())
+                && isSameMembers(role1.getRoles(), role2.getRoles());
+    }
+
+    private static boolean isSameMembers(List<RangerRole.RoleMember> members1, List<RangerRole.RoleMember> members2) {
+        if (CollectionUtils.isEmpty(members1) || CollectionUtils.isEmpty(members2)) {
+            return CollectionUtils.isEmpty(members1) && CollectionUtils.isEmpty(members2);
+        }
+
+        if (members1.size() != members2.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < members1.size(); i++) {
+            RangerRole.RoleMember member1 = members1.get(i);
+            RangerRole.RoleMember member2 = members2.get(i);
+
+            if (!Objects.equals(member1.getName(), member2.getName()) || member1.getIsAdmin() != member2.getIsAdmin()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -52,6 +52,7 @@ public class RangerRolesProvider {
 
 	private long	lastActivationTimeInMillis;
 	private long    lastKnownRoleVersion = -1L;
+	private RangerRoles lastKnownRoles;
 	private boolean rangerUserGroupRolesSetInPlugin;
 	private boolean serviceDefSetInPlugin;
 
@@ -138,6 +139,7 @@ public class RangerRolesProvider {
 				rangerUserGroupRolesSetInPlugin = true;
 				setLastActivationTimeInMillis(System.currentTimeMillis());
 				lastKnownRoleVersion = rangerRoles.getRoleVersion();
+				lastKnownRoles       = rangerRoles;
 			} else {
 				if (!rangerUserGroupRolesSetInPlugin && !serviceDefSetInPlugin) {
 					plugIn.setRangerRoles(null);
@@ -150,6 +152,7 @@ public class RangerRolesProvider {
 				plugIn.setRangerRoles(null);
 				setLastActivationTimeInMillis(System.currentTimeMillis());
 				lastKnownRoleVersion = -1L;
+				lastKnownRoles = null;
 				serviceDefSetInPlugin = true;
 			}
 		} catch (Exception excp) {
@@ -180,6 +183,18 @@ public class RangerRolesProvider {
 		try {
 			rangerRoles = rangerAdmin.getRolesIfUpdated(lastKnownRoleVersion, lastActivationTimeInMillis);
 
+			if (rangerRoles != null && rangerRoles.getIsDelta()) {
+				RangerRoles delta = rangerRoles;
+
+				rangerRoles = RangerRolesDeltaUtil.applyDelta(lastKnownRoles, delta);
+
+				if (rangerRoles == null) {
+					LOG.warn("RangerRolesProvider(serviceName=" + serviceName + "): failed to apply role-deltas for version " + delta.getRoleVersion() + ". Will download all roles in next poll");
+
+					lastKnownRoleVersion = -1L;
+				}
+			}
+
 			boolean isUpdated = rangerRoles != null;
 
 			if(isUpdated) {
@@ -19,21 +19,42 @@
 
 package org.apache.ranger.plugin.util;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
+/*
+ * Maps users and groups to the roles they belong to, directly or through roles contained in other roles. The maps are
+ * built once per download of roles; role names are interned and identical role-sets are shared. Roles of a
+ * (user, groups) pair are computed once and then served from a bounded cache, which lives as long as this object.
+ */
 public class RangerRolesUtil {
+    public static final int DEFAULT_ROLE_LOOKUP_CACHE_SIZE = 10000;
 
     Map<String, Set<String>> userRoleMapping = new HashMap<>();
     Map<String, Set<String>> groupRoleMapping = new HashMap<>();
 
+    private final Cache<RoleLookupKey, Set<String>> roleLookupCache;
+
+    public RangerRolesUtil() {
+        this(DEFAULT_ROLE_LOOKUP_CACHE_SIZE);
+    }
+
+    public RangerRolesUtil(int roleLookupCacheSize) {
+        this.roleLookupCache = roleLookupCacheSize > 0 ? CacheBuilder.newBuilder().maximumSize(roleLookupCacheSize).<RoleLookupKey, Set<String>>build() : null;
+    }
+
     public Map<String, Set<String>> getUserRoleMapping() {
         return this.userRoleMapping;
     }
@@ -44,34 +65,67 @@ public class RangerRolesUtil {
 
     public RangerRoles init(Set<RangerRole> rangerRoles) {
         RangerRoles ret = new RangerRoles();
-        if (rangerRoles != null) {
-            if (CollectionUtils.isNotEmpty(rangerRoles)) {
-                for (RangerRole role : rangerRoles) {
-                    Set<RangerRole> containedRoles = getAllContainedRoles(rangerRoles, role);
-                    buildMap(userRoleMapping, role, containedRoles, true);
-                    buildMap(groupRoleMapping, role, containedRoles, false);
+        if (CollectionUtils.isNotEmpty(rangerRoles)) {
+            Map<String, RangerRole> rolesByName = new HashMap<>();
+            Map<String, String>     names       = new HashMap<>();
+
+            for (RangerRole role : rangerRoles) {
+                if (role != null && role.getName() != null) {
+                    rolesByName.put(intern(names, role.getName()), role);
+                }
+            }
+
+            for (RangerRole role : rolesByName.values()) {
+                String roleName = intern(names, role.getName());
+
+                for (RangerRole containedRole : getAllContainedRoles(rolesByName, role)) {
+                    addMembers(userRoleMapping, containedRole.getUsers(), roleName, names);
+                    addMembers(groupRoleMapping, containedRole.getGroups(), roleName, names);
                 }
             }
+
+            Map<Set<String>, Set<String>> roleSets = new HashMap<>();
+
+            shareRoleSets(userRoleMapping, roleSets);
+            shareRoleSets(groupRoleMapping, roleSets);
         }
         return ret;
     }
 
-    public Set<RangerRole> getAllContainedRoles(Set<RangerRole> rangerRoles, RangerRole role) {
-        Set<RangerRole> allRoles = new HashSet<>();
-        allRoles.add(role);
-        addContainedRoles(allRoles, rangerRoles, role);
-        return allRoles;
-    }
+    /*
+     * Returns the roles of the given user and groups, including the roles of the public group. The returned set must
+     * not be modified by the caller.
+     */
+    public Set<String> getRoles(String user, Set<String> groups) {
+        if (userRoleMapping.isEmpty() && groupRoleMapping.isEmpty()) {
+            return Collections.emptySet();
+        }
 
-    private void addContainedRoles(Set<RangerRole> allRoles, Set<RangerRole> rangerRoles, RangerRole role) {
-        List<RangerRole.RoleMember> roleMembers = role.getRoles();
-        for (RangerRole.RoleMember roleMember : roleMembers) {
-            RangerRole containedRole = getContainedRole(rangerRoles, roleMember.getName());
-            if (containedRole!= null && !allRoles.contains(containedRole)) {
-                allRoles.add(containedRole);
-                addContainedRoles(allRoles, rangerRoles, containedRole);
+        Set<String> ret = null;
+
+        if (roleLookupCache != null) {
+            ret = roleLookupCache.getIfPresent(new RoleLookupKey(user, groups));
+        }
+
+        if (ret == null) {
+            ret = computeRoles(user, groups);
+
+            if (roleLookupCache != null) {
+                roleLookupCache.put(new RoleLookupKey(user, groups == null ? null : new HashSet<>(groups)), ret);
             }
         }
+
+        return ret;
+    }
+
+    public Set<RangerRole> getAllContainedRoles(Set<RangerRole> rangerRoles, RangerRole role) {
+        Map<String, RangerRole> rolesByName = new HashMap<>();
+
+        for (RangerRole rangerRole : rangerRoles) {
+            rolesByName.put(rangerRole.getName(), rangerRole);
+        }
+
+        return getAllContainedRoles(rolesByName, role);
     }
 
     public void buildMap(Map<String, Set<String>> map, RangerRole role, Set<RangerRole> containedRoles, boolean isUser) {
@@ -101,6 +155,113 @@ public class RangerRolesUtil {
                 .findAny()
                 .orElse(null));
     }
-}
 
+    private Set<String> computeRoles(String user, Set<String> groups) {
+        Set<String> ret = new HashSet<>();
+
+        if (StringUtils.isNotEmpty(user)) {
+            addAll(ret, userRoleMapping.get(user));
+        }
+
+        if (CollectionUtils.isNotEmpty(groups)) {
+            for (String group : groups) {
+                addAll(ret, groupRoleMapping.get(group));
+            }
+        }
+
+        addAll(ret, groupRoleMapping.get(RangerPolicyEngine.GROUP_PUBLIC));
 
+        return ret.isEmpty() ? Collections.<String>emptySet() : Collections.unmodifiableSet(ret);
+    }
+
+    private static Set<RangerRole> getAllContainedRoles(Map<String, RangerRole> rolesByName, RangerRole role) {
+        Set<RangerRole> allRoles = new HashSet<>();
+        allRoles.add(role);
+        addContainedRoles(allRoles, rolesByName, role);
+        return allRoles;
+    }
+
+    private static void addContainedRoles(Set<RangerRole> allRoles, Map<String, RangerRole> rolesByName, RangerRole role) {
+        List<RangerRole.RoleMember> roleMembers = role.getRoles();
+        if (roleMembers != null) {
+            for (RangerRole.RoleMember roleMember : roleMembers) {
+                RangerRole containedRole = roleMember.getName() == null ? null : rolesByName.get(roleMember.getName());
+                if (containedRole != null && allRoles.add(containedRole)) {
+                    addContainedRoles(allRoles, rolesByName, containedRole);
+                }
+            }
+        }
+    }
+
+    private static void addMembers(Map<String, Set<String>> map, List<RangerRole.RoleMember> members, String roleName, Map<String, String> names) {
+        if (members != null) {
+            for (RangerRole.RoleMember member : members) {
+                if (StringUtils.isNotEmpty(member.getName())) {
+                    String      memberName = intern(names, member.getName());
+                    Set<String> roleNames  = map.get(memberName);
+                    if (roleNames == null) {
+                        roleNames = new HashSet<>();
+                        map.put(memberName, roleNames);
+                    }
+                    roleNames.add(roleName);
+                }
+            }
+        }
+    }
+
+    // many users and groups belong to the same roles; keep one unmodifiable copy of each distinct set of role names
+    private static void shareRoleSets(Map<String, Set<String>> map, Map<Set<String>, Set<String>> roleSets) {
+        for (Map.Entry<String, Set<String>> entry : map.entrySet()) {
+            Set<String> roleSet = roleSets.get(entry.getValue());
+            if (roleSet == null) {
+                roleSet = Collections.unmodifiableSet(entry.getValue());
+                roleSets.put(entry.getValue(), roleSet);
+            }
+            entry.setValue(roleSet);
+        }
+    }
+
+    private static String intern(Map<String, String> names, String name) {
+        String ret = names.get(name);
+        if (ret == null) {
+            ret = name;
+            names.put(name, name);
+        }
+        return ret;
+    }
+
+    private static void addAll(Set<String> roles, Set<String> rolesToAdd) {
+        if (rolesToAdd != null) {
+            roles.addAll(rolesToAdd);
+        }
+    }
+
+    private static final class RoleLookupKey {
+        private final String      user;
+        private final Set<String> groups;
+        private final int         hashCode;
+
+        RoleLookupKey(String user, Set<String> groups) {
+            this.user     = user;
+            this.groups   = groups;
+            this.hashCode = Objects.hash(user, groups);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof RoleLookupKey)) {
+                return false;
+            }
+            RoleLookupKey other = (RoleLookupKey) obj;
+            return hashCode == other.hashCode && Objects.equals(user, other.user) && Objects.equals(groups, other.groups);
+        }
+    }
+}
@@ -50,6 +50,8 @@ public class SearchFilter {
 	public static final String START_INDEX     = "startIndex";
 	public static final String PAGE_SIZE       = "pageSize";
 	public static final String SORT_BY         = "sortBy";
+	public static final String CONTINUATION_TOKEN = "continuationToken";
+	public static final String APPROXIMATE_COUNT  = "approximateCount";
 	public static final String RESOURCE_SIGNATURE = "resourceSignature:";     // search
 	public static final String POLICY_TYPE     = "policyType";    // search
 	public static final String POLICY_PRIORITY     = "policyPriority";    // search
@@ -93,6 +95,8 @@ public class SearchFilter {
 	private int                 startIndex;
 	private int                 maxRows    = Integer.MAX_VALUE;
 	private boolean             getCount   = true;
+	private boolean             approximateCount;
+	private String              continuationToken;
 	private String              sortBy;
 	private String              sortType;
 
@@ -192,6 +196,22 @@ public class SearchFilter {
 		this.getCount = getCount;
 	}
 	
+	public boolean isApproximateCount() {
+		return approximateCount;
+	}
+
+	public void setApproximateCount(boolean approximateCount) {
+		this.approximateCount = approximateCount;
+	}
+
+	public String getContinuationToken() {
+		return continuationToken;
+	}
+
+	public void setContinuationToken(String continuationToken) {
+		this.continuationToken = continuationToken;
+	}
+
 	public String getSortBy() {
 		return sortBy;
 	}
@@ -235,6 +255,8 @@ public class SearchFilter {
 		sb.append("SearchFilter={");
 
 		sb.append("getCount={").append(getCount).append("} ");
+		sb.append("approximateCount={").append(approximateCount).append("} ");
+		sb.append("continuationToken={").append(continuationToken).append("} ");
 		sb.append("maxRows={").append(maxRows).append("} ");
 		sb.append("params={").append(params).append("} ");
 		sb.append("sortBy={").append(sortBy).append("} ");
@@ -23,8 +23,10 @@ package org.apache.ranger.plugin.conditionevaluator;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
@@ -221,6 +223,111 @@ public class RangerIpMatcherTest {
 		Assert.assertFalse(ipMatcher.isMatched(createRequest("10.20.33.10")));
 	}
 	
+	@Test
+	public void test_cidr() {
+		RangerIpMatcher ipMatcher = createMatcher(new String[]{"10.20.0.0/16", "192.168.1.128/25", "2001:db8::/32", "fe80:0:0:0:0:0:0:1/128", "not-a-cidr/8"} );
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("10.20.0.1")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("10.20.255.255")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("192.168.1.200")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("2001:db8:1:2:3:4:5:6")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("2001:DB8::7")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("fe80::1")));
+
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("10.21.0.1")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("192.168.1.127")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("2001:db9::1")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("fe80::2")));
+
+		// an IPv4 block does not match IPv6 addresses, and the other way round
+		ipMatcher = createMatcher(new String[]{"0.0.0.0/0"} );
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("255.255.255.255")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("::1")));
+	}
+
+	@Test
+	public void test_compressedIPv6Wildcard() {
+		RangerIpMatcher ipMatcher = createMatcher(new String[]{"fe80::*", "2001:DB8::*", "10.1.*"} );
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("fe80::1")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("FE80::a:b:c")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("2001:db8::1")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("2001:db8::abcd:1")));
+		Assert.assertTrue(ipMatcher.isMatched(createRequest("10.1.2.3")));
+
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("fe81::1")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("2001:db8:1::1")));
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("10.2.2.3")));
+		// as before, by string comparison: the prefix matches only addresses written with "::" right after it
+		Assert.assertFalse(ipMatcher.isMatched(createRequest("fe80:0:0:0:0:0:0:1")));
+	}
+
+	@Test
+	public void test_trieMatchesLikeStringComparison() {
+		String[]        policyIps = new String[] { "1.2.3.*", "10.*", "11.22.*.*", "192.168.0.1", "0.0.0.0", "a0:b0:c0:*", "a1:*", "1:2:3:4:5:6:7:8", "ffff:*:*", "fe80::*", "2001:db8::*" };
+		RangerIpMatcher ipMatcher = createMatcher(policyIps);
+		List<String>    exactIps  = new ArrayList<>();
+		List<String>    wildIps   = new ArrayList<>();
+		Random          random    = new Random(7);
+
+		for (String ip : policyIps) {
+			String digestedIp = ipMatcher.digestPolicyIp(ip);
+
+			if (digestedIp.equals(ip)) {
+				exactIps.add(ip);
+			} else {
+				wildIps.add(digestedIp);
+			}
+		}
+
+		List<String> requestIps = new ArrayList<>(Arrays.asList("1.2.3.4", "1.2.30.4", "10.0.0.1", "100.0.0.1", "11.22.1.1", "11.2.1.1", "192.168.0.1", "192.168.0.10", "0.0.0.0",
+				"a0:b0:c0:0:0:0:0:1", "a0:b0:c:0:0:0:0:1", "a1:0:0:0:0:0:0:0", "a10:0:0:0:0:0:0:0", "1:2:3:4:5:6:7:8", "1:2:3:4:5:6:7:80", "ffff:1:2:3:4:5:6:7",
+				"fe80::1", "fe80::a:b", "fe80:1::1", "fe8::1", "2001:db8::", "2001:db8::7", "2001:db8:0:1::7"));
+
+		for (int i = 0; i < 2000; i++) {
+			int[] octets = { random.nextBoolean() ? 1 + random.nextInt(12) : random.nextInt(256), random.nextInt(256), random.nextInt(4), random.nextInt(256) };
+
+			requestIps.add(octets[0] + "." + (octets[0] == 11 && random.nextBoolean() ? 22 : octets[1]) + "." + octets[2] + "." + octets[3]);
+			requestIps.add(Integer.toHexString(random.nextBoolean() ? 0xa0 + random.nextInt(2) : random.nextInt(0x10000)) + ":b0:" + Integer.toHexString(random.nextBoolean() ? 0xc0 : random.nextInt(0x100)) + ":0:0:0:0:" + Integer.toHexString(random.nextInt(0x10000)));
+		}
+
+		for (String requestIp : requestIps) {
+			boolean expected = ipMatcher.isWildcardMatched(wildIps, requestIp) || ipMatcher.isExactlyMatched(exactIps, requestIp);
+
+			Assert.assertEquals(requestIp, expected, ipMatcher.isMatched(createRequest(requestIp)));
+			Assert.assertEquals(requestIp, expected, ipMatcher.isMatched(createRequest(requestIp.toUpperCase())));
+		}
+	}
+
+	@Test
+	public void test_parseAddresses() {
+		Assert.assertEquals(0x01020304L, RangerIpAddressTrie.parseIPv4("1.2.3.4"));
+		Assert.assertEquals(0xFFFFFFFFL, RangerIpAddressTrie.parseIPv4("255.255.255.255"));
+		Assert.assertEquals(-1L, RangerIpAddressTrie.parseIPv4("1.2.3"));
+		Assert.assertEquals(-1L, RangerIpAddressTrie.parseIPv4("1.2.3.4.5"));
+		Assert.assertEquals(-1L, RangerIpAddressTrie.parseIPv4("1.2.3.256"));
+		Assert.assertEquals(-1L, RangerIpAddressTrie.parseIPv4("1.2.3.04"));
+		Assert.assertEquals(-1L, RangerIpAddressTrie.parseIPv4("1.2..4"));
+		Assert.assertEquals(-1L, RangerIpAddressTrie.parseIPv4(""));
+
+		Assert.assertArrayEquals(new long[] { 0L, 1L }, RangerIpAddressTrie.parseIPv6("::1"));
+		Assert.assertArrayEquals(new long[] { 0L, 0L }, RangerIpAddressTrie.parseIPv6("::"));
+		Assert.assertArrayEquals(new long[] { 0x20010db800000000L, 0L }, RangerIpAddressTrie.parseIPv6("2001:db8::"));
+		Assert.assertArrayEquals(new long[] { 0x0001000200030004L, 0x0005000600070008L }, RangerIpAddressTrie.parseIPv6("1:2:3:4:5:6:7:8"));
+		Assert.assertArrayEquals(new long[] { 0x0001000000000000L, 0x0000000000070008L }, RangerIpAddressTrie.parseIPv6("1::7:8"));
+		Assert.assertNull(RangerIpAddressTrie.parseIPv6("1:2:3:4:5:6"));
+		Assert.assertNull(RangerIpAddressTrie.parseIPv6("1:2:3:4:5:6:7:8:9"));
+		Assert.assertNull(RangerIpAddressTrie.parseIPv6("1::2::3"));
+		Assert.assertNull(RangerIpAddressTrie.parseIPv6("12345::"));
+		Assert.assertNull(RangerIpAddressTrie.parseIPv6("1:2:3:4:5:6:7:"));
+		Assert.assertNull(RangerIpAddressTrie.parseIPv6("::ffff:1.2.3.4"));
+
+		Assert.assertArrayEquals(new long[] { 0L, 0x0A140000L, 16 }, RangerIpAddressTrie.parseWildcardPrefix("10.20."));
+		Assert.assertArrayEquals(new long[] { 0x00a000b000000000L, 0L, 32 }, RangerIpAddressTrie.parseWildcardPrefix("a0:b0:"));
+		Assert.assertNull(RangerIpAddressTrie.parseWildcardPrefix("1.2.3.4."));
+		Assert.assertNull(RangerIpAddressTrie.parseWildcardPrefix("1.*."));
+		// matched by string comparison instead, see test_compressedIPv6Wildcard()
+		Assert.assertNull(RangerIpAddressTrie.parseWildcardPrefix("a0::"));
+	}
+
 	RangerIpMatcher createMatcher(String[] ipArray) {
 		RangerIpMatcher matcher = new RangerIpMatcher();
 
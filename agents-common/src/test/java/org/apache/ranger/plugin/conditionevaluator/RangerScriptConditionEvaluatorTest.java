@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.conditionevaluator;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.script.ScriptEngineManager;
+
+import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerPolicyConditionDef;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class RangerScriptConditionEvaluatorTest {
+
+	@Test
+	public void testCompiledScript() throws Exception {
+		// JDK 15 and later come without a JavaScript engine
+		Assume.assumeNotNull(new ScriptEngineManager().getEngineByName("JavaScript"));
+
+		final RangerScriptConditionEvaluator evaluator = createEvaluator("tagAttr.level == 'high' && ctx.getUser() == 'alice'", 0, null);
+
+		Assert.assertTrue(evaluator.isMatched(createRequest("alice", "high")));
+		Assert.assertTrue(evaluator.isScriptCompiled());
+		Assert.assertFalse(evaluator.isResultCacheEnabled());
+		Assert.assertFalse(evaluator.isMatched(createRequest("bob", "high")));
+		Assert.assertFalse(evaluator.isMatched(createRequest("alice", "low")));
+
+		// bindings are per evaluation: concurrent evaluations must not see each other's request
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try {
+			for (int i = 0; i < 200; i++) {
+				final boolean  isAlice = i % 2 == 0;
+				Future<Boolean> result  = executor.submit(() -> evaluator.isMatched(createRequest(isAlice ? "alice" : "bob", "high")));
+
+				Assert.assertEquals(isAlice, result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testScriptVariablesNotShared() {
+		Assume.assumeNotNull(new ScriptEngineManager().getEngineByName("JavaScript"));
+
+		RangerScriptConditionEvaluator evaluator = createEvaluator("var seen = (typeof seen === 'undefined') ? false : true; !seen", 0, null);
+
+		Assert.assertTrue(evaluator.isMatched(createRequest("alice", "high")));
+		Assert.assertTrue(evaluator.isMatched(createRequest("bob", "high")));
+	}
+
+	@Test
+	public void testResultCache() {
+		Assume.assumeNotNull(new ScriptEngineManager().getEngineByName("JavaScript"));
+
+		RangerScriptConditionEvaluator evaluator = createEvaluator("tagAttr['level'] == 'high' || tagAttr.get(\"owner\") == 'hr'", 10, "level, owner");
+
+		Assert.assertTrue(evaluator.isMatched(createRequest("alice", "high")));
+		Assert.assertTrue(evaluator.isResultCacheEnabled());
+		Assert.assertTrue(evaluator.isMatched(createRequest("bob", "high")));
+		Assert.assertFalse(evaluator.isMatched(createRequest("alice", "low")));
+		Assert.assertFalse(evaluator.isMatched(createRequest("alice", "low")));
+
+		// results are cached only when the condition-def names the attributes they depend on
+		evaluator = createEvaluator("tagAttr.level == 'high'", 10, null);
+
+		Assert.assertTrue(evaluator.isMatched(createRequest("alice", "high")));
+		Assert.assertFalse(evaluator.isResultCacheEnabled());
+	}
+
+	private static RangerScriptConditionEvaluator createEvaluator(String script, int resultCacheSize, String resultCacheKeyAttributes) {
+		RangerScriptConditionEvaluator evaluator    = new RangerScriptConditionEvaluator();
+		RangerPolicyConditionDef       conditionDef = new RangerPolicyConditionDef();
+		Map<String, String>            evalOptions  = new HashMap<>();
+
+		evalOptions.put(RangerScriptConditionEvaluator.OPTION_ENGINE_NAME, "JavaScript");
+
+		if (resultCacheSize > 0) {
+			evalOptions.put(RangerScriptConditionEvaluator.OPTION_RESULT_CACHE_SIZE, Integer.toString(resultCacheSize));
+		}
+
+		if (resultCacheKeyAttributes != null) {
+			evalOptions.put(RangerScriptConditionEvaluator.OPTION_RESULT_CACHE_KEY_ATTRIBUTES, resultCacheKeyAttributes);
+		}
+
+		conditionDef.setName("expression");
+		conditionDef.setEvaluatorOptions(evalOptions);
+
+		evaluator.setConditionDef(conditionDef);
+		evaluator.setPolicyItemCondition(new RangerPolicyItemCondition("expression", Collections.singletonList(script)));
+		evaluator.init();
+
+		return evaluator;
+	}
+
+	private static RangerAccessRequestImpl createRequest(String user, String level) {
+		RangerAccessRequestImpl request = new RangerAccessRequestImpl(new RangerAccessResourceImpl(), "select", user, Collections.<String>emptySet());
+		RangerTag               tag     = new RangerTag("PII", Collections.singletonMap("level", level));
+
+		RangerAccessRequestUtil.setCurrentTagInContext(request.getContext(), new RangerTagForEval(tag, RangerPolicyResourceMatcher.MatchType.SELF));
+
+		return request;
+	}
+}
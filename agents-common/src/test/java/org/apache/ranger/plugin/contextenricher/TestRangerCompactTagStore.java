@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.contextenricher;
+
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestRangerCompactTagStore {
+
+    @Test
+    public void testResourceToTagLookup() {
+        Map<Long, RangerTag>  tags             = new HashMap<>();
+        Map<Long, List<Long>> resourceToTagIds = new HashMap<>();
+
+        for (long i = 1; i <= 100; i++) {
+            tags.put(i, new RangerTag(new String("PII"), Collections.singletonMap("level", new String("high"))));
+        }
+        tags.put(500L, new RangerTag("EXPIRES_ON", Collections.singletonMap("expiry_date", "2026-01-01")));
+
+        for (long i = 1; i <= 100; i++) {
+            resourceToTagIds.put(1000 + i, Arrays.asList(i, 500L));
+        }
+        resourceToTagIds.put(2000L, Arrays.asList(999L)); // unknown tag-id is dropped
+
+        RangerCompactTagStore tagStore = new RangerCompactTagStore(tags, resourceToTagIds);
+
+        assertEquals(101, tagStore.getTagCount());
+        assertEquals(101, tagStore.getTaggedResourceCount());
+
+        List<RangerTag> resourceTags = tagStore.getTagsForResource(1042L);
+
+        assertEquals(2, resourceTags.size());
+        assertEquals(tags.get(42L), resourceTags.get(0));
+        assertEquals(tags.get(500L), resourceTags.get(1));
+        assertTrue(tagStore.getTagsForResource(2000L).isEmpty());
+        assertTrue(tagStore.getTagsForResource(3000L).isEmpty());
+
+        // identical attributes and type names are shared across tags of the store
+        RangerTag tag1   = tagStore.getTagsForResource(1001L).get(0);
+        RangerTag tag100 = tagStore.getTagsForResource(1100L).get(0);
+
+        assertSame(tag1.getType(), tag100.getType());
+        assertSame(tag1.getAttributes(), tag100.getAttributes());
+
+        // tags given to the store are not modified
+        assertNotSame(tags.get(1L).getType(), tags.get(100L).getType());
+        assertNotSame(tags.get(1L).getAttributes(), tags.get(100L).getAttributes());
+        assertNotSame(tags.get(1L), tag1);
+    }
+
+    @Test
+    public void testApplyDelta() {
+        Map<Long, RangerTag>  tags             = new HashMap<>();
+        Map<Long, List<Long>> resourceToTagIds = new HashMap<>();
+
+        tags.put(1L, new RangerTag("PII", null));
+        tags.put(2L, new RangerTag("PCI", null));
+        tags.put(3L, new RangerTag("FINANCE", null));
+        resourceToTagIds.put(10L, Arrays.asList(1L, 2L));
+        resourceToTagIds.put(20L, Arrays.asList(2L, 3L));
+        resourceToTagIds.put(30L, Arrays.asList(3L));
+
+        RangerCompactTagStore tagStore = new RangerCompactTagStore(tags, resourceToTagIds);
+
+        // tag 2 removed, tag 3 updated, tag 4 added; resource 30 deleted, resource 40 added
+        ServiceTags delta = new ServiceTags();
+
+        delta.setIsDelta(true);
+        delta.getTags().put(2L, new RangerTag(null, null));
+        delta.getTags().put(3L, new RangerTag("FINANCE", Collections.singletonMap("year", "2020")));
+        delta.getTags().put(4L, new RangerTag("PHI", null));
+        RangerServiceResource deletedResource = new RangerServiceResource();
+
+        deletedResource.setId(30L);
+
+        delta.getServiceResources().add(deletedResource);
+        delta.getResourceToTagIds().put(40L, Arrays.asList(4L, 1L));
+
+        RangerCompactTagStore newTagStore = tagStore.applyDelta(delta);
+
+        Map<Long, List<Long>> expectedResourceToTagIds = new HashMap<>();
+
+        expectedResourceToTagIds.put(10L, Arrays.asList(1L));
+        expectedResourceToTagIds.put(20L, Arrays.asList(3L));
+        expectedResourceToTagIds.put(40L, Arrays.asList(4L, 1L));
+
+        assertEquals(3, newTagStore.getTagCount());
+        assertEquals(expectedResourceToTagIds, newTagStore.toResourceToTagIdsMap());
+        assertEquals("2020", newTagStore.getTagsForResource(20L).get(0).getAttributes().get("year"));
+        assertEquals("PHI", newTagStore.getTagsForResource(40L).get(0).getType());
+
+        // unchanged tags are reused, the old store is unchanged
+        assertSame(tagStore.getTagsForResource(10L).get(0), newTagStore.getTagsForResource(10L).get(0));
+        assertEquals(3, tagStore.getTagCount());
+        assertEquals(resourceToTagIds, tagStore.toResourceToTagIdsMap());
+    }
+
+    @Test
+    public void testToMaps() {
+        Map<Long, RangerTag>  tags             = new HashMap<>();
+        Map<Long, List<Long>> resourceToTagIds = new HashMap<>();
+
+        tags.put(1L, new RangerTag("PII", null));
+        tags.put(2L, new RangerTag("PCI", null));
+        resourceToTagIds.put(10L, Arrays.asList(2L, 1L));
+        resourceToTagIds.put(20L, Arrays.asList(1L));
+
+        RangerCompactTagStore tagStore = new RangerCompactTagStore(tags, resourceToTagIds);
+
+        assertEquals(tags, tagStore.toTagsMap());
+        assertEquals(resourceToTagIds, tagStore.toResourceToTagIdsMap());
+
+        RangerCompactTagStore emptyStore = new RangerCompactTagStore(null, null);
+
+        assertEquals(0, emptyStore.getTagCount());
+        assertTrue(emptyStore.toResourceToTagIdsMap().isEmpty());
+        assertTrue(emptyStore.getTagsForResource(10L).isEmpty());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.contextenricher;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import org.apache.ranger.plugin.contextenricher.TestTagEnricher.TagEnricherTestCase;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TestTagLookupCache {
+    private TagEnricherTestCase testCase;
+    private RangerTagEnricher   tagEnricher;
+
+    @Before
+    public void setUp() throws Exception {
+        Gson gson = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z")
+                .registerTypeAdapter(RangerAccessResource.class, (JsonDeserializer<RangerAccessResource>) (jsonObj, type, context) -> context.deserialize(jsonObj, RangerAccessResourceImpl.class))
+                .create();
+
+        try (InputStreamReader reader = new InputStreamReader(getClass().getResourceAsStream("/contextenricher/test_tagenricher_hive.json"))) {
+            testCase = gson.fromJson(reader, TagEnricherTestCase.class);
+        }
+
+        ServiceTags serviceTags = new ServiceTags();
+        serviceTags.setServiceName(testCase.serviceName);
+        serviceTags.setTagDefinitions(testCase.tagDefinitions);
+        serviceTags.setTags(testCase.tags);
+        serviceTags.setServiceResources(testCase.serviceResources);
+        serviceTags.setResourceToTagIds(testCase.resourceToTagIds);
+
+        tagEnricher = new RangerTagEnricher();
+
+        tagEnricher.setServiceName(testCase.serviceName);
+        tagEnricher.setServiceDef(testCase.serviceDef);
+        tagEnricher.setServiceTags(serviceTags);
+    }
+
+    @Test
+    public void testLookupServedFromCache() {
+        Set<RangerTagForEval> first  = enrich(createResource("finance", "tax_2010", "ssn"), "select");
+        Set<RangerTagForEval> second = enrich(createResource("finance", "tax_2010", "ssn"), "select");
+
+        assertEquals(1, tagEnricher.getTagLookupCacheMissCount());
+        assertEquals(1, tagEnricher.getTagLookupCacheHitCount());
+        assertSame(first, second);
+
+        // resource without tags is cached as well
+        assertNull(enrich(createResource("hr", "employee", "name"), "select"));
+        assertNull(enrich(createResource("hr", "employee", "name"), "select"));
+
+        assertEquals(2, tagEnricher.getTagLookupCacheMissCount());
+        assertEquals(2, tagEnricher.getTagLookupCacheHitCount());
+    }
+
+    @Test
+    public void testAnyAccessCachedSeparately() {
+        Set<RangerTagForEval> selectTags = enrich(createResource("finance", null, null), "select");
+        Set<RangerTagForEval> anyTags    = enrich(createResource("finance", null, null), "");
+
+        // 'any' access also matches tags of descendants, hence is not served from the entry for 'select'
+        assertEquals(2, tagEnricher.getTagLookupCacheMissCount());
+        assertEquals(0, tagEnricher.getTagLookupCacheHitCount());
+        assertEquals(1, selectTags.size());
+        assertEquals(4, anyTags.size());
+    }
+
+    @Test
+    public void testCacheResetOnServiceTagsUpdate() {
+        enrich(createResource("finance", "tax_2010", "ssn"), "select");
+
+        ServiceTags serviceTags = new ServiceTags();
+        serviceTags.setServiceName(testCase.serviceName);
+        serviceTags.setTagDefinitions(testCase.tagDefinitions);
+        serviceTags.setTags(testCase.tags);
+        serviceTags.setServiceResources(testCase.serviceResources.subList(0, 1));
+        serviceTags.setResourceToTagIds(testCase.resourceToTagIds);
+
+        tagEnricher.setServiceTags(serviceTags);
+
+        assertNull(enrich(createResource("finance", "tax_2010", "ssn"), "select"));
+        assertEquals(0, tagEnricher.getTagLookupCacheHitCount());
+        assertEquals(1, tagEnricher.getTagLookupCacheMissCount());
+    }
+
+    private Set<RangerTagForEval> enrich(RangerAccessResource resource, String accessType) {
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(resource, accessType, "testUser", null);
+
+        tagEnricher.enrich(request);
+
+        return RangerAccessRequestUtil.getRequestTagsFromContext(request.getContext());
+    }
+
+    private RangerAccessResource createResource(String database, String table, String column) {
+        Map<String, Object> elements = new HashMap<>();
+
+        elements.put("database", database);
+
+        if (table != null) {
+            elements.put("table", table);
+        }
+
+        if (column != null) {
+            elements.put("column", column);
+        }
+
+        RangerAccessResourceImpl ret = new RangerAccessResourceImpl(elements);
+
+        ret.setServiceDef(testCase.serviceDef);
+
+        return ret;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.plugin.geo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ranger.plugin.store.file.GeolocationFileStore;
+import org.junit.Test;
+
+public class TestRangerGeolocationIndex {
+
+	@Test
+	public void testFind() {
+		RangerGeolocationDatabase database = createDatabase();
+
+		assertEquals("US", database.find("10.0.0.255").getLocationData()[0]);
+		assertEquals("US", database.find("10.0.1.7").getLocationData()[0]);
+		assertEquals("US", database.find("10.0.3.0").getLocationData()[0]);
+		assertEquals("BR", database.find("200.1.2.3").getLocationData()[0]);
+		assertEquals("DE", database.find("2001:db8::1").getLocationData()[0]);
+		assertEquals("DE", database.find("2001:db8:0:ffff::").getLocationData()[0]);
+		assertEquals("FR", database.find("ffff::1").getLocationData()[0]);
+		assertEquals("200.0.0.0", RangerGeolocationData.unsignedIntToIPAddress(database.find("200.1.2.3").getFromIPAddress()));
+		assertTrue(database.find("2001:db8::1").isIPv6());
+
+		assertNull(database.find("10.0.0.254"));
+		assertNull(database.find("10.0.3.1"));
+		assertNull(database.find("1.2.3.4"));
+		assertNull(database.find("255.255.255.255"));
+		assertNull(database.find("2001:db8:1::"));
+		assertNull(database.find("::1"));
+		assertNull(database.find(""));
+
+		// duplicates are dropped, ranges sharing location data share one copy of it
+		assertEquals(3, database.getIndex().getIPv4RangeCount());
+		assertEquals(2, database.getIndex().getIPv6RangeCount());
+		assertEquals(4, database.getIndex().getLocationCount());
+		assertEquals("United States", database.getValue(database.find("20.0.100.100"), "COUNTRY_NAME"));
+	}
+
+	@Test
+	public void testFindIPAddressLiteralsOnly() {
+		RangerGeolocationDatabase database = new RangerGeolocationDatabase();
+
+		database.setMetadata(GeolocationMetadata.create("FROM_IP,TO_IP,COUNTRY_CODE".split(","), 0));
+		database.insert(RangerGeolocationData.create("127.0.0.0,127.255.255.255,LO".split(","), 1, true));
+		database.insert(RangerGeolocationData.create("::1,::1,LO".split(","), 2, true));
+		database.optimize();
+
+		assertEquals("LO", database.find("127.0.0.1").getLocationData()[0]);
+		assertEquals("LO", database.find("::1").getLocationData()[0]);
+		assertEquals("LO", database.find("::ffff:127.0.0.1").getLocationData()[0]);
+
+		// host names are not resolved
+		assertNull(database.find("localhost"));
+		assertNull(database.find("127.0.0.1.nip.io"));
+		assertNull(database.find("fe80::1%lo"));
+		assertFalse(RangerGeolocationData.validateAsIP("localhost", true));
+		assertTrue(RangerGeolocationData.validateAsIP("::1", true));
+	}
+
+	@Test
+	public void testBinaryForm() throws Exception {
+		RangerGeolocationDatabase database = createDatabase();
+		File                      file     = File.createTempFile("geo", ".bin");
+
+		try {
+			database.save(file);
+
+			assertTrue(RangerGeolocationDatabase.isBinaryFile(file));
+			assertFalse(RangerGeolocationDatabase.isBinaryFile(new File("/nonexistent/geo.bin")));
+
+			RangerGeolocationDatabase loaded = RangerGeolocationDatabase.load(file);
+
+			for (String ipAddress : new String[] { "10.0.1.7", "20.0.100.105", "200.1.2.3", "2001:db8::1", "ffff::1", "1.2.3.4", "::1" }) {
+				assertEquals(ipAddress, String.valueOf(database.find(ipAddress)), String.valueOf(loaded.find(ipAddress)));
+			}
+
+			assertEquals("United States", loaded.getValue(loaded.find("10.0.1.7"), "COUNTRY_NAME"));
+
+			// GeolocationFileStore maps a binary file instead of parsing it
+			GeolocationFileStore store   = new GeolocationFileStore();
+			Map<String, String>  context = new HashMap<>();
+
+			context.put(GeolocationFileStore.PROP_GEOLOCATION_FILE_LOCATION, file.getAbsolutePath());
+
+			store.init(context);
+
+			assertEquals("DE", store.getGeoLocation("2001:db8::1").getLocationData()[0]);
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testFileStore() {
+		GeolocationFileStore dotFormatStore  = createStore("/etc/ranger/geo/geo.txt", true);
+		GeolocationFileStore longFormatStore = createStore("/etc/ranger/geo/geo_long.txt", false);
+
+		for (String ipAddress : new String[] { "10.0.0.255", "20.0.100.80", "20.0.100.95", "20.0.100.200", "128.101.101.101" }) {
+			assertEquals(ipAddress, String.valueOf(dotFormatStore.getGeoLocation(ipAddress)), String.valueOf(longFormatStore.getGeoLocation(ipAddress)));
+		}
+
+		assertEquals("CA", dotFormatStore.getGeoLocation("20.0.100.85").getLocationData()[0]);
+	}
+
+	private static RangerGeolocationDatabase createDatabase() {
+		RangerGeolocationDatabase database = new RangerGeolocationDatabase();
+
+		database.setMetadata(GeolocationMetadata.create("FROM_IP,TO_IP,COUNTRY_CODE,COUNTRY_NAME".split(","), 0));
+
+		database.insert(RangerGeolocationData.create("200.0.0.0,200.255.255.255,BR,Brazil".split(","), 1, true));
+		database.insert(RangerGeolocationData.create("10.0.0.255,10.0.3.0,US,United States".split(","), 2, true));
+		database.insert(RangerGeolocationData.create("2001:db8::,2001:db8:0:ffff:ffff:ffff:ffff:ffff,DE,Germany".split(","), 3, true));
+		database.insert(RangerGeolocationData.create("20.0.100.100,20.0.100.109,US,United States".split(","), 4, true));
+		database.insert(RangerGeolocationData.create("10.0.0.255,10.0.3.0,US,United States".split(","), 5, true));
+		database.insert(RangerGeolocationData.create("ffff::,ffff::ffff,FR,France".split(","), 6, true));
+		database.optimize();
+
+		return database;
+	}
+
+	private static GeolocationFileStore createStore(String filePath, boolean ipInDotFormat) {
+		GeolocationFileStore store   = new GeolocationFileStore();
+		Map<String, String>  context = new HashMap<>();
+
+		context.put(GeolocationFileStore.PROP_GEOLOCATION_FILE_LOCATION, filePath);
+		context.put(GeolocationFileStore.PROP_GEOLOCATION_IP_IN_DOT_FORMAT, Boolean.toString(ipInDotFormat));
+
+		store.init(context);
+
+		return store;
+	}
+}
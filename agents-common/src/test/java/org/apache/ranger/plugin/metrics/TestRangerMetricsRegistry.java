@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class TestRangerMetricsRegistry {
+
+	@Test
+	public void testHistogramBuckets() {
+		for (long value : new long[] { 0, 1, 15, 16, 17, 31, 32, 33, 1000, 123456789, Long.MAX_VALUE }) {
+			int  bucket     = RangerHistogram.getBucketIndex(value);
+			long upperBound = RangerHistogram.getBucketUpperBound(bucket);
+
+			assertTrue("bucket of " + value, bucket >= 0 && bucket < RangerHistogram.BUCKET_COUNT);
+			assertTrue("upper bound of " + value + ": " + upperBound, upperBound >= value && upperBound - value <= value / RangerHistogram.SUB_BUCKET_COUNT);
+
+			if (bucket > 0) {
+				assertTrue("lower bound of " + value, RangerHistogram.getBucketUpperBound(bucket - 1) < value);
+			}
+		}
+	}
+
+	@Test
+	public void testHistogramPercentiles() {
+		RangerHistogram histogram = new RangerHistogram();
+
+		assertEquals(0, histogram.getValueAtPercentile(99));
+
+		for (long value = 1; value <= 10000; value++) {
+			histogram.record(value);
+		}
+
+		long[] percentiles = histogram.getValuesAtPercentiles(50, 99, 100);
+
+		assertEquals(10000, histogram.getCount());
+		assertEquals(10000 * 10001 / 2, histogram.getSum());
+		assertEquals(10000, histogram.getMax());
+		assertEquals(5000.5, histogram.getMean(), 0.001);
+		assertTrue("p50=" + percentiles[0], Math.abs(percentiles[0] - 5000) <= 5000 / RangerHistogram.SUB_BUCKET_COUNT);
+		assertTrue("p99=" + percentiles[1], Math.abs(percentiles[1] - 9900) <= 9900 / RangerHistogram.SUB_BUCKET_COUNT);
+		assertEquals(10000, percentiles[2]);
+	}
+
+	@Test
+	public void testRegistry() throws Exception {
+		RangerMetricsRegistry registry = RangerMetricsRegistry.getInstance();
+		RangerCounter         counter  = registry.getCounter("test_requests_total", "service", "test\"svc");
+
+		assertSame(counter, registry.getCounter("test_requests_total", "service", "test\"svc"));
+		assertEquals("test_requests_total{service=\"test\\\"svc\"}", RangerMetricsRegistry.getMetricName("test_requests_total", "service", "test\"svc"));
+
+		counter.increment();
+		counter.add(2);
+
+		registry.getHistogram("test_latency_microseconds", "service", "svc1").record(42);
+		registry.registerGauge(() -> 7, "test_version", "service", "svc1");
+		registry.registerGauge(() -> { throw new IllegalStateException(); }, "test_broken", "service", "svc1");
+
+		StringWriter writer = new StringWriter();
+
+		registry.export(writer);
+
+		String text = writer.toString();
+
+		assertTrue(text, text.contains("# TYPE test_requests_total counter\ntest_requests_total{service=\"test\\\"svc\"} 3\n"));
+		assertTrue(text, text.contains("# TYPE test_version gauge\ntest_version{service=\"svc1\"} 7\n"));
+		assertTrue(text, text.contains("# TYPE test_latency_microseconds summary\n"));
+		assertTrue(text, text.contains("test_latency_microseconds{service=\"svc1\",quantile=\"0.99\"} 42\n"));
+		assertTrue(text, text.contains("test_latency_microseconds_count{service=\"svc1\"} 1\n"));
+		assertTrue(text, !text.contains("test_broken"));
+
+		MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+		ObjectName  objectName  = new ObjectName(RangerMetricsRegistry.JMX_OBJECT_NAME);
+
+		assertEquals(3L, mbeanServer.getAttribute(objectName, "test_requests_total{service=test\\svc}"));
+		assertEquals(7L, mbeanServer.getAttribute(objectName, "test_version{service=svc1}"));
+		assertEquals(42L, mbeanServer.getAttribute(objectName, "test_latency_microseconds{service=svc1}.max"));
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Test;
+
+public class TestPolicyEvaluatorBuilder {
+	private static final int POLICY_COUNT = 2500;
+
+	@Test
+	public void testParallelBuildOrder() throws Exception {
+		List<Long> sequentialOrder = getEvaluationOrder(1);
+
+		assertEquals(POLICY_COUNT - POLICY_COUNT / 10, sequentialOrder.size());
+
+		for (int parallelism : new int[] { 0, 2, 7 }) {
+			for (int i = 0; i < 3; i++) {
+				assertEquals("parallelism=" + parallelism, sequentialOrder, getEvaluationOrder(parallelism));
+			}
+		}
+	}
+
+	private static List<Long> getEvaluationOrder(int parallelism) throws Exception {
+		RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+		options.policyEvaluatorBuildParallelism = parallelism;
+
+		RangerPolicyRepository policyRepository = new RangerPolicyRepository("test-evaluator-builder", createServicePolicies(), options, new RangerPluginContext("hive"));
+		List<Long>             ret              = new ArrayList<>();
+
+		for (RangerPolicyEvaluator evaluator : policyRepository.getPolicyEvaluators()) {
+			ret.add(evaluator.getPolicy().getId());
+		}
+
+		return ret;
+	}
+
+	private static ServicePolicies createServicePolicies() throws Exception {
+		ServicePolicies    ret      = new ServicePolicies();
+		List<RangerPolicy> policies = new ArrayList<>();
+
+		for (int i = 0; i < POLICY_COUNT; i++) {
+			RangerPolicy                      policy     = new RangerPolicy();
+			Map<String, RangerPolicyResource> resources  = new HashMap<>();
+			RangerPolicyItem                  policyItem = new RangerPolicyItem();
+
+			// few distinct shapes, so that many policies share an eval-order and their relative order is decided by position
+			resources.put("database", new RangerPolicyResource((i % 3 == 0) ? "db_*" : ("db_" + (i % 5))));
+			resources.put("table", new RangerPolicyResource("*"));
+			resources.put("column", new RangerPolicyResource("*"));
+
+			policyItem.getUsers().add("user_" + (i % 7));
+			policyItem.getAccesses().add(new RangerPolicyItemAccess("select"));
+
+			policy.setId((long) (POLICY_COUNT - i));
+			policy.setName("policy-" + i);
+			policy.setService("dev_hive");
+			policy.setIsEnabled(i % 10 != 0);
+			policy.setResources(resources);
+			policy.getPolicyItems().add(policyItem);
+
+			policies.add(policy);
+		}
+
+		ret.setServiceName("dev_hive");
+		ret.setServiceDef(EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME));
+		ret.setPolicyVersion(1L);
+		ret.setPolicies(policies);
+
+		return ret;
+	}
+}
@@ -0,0 +1,458 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.conditionevaluator.RangerIpMatcher;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerDataMaskPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemDataMaskInfo;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemRowFilterInfo;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerRowFilterPolicyItem;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerPolicyConditionDef;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestRangerChildResourceFilter {
+	private static final Log LOG = LogFactory.getLog(TestRangerChildResourceFilter.class);
+
+	private static final String DATABASE     = "sales";
+	private static final int    TABLE_COUNT  = 50000;
+	private static final int    OTHER_USERS  = 500;
+	private static final int    COLUMN_COUNT = 800;
+
+	private static RangerServiceDef serviceDef;
+	private static List<String>     tables;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		serviceDef = EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME);
+		tables     = new ArrayList<>();
+
+		serviceDef.getPolicyConditions().add(new RangerPolicyConditionDef(1L, "ip-range", RangerIpMatcher.class.getName(), new HashMap<String, String>()));
+
+		for (int i = 0; i < TABLE_COUNT; i++) {
+			tables.add((i % 100 == 0 ? "secret_" : "t_") + i);
+		}
+	}
+
+	@Test
+	public void testListTablesMatchesPerTableEvaluation() {
+		List<RangerPolicy> policies = new ArrayList<>();
+
+		policies.add(createPolicy(1, DATABASE, "*", allow(users(), groups("analysts")), null));
+		policies.add(createPolicy(2, DATABASE, "secret_*", null, deny(users("alice"), groups())));
+		policies.add(createPolicy(3, DATABASE, "t_1*", allow(users("bob"), groups()), null));
+		policies.add(createPolicy(4, "*", "t_4*", allow(users(RangerPolicyEngine.USER_CURRENT), groups()), null));
+
+		// override priority: allows alice, but has a deny item for someone else - so deny policies that follow still apply,
+		// unless a policy with no deny, even one not applicable to alice, comes in between
+		RangerPolicy override = createPolicy(5, DATABASE, "t_2*", allow(users("alice"), groups()), deny(users("mallory"), groups()));
+		RangerPolicy other    = createPolicy(6, DATABASE, "t_2*", allow(users("trent"), groups()), null);
+
+		override.setPolicyPriority(RangerPolicy.POLICY_PRIORITY_OVERRIDE);
+		other.setPolicyPriority(RangerPolicy.POLICY_PRIORITY_OVERRIDE);
+
+		policies.add(override);
+		policies.add(other);
+		policies.add(createPolicy(7, DATABASE, "t_25*", null, deny(users("alice"), groups())));
+
+		for (int i = 0; i < OTHER_USERS; i++) {
+			policies.add(createPolicy(100 + i, DATABASE, "t_" + i + "*", allow(users("user_" + i), groups("group_" + i)), deny(users("denied_" + i), groups())));
+		}
+
+		RangerPolicyEngine policyEngine = createPolicyEngine(policies);
+
+		verifyListTables(policyEngine, "alice", groups("analysts"));
+		verifyListTables(policyEngine, "bob", groups());
+		verifyListTables(policyEngine, "carol", groups("group_7", "group_17"));
+		verifyListTables(policyEngine, "user_3", groups());
+		verifyListTables(policyEngine, "denied_3", groups("analysts"));
+		verifyListTables(policyEngine, "nobody", groups());
+	}
+
+	@Test
+	public void testListDatabases() {
+		List<RangerPolicy> policies = new ArrayList<>();
+
+		policies.add(createPolicy(1, "db_1*", "*", allow(users("alice"), groups()), null));
+		policies.add(createPolicy(2, "db_12*", "*", null, deny(users("alice"), groups())));
+		policies.add(createPolicy(3, "*", "*", allow(users(), groups(RangerPolicyEngine.GROUP_PUBLIC)), deny(users("bob"), groups())));
+
+		RangerPolicyEngine        policyEngine = createPolicyEngine(policies);
+		List<String>              databases    = new ArrayList<>();
+
+		for (int i = 0; i < 1000; i++) {
+			databases.add("db_" + i);
+		}
+
+		for (String user : Arrays.asList("alice", "bob", "carol")) {
+			RangerChildResourceFilter filter = policyEngine.getChildResourceFilter(new RangerAccessResourceImpl(), "database", user, groups(), RangerPolicyEngine.ANY_ACCESS);
+
+			assertNotNull(filter);
+			assertEquals("user=" + user, listPerObject(policyEngine, new RangerAccessResourceImpl(), "database", databases, user, groups()), filter.filter(databases));
+		}
+	}
+
+	@Test
+	public void testFilterNotAvailableWithConditions() {
+		RangerPolicy       policy   = createPolicy(1, DATABASE, "*", allow(users("alice"), groups()), null);
+		List<RangerPolicy> policies = Collections.singletonList(policy);
+
+		policy.getPolicyItems().get(0).setConditions(Collections.singletonList(new RangerPolicyItemCondition("ip-range", Collections.singletonList("10.*"))));
+
+		RangerPolicyEngine policyEngine = createPolicyEngine(policies);
+
+		assertNull(policyEngine.getChildResourceFilter(databaseResource(), "table", "alice", groups(), RangerPolicyEngine.ANY_ACCESS));
+
+		// policies with conditions that don't apply to the user don't get in the way
+		RangerChildResourceFilter filter = policyEngine.getChildResourceFilter(databaseResource(), "table", "bob", groups(), RangerPolicyEngine.ANY_ACCESS);
+
+		assertNotNull(filter);
+		assertTrue(filter.isNoneAccessible());
+		assertFalse(filter.isAccessible("t_1"));
+	}
+
+	@Test
+	public void testOwnerPolicies() {
+		List<RangerPolicy> policies = new ArrayList<>();
+
+		policies.add(createPolicy(1, DATABASE, "*", allow(users(RangerPolicyEngine.RESOURCE_OWNER), groups()), null));
+		policies.add(createPolicy(2, DATABASE, "secret_*", null, deny(users("alice"), groups())));
+		policies.add(createPolicy(3, DATABASE, "t_1*", allow(users("bob"), groups()), null));
+
+		RangerPolicyEngine policyEngine = createPolicyEngine(policies);
+
+		for (String user : Arrays.asList("alice", "bob", "carol")) {
+			RangerChildResourceFilter filter = policyEngine.getChildResourceFilter(databaseResource(), "table", user, groups(), "select");
+
+			assertNotNull(filter);
+
+			for (int i = 0; i < 2000; i++) {
+				String table = tables.get(i);
+				String owner = i % 3 == 0 ? "alice" : "carol";
+
+				RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+				resource.setValue("database", DATABASE);
+				resource.setValue("table", table);
+				resource.setOwnerUser(owner);
+
+				RangerAccessRequestImpl request = new RangerAccessRequestImpl(resource, "select", user, groups());
+
+				policyEngine.preProcess(request);
+
+				boolean expected = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null).getIsAllowed();
+
+				assertEquals("user=" + user + ", table=" + table + ", owner=" + owner, expected, filter.isAccessible(table, owner));
+			}
+		}
+	}
+
+	@Test
+	public void testColumnMasksOfWideTable() {
+		List<RangerPolicy> policies = new ArrayList<>();
+		List<String>       columns  = new ArrayList<>();
+
+		for (int i = 0; i < COLUMN_COUNT; i++) {
+			columns.add((i % 50 == 0 ? "ssn_" : i % 20 == 0 ? "email_" : "c_") + i);
+		}
+
+		// data-mask resources don't support wildcards: policies list the columns
+		List<String> ssnColumns   = new ArrayList<>();
+		List<String> emailColumns = new ArrayList<>();
+		List<String> hashColumns  = new ArrayList<>();
+
+		for (String column : columns) {
+			if (column.startsWith("ssn_")) {
+				ssnColumns.add(column);
+			} else if (column.startsWith("email_")) {
+				emailColumns.add(column);
+			} else if (column.endsWith("7")) {
+				hashColumns.add(column);
+			}
+		}
+
+		policies.add(createDataMaskPolicy(1, ssnColumns, dataMask("MASK", users(), groups("analysts"))));
+		policies.add(createDataMaskPolicy(2, emailColumns, dataMask("MASK_NULL", users("alice"), groups())));
+		policies.add(createDataMaskPolicy(3, emailColumns.subList(0, emailColumns.size() / 2), dataMask("CUSTOM", users(), groups("analysts"))));
+		policies.add(createDataMaskPolicy(4, ssnColumns.subList(0, ssnColumns.size() / 2), dataMask("MASK_NONE", users("bob"), groups())));
+
+		RangerPolicy notAudited = createDataMaskPolicy(5, hashColumns, dataMask("MASK_HASH", users(), groups("analysts")));
+
+		notAudited.setIsAuditEnabled(false);
+		policies.add(notAudited);
+
+		for (int i = 0; i < OTHER_USERS; i++) {
+			policies.add(createDataMaskPolicy(100 + i, Collections.singletonList(columns.get(i % columns.size())), dataMask("MASK_SHOW_LAST_4", users("user_" + i), groups("group_" + i))));
+		}
+
+		RangerPolicy rowFilter = new RangerPolicy();
+
+		rowFilter.setId(10L);
+		rowFilter.setName("policy-10");
+		rowFilter.setService("dev_hive");
+		rowFilter.setPolicyType(RangerPolicy.POLICY_TYPE_ROWFILTER);
+		rowFilter.getResources().put("database", new RangerPolicyResource(DATABASE));
+		rowFilter.getResources().put("table", new RangerPolicyResource("wide_1"));
+		rowFilter.getRowFilterPolicyItems().add(new RangerRowFilterPolicyItem(new RangerPolicyItemRowFilterInfo("region = 'us'"), Collections.singletonList(new RangerPolicyItemAccess("select")), users(), new ArrayList<>(groups("analysts")), null, null, false));
+		policies.add(rowFilter);
+
+		RangerPolicyEngine policyEngine = createPolicyEngine(policies);
+		RangerAccessResource table      = databaseResource();
+
+		((RangerAccessResourceImpl) table).setValue("table", "wide_1");
+
+		for (String user : Arrays.asList("alice", "bob", "user_3")) {
+			Set<String> userGroups = user.equals("user_3") ? groups() : groups("analysts");
+
+			long startTimeMs = System.currentTimeMillis();
+
+			List<RangerAccessResult> expected = new ArrayList<>();
+
+			for (String column : columns) {
+				expected.add(evaluate(policyEngine, table, "column", column, user, userGroups, RangerPolicy.POLICY_TYPE_DATAMASK));
+			}
+
+			long perColumnTimeMs = System.currentTimeMillis() - startTimeMs;
+
+			startTimeMs = System.currentTimeMillis();
+
+			RangerChildResourceFilter filter = policyEngine.getChildResourceFilter(table, "column", user, userGroups, "select", RangerPolicy.POLICY_TYPE_DATAMASK);
+
+			assertNotNull(filter);
+			assertTrue(filter.isCacheable());
+
+			List<RangerAccessResult> actual = new ArrayList<>();
+
+			for (String column : columns) {
+				actual.add(filter.getResult(column));
+			}
+
+			long filterTimeMs = System.currentTimeMillis() - startTimeMs;
+
+			LOG.info("masks of " + columns.size() + " columns: user=" + user + ", perColumnTimeMs=" + perColumnTimeMs + ", filterTimeMs=" + filterTimeMs);
+
+			int maskedCount = 0;
+
+			for (int i = 0; i < columns.size(); i++) {
+				String msg = "user=" + user + ", column=" + columns.get(i);
+
+				assertEquals(msg, expected.get(i).isMaskEnabled(), actual.get(i).isMaskEnabled());
+
+				if (expected.get(i).isMaskEnabled()) {
+					assertEquals(msg, expected.get(i).getMaskType(), actual.get(i).getMaskType());
+					assertEquals(msg, expected.get(i).getPolicyId(), actual.get(i).getPolicyId());
+					assertEquals(msg, expected.get(i).getIsAudited(), actual.get(i).getIsAudited());
+
+					maskedCount++;
+				}
+			}
+
+			assertTrue("user=" + user, maskedCount > 0);
+
+			RangerChildResourceFilter rowFilterFilter = policyEngine.getChildResourceFilter(databaseResource(), "table", user, userGroups, "select", RangerPolicy.POLICY_TYPE_ROWFILTER);
+			RangerAccessResult        rowFilterResult = evaluate(policyEngine, databaseResource(), "table", "wide_1", user, userGroups, RangerPolicy.POLICY_TYPE_ROWFILTER);
+
+			assertNotNull(rowFilterFilter);
+			assertEquals("user=" + user, rowFilterResult.getFilterExpr(), rowFilterFilter.getResult("wide_1").getFilterExpr());
+			assertEquals("user=" + user, rowFilterResult.getIsAudited(), rowFilterFilter.getResult("wide_1").getIsAudited());
+		}
+	}
+
+	private void verifyListTables(RangerPolicyEngine policyEngine, String user, Set<String> userGroups) {
+		long startTimeMs = System.currentTimeMillis();
+
+		List<String> expected = listPerObject(policyEngine, databaseResource(), "table", tables, user, userGroups);
+
+		long perObjectTimeMs = System.currentTimeMillis() - startTimeMs;
+
+		startTimeMs = System.currentTimeMillis();
+
+		RangerChildResourceFilter filter = policyEngine.getChildResourceFilter(databaseResource(), "table", user, userGroups, RangerPolicyEngine.ANY_ACCESS);
+
+		assertNotNull(filter);
+
+		List<String> actual = filter.filter(tables);
+
+		long filterTimeMs = System.currentTimeMillis() - startTimeMs;
+
+		LOG.info("list " + tables.size() + " tables: user=" + user + ", accessible=" + actual.size() + ", perObjectTimeMs=" + perObjectTimeMs + ", filterTimeMs=" + filterTimeMs);
+
+		assertEquals("user=" + user, expected, actual);
+	}
+
+	private static RangerAccessResult evaluate(RangerPolicyEngine policyEngine, RangerAccessResource parent, String childResourceName, String childName, String user, Set<String> userGroups, int policyType) {
+		RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+		for (String key : parent.getKeys()) {
+			resource.setValue(key, parent.getValue(key));
+		}
+
+		resource.setValue(childResourceName, childName);
+
+		RangerAccessRequestImpl request = new RangerAccessRequestImpl(resource, "select", user, userGroups);
+
+		policyEngine.preProcess(request);
+
+		return policyEngine.evaluatePolicies(request, policyType, null);
+	}
+
+	private static List<String> listPerObject(RangerPolicyEngine policyEngine, RangerAccessResource parent, String childResourceName, List<String> childNames, String user, Set<String> userGroups) {
+		List<String> ret = new ArrayList<>();
+
+		for (String childName : childNames) {
+			RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+			for (String key : parent.getKeys() == null ? Collections.<String>emptySet() : parent.getKeys()) {
+				resource.setValue(key, parent.getValue(key));
+			}
+
+			resource.setValue(childResourceName, childName);
+
+			RangerAccessRequestImpl request = new RangerAccessRequestImpl(resource, RangerPolicyEngine.ANY_ACCESS, user, userGroups);
+
+			policyEngine.preProcess(request);
+
+			RangerAccessResult result = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+			if (result != null && result.getIsAllowed()) {
+				ret.add(childName);
+			}
+		}
+
+		return ret;
+	}
+
+	private static RangerPolicyEngine createPolicyEngine(List<RangerPolicy> policies) {
+		ServicePolicies           servicePolicies = new ServicePolicies();
+		RangerPolicyEngineOptions options         = new RangerPolicyEngineOptions();
+
+		servicePolicies.setServiceName("dev_hive");
+		servicePolicies.setServiceDef(serviceDef);
+		servicePolicies.setPolicyVersion(1L);
+		servicePolicies.setPolicies(policies);
+
+		options.disableTrieLookupPrefilter = false;
+
+		return new RangerPolicyEngineImpl("test-child-resource-filter", servicePolicies, options);
+	}
+
+	private static RangerAccessResource databaseResource() {
+		RangerAccessResourceImpl ret = new RangerAccessResourceImpl();
+
+		ret.setValue("database", DATABASE);
+
+		return ret;
+	}
+
+	private static RangerPolicy createPolicy(long id, String database, String table, RangerPolicyItem allowItem, RangerPolicyItem denyItem) {
+		RangerPolicy                      ret       = new RangerPolicy();
+		Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+		resources.put("database", new RangerPolicyResource(database));
+		resources.put("table", new RangerPolicyResource(table));
+		resources.put("column", new RangerPolicyResource("*"));
+
+		ret.setId(id);
+		ret.setName("policy-" + id);
+		ret.setService("dev_hive");
+		ret.setResources(resources);
+
+		if (allowItem != null) {
+			ret.getPolicyItems().add(allowItem);
+		}
+
+		if (denyItem != null) {
+			ret.getDenyPolicyItems().add(denyItem);
+		}
+
+		return ret;
+	}
+
+	private static RangerPolicy createDataMaskPolicy(long id, List<String> columns, RangerDataMaskPolicyItem policyItem) {
+		RangerPolicy                      ret       = new RangerPolicy();
+		Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+		resources.put("database", new RangerPolicyResource(DATABASE));
+		resources.put("table", new RangerPolicyResource("wide_1"));
+		resources.put("column", new RangerPolicyResource(new ArrayList<>(columns), false, false));
+
+		ret.setId(id);
+		ret.setName("policy-" + id);
+		ret.setService("dev_hive");
+		ret.setPolicyType(RangerPolicy.POLICY_TYPE_DATAMASK);
+		ret.setResources(resources);
+		ret.getDataMaskPolicyItems().add(policyItem);
+
+		return ret;
+	}
+
+	private static RangerDataMaskPolicyItem dataMask(String maskType, List<String> users, Set<String> groups) {
+		List<RangerPolicyItemAccess> accesses = Collections.singletonList(new RangerPolicyItemAccess("select"));
+
+		return new RangerDataMaskPolicyItem(accesses, new RangerPolicyItemDataMaskInfo(maskType, null, "CUSTOM".equals(maskType) ? "concat('x', {col})" : null), users, new ArrayList<>(groups), null, null, false);
+	}
+
+	private static RangerPolicyItem allow(List<String> users, Set<String> groups) {
+		return createPolicyItem(users, groups);
+	}
+
+	private static RangerPolicyItem deny(List<String> users, Set<String> groups) {
+		return createPolicyItem(users, groups);
+	}
+
+	private static RangerPolicyItem createPolicyItem(List<String> users, Set<String> groups) {
+		List<RangerPolicyItemAccess> accesses = Collections.singletonList(new RangerPolicyItemAccess("select"));
+
+		return new RangerPolicyItem(accesses, users, new ArrayList<>(groups), null, null, false);
+	}
+
+	private static List<String> users(String... names) {
+		return new ArrayList<>(Arrays.asList(names));
+	}
+
+	private static Set<String> groups(String... names) {
+		return new HashSet<>(Arrays.asList(names));
+	}
+}
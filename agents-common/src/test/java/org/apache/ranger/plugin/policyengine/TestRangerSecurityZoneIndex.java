@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.plugin.policyengine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.validation.RangerZoneResourceMatcher;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestRangerSecurityZoneIndex {
+	private RangerServiceDef serviceDef;
+
+	@Before
+	public void setUp() throws Exception {
+		serviceDef = EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME);
+	}
+
+	@Test
+	public void testMatchedZoneName() {
+		for (int cacheSize : new int[] { 0, 2 }) {
+			RangerSecurityZoneIndex zoneIndex = createZoneIndex(cacheSize);
+
+			// each lookup is repeated, so that a cached result is returned the second time
+			for (int i = 0; i < 2; i++) {
+				assertEquals("finance", zoneIndex.getMatchedZoneName(createResource("finance_db", "ledger")));
+				assertEquals("finance", zoneIndex.getMatchedZoneName(createResource("finance_db", null)));
+				assertEquals("payroll", zoneIndex.getMatchedZoneName(createResource("hr", "salary_2020")));
+				assertEquals("public", zoneIndex.getMatchedZoneName(createResource("hr", "holidays")));
+				assertNull(zoneIndex.getMatchedZoneName(createResource("hr", "reviews")));
+				assertNull(zoneIndex.getMatchedZoneName(createResource("sales", "orders")));
+			}
+		}
+	}
+
+	private RangerSecurityZoneIndex createZoneIndex(int cacheSize) {
+		List<RangerZoneResourceMatcher> matchers = new ArrayList<>();
+
+		matchers.add(createMatcher("finance", "finance*", null));
+		matchers.add(createMatcher("payroll", "hr", "salary*"));
+		matchers.add(createMatcher("public", "hr", "holidays"));
+		matchers.add(createMatcher("public", "public", null));
+
+		// many zones that do not match the resources looked up
+		for (int i = 0; i < 300; i++) {
+			matchers.add(createMatcher("zone-" + i, "db_" + i, "table_" + i + "*"));
+		}
+
+		return new RangerSecurityZoneIndex(serviceDef, matchers, cacheSize);
+	}
+
+	private RangerZoneResourceMatcher createMatcher(String zoneName, String database, String table) {
+		Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+		resources.put("database", new RangerPolicyResource(database));
+
+		if (table != null) {
+			resources.put("table", new RangerPolicyResource(table));
+		}
+
+		return new RangerZoneResourceMatcher(zoneName, resources, serviceDef);
+	}
+
+	private RangerAccessResourceImpl createResource(String database, String table) {
+		RangerAccessResourceImpl ret = new RangerAccessResourceImpl();
+
+		ret.setValue("database", database);
+
+		if (table != null) {
+			ret.setValue("table", table);
+		}
+
+		ret.setServiceDef(serviceDef);
+
+		return ret;
+	}
+}
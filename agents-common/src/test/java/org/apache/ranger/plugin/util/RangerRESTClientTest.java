@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class RangerRESTClientTest {
+	private static final String POLICIES_URL = "/service/plugins/policies/download/dev_hive";
+	private static final int    POLICY_COUNT = 2000;
+
+	private HttpServer server;
+	private byte[]     policiesJson;
+	private AtomicLong bytesSent = new AtomicLong();
+
+	@Before
+	public void setUp() throws Exception {
+		policiesJson = new ObjectMapper().writeValueAsBytes(createServicePolicies(POLICY_COUNT));
+
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext(POLICIES_URL, new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				String  acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+				boolean useGzip        = acceptEncoding != null && acceptEncoding.contains("gzip");
+				byte[]  body           = useGzip ? gzip(policiesJson) : policiesJson;
+
+				exchange.getResponseHeaders().add("Content-Type", RangerRESTUtils.REST_MIME_TYPE_JSON);
+				if (useGzip) {
+					exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+				}
+				exchange.sendResponseHeaders(200, body.length);
+
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(body);
+				}
+
+				bytesSent.addAndGet(body.length);
+			}
+		});
+		server.start();
+	}
+
+	@After
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	public void testGzipResponseIsDecoded() throws Exception {
+		long   uncompressedBytes = download(false);
+		long   compressedBytes   = download(true);
+
+		assertEquals(policiesJson.length, uncompressedBytes);
+		assertEquals(gzip(policiesJson).length, compressedBytes);
+		assertTrue("gzip response is not smaller: " + compressedBytes + " >= " + uncompressedBytes, compressedBytes * 4 < uncompressedBytes);
+	}
+
+	private long download(boolean isGzipEnabled) throws Exception {
+		RangerRESTClient restClient = new RangerRESTClient("http://localhost:" + server.getAddress().getPort(), null);
+
+		restClient.setGzipEnabled(isGzipEnabled);
+		bytesSent.set(0);
+
+		ClientResponse response = restClient.get(POLICIES_URL, Collections.<String, String>emptyMap());
+
+		assertEquals(200, response.getStatus());
+
+		ServicePolicies policies = response.getEntity(ServicePolicies.class);
+
+		assertEquals("dev_hive", policies.getServiceName());
+		assertEquals(POLICY_COUNT, policies.getPolicies().size());
+		assertEquals("db_" + (POLICY_COUNT - 1), policies.getPolicies().get(POLICY_COUNT - 1).getResources().get("database").getValues().get(0));
+
+		return bytesSent.get();
+	}
+
+	private static ServicePolicies createServicePolicies(int count) {
+		ServicePolicies    ret      = new ServicePolicies();
+		List<RangerPolicy> policies = new ArrayList<>();
+
+		for (int i = 0; i < count; i++) {
+			RangerPolicy     policy = new RangerPolicy();
+			RangerPolicyItem item   = new RangerPolicyItem();
+
+			item.setUsers(Arrays.asList("user_" + (i % 50), "hive"));
+			item.setGroups(Arrays.asList("analysts", "public"));
+			item.getAccesses().add(new RangerPolicyItemAccess("select"));
+			item.getAccesses().add(new RangerPolicyItemAccess("update"));
+
+			policy.setId((long) i);
+			policy.setService("dev_hive");
+			policy.setName("policy_" + i);
+			policy.getResources().put("database", new RangerPolicyResource("db_" + i));
+			policy.getResources().put("table", new RangerPolicyResource("*"));
+			policy.getResources().put("column", new RangerPolicyResource("*"));
+			policy.getPolicyItems().add(item);
+
+			policies.add(policy);
+		}
+
+		ret.setServiceName("dev_hive");
+		ret.setPolicyVersion(1L);
+		ret.setPolicies(policies);
+
+		return ret;
+	}
+
+	private static byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+			gzipOut.write(data);
+		}
+
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+public class TestRangerObjectDeduplicator {
+	private final Gson gson = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z").create();
+
+	@Test
+	public void testServicePolicies() {
+		String          json      = gson.toJson(createServicePolicies());
+		ServicePolicies policies1 = gson.fromJson(json, ServicePolicies.class);
+		ServicePolicies policies2 = gson.fromJson(json, ServicePolicies.class);
+
+		RangerObjectDeduplicator deduplicator = new RangerObjectDeduplicator();
+
+		deduplicator.process(policies1);
+		deduplicator.process(policies2);
+
+		assertTrue(deduplicator.toString(), deduplicator.getDeduplicatedCount() > 0 && deduplicator.getSavedBytes() > 0);
+
+		RangerPolicyItem item1 = policies1.getPolicies().get(0).getPolicyItems().get(0);
+		RangerPolicyItem item2 = policies1.getPolicies().get(1).getPolicyItems().get(0);
+		RangerPolicyItem item3 = policies2.getPolicies().get(1).getPolicyItems().get(0);
+
+		assertEquals(Arrays.asList("alice", "bob"), item1.getUsers());
+		assertSame(item1.getUsers().get(0), item2.getUsers().get(0));
+		assertSame(item1.getUsers().get(0), item3.getUsers().get(0));
+		assertSame(item1.getGroups().get(0), item3.getGroups().get(0));
+		assertSame(item1.getAccesses().get(0).getType(), item3.getAccesses().get(0).getType());
+
+		Map.Entry<String, RangerPolicyResource> resource1 = policies1.getPolicies().get(0).getResources().entrySet().iterator().next();
+		Map.Entry<String, RangerPolicyResource> resource2 = policies2.getPolicies().get(0).getResources().entrySet().iterator().next();
+
+		assertSame(resource1.getKey(), resource2.getKey());
+		assertSame(resource1.getValue().getValues().get(0), resource2.getValue().getValues().get(0));
+	}
+
+	@Test
+	public void testServiceTagsAndRoles() {
+		ServiceTags serviceTags  = gson.fromJson(gson.toJson(createServiceTags()), ServiceTags.class);
+		RangerRoles rangerRoles1 = gson.fromJson(gson.toJson(createRangerRoles()), RangerRoles.class);
+		RangerRoles rangerRoles2 = gson.fromJson(gson.toJson(createRangerRoles()), RangerRoles.class);
+
+		RangerObjectDeduplicator deduplicator = new RangerObjectDeduplicator();
+
+		deduplicator.process(serviceTags);
+		deduplicator.process(rangerRoles1);
+		deduplicator.process(rangerRoles2);
+
+		Long       tagId     = serviceTags.getTags().keySet().iterator().next();
+		List<Long> tagIds1   = serviceTags.getResourceToTagIds().get(1L);
+		List<Long> tagIds2   = serviceTags.getResourceToTagIds().get(2L);
+		String     resource1 = serviceTags.getServiceResources().get(0).getResourceElements().get("database").getValues().get(0);
+		String     resource2 = serviceTags.getServiceResources().get(1).getResourceElements().get("database").getValues().get(0);
+		String     roleUser1 = rangerRoles1.getRangerRoles().iterator().next().getUsers().get(0).getName();
+		String     roleUser2 = rangerRoles2.getRangerRoles().iterator().next().getUsers().get(0).getName();
+
+		assertSame(tagId, tagIds1.get(0));
+		assertSame(tagId, tagIds2.get(0));
+		assertSame(resource1, resource2);
+		assertEquals("alice", roleUser1);
+		assertSame(roleUser1, roleUser2);
+	}
+
+	private static ServicePolicies createServicePolicies() {
+		ServicePolicies    ret      = new ServicePolicies();
+		List<RangerPolicy> policies = new ArrayList<>();
+
+		for (long i = 1; i <= 2; i++) {
+			RangerPolicy                      policy     = new RangerPolicy();
+			Map<String, RangerPolicyResource> resources  = new HashMap<>();
+			RangerPolicyItem                  policyItem = new RangerPolicyItem();
+
+			resources.put("database", new RangerPolicyResource("finance"));
+
+			policyItem.setUsers(Arrays.asList("alice", "bob"));
+			policyItem.setGroups(Collections.singletonList("analysts"));
+			policyItem.getAccesses().add(new RangerPolicyItemAccess("select"));
+
+			policy.setId(i);
+			policy.setName("policy-" + i);
+			policy.setService("dev_hive");
+			policy.setResources(resources);
+			policy.getPolicyItems().add(policyItem);
+
+			policies.add(policy);
+		}
+
+		ret.setServiceName("dev_hive");
+		ret.setPolicyVersion(1L);
+		ret.setPolicies(policies);
+
+		return ret;
+	}
+
+	private static ServiceTags createServiceTags() {
+		ServiceTags                 ret              = new ServiceTags();
+		Map<Long, RangerTag>        tags             = new HashMap<>();
+		List<RangerServiceResource> serviceResources = new ArrayList<>();
+		Map<Long, List<Long>>       resourceToTagIds = new HashMap<>();
+
+		tags.put(1000L, new RangerTag("PII", Collections.singletonMap("level", "high")));
+
+		for (long i = 1; i <= 2; i++) {
+			RangerServiceResource serviceResource = new RangerServiceResource();
+
+			serviceResource.setId(i);
+			serviceResource.setServiceName("dev_hive");
+			serviceResource.setResourceElements(Collections.singletonMap("database", new RangerPolicyResource("finance")));
+
+			serviceResources.add(serviceResource);
+			resourceToTagIds.put(i, new ArrayList<>(Collections.singletonList(1000L)));
+		}
+
+		ret.setServiceName("dev_hive");
+		ret.setTagVersion(1L);
+		ret.setTags(tags);
+		ret.setServiceResources(serviceResources);
+		ret.setResourceToTagIds(resourceToTagIds);
+
+		return ret;
+	}
+
+	private static RangerRoles createRangerRoles() {
+		RangerRoles ret  = new RangerRoles();
+		RangerRole  role = new RangerRole("finance-admins", null, null, Collections.singletonList(new RangerRole.RoleMember("alice", false)), null);
+
+		ret.setServiceName("dev_hive");
+		ret.setRoleVersion(1L);
+		ret.setRangerRoles(new HashSet<>(Collections.singletonList(role)));
+
+		return ret;
+	}
+}
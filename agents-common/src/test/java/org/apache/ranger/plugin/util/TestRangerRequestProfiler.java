@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerAccessResultProcessor;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.junit.Test;
+
+public class TestRangerRequestProfiler {
+
+	@Test
+	public void testSampledRequests() throws Exception {
+		RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+		options.profilerSampleInterval         = 1;
+		options.profilerSlowRequestThresholdMs = 0;
+
+		RangerPolicyEngine      policyEngine = createPolicyEngine("dev_hive_sampled", options);
+		RangerRequestProfiler   profiler     = RangerRequestProfiler.getInstance("dev_hive_sampled");
+		RangerAccessRequestImpl request      = createRequest("alice");
+
+		policyEngine.preProcess(request);
+
+		RangerRequestProfile profile = (RangerRequestProfile) request.getContext().get(RangerAccessRequestUtil.KEY_CONTEXT_REQUEST_PROFILE);
+
+		assertNotNull(profile);
+		// current profile of the thread only while the request is evaluated
+		assertNull(profiler.getProfile(request));
+
+		RangerAccessResult result = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+		assertTrue(result.getIsAllowed());
+		assertNull(profiler.getProfile(request));
+		assertNull(request.getContext().get(RangerAccessRequestUtil.KEY_CONTEXT_REQUEST_PROFILE));
+		assertEquals(1, profiler.getSampledRequestCount());
+		assertEquals(0, profiler.getSlowRequests().length);
+
+		String profileStr = profile.toString();
+
+		assertTrue(profileStr, profileStr.contains("\"sampled\":true"));
+		assertTrue(profileStr, profileStr.contains("\"isAllowed\":true,\"policyId\":1"));
+		assertTrue(profileStr, profileStr.contains("\"trieLookups\":[{\"repository\":\"dev_hive_sampled\""));
+		assertTrue(profileStr, profileStr.contains("\"evaluators\":[{\"policyId\":\"1\""));
+	}
+
+	@Test
+	public void testProfileNotLeftInThread() throws Exception {
+		RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+		options.profilerSampleInterval = 1;
+
+		RangerPolicyEngine      policyEngine = createPolicyEngine("dev_hive_not_evaluated", options);
+		RangerRequestProfiler   profiler     = RangerRequestProfiler.getInstance("dev_hive_not_evaluated");
+		RangerAccessRequestImpl request      = createRequest("alice");
+
+		// pre-processed, but not evaluated: like getResourceAccessInfo() and getMatchingPolicies()
+		policyEngine.preProcess(request);
+		policyEngine.getMatchingPolicies(request);
+
+		assertNull(profiler.getProfile(request));
+
+		policyEngine.evaluatePolicies(createRequest("bob"), RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+		assertEquals(0, profiler.getSampledRequestCount());
+
+		// evaluation that fails
+		RangerAccessRequestImpl failedRequest = createRequest("alice");
+
+		policyEngine.preProcess(failedRequest);
+
+		assertFalse(evaluateWithFailingAudit(policyEngine, failedRequest));
+		assertNull(profiler.getProfile(failedRequest));
+		assertEquals(0, profiler.getSampledRequestCount());
+	}
+
+	@Test
+	public void testConfiguredOnce() throws Exception {
+		RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+		options.profilerSampleInterval = 10;
+
+		createPolicyEngine("dev_hive_configured", options);
+
+		options.profilerSampleInterval = 20;
+
+		// a policy engine rebuilt for the same service doesn't reconfigure the profiler
+		createPolicyEngine("dev_hive_configured", options);
+
+		assertEquals(10, RangerRequestProfiler.getInstance("dev_hive_configured").getSampleInterval());
+	}
+
+	@Test
+	public void testSlowRequests() {
+		RangerRequestProfiler profiler = new RangerRequestProfiler("dev_hive_slow");
+
+		profiler.configure(0, 5, 3);
+
+		assertNull(profiler.startProfile(createRequest("alice")));
+		assertTrue(profiler.isSlowRequestTrackingEnabled());
+
+		for (int i = 0; i < 5; i++) {
+			RangerAccessRequestImpl request = createRequest("user_" + i);
+
+			profiler.finishProfile(null, request, RangerPolicy.POLICY_TYPE_ACCESS, null, (4 + i) * 1000L * 1000L);
+		}
+
+		List<RangerRequestProfile> slowRequests = profiler.getSlowRequestProfiles();
+
+		// requests taking 5, 6, 7 and 8 ms are slow; the buffer keeps the last 3 of them, most recent first
+		assertEquals(4, profiler.getSlowRequestCount());
+		assertEquals(3, slowRequests.size());
+		assertEquals(8 * 1000L * 1000L, slowRequests.get(0).getEvaluationNanos());
+		assertEquals(6 * 1000L * 1000L, slowRequests.get(2).getEvaluationNanos());
+		assertFalse(slowRequests.get(0).isSampled());
+		assertTrue(profiler.getSlowRequests()[0], profiler.getSlowRequests()[0].contains("user=user_4"));
+
+		profiler.clearSlowRequests();
+
+		assertEquals(0, profiler.getSlowRequests().length);
+	}
+
+	@Test
+	public void testDisabledByDefault() throws Exception {
+		RangerPolicyEngine      policyEngine = createPolicyEngine("dev_hive_default", new RangerPolicyEngineOptions());
+		RangerRequestProfiler   profiler     = RangerRequestProfiler.getInstance("dev_hive_default");
+		RangerAccessRequestImpl request      = createRequest("alice");
+
+		assertSame(profiler, RangerRequestProfiler.getInstance("dev_hive_default"));
+
+		policyEngine.preProcess(request);
+
+		assertNull(profiler.getProfile(request));
+
+		policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+		assertFalse(profiler.isSlowRequestTrackingEnabled());
+		assertEquals(0, profiler.getSampledRequestCount());
+		assertEquals(0, profiler.getSlowRequestCount());
+	}
+
+	private static boolean evaluateWithFailingAudit(RangerPolicyEngine policyEngine, RangerAccessRequestImpl request) {
+		try {
+			policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, new RangerAccessResultProcessor() {
+				@Override
+				public void processResult(RangerAccessResult result) {
+					throw new IllegalStateException("audit failed");
+				}
+
+				@Override
+				public void processResults(Collection<RangerAccessResult> results) {
+				}
+			});
+
+			return true;
+		} catch (IllegalStateException excp) {
+			return false;
+		}
+	}
+
+	private static RangerPolicyEngine createPolicyEngine(String serviceName, RangerPolicyEngineOptions options) throws Exception {
+		ServicePolicies                   servicePolicies = new ServicePolicies();
+		RangerPolicy                      policy          = new RangerPolicy();
+		Map<String, RangerPolicyResource> resources       = new HashMap<>();
+		RangerPolicyItem                  policyItem      = new RangerPolicyItem();
+
+		resources.put("database", new RangerPolicyResource("sales"));
+		resources.put("table", new RangerPolicyResource("*"));
+		resources.put("column", new RangerPolicyResource("*"));
+
+		policyItem.getUsers().add("alice");
+		policyItem.getAccesses().add(new RangerPolicyItemAccess("select"));
+
+		policy.setId(1L);
+		policy.setName("policy-1");
+		policy.setService(serviceName);
+		policy.setResources(resources);
+		policy.getPolicyItems().add(policyItem);
+
+		servicePolicies.setServiceName(serviceName);
+		servicePolicies.setServiceDef(EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME));
+		servicePolicies.setPolicyVersion(1L);
+		servicePolicies.setPolicies(Collections.singletonList(policy));
+
+		return new RangerPolicyEngineImpl("test-request-profiler", servicePolicies, options);
+	}
+
+	private static RangerAccessRequestImpl createRequest(String user) {
+		RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+		resource.setValue("database", "sales");
+		resource.setValue("table", "orders");
+		resource.setValue("column", "amount");
+
+		return new RangerAccessRequestImpl(resource, "select", user, Collections.<String>emptySet());
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.junit.Test;
+
+public class TestRangerRolesUtil {
+
+	@Test
+	public void testContainedRolesAreResolvedTransitively() {
+		RangerRolesUtil rolesUtil = new RangerRolesUtil();
+
+		// admins contains ops, ops contains oncall; ops also contains admins, forming a cycle
+		rolesUtil.init(new HashSet<>(Arrays.asList(
+				createRole("admins", users("alice"), groups(), roles("ops")),
+				createRole("ops", users("bob"), groups("sre"), roles("oncall", "admins")),
+				createRole("oncall", users("carol"), groups(), roles()),
+				createRole("everyone", users(), groups(RangerPolicyEngine.GROUP_PUBLIC), roles()))));
+
+		assertEquals(set("admins", "ops", "everyone"), rolesUtil.getRoles("alice", null));
+		assertEquals(set("admins", "ops", "everyone"), rolesUtil.getRoles("bob", null));
+		assertEquals(set("admins", "ops", "oncall", "everyone"), rolesUtil.getRoles("carol", null));
+		assertEquals(set("admins", "ops", "everyone"), rolesUtil.getRoles("dave", set("sre")));
+		assertEquals(set("everyone"), rolesUtil.getRoles("dave", set("dev")));
+		assertEquals(set("admins", "ops", "oncall", "everyone"), rolesUtil.getRoles("carol", set("sre", "dev")));
+	}
+
+	@Test
+	public void testRoleLookupIsCached() {
+		RangerRolesUtil rolesUtil = new RangerRolesUtil();
+
+		rolesUtil.init(new HashSet<>(Arrays.asList(
+				createRole("r1", users("u1", "u3"), groups("g1"), roles()),
+				createRole("r2", users("u2", "u3"), groups("g1"), roles()))));
+
+		Set<String> roles = rolesUtil.getRoles("u1", set("g1", "g2"));
+
+		assertEquals(set("r1", "r2"), roles);
+		assertSame(roles, rolesUtil.getRoles("u1", set("g2", "g1")));
+
+		// users and groups with the same roles share one set
+		assertSame(rolesUtil.getUserRoleMapping().get("u3"), rolesUtil.getGroupRoleMapping().get("g1"));
+
+		RangerRolesUtil uncached = new RangerRolesUtil(0);
+
+		uncached.init(new HashSet<>(Collections.singletonList(createRole("r1", users("u1"), groups(), roles()))));
+
+		assertEquals(set("r1"), uncached.getRoles("u1", null));
+		assertTrue(new RangerRolesUtil().getRoles("u1", set("g1")).isEmpty());
+	}
+
+	@Test
+	public void testRoleDeltas() {
+		RangerRoles oldRoles = createRoles(1L,
+				createRole("r1", users("u1"), groups(), roles()),
+				createRole("r2", users("u2"), groups(), roles()),
+				createRole("r3", users("u3"), groups(), roles()));
+		RangerRoles newRoles = createRoles(2L,
+				createRole("r1", users("u1"), groups(), roles()),
+				createRole("r2", users("u2", "u4"), groups(), roles()),
+				createRole("r4", users("u4"), groups(), roles("r1")));
+
+		RangerRoles delta = RangerRolesDeltaUtil.getRolesDelta(oldRoles, newRoles);
+
+		assertNotNull(delta);
+		assertTrue(delta.getIsDelta());
+		assertEquals(Long.valueOf(2), delta.getRoleVersion());
+		assertEquals(set("r2", "r4"), getRoleNames(delta.getRangerRoles()));
+		assertEquals(set("r3"), delta.getDeletedRoleNames());
+
+		RangerRoles applied = RangerRolesDeltaUtil.applyDelta(oldRoles, delta);
+
+		assertNotNull(applied);
+		assertTrue(!applied.getIsDelta());
+		assertEquals(Long.valueOf(2), applied.getRoleVersion());
+		assertEquals(set("r1", "r2", "r4"), getRoleNames(applied.getRangerRoles()));
+		assertEquals(set("r1", "r2", "r3"), getRoleNames(oldRoles.getRangerRoles()));
+
+		RangerRolesUtil rolesUtil = new RangerRolesUtil();
+
+		rolesUtil.init(applied.getRangerRoles());
+
+		assertEquals(set("r1", "r4"), rolesUtil.getRoles("u1", null));
+		assertEquals(set("r2", "r4"), rolesUtil.getRoles("u4", null));
+		assertTrue(rolesUtil.getRoles("u3", null).isEmpty());
+
+		assertNull(RangerRolesDeltaUtil.applyDelta(null, delta));
+		assertNull(RangerRolesDeltaUtil.applyDelta(oldRoles, newRoles));
+	}
+
+	private static RangerRoles createRoles(Long version, RangerRole... roles) {
+		RangerRoles ret = new RangerRoles();
+
+		ret.setServiceName("dev_hive");
+		ret.setRoleVersion(version);
+		ret.setRangerRoles(new HashSet<>(Arrays.asList(roles)));
+
+		return ret;
+	}
+
+	private static RangerRole createRole(String name, List<RangerRole.RoleMember> users, List<RangerRole.RoleMember> groups, List<RangerRole.RoleMember> roles) {
+		return new RangerRole(name, null, null, users, groups, roles);
+	}
+
+	private static List<RangerRole.RoleMember> users(String... names) {
+		return members(names);
+	}
+
+	private static List<RangerRole.RoleMember> groups(String... names) {
+		return members(names);
+	}
+
+	private static List<RangerRole.RoleMember> roles(String... names) {
+		return members(names);
+	}
+
+	private static List<RangerRole.RoleMember> members(String... names) {
+		List<RangerRole.RoleMember> ret = new ArrayList<>();
+
+		for (String name : names) {
+			ret.add(new RangerRole.RoleMember(name, false));
+		}
+
+		return ret;
+	}
+
+	private static Set<String> getRoleNames(Set<RangerRole> roles) {
+		Set<String> ret = new HashSet<>();
+
+		for (RangerRole role : roles) {
+			ret.add(role.getName());
+		}
+
+		return ret;
+	}
+
+	private static Set<String> set(String... values) {
+		return new HashSet<>(Arrays.asList(values));
+	}
+}
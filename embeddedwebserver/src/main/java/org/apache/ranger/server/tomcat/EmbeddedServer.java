@@ -412,6 +412,9 @@ public class EmbeddedServer {
 		server.getConnector().setMaxSavePostSize(getIntConfig("ranger.service.http.connector.attrib.maxSavePostSize", 4096));
 		server.getConnector().setParseBodyMethods(getConfig("ranger.service.http.connector.attrib.methods", "POST"));
 		server.getConnector().setURIEncoding(getConfig("ranger.service.http.connector.attrib.URIEncoding", "UTF-8"));
+		server.getConnector().setProperty("compression", getConfig("ranger.service.http.connector.attrib.compression", "off"));
+		server.getConnector().setProperty("compressionMinSize", getConfig("ranger.service.http.connector.attrib.compressionMinSize", "2048"));
+		server.getConnector().setProperty("compressableMimeType", getConfig("ranger.service.http.connector.attrib.compressableMimeType", "application/json"));
 		server.getConnector().setXpoweredBy(false);
 		server.getConnector().setAttribute("server", "Apache Ranger");
 		Iterator<Object> iterator = serverConfigProperties.keySet().iterator();
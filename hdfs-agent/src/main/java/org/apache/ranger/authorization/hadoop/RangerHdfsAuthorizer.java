@@ -26,14 +26,18 @@ import static org.apache.ranger.authorization.hadoop.constants.RangerHadoopConst
 
 import java.net.InetAddress;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -54,14 +58,19 @@ import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.authorization.hadoop.constants.RangerHadoopConstants;
 import org.apache.ranger.authorization.hadoop.exceptions.RangerAccessControlException;
 import org.apache.ranger.plugin.audit.RangerDefaultAuditHandler;
+import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
 import org.apache.ranger.plugin.resourcematcher.RangerPathResourceMatcher;
+import org.apache.ranger.plugin.service.RangerAuthContext;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.ServicePolicies;
 
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
@@ -405,14 +414,15 @@ public class RangerHdfsAuthorizer extends INodeAttributeProvider {
 
 								boolean optimizeSubAccessAuthEnabled = RangerHdfsPlugin.isOptimizeSubAccessAuthEnabled();
 
-								if (optimizeSubAccessAuthEnabled) {
+								// when no policy can decide access to descendants differently, one check covers the whole sub-tree
+								if (optimizeSubAccessAuthEnabled || plugin.isSubTreeUniform(data.resourcePath)) {
 									subDirAuthStatus = isAccessAllowedForHierarchy(data.dir, dirAttribs, data.resourcePath, subAccess, user, groups, plugin);
 								}
 
 								if (subDirAuthStatus != AuthzStatus.ALLOW) {
 									for(INode child : cList) {
 										if (child.isDirectory()) {
-											directories.push(new SubAccessData(child.asDirectory(), resourcePath + org.apache.hadoop.fs.Path.SEPARATOR_CHAR + child.getLocalName()));
+											directories.push(new SubAccessData(child.asDirectory(), data.resourcePath + org.apache.hadoop.fs.Path.SEPARATOR_CHAR + child.getLocalName()));
 										}
 									}
 								}
@@ -761,12 +771,18 @@ class RangerHdfsPlugin extends RangerBasePlugin {
 	private static String fileNameExtensionSeparator;
 	private static boolean optimizeSubAccessAuthEnabled = RangerHadoopConstants.RANGER_OPTIMIZE_SUBACCESS_AUTHORIZATION_DEFAULT;
 	private static String randomizedWildcardPathName;
+	private static boolean subTreeIndexEnabled = RangerHadoopConstants.RANGER_SUBACCESS_SUBTREE_INDEX_DEFAULT;
+
+	private volatile RangerHdfsSubTreeIndex subTreeIndex        = null;
+	private RangerPolicyEngine              indexedPolicyEngine = null;
 
 	public RangerHdfsPlugin() {
 		super("hdfs", "hdfs");
 	}
 
 	public void init() {
+		RangerHdfsPlugin.subTreeIndexEnabled = RangerConfiguration.getInstance().getBoolean(RangerHadoopConstants.RANGER_SUBACCESS_SUBTREE_INDEX_PROP, RangerHadoopConstants.RANGER_SUBACCESS_SUBTREE_INDEX_DEFAULT);
+
 		super.init();
 
 		RangerHdfsPlugin.hadoopAuthEnabled = RangerConfiguration.getInstance().getBoolean(RangerHadoopConstants.RANGER_ADD_HDFS_PERMISSION_PROP, RangerHadoopConstants.RANGER_ADD_HDFS_PERMISSION_DEFAULT);
@@ -808,6 +824,65 @@ class RangerHdfsPlugin extends RangerBasePlugin {
 	public static String getRandomizedWildcardPathName() {
 		return RangerHdfsPlugin.randomizedWildcardPathName;
 	}
+
+	@Override
+	public void setPolicies(ServicePolicies policies) {
+		super.setPolicies(policies);
+
+		if (subTreeIndexEnabled) {
+			RangerAuthContext  authContext  = getCurrentRangerAuthContext();
+			RangerPolicyEngine policyEngine = authContext != null ? authContext.getPolicyEngine() : null;
+
+			if (policyEngine != indexedPolicyEngine) {
+				subTreeIndex        = createSubTreeIndex(policyEngine, policies);
+				indexedPolicyEngine = policyEngine;
+			}
+		}
+	}
+
+	public boolean isSubTreeUniform(String path) {
+		RangerHdfsSubTreeIndex subTreeIndex = this.subTreeIndex;
+
+		return subTreeIndex != null && subTreeIndex.isSubTreeUniform(path);
+	}
+
+	private static RangerHdfsSubTreeIndex createSubTreeIndex(RangerPolicyEngine policyEngine, ServicePolicies policies) {
+		RangerHdfsSubTreeIndex ret = null;
+
+		if (policyEngine instanceof RangerPolicyEngineImpl) {
+			RangerPolicyEngineImpl policyEngineImpl = (RangerPolicyEngineImpl) policyEngine;
+			List<RangerPolicy>     resourcePolicies = new ArrayList<>(policyEngineImpl.getResourcePolicies());
+			List<String>           zonePaths        = new ArrayList<>();
+			boolean                isValid          = true;
+
+			if (policies != null && MapUtils.isNotEmpty(policies.getSecurityZones())) {
+				for (Map.Entry<String, ServicePolicies.SecurityZoneInfo> entry : policies.getSecurityZones().entrySet()) {
+					List<HashMap<String, List<String>>> zoneResources = entry.getValue() != null ? entry.getValue().getResources() : null;
+
+					if (CollectionUtils.isEmpty(zoneResources)) { // zone resources not known, can't tell which paths are in the zone
+						isValid = false;
+						break;
+					}
+
+					for (Map<String, List<String>> zoneResource : zoneResources) {
+						List<String> paths = zoneResource.get(RangerHdfsAuthorizer.KEY_RESOURCE_PATH);
+
+						if (paths != null) {
+							zonePaths.addAll(paths);
+						}
+					}
+
+					resourcePolicies.addAll(policyEngineImpl.getResourcePolicies(entry.getKey()));
+				}
+			}
+
+			if (isValid) {
+				ret = new RangerHdfsSubTreeIndex(resourcePolicies, zonePaths, CollectionUtils.isNotEmpty(policyEngineImpl.getTagPolicies()));
+			}
+		}
+
+		return ret;
+	}
 }
 
 class RangerHdfsResource extends RangerAccessResourceImpl {
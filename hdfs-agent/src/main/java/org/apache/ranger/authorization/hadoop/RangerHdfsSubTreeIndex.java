@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.hadoop;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+
+/*
+ * Records, for directories, whether access to every descendant is decided by the same policies. For such a directory
+ * the access to the whole sub-tree is the access to a synthetic child of the directory, so recursive checks (like
+ * for delete or rename of a directory) don't need to evaluate each descendant. Lookups take O(depth) of the path.
+ *
+ * Access to descendants of a directory can differ when:
+ *  - a policy path or a security-zone path is within the directory, like /data/sales for /data
+ *  - a policy path matching the directory has wildcards that can match some descendants and not others, like /data/*.log,
+ *    or is not recursive and has wildcards
+ *  - a policy matching the directory has items for {OWNER}, as the owner of each descendant can be different
+ *  - there are tag policies, as each descendant can have different tags
+ */
+public class RangerHdfsSubTreeIndex {
+	private static final Log LOG = LogFactory.getLog(RangerHdfsSubTreeIndex.class);
+
+	private static final char   PATH_SEPARATOR = org.apache.hadoop.fs.Path.SEPARATOR_CHAR;
+	private static final String WILDCARD_CHARS = "*?{";
+
+	private final boolean                   isEnabled;
+	private final Set<String>               dirsWithPathsWithin     = new HashSet<>();
+	private final Map<String, List<String>> nonUniformPathsByParent = new HashMap<>();
+
+	public RangerHdfsSubTreeIndex(Collection<RangerPolicy> policies, Collection<String> zonePaths, boolean hasTagPolicies) {
+		this.isEnabled = !hasTagPolicies;
+
+		if (isEnabled) {
+			if (policies != null) {
+				for (RangerPolicy policy : policies) {
+					addPolicy(policy);
+				}
+			}
+
+			if (zonePaths != null) {
+				for (String zonePath : zonePaths) {
+					addPath(zonePath, true, false);
+				}
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("RangerHdfsSubTreeIndex(): isEnabled=" + isEnabled + ", dirsWithPathsWithin=" + dirsWithPathsWithin.size() + ", nonUniformPaths=" + nonUniformPathsByParent.size());
+		}
+	}
+
+	/*
+	 * Returns true if access to all descendants of the given directory is decided by the same policies.
+	 */
+	public boolean isSubTreeUniform(String dirPath) {
+		boolean ret = false;
+
+		if (isEnabled && dirPath != null) {
+			String dir = toDirectory(dirPath.toLowerCase());
+
+			ret = !dirsWithPathsWithin.contains(dir) && !hasNonUniformPath(dir);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("RangerHdfsSubTreeIndex.isSubTreeUniform(" + dirPath + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	private void addPolicy(RangerPolicy policy) {
+		if (policy == null || !policy.getIsEnabled() || (policy.getPolicyType() != null && policy.getPolicyType() != RangerPolicy.POLICY_TYPE_ACCESS)) {
+			return;
+		}
+
+		RangerPolicyResource pathResource = policy.getResources() == null ? null : policy.getResources().get(RangerHdfsAuthorizer.KEY_RESOURCE_PATH);
+
+		if (pathResource == null || CollectionUtils.isEmpty(pathResource.getValues())) { // matches all paths alike
+			return;
+		}
+
+		boolean isRecursive = Boolean.TRUE.equals(pathResource.getIsRecursive());
+		boolean hasOwner    = hasOwner(policy.getPolicyItems()) || hasOwner(policy.getDenyPolicyItems())
+				|| hasOwner(policy.getAllowExceptions()) || hasOwner(policy.getDenyExceptions());
+
+		// excludes: the policy matches the paths the value doesn't match, so it matches descendants alike exactly when the value does
+		for (String path : pathResource.getValues()) {
+			addPath(path, isRecursive, hasOwner);
+		}
+	}
+
+	private void addPath(String path, boolean isRecursive, boolean hasOwner) {
+		if (path == null) {
+			return;
+		}
+
+		path = path.toLowerCase(); // paths are indexed case-insensitively, which only errs on the side of non-uniform
+
+		int     wildcardIdx   = StringUtils.indexOfAny(path, WILDCARD_CHARS);
+		boolean hasWildcard   = wildcardIdx != -1;
+		String  literalPrefix = hasWildcard ? path.substring(0, wildcardIdx) : path;
+
+		// the policy can match paths within any directory that is a prefix of its literal prefix, like /data/ for /data/sales
+		for (int idx = literalPrefix.indexOf(PATH_SEPARATOR); idx != -1 && idx < literalPrefix.length() - 1; idx = literalPrefix.indexOf(PATH_SEPARATOR, idx + 1)) {
+			dirsWithPathsWithin.add(literalPrefix.substring(0, idx + 1));
+		}
+
+		// a directory within the literal prefix has all descendants matched alike, unless the rest of the value can tell them apart
+		final boolean isNonUniform;
+
+		if (hasWildcard) {
+			String remaining = path.substring(wildcardIdx);
+
+			isNonUniform = hasOwner || !isRecursive || !remaining.equals("*");
+		} else {
+			isNonUniform = hasOwner && isRecursive;
+
+			literalPrefix = toDirectory(literalPrefix);
+		}
+
+		if (isNonUniform) {
+			String       parent = literalPrefix.substring(0, literalPrefix.lastIndexOf(PATH_SEPARATOR) + 1);
+			List<String> paths  = nonUniformPathsByParent.get(parent);
+
+			if (paths == null) {
+				paths = new ArrayList<>();
+
+				nonUniformPathsByParent.put(parent, paths);
+			}
+
+			paths.add(literalPrefix);
+		}
+	}
+
+	private boolean hasNonUniformPath(String dir) {
+		for (int idx = -1; ; idx = dir.indexOf(PATH_SEPARATOR, idx + 1)) {
+			List<String> paths = nonUniformPathsByParent.get(dir.substring(0, idx + 1));
+
+			if (paths != null) {
+				for (String path : paths) {
+					if (dir.startsWith(path)) {
+						return true;
+					}
+				}
+			}
+
+			if (idx == dir.length() - 1) {
+				break;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean hasOwner(List<? extends RangerPolicyItem> policyItems) {
+		if (policyItems != null) {
+			for (RangerPolicyItem policyItem : policyItems) {
+				if (policyItem.getUsers() != null && policyItem.getUsers().contains(RangerPolicyEngine.RESOURCE_OWNER)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private static String toDirectory(String path) {
+		return path.isEmpty() || path.charAt(path.length() - 1) != PATH_SEPARATOR ? path + PATH_SEPARATOR : path;
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ranger.services.hdfs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ranger.authorization.hadoop.RangerHdfsSubTreeIndex;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RangerHdfsSubTreeIndex}, using synthetic deep directory trees.
+ */
+public class RangerHdfsSubTreeIndexTest {
+
+    private static final int    TREE_DEPTH     = 6;
+    private static final int    TREE_BRANCHING = 4;
+    private static final String WILDCARD_NAME  = "*x9q7z*";
+
+    @Test
+    public void testIsSubTreeUniform() {
+        List<RangerPolicy> policies = Arrays.asList(
+                createPolicy(1, "/data", true, allow(users(), groups("analysts")), null),
+                createPolicy(2, "/data/sales/2019", true, allow(users("alice"), groups()), null),
+                createPolicy(3, "/logs/*.gz", true, allow(users("bob"), groups()), null),
+                createPolicy(4, "/tmp/*", true, allow(users(), groups(RangerPolicyEngine.GROUP_PUBLIC)), null),
+                createPolicy(5, "/home", true, allow(users(RangerPolicyEngine.RESOURCE_OWNER), groups()), null),
+                createPolicy(6, "/apps/*", false, allow(users("carol"), groups()), null),
+                createPolicy(7, "/user/{USER}", true, allow(users(RangerPolicyEngine.USER_CURRENT), groups()), null));
+
+        RangerHdfsSubTreeIndex index = new RangerHdfsSubTreeIndex(policies, Collections.singletonList("/zone1/finance"), false);
+
+        // policies within
+        Assert.assertFalse(index.isSubTreeUniform("/"));
+        Assert.assertFalse(index.isSubTreeUniform("/data"));
+        Assert.assertFalse(index.isSubTreeUniform("/data/sales"));
+        Assert.assertFalse(index.isSubTreeUniform("/zone1"));
+        Assert.assertFalse(index.isSubTreeUniform("/user"));
+
+        // all descendants matched alike
+        Assert.assertTrue(index.isSubTreeUniform("/data/sales/2019"));
+        Assert.assertTrue(index.isSubTreeUniform("/data/sales/2019/q1"));
+        Assert.assertTrue(index.isSubTreeUniform("/data/sales/2018"));
+        Assert.assertTrue(index.isSubTreeUniform("/data/marketing/"));
+        Assert.assertTrue(index.isSubTreeUniform("/tmp"));
+        Assert.assertTrue(index.isSubTreeUniform("/tmp/scratch/a/b"));
+        Assert.assertTrue(index.isSubTreeUniform("/zone1/finance/reports"));
+        Assert.assertTrue(index.isSubTreeUniform("/other"));
+
+        // wildcards, {OWNER} and non-recursive policies can tell descendants apart
+        Assert.assertFalse(index.isSubTreeUniform("/logs"));
+        Assert.assertFalse(index.isSubTreeUniform("/logs/2019"));
+        Assert.assertFalse(index.isSubTreeUniform("/home"));
+        Assert.assertFalse(index.isSubTreeUniform("/home/alice"));
+        Assert.assertFalse(index.isSubTreeUniform("/apps/hive"));
+        Assert.assertFalse(index.isSubTreeUniform("/user/alice"));
+        Assert.assertTrue(index.isSubTreeUniform("/homes"));
+        Assert.assertTrue(index.isSubTreeUniform("/logsarchive"));
+
+        // tag policies can apply to any descendant
+        Assert.assertFalse(new RangerHdfsSubTreeIndex(policies, null, true).isSubTreeUniform("/other"));
+    }
+
+    @Test
+    public void testRecursiveCheckOnDeepTree() {
+        List<RangerPolicy> policies = new ArrayList<>();
+
+        policies.add(createPolicy(1, "/data", true, allow(users(), groups("analysts")), null));
+        policies.add(createPolicy(2, "/data/n1/n1_2", true, null, deny(users("alice"), groups())));
+        policies.add(createPolicy(3, "/data/n2/*.csv", true, allow(users("bob"), groups()), null));
+        policies.add(createPolicy(4, "/data/n3/n3_0/*", true, allow(users("bob"), groups()), null));
+        policies.add(createPolicy(5, "/data/n0/n0_1/n0_1_2/n0_1_2_3", true, allow(users("carol"), groups()), null));
+        policies.add(createPolicy(6, "/data/n0/n0_3", false, allow(users("carol"), groups()), null));
+
+        RangerPolicyEngine     policyEngine = createPolicyEngine(policies);
+        RangerHdfsSubTreeIndex index        = new RangerHdfsSubTreeIndex(policies, null, false);
+        List<String>           dirs         = new ArrayList<>();
+
+        createTree("/data", 0, dirs);
+
+        Map<String, String[]> userGroups = new HashMap<>();
+
+        userGroups.put("alice", new String[] { "analysts" });
+        userGroups.put("bob", new String[0]);
+        userGroups.put("carol", new String[0]);
+        userGroups.put("dave", new String[] { "analysts" });
+
+        for (Map.Entry<String, String[]> entry : userGroups.entrySet()) {
+            String      user   = entry.getKey();
+            Set<String> groups = groups(entry.getValue());
+
+            // every descendant of a uniform directory gets the access of a synthetic child of the directory
+            for (String dir : dirs) {
+                if (index.isSubTreeUniform(dir)) {
+                    boolean expected = isAccessAllowed(policyEngine, dir + "/" + WILDCARD_NAME, user, groups);
+
+                    for (String descendant : dirs) {
+                        if (descendant.startsWith(dir + "/")) {
+                            Assert.assertEquals("user=" + user + ", dir=" + dir + ", descendant=" + descendant, expected, isAccessAllowed(policyEngine, descendant, user, groups));
+                        }
+                    }
+                }
+            }
+
+            int[] withoutIndex = new int[1];
+            int[] withIndex    = new int[1];
+
+            boolean expected = checkSubAccess(policyEngine, null, "/data", user, groups, withoutIndex);
+            boolean actual   = checkSubAccess(policyEngine, index, "/data", user, groups, withIndex);
+
+            Assert.assertEquals("user=" + user, expected, actual);
+            Assert.assertTrue("user=" + user, withIndex[0] <= withoutIndex[0]);
+
+            if (expected) { // the whole tree was walked without the index; with it, only the sub-tree of /data/n2 (for *.csv) is walked in full
+                Assert.assertTrue("user=" + user + ", evaluations: withIndex=" + withIndex[0] + ", withoutIndex=" + withoutIndex[0], withIndex[0] * 3 < withoutIndex[0]);
+            }
+        }
+    }
+
+    // same as the sub-access loop in RangerAccessControlEnforcer.checkPermission()
+    private static boolean checkSubAccess(RangerPolicyEngine policyEngine, RangerHdfsSubTreeIndex index, String dir, String user, Set<String> groups, int[] evalCount) {
+        evalCount[0]++;
+
+        if (!isAccessAllowed(policyEngine, dir, user, groups)) {
+            return false;
+        }
+
+        if (index != null && index.isSubTreeUniform(dir)) {
+            evalCount[0]++;
+
+            if (isAccessAllowed(policyEngine, dir + "/" + WILDCARD_NAME, user, groups)) {
+                return true;
+            }
+        }
+
+        if (dir.split("/").length - 2 < TREE_DEPTH) {
+            for (int i = 0; i < TREE_BRANCHING; i++) {
+                if (!checkSubAccess(policyEngine, index, childPath(dir, i), user, groups, evalCount)) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private static void createTree(String dir, int depth, List<String> dirs) {
+        dirs.add(dir);
+
+        if (depth < TREE_DEPTH) {
+            for (int i = 0; i < TREE_BRANCHING; i++) {
+                createTree(childPath(dir, i), depth + 1, dirs);
+            }
+        }
+    }
+
+    private static String childPath(String dir, int i) {
+        String name = dir.substring(dir.lastIndexOf('/') + 1);
+
+        return dir + "/" + (name.startsWith("n") ? name + "_" + i : "n" + i);
+    }
+
+    private static boolean isAccessAllowed(RangerPolicyEngine policyEngine, String path, String user, Set<String> groups) {
+        RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+        resource.setValue("path", path);
+
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(resource, "write", user, groups);
+
+        policyEngine.preProcess(request);
+
+        RangerAccessResult result = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+        return result != null && result.getIsAllowed();
+    }
+
+    private static RangerPolicyEngine createPolicyEngine(List<RangerPolicy> policies) {
+        ServicePolicies           servicePolicies = new ServicePolicies();
+        RangerPolicyEngineOptions options         = new RangerPolicyEngineOptions();
+
+        try {
+            servicePolicies.setServiceDef(EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HDFS_NAME));
+        } catch (Exception excp) {
+            throw new RuntimeException(excp);
+        }
+
+        servicePolicies.setServiceName("cl1_hadoop");
+        servicePolicies.setPolicyVersion(1L);
+        servicePolicies.setPolicies(policies);
+
+        options.disableTrieLookupPrefilter = false;
+
+        return new RangerPolicyEngineImpl("test-subtree-index", servicePolicies, options);
+    }
+
+    private static RangerPolicy createPolicy(long id, String path, boolean isRecursive, RangerPolicyItem allowItem, RangerPolicyItem denyItem) {
+        RangerPolicy                      ret       = new RangerPolicy();
+        Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+        resources.put("path", new RangerPolicyResource(path, false, isRecursive));
+
+        ret.setId(id);
+        ret.setName("policy-" + id);
+        ret.setService("cl1_hadoop");
+        ret.setResources(resources);
+
+        if (allowItem != null) {
+            ret.getPolicyItems().add(allowItem);
+        }
+
+        if (denyItem != null) {
+            ret.getDenyPolicyItems().add(denyItem);
+        }
+
+        return ret;
+    }
+
+    private static RangerPolicyItem allow(List<String> users, Set<String> groups) {
+        return createPolicyItem(users, groups);
+    }
+
+    private static RangerPolicyItem deny(List<String> users, Set<String> groups) {
+        return createPolicyItem(users, groups);
+    }
+
+    private static RangerPolicyItem createPolicyItem(List<String> users, Set<String> groups) {
+        List<RangerPolicyItemAccess> accesses = Arrays.asList(new RangerPolicyItemAccess("read"), new RangerPolicyItemAccess("write"), new RangerPolicyItemAccess("execute"));
+
+        return new RangerPolicyItem(accesses, users, new ArrayList<>(groups), null, null, false);
+    }
+
+    private static List<String> users(String... names) {
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    private static Set<String> groups(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+}
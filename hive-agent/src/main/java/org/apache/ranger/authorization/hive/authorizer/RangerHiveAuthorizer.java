@@ -71,6 +71,7 @@ import org.apache.ranger.plugin.model.RangerServiceDef.RangerDataMaskTypeDef;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerChildResourceFilter;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
 import org.apache.ranger.plugin.policyengine.RangerResourceACLs;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
@@ -873,6 +874,10 @@ public class RangerHiveAuthorizer extends RangerHiveAuthorizerBase {
 			if (ret == null) { // if we got any items to filter then we can't return back a null.  We must return back a list even if its empty.
 				ret = new ArrayList<HivePrivilegeObject>(objs.size());
 			}
+
+			// databases, or tables of a database, are filtered using one lookup of policies for all of them
+			Map<String, RangerChildResourceFilter> listFilters = new HashMap<>();
+
 			for (HivePrivilegeObject privilegeObject : objs) {
 				if (LOG.isDebugEnabled()) {
 					HivePrivObjectActionType actionType = privilegeObject.getActionType();
@@ -888,9 +893,16 @@ public class RangerHiveAuthorizer extends RangerHiveAuthorizerBase {
 					LOG.debug(String.format(format, actionType, objectType, objectName, dbName, columns, partitionKeys, commandString, ipAddress));
 				}
 				
-				RangerHiveResource resource = createHiveResource(privilegeObject);
+				RangerHiveResource        resource   = createHiveResource(privilegeObject);
+				RangerChildResourceFilter listFilter = resource == null ? null : getListFilter(resource, listFilters, user, groups);
 				if (resource == null) {
 					LOG.error("filterListCmdObjects: RangerHiveResource returned by createHiveResource is null");
+				} else if (listFilter != null) {
+					if (listFilter.isAccessible((String) resource.getValue(listFilter.getChildResourceName()))) {
+						ret.add(privilegeObject);
+					} else if (LOG.isDebugEnabled()) {
+						LOG.debug(String.format("filterListCmdObjects: Permission denied: user [%s] does not have any privilege on [%s]", user, resource.getAsString()));
+					}
 				} else {
 					RangerHiveAccessRequest request = new RangerHiveAccessRequest(resource, user, groups, context, sessionContext);
 					RangerAccessResult result = hivePlugin.isAccessAllowed(request);
@@ -953,31 +965,37 @@ public class RangerHiveAuthorizer extends RangerHiveAuthorizerBase {
 					String database = hiveObj.getDbname();
 					String table    = hiveObj.getObjectName();
 
-					String rowFilterExpr = getRowFilterExpression(queryContext, database, table);
+					RangerHiveTableMaskingCache.TableMasking tableMasking = getTableMasking(database, table);
 
-					if (StringUtils.isNotBlank(rowFilterExpr)) {
-						if(LOG.isDebugEnabled()) {
-							LOG.debug("rowFilter(database=" + database + ", table=" + table + "): " + rowFilterExpr);
+					if (tableMasking != null) { // row-filter and masks resolved for the table in one pass
+						needToTransform = applyTableMasking(queryContext, hiveObj, tableMasking);
+					} else {
+						String rowFilterExpr = getRowFilterExpression(queryContext, database, table);
+
+						if (StringUtils.isNotBlank(rowFilterExpr)) {
+							if(LOG.isDebugEnabled()) {
+								LOG.debug("rowFilter(database=" + database + ", table=" + table + "): " + rowFilterExpr);
+							}
+
+							hiveObj.setRowFilterExpression(rowFilterExpr);
+							needToTransform = true;
 						}
 
-						hiveObj.setRowFilterExpression(rowFilterExpr);
-						needToTransform = true;
-					}
+						if (CollectionUtils.isNotEmpty(hiveObj.getColumns())) {
+							List<String> columnTransformers = new ArrayList<String>();
 
-					if (CollectionUtils.isNotEmpty(hiveObj.getColumns())) {
-						List<String> columnTransformers = new ArrayList<String>();
+							for (String column : hiveObj.getColumns()) {
+								boolean isColumnTransformed = addCellValueTransformerAndCheckIfTransformed(queryContext, database, table, column, columnTransformers);
 
-						for (String column : hiveObj.getColumns()) {
-							boolean isColumnTransformed = addCellValueTransformerAndCheckIfTransformed(queryContext, database, table, column, columnTransformers);
+								if(LOG.isDebugEnabled()) {
+									LOG.debug("addCellValueTransformerAndCheckIfTransformed(database=" + database + ", table=" + table + ", column=" + column + "): " + isColumnTransformed);
+								}
 
-							if(LOG.isDebugEnabled()) {
-								LOG.debug("addCellValueTransformerAndCheckIfTransformed(database=" + database + ", table=" + table + ", column=" + column + "): " + isColumnTransformed);
+								needToTransform = needToTransform || isColumnTransformed;
 							}
 
-							needToTransform = needToTransform || isColumnTransformed;
+							hiveObj.setCellValueTransformers(columnTransformers);
 						}
-
-						hiveObj.setCellValueTransformers(columnTransformers);
 					}
 				}
 
@@ -1105,44 +1123,182 @@ public class RangerHiveAuthorizer extends RangerHiveAuthorizerBase {
 			ret = isDataMaskEnabled(result);
 
 			if(ret) {
-				String                maskType    = result.getMaskType();
-				RangerDataMaskTypeDef maskTypeDef = result.getMaskTypeDef();
-				String transformer	= null;
-				if (maskTypeDef != null) {
-					transformer = maskTypeDef.getTransformer();
-				}
+				columnTransformer = getCellValueTransformer(result, columnName);
+			}
+		} finally {
+			auditHandler.flushAudit();
+		}
 
-				if(StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_NULL)) {
-					columnTransformer = "NULL";
-				} else if(StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_CUSTOM)) {
-					String maskedValue = result.getMaskedValue();
+		columnTransformers.add(columnTransformer);
 
-					if(maskedValue == null) {
-						columnTransformer = "NULL";
-					} else {
-						columnTransformer = maskedValue.replace("{col}", columnName);
-					}
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== addCellValueTransformerAndCheckIfTransformed(" + databaseName + ", " + tableOrViewName + ", " + columnName + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	private String getCellValueTransformer(RangerAccessResult result, String columnName) {
+		String ret = columnName;
+
+		if(isDataMaskEnabled(result)) {
+			String                maskType    = result.getMaskType();
+			RangerDataMaskTypeDef maskTypeDef = result.getMaskTypeDef();
+			String transformer	= null;
+			if (maskTypeDef != null) {
+				transformer = maskTypeDef.getTransformer();
+			}
 
-				} else if(StringUtils.isNotEmpty(transformer)) {
-					columnTransformer = transformer.replace("{col}", columnName);
+			if(StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_NULL)) {
+				ret = "NULL";
+			} else if(StringUtils.equalsIgnoreCase(maskType, RangerPolicy.MASK_TYPE_CUSTOM)) {
+				String maskedValue = result.getMaskedValue();
+
+				if(maskedValue == null) {
+					ret = "NULL";
+				} else {
+					ret = maskedValue.replace("{col}", columnName);
 				}
 
-				/*
-				String maskCondition = result.getMaskCondition();
+			} else if(StringUtils.isNotEmpty(transformer)) {
+				ret = transformer.replace("{col}", columnName);
+			}
+
+			/*
+			String maskCondition = result.getMaskCondition();
+
+			if(StringUtils.isNotEmpty(maskCondition)) {
+				ret = "if(" + maskCondition + ", " + ret + ", " + columnName + ")";
+			}
+			*/
+		}
+
+		return ret;
+	}
+
+	private RangerHiveTableMaskingCache.TableMasking getTableMasking(String databaseName, String tableOrViewName) throws SemanticException {
+		UserGroupInformation ugi = getCurrentUserGroupInfo();
+
+		if(ugi == null) {
+			throw new SemanticException("user information not available");
+		}
+
+		RangerHivePlugin plugin = hivePlugin;
+
+		return plugin == null ? null : plugin.getTableMasking(ugi.getShortUserName(), Sets.newHashSet(ugi.getGroupNames()), databaseName, tableOrViewName);
+	}
+
+	/*
+	 * Sets the row-filter and column transformers of the table, from its masking resolved for the user; audits the
+	 * results that filter or mask, as evaluating the policies would. Returns true if the table needs to be transformed.
+	 */
+	private boolean applyTableMasking(HiveAuthzContext context, HivePrivilegeObject hiveObj, RangerHiveTableMaskingCache.TableMasking tableMasking) throws SemanticException {
+		UserGroupInformation ugi = getCurrentUserGroupInfo();
+
+		if(ugi == null) {
+			throw new SemanticException("user information not available");
+		}
 
-				if(StringUtils.isNotEmpty(maskCondition)) {
-					ret = "if(" + maskCondition + ", " + ret + ", " + columnName + ")";
+		String database = hiveObj.getDbname();
+		String table    = hiveObj.getObjectName();
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("==> applyTableMasking(" + database + ", " + table + ", " + tableMasking + ")");
+		}
+
+		boolean ret = false;
+
+		RangerHiveAuditHandler auditHandler = new RangerHiveAuditHandler();
+
+		try {
+			HiveAuthzSessionContext sessionContext  = getHiveAuthzSessionContext();
+			String                  user            = ugi.getShortUserName();
+			Set<String>             groups          = Sets.newHashSet(ugi.getGroupNames());
+			RangerAccessResult      rowFilterResult = tableMasking.getRowFilterResult();
+
+			RangerHiveResource      tableResource   = new RangerHiveResource(HiveObjectType.TABLE, database, table);
+
+			auditTableMaskingResult(rowFilterResult, new RangerHiveAccessRequest(tableResource, user, groups, HiveObjectType.TABLE.name(), HiveAccessType.SELECT, context, sessionContext), auditHandler);
+
+			if(isRowFilterEnabled(rowFilterResult)) {
+				hiveObj.setRowFilterExpression(rowFilterResult.getFilterExpr());
+				ret = true;
+			}
+
+			if (CollectionUtils.isNotEmpty(hiveObj.getColumns())) {
+				List<String> columnTransformers = new ArrayList<String>();
+
+				for (String column : hiveObj.getColumns()) {
+					RangerAccessResult result = tableMasking.getColumnResult(column);
+
+					if(isDataMaskEnabled(result)) {
+						RangerHiveResource resource = new RangerHiveResource(HiveObjectType.COLUMN, database, table, column);
+
+						auditTableMaskingResult(result, new RangerHiveAccessRequest(resource, user, groups, HiveObjectType.COLUMN.name(), HiveAccessType.SELECT, context, sessionContext), auditHandler);
+
+						ret = true;
+					}
+
+					columnTransformers.add(getCellValueTransformer(result, column));
 				}
-				*/
+
+				hiveObj.setCellValueTransformers(columnTransformers);
 			}
 		} finally {
 			auditHandler.flushAudit();
 		}
 
-		columnTransformers.add(columnTransformer);
-
 		if(LOG.isDebugEnabled()) {
-			LOG.debug("<== addCellValueTransformerAndCheckIfTransformed(" + databaseName + ", " + tableOrViewName + ", " + columnName + "): " + ret);
+			LOG.debug("<== applyTableMasking(" + database + ", " + table + ", " + tableMasking + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	private void auditTableMaskingResult(RangerAccessResult result, RangerHiveAccessRequest request, RangerHiveAuditHandler auditHandler) {
+		if(result.getIsAudited()) {
+			RangerAuthContext authContext = hivePlugin.getCurrentRangerAuthContext();
+
+			if(authContext != null) {
+				authContext.preProcess(request); // for the client and cluster details in the audit
+			}
+
+			auditHandler.processResult(RangerHiveTableMaskingCache.copyResult(result, request));
+		}
+	}
+
+	private RangerChildResourceFilter getListFilter(RangerHiveResource resource, Map<String, RangerChildResourceFilter> listFilters, String user, Set<String> groups) {
+		final String             filterKey;
+		final RangerHiveResource parent;
+		final String             childResourceName;
+
+		switch(resource.getObjectType()) {
+		case DATABASE:
+			filterKey         = RangerHiveResource.KEY_DATABASE;
+			parent            = new RangerHiveResource(HiveObjectType.NONE, null);
+			childResourceName = RangerHiveResource.KEY_DATABASE;
+			break;
+		case TABLE:
+			filterKey         = RangerHiveResource.KEY_TABLE + ":" + resource.getDatabase();
+			parent            = new RangerHiveResource(HiveObjectType.DATABASE, resource.getDatabase());
+			childResourceName = RangerHiveResource.KEY_TABLE;
+			break;
+		default:
+			return null;
+		}
+
+		RangerChildResourceFilter ret;
+
+		if (listFilters.containsKey(filterKey)) {
+			ret = listFilters.get(filterKey);
+		} else {
+			ret = hivePlugin == null ? null : hivePlugin.getChildResourceFilter(parent, childResourceName, user, groups, RangerPolicyEngine.ANY_ACCESS);
+
+			listFilters.put(filterKey, ret); // null when access must be checked for each object
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("filterListCmdObjects: listing " + filterKey + ", usingFilter=" + (ret != null));
+			}
 		}
 
 		return ret;
@@ -2539,6 +2695,7 @@ class RangerHivePlugin extends RangerBasePlugin {
 	private static String RANGER_PLUGIN_HIVE_ULRAUTH_FILESYSTEM_SCHEMES_DEFAULT = "hdfs:,file:";
 	private static String FILESYSTEM_SCHEMES_SEPARATOR_CHAR = ",";
 	private String[] fsScheme = null;
+	private RangerHiveTableMaskingCache tableMaskingCache = null;
 
 	public RangerHivePlugin(String appType) {
 		super("hive", appType);
@@ -2552,6 +2709,12 @@ class RangerHivePlugin extends RangerBasePlugin {
 		RangerHivePlugin.BlockUpdateIfRowfilterColumnMaskSpecified = RangerConfiguration.getInstance().getBoolean(RangerHadoopConstants.HIVE_BLOCK_UPDATE_IF_ROWFILTER_COLUMNMASK_SPECIFIED_PROP, RangerHadoopConstants.HIVE_BLOCK_UPDATE_IF_ROWFILTER_COLUMNMASK_SPECIFIED_DEFAULT_VALUE);
 		RangerHivePlugin.DescribeShowTableAuth = RangerConfiguration.getInstance().get(RangerHadoopConstants.HIVE_DESCRIBE_TABLE_SHOW_COLUMNS_AUTH_OPTION_PROP, RangerHadoopConstants.HIVE_DESCRIBE_TABLE_SHOW_COLUMNS_AUTH_OPTION_PROP_DEFAULT_VALUE);
 
+		int tableMaskingCacheSize = RangerConfiguration.getInstance().getInt(RangerHadoopConstants.HIVE_ROWFILTER_DATAMASK_CACHE_SIZE_PROP, RangerHadoopConstants.HIVE_ROWFILTER_DATAMASK_CACHE_SIZE_DEFAULT_VALUE);
+
+		int tableMaskingCacheMaxColumns = RangerConfiguration.getInstance().getInt(RangerHadoopConstants.HIVE_ROWFILTER_DATAMASK_CACHE_MAX_COLUMNS_PROP, RangerHadoopConstants.HIVE_ROWFILTER_DATAMASK_CACHE_MAX_COLUMNS_DEFAULT_VALUE);
+
+		tableMaskingCache = new RangerHiveTableMaskingCache(tableMaskingCacheSize, tableMaskingCacheMaxColumns);
+
 		String fsSchemesString = RangerConfiguration.getInstance().get(RANGER_PLUGIN_HIVE_ULRAUTH_FILESYSTEM_SCHEMES, RANGER_PLUGIN_HIVE_ULRAUTH_FILESYSTEM_SCHEMES_DEFAULT);
 		fsScheme = StringUtils.split(fsSchemesString, FILESYSTEM_SCHEMES_SEPARATOR_CHAR);
 
@@ -2565,4 +2728,15 @@ class RangerHivePlugin extends RangerBasePlugin {
 	public String[] getFSScheme() {
 		return fsScheme;
 	}
+
+	/*
+	 * Returns the row-filter and column masks of the table for the user, resolved with one lookup of the table's
+	 * policies; or null, when policies must be evaluated for each column.
+	 */
+	public RangerHiveTableMaskingCache.TableMasking getTableMasking(String user, Set<String> groups, String database, String table) {
+		RangerAuthContext           authContext       = getCurrentRangerAuthContext();
+		RangerHiveTableMaskingCache tableMaskingCache = this.tableMaskingCache;
+
+		return authContext != null && tableMaskingCache != null ? tableMaskingCache.getTableMasking(authContext, user, groups, database, table) : null;
+	}
 }
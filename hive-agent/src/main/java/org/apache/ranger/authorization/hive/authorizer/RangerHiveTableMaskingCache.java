@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.hive.authorizer;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerChildResourceFilter;
+import org.apache.ranger.plugin.service.RangerAuthContext;
+import org.apache.ranger.plugin.util.RangerRoles;
+
+/*
+ * Row-filter and column masks of tables, as resolved for a user by RangerHiveAuthorizer.applyRowFilterAndColumnMasking().
+ * Masks of all columns of a table are resolved with one lookup of the table's data-mask policies, using a
+ * RangerChildResourceFilter; the mask of a column is resolved when first asked for.
+ *
+ * Resolved tables are kept, up to maxSize, for the user, groups, policy version and role version they were resolved
+ * for; each with the masks of up to maxColumns of its columns, the least recently used being evicted first. Tables are
+ * resolved this way only when the results can't depend on anything else, like tags, policy conditions or validity
+ * schedules; otherwise getTableMasking() returns null and the caller must evaluate the policies.
+ */
+class RangerHiveTableMaskingCache {
+	private static final Log LOG = LogFactory.getLog(RangerHiveTableMaskingCache.class);
+
+	private final int                       maxSize;
+	private final int                       maxColumns;
+	private final Map<String, TableMasking> tables;
+
+	RangerHiveTableMaskingCache(final int maxSize, final int maxColumns) {
+		this.maxSize    = maxSize;
+		this.maxColumns = maxColumns;
+		this.tables  = Collections.synchronizedMap(new LinkedHashMap<String, TableMasking>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, TableMasking> eldest) {
+				return size() > maxSize;
+			}
+		});
+	}
+
+	TableMasking getTableMasking(RangerAuthContext authContext, String user, Set<String> groups, String database, String table) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerHiveTableMaskingCache.getTableMasking(" + user + ", " + groups + ", " + database + ", " + table + ")");
+		}
+
+		long        policyVersion = authContext.getPolicyVersion();
+		RangerRoles roles         = authContext.getRangerRoles();
+		Long        roleVersion   = roles != null ? roles.getRoleVersion() : null;
+		String      key           = maxSize > 0 ? getKey(user, groups, database, table) : null;
+
+		TableMasking ret = key != null ? tables.get(key) : null;
+
+		if (ret != null && !ret.isForVersion(policyVersion, roleVersion)) {
+			ret = null;
+		}
+
+		if (ret == null) {
+			RangerHiveResource        dbResource    = new RangerHiveResource(HiveObjectType.DATABASE, database);
+			RangerHiveResource        tableResource = new RangerHiveResource(HiveObjectType.TABLE, database, table);
+			String                    accessType    = HiveAccessType.SELECT.name().toLowerCase();
+			RangerChildResourceFilter rowFilter     = authContext.getChildResourceFilter(dbResource, RangerHiveResource.KEY_TABLE, user, groups, accessType, RangerPolicy.POLICY_TYPE_ROWFILTER);
+			RangerChildResourceFilter columnFilter  = rowFilter != null ? authContext.getChildResourceFilter(tableResource, RangerHiveResource.KEY_COLUMN, user, groups, accessType, RangerPolicy.POLICY_TYPE_DATAMASK) : null;
+
+			if (columnFilter != null) {
+				ret = new TableMasking(policyVersion, roleVersion, rowFilter.getResult(table), columnFilter, maxColumns);
+
+				if (key != null && rowFilter.isCacheable() && columnFilter.isCacheable()) {
+					tables.put(key, ret);
+				}
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerHiveTableMaskingCache.getTableMasking(" + user + ", " + groups + ", " + database + ", " + table + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	/*
+	 * Returns a copy of the given result, for the given request; to audit a result resolved for an earlier request.
+	 */
+	static RangerAccessResult copyResult(RangerAccessResult result, RangerAccessRequest request) {
+		RangerAccessResult ret = new RangerAccessResult(result.getPolicyType(), result.getServiceName(), result.getServiceDef(), request);
+
+		ret.setAccessResultFrom(result);
+		ret.setAuditResultFrom(result);
+
+		return ret;
+	}
+
+	private static String getKey(String user, Set<String> groups, String database, String table) {
+		StringBuilder sb = new StringBuilder();
+
+		sb.append(user).append('|').append(database).append('.').append(table).append('|');
+
+		if (groups != null) {
+			for (String group : new TreeSet<>(groups)) {
+				sb.append(group).append(',');
+			}
+		}
+
+		return sb.toString();
+	}
+
+	static class TableMasking {
+		private static final RangerAccessResult NO_DATA_MASK = new RangerAccessResult(RangerPolicy.POLICY_TYPE_DATAMASK, null, null, null);
+
+		private final long                            policyVersion;
+		private final Long                            roleVersion;
+		private final RangerAccessResult              rowFilterResult;
+		private final RangerChildResourceFilter       columnFilter;
+		private final Map<String, RangerAccessResult> columnResults;
+
+		TableMasking(long policyVersion, Long roleVersion, RangerAccessResult rowFilterResult, RangerChildResourceFilter columnFilter, final int maxColumns) {
+			this.policyVersion   = policyVersion;
+			this.roleVersion     = roleVersion;
+			this.rowFilterResult = compact(rowFilterResult);
+			this.columnFilter    = columnFilter;
+			this.columnResults   = maxColumns > 0 ? Collections.synchronizedMap(new LinkedHashMap<String, RangerAccessResult>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, RangerAccessResult> eldest) {
+					return size() > maxColumns;
+				}
+			}) : null;
+		}
+
+		RangerAccessResult getRowFilterResult() {
+			return rowFilterResult;
+		}
+
+		RangerAccessResult getColumnResult(String column) {
+			RangerAccessResult ret = columnResults != null ? columnResults.get(column) : null;
+
+			if (ret == null) {
+				ret = compact(columnFilter.getResult(column));
+
+				if (columnResults != null) {
+					columnResults.put(column, ret);
+				}
+			}
+
+			return ret;
+		}
+
+		boolean isForVersion(long policyVersion, Long roleVersion) {
+			return this.policyVersion == policyVersion && (this.roleVersion == null ? roleVersion == null : this.roleVersion.equals(roleVersion));
+		}
+
+		@Override
+		public String toString() {
+			return "TableMasking={policyVersion=" + policyVersion + ", roleVersion=" + roleVersion + ", isRowFilterEnabled=" + rowFilterResult.isRowFilterEnabled() + ", columnResults=" + (columnResults != null ? columnResults.size() : 0) + "}";
+		}
+
+		// results with no mask, which aren't audited, are shared; others are kept without the request they were evaluated for
+		private static RangerAccessResult compact(RangerAccessResult result) {
+			if (result.getPolicyType() == RangerPolicy.POLICY_TYPE_DATAMASK && !result.isMaskEnabled()) {
+				return NO_DATA_MASK;
+			}
+
+			return copyResult(result, null);
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.hive.authorizer;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.ranger.authorization.hive.authorizer.RangerHiveTableMaskingCache.TableMasking;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerChildResourceFilter;
+import org.apache.ranger.plugin.service.RangerAuthContext;
+import org.apache.ranger.plugin.util.RangerRoles;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+public class RangerHiveTableMaskingCacheTest {
+
+	private static final String USER     = "user1";
+	private static final String DATABASE = "db1";
+	private static final String TABLE    = "tbl1";
+
+	private RangerAuthContext         authContext;
+	private RangerRoles               rangerRoles;
+	private RangerChildResourceFilter rowFilter;
+	private RangerChildResourceFilter columnFilter;
+
+	@Before
+	public void setup() {
+		authContext  = Mockito.mock(RangerAuthContext.class);
+		rangerRoles  = new RangerRoles();
+		rowFilter    = Mockito.mock(RangerChildResourceFilter.class);
+		columnFilter = Mockito.mock(RangerChildResourceFilter.class);
+
+		rangerRoles.setRoleVersion(1L);
+
+		Mockito.when(authContext.getPolicyVersion()).thenReturn(1L);
+		Mockito.when(authContext.getRangerRoles()).thenReturn(rangerRoles);
+		Mockito.when(authContext.getChildResourceFilter(ArgumentMatchers.any(RangerAccessResource.class), ArgumentMatchers.eq(RangerHiveResource.KEY_TABLE), ArgumentMatchers.anyString(),
+				ArgumentMatchers.<Set<String>>any(), ArgumentMatchers.anyString(), ArgumentMatchers.eq(RangerPolicy.POLICY_TYPE_ROWFILTER))).thenReturn(rowFilter);
+		Mockito.when(authContext.getChildResourceFilter(ArgumentMatchers.any(RangerAccessResource.class), ArgumentMatchers.eq(RangerHiveResource.KEY_COLUMN), ArgumentMatchers.anyString(),
+				ArgumentMatchers.<Set<String>>any(), ArgumentMatchers.anyString(), ArgumentMatchers.eq(RangerPolicy.POLICY_TYPE_DATAMASK))).thenReturn(columnFilter);
+
+		Mockito.when(rowFilter.isCacheable()).thenReturn(true);
+		Mockito.when(rowFilter.getResult(TABLE)).thenReturn(new RangerAccessResult(RangerPolicy.POLICY_TYPE_ROWFILTER, "hivedev", null, null));
+		Mockito.when(columnFilter.isCacheable()).thenReturn(true);
+		Mockito.when(columnFilter.getResult(ArgumentMatchers.anyString())).thenAnswer(invocation -> maskResult(invocation.getArgument(0)));
+	}
+
+	@Test
+	public void testTableMaskingHit() {
+		RangerHiveTableMaskingCache cache   = new RangerHiveTableMaskingCache(10, 10);
+		TableMasking                masking = cache.getTableMasking(authContext, USER, orderedSet("g1", "g2"), DATABASE, TABLE);
+
+		Assert.assertNotNull(masking);
+		Assert.assertEquals("MASK_c1", masking.getColumnResult("c1").getMaskType());
+		Assert.assertEquals("MASK_c1", masking.getColumnResult("c1").getMaskType());
+		Mockito.verify(columnFilter, Mockito.times(1)).getResult("c1");
+
+		// the same groups, in a different order, share the entry
+		Assert.assertSame(masking, cache.getTableMasking(authContext, USER, orderedSet("g2", "g1"), DATABASE, TABLE));
+		verifyFilterLookups(1);
+
+		// other users and groups don't
+		Assert.assertNotSame(masking, cache.getTableMasking(authContext, "user2", orderedSet("g1", "g2"), DATABASE, TABLE));
+		Assert.assertNotSame(masking, cache.getTableMasking(authContext, USER, orderedSet("g1"), DATABASE, TABLE));
+		verifyFilterLookups(3);
+	}
+
+	@Test
+	public void testColumnMaskEviction() {
+		RangerHiveTableMaskingCache cache   = new RangerHiveTableMaskingCache(10, 2);
+		TableMasking                masking = cache.getTableMasking(authContext, USER, orderedSet("g1"), DATABASE, TABLE);
+
+		masking.getColumnResult("c1");
+		masking.getColumnResult("c2");
+		masking.getColumnResult("c1");
+		masking.getColumnResult("c3"); // evicts c2, the least recently used
+
+		Mockito.verify(columnFilter, Mockito.times(1)).getResult("c1");
+		Mockito.verify(columnFilter, Mockito.times(1)).getResult("c3");
+
+		Assert.assertEquals("MASK_c2", masking.getColumnResult("c2").getMaskType()); // evicts c1
+		Mockito.verify(columnFilter, Mockito.times(2)).getResult("c2");
+
+		masking.getColumnResult("c3");
+		Mockito.verify(columnFilter, Mockito.times(1)).getResult("c3");
+
+		masking.getColumnResult("c1");
+		Mockito.verify(columnFilter, Mockito.times(2)).getResult("c1");
+
+		// with no bound, column masks aren't kept
+		masking = new RangerHiveTableMaskingCache(10, 0).getTableMasking(authContext, USER, orderedSet("g1"), DATABASE, TABLE);
+
+		masking.getColumnResult("c4");
+		masking.getColumnResult("c4");
+		Mockito.verify(columnFilter, Mockito.times(2)).getResult("c4");
+	}
+
+	@Test
+	public void testInvalidatedByPolicyRefresh() {
+		RangerHiveTableMaskingCache cache   = new RangerHiveTableMaskingCache(10, 10);
+		TableMasking                masking = cache.getTableMasking(authContext, USER, orderedSet("g1"), DATABASE, TABLE);
+
+		Assert.assertSame(masking, cache.getTableMasking(authContext, USER, orderedSet("g1"), DATABASE, TABLE));
+		verifyFilterLookups(1);
+
+		// new policies
+		Mockito.when(authContext.getPolicyVersion()).thenReturn(2L);
+
+		TableMasking refreshed = cache.getTableMasking(authContext, USER, orderedSet("g1"), DATABASE, TABLE);
+
+		Assert.assertNotSame(masking, refreshed);
+		Assert.assertSame(refreshed, cache.getTableMasking(authContext, USER, orderedSet("g1"), DATABASE, TABLE));
+		verifyFilterLookups(2);
+
+		// new roles
+		rangerRoles.setRoleVersion(2L);
+
+		Assert.assertNotSame(refreshed, cache.getTableMasking(authContext, USER, orderedSet("g1"), DATABASE, TABLE));
+		verifyFilterLookups(3);
+	}
+
+	@Test
+	public void testNotCacheable() {
+		RangerHiveTableMaskingCache cache = new RangerHiveTableMaskingCache(10, 10);
+
+		// e.g. a data-mask policy with a validity schedule
+		Mockito.when(columnFilter.isCacheable()).thenReturn(false);
+
+		TableMasking masking = cache.getTableMasking(authContext, USER, orderedSet("g1"), DATABASE, TABLE);
+
+		Assert.assertNotNull(masking);
+		Assert.assertNotSame(masking, cache.getTableMasking(authContext, USER, orderedSet("g1"), DATABASE, TABLE));
+		verifyFilterLookups(2);
+	}
+
+	private void verifyFilterLookups(int count) {
+		Mockito.verify(authContext, Mockito.times(count)).getChildResourceFilter(ArgumentMatchers.any(RangerAccessResource.class), ArgumentMatchers.eq(RangerHiveResource.KEY_TABLE), ArgumentMatchers.anyString(),
+				ArgumentMatchers.<Set<String>>any(), ArgumentMatchers.anyString(), ArgumentMatchers.eq(RangerPolicy.POLICY_TYPE_ROWFILTER));
+		Mockito.verify(authContext, Mockito.times(count)).getChildResourceFilter(ArgumentMatchers.any(RangerAccessResource.class), ArgumentMatchers.eq(RangerHiveResource.KEY_COLUMN), ArgumentMatchers.anyString(),
+				ArgumentMatchers.<Set<String>>any(), ArgumentMatchers.anyString(), ArgumentMatchers.eq(RangerPolicy.POLICY_TYPE_DATAMASK));
+	}
+
+	private static RangerAccessResult maskResult(String column) {
+		RangerAccessResult ret = new RangerAccessResult(RangerPolicy.POLICY_TYPE_DATAMASK, "hivedev", null, null);
+
+		ret.setIsAccessDetermined(true);
+		ret.setIsAllowed(true);
+		ret.setMaskType("MASK_" + column);
+
+		return ret;
+	}
+
+	private static Set<String> orderedSet(String... values) {
+		return new LinkedHashSet<>(Arrays.asList(values));
+	}
+}
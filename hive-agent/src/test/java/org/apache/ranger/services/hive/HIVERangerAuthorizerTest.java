@@ -18,6 +18,7 @@
 package org.apache.ranger.services.hive;
 
 import java.io.File;
+import java.lang.reflect.Field;
 import java.net.ServerSocket;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -28,11 +29,25 @@ import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import org.apache.hadoop.fs.FileUtil;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hive.service.server.HiveServer2;
+import org.apache.ranger.authorization.hive.authorizer.RangerHiveAuthorizer;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerChildResourceFilter;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.service.RangerBasePlugin;
+import org.apache.ranger.plugin.util.ServicePolicies;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -1071,4 +1086,111 @@ public class HIVERangerAuthorizerTest {
         statement.close();
         connection.close();
     }
+
+    // SHOW DATABASES and SHOW TABLES list what the user has any access to, whether the listing is filtered with one
+    // lookup of policies or, as tag policies require, by checking each database and table
+    @Test
+    public void testShowDatabasesAndTables() throws Exception {
+        UserGroupInformation.createUserForTesting("carol", new String[] {"IT"});
+
+        List<String> databases = executeQuery("admin", null, "SHOW DATABASES");
+        List<String> tables    = executeQuery("admin", "rangerauthz", "SHOW TABLES");
+
+        Assert.assertTrue(databases.contains("rangerauthz"));
+        Assert.assertTrue(tables.contains("words"));
+
+        RangerBasePlugin      plugin      = getHivePlugin();
+        RangerAdminClientImpl adminClient = new RangerAdminClientImpl();
+
+        adminClient.init("cl1_hive", "hive", "ranger.plugin.hive");
+
+        // with the tag policies of hive-policies.json
+        Assert.assertNull(getDatabaseListFilter(plugin, "dave"));
+        verifyShowDatabasesAndTables(plugin, databases, tables);
+
+        ServicePolicies noTagPolicies = adminClient.getServicePoliciesIfUpdated(-1, -1);
+
+        noTagPolicies.setTagPolicies(null);
+        plugin.setPolicies(noTagPolicies);
+
+        try {
+            Assert.assertNotNull(getDatabaseListFilter(plugin, "dave"));
+            verifyShowDatabasesAndTables(plugin, databases, tables);
+        } finally {
+            plugin.setPolicies(adminClient.getServicePoliciesIfUpdated(-1, -1));
+        }
+    }
+
+    private void verifyShowDatabasesAndTables(RangerBasePlugin plugin, List<String> databases, List<String> tables) throws Exception {
+        Assert.assertEquals(Arrays.asList("rangerauthz"), executeQuery("dave", null, "SHOW DATABASES"));
+        Assert.assertEquals(Arrays.asList("words"), executeQuery("dave", "rangerauthz", "SHOW TABLES"));
+        Assert.assertEquals(Collections.emptyList(), executeQuery("eve", null, "SHOW DATABASES"));
+
+        for (String user : new String[] {"bob", "carol", "dave", "tom", "da_test_user", "eve"}) {
+            Set<String>  groups              = new HashSet<>(Arrays.asList(UserGroupInformation.createRemoteUser(user).getGroupNames()));
+            List<String> accessibleDatabases = new ArrayList<>();
+            List<String> accessibleTables    = new ArrayList<>();
+
+            for (String database : databases) {
+                if (isAccessAllowed(plugin, user, groups, database, null)) {
+                    accessibleDatabases.add(database);
+                }
+            }
+
+            Assert.assertEquals(user, accessibleDatabases, executeQuery(user, null, "SHOW DATABASES"));
+
+            if (accessibleDatabases.contains("rangerauthz")) {
+                for (String table : tables) {
+                    if (isAccessAllowed(plugin, user, groups, "rangerauthz", table)) {
+                        accessibleTables.add(table);
+                    }
+                }
+
+                Assert.assertEquals(user, accessibleTables, executeQuery(user, "rangerauthz", "SHOW TABLES"));
+            }
+        }
+    }
+
+    private static boolean isAccessAllowed(RangerBasePlugin plugin, String user, Set<String> groups, String database, String table) {
+        RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+        resource.setValue("database", database);
+
+        if (table != null) {
+            resource.setValue("table", table);
+        }
+
+        RangerAccessResult result = plugin.isAccessAllowed(new RangerAccessRequestImpl(resource, RangerPolicyEngine.ANY_ACCESS, user, groups));
+
+        return result != null && result.getIsAllowed();
+    }
+
+    private static RangerChildResourceFilter getDatabaseListFilter(RangerBasePlugin plugin, String user) {
+        return plugin.getChildResourceFilter(new RangerAccessResourceImpl(), "database", user, Collections.<String>emptySet(), RangerPolicyEngine.ANY_ACCESS);
+    }
+
+    private static RangerBasePlugin getHivePlugin() throws Exception {
+        Field field = RangerHiveAuthorizer.class.getDeclaredField("hivePlugin");
+
+        field.setAccessible(true);
+
+        return (RangerBasePlugin) field.get(null);
+    }
+
+    private static List<String> executeQuery(String user, String database, String query) throws Exception {
+        String       url        = "jdbc:hive2://localhost:" + port + (database == null ? "" : "/" + database);
+        Connection   connection = DriverManager.getConnection(url, user, user);
+        Statement    statement  = connection.createStatement();
+        ResultSet    resultSet  = statement.executeQuery(query);
+        List<String> ret        = new ArrayList<>();
+
+        while (resultSet.next()) {
+            ret.add(resultSet.getString(1));
+        }
+
+        statement.close();
+        connection.close();
+
+        return ret;
+    }
 }
@@ -202,9 +202,7 @@ public class DBToAzureKeyVault {
 					rangerKeyStoreList.add(xxRangerKeyStore);
 				}
 				if (rangerKeyStoreList != null && !rangerKeyStoreList.isEmpty()) {
-					for(XXRangerKeyStore rangerKeyStore : rangerKeyStoreList){
-						dbStore.dbOperationStore(rangerKeyStore);
-					}
+					dbStore.dbOperationStore(rangerKeyStoreList);
 				}
 				return true;
 			}
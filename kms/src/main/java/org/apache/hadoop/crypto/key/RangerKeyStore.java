@@ -21,8 +21,6 @@ import com.microsoft.azure.keyvault.KeyVaultClient;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
@@ -35,8 +33,6 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.security.AlgorithmParameters;
-import java.security.DigestInputStream;
-import java.security.DigestOutputStream;
 import java.security.Key;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
@@ -47,12 +43,17 @@ import java.security.SecureRandom;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -90,6 +91,7 @@ public class RangerKeyStore extends KeyStoreSpi {
     private static final String KEY_NAME_VALIDATION = "[a-z,A-Z,0-9](?!.*--)(?!.*__)(?!.*-_)(?!.*_-)[\\w\\-\\_]*";
     private static final Pattern pattern = Pattern.compile(KEY_NAME_VALIDATION);
     private static final String AZURE_KEYVAULT_ENABLED = "ranger.kms.azurekeyvault.enabled";
+    private static final int MAX_ALIASES_PER_QUERY = 500;
     private boolean azureKeyVaultEnabled = false;
 
     private DaoManager daoManager;
@@ -103,7 +105,8 @@ public class RangerKeyStore extends KeyStoreSpi {
     // Secret key
 	private static final class SecretKeyEntry {
 		Date date = new Date(); // the creation date of this entry
-		SealedObject sealedKey;
+		volatile SealedObject sealedKey;
+		byte[] encodedKey; // the serialized sealed key read from the database, deserialized into sealedKey on first access
 		String cipher_field;
 		int bit_length;
 		String description;
@@ -123,6 +126,11 @@ public class RangerKeyStore extends KeyStoreSpi {
 
     private Map<String, Object> keyEntries = new ConcurrentHashMap<>();
     private Map<String, Object> deltaEntries = new ConcurrentHashMap<>();
+    // kms_createdDate of the loaded entries, to find the rows changed in the database since they were loaded
+    private Map<String, Long> entryStamps = new ConcurrentHashMap<>();
+    private volatile String changeStamp;
+    // serializes engineStore() calls, without blocking addKeyEntry() while the entries are written to the database
+    private final Object storeLock = new Object();
 
     RangerKeyStore() {
     }
@@ -159,7 +167,7 @@ public class RangerKeyStore extends KeyStoreSpi {
             return null;
         }
         try {
-            key = unsealKey(((SecretKeyEntry) entry).sealedKey, password);
+            key = unsealKey(getSealedKey((SecretKeyEntry) entry), password);
         } catch (Exception e) {
             logger.error("==> RangerKeyStore.engineGetKey() error: ", e);
         }
@@ -220,22 +228,21 @@ public class RangerKeyStore extends KeyStoreSpi {
 			int bitLength, String description, int version, String attributes)
 			throws KeyStoreException {
 		SecretKeyByteEntry entry = new SecretKeyByteEntry();
+		try {
+			entry.date = new Date();
+			// encrypt the key; this is done before taking the lock, so that concurrent writers don't wait on each other's encryption
+			entry.key = kvKeyGen.encryptZoneKey(key);
+			entry.cipher_field = cipher;
+			entry.bit_length = bitLength;
+			entry.description = description;
+			entry.version = version;
+			entry.attributes = attributes;
+		} catch (Exception e) {
+			logger.error(e.getMessage());
+			throw new KeyStoreException(e.getMessage());
+		}
 		synchronized (deltaEntries) {
-			try {
-				entry.date = new Date();
-				// encrypt and store the key
-				entry.key = kvKeyGen.encryptZoneKey(key);
-				entry.cipher_field = cipher;
-				entry.bit_length = bitLength;
-				entry.description = description;
-				entry.version = version;
-				entry.attributes = attributes;
-				deltaEntries.put(convertAlias(alias), entry);
-
-			} catch (Exception e) {
-				logger.error(e.getMessage());
-				throw new KeyStoreException(e.getMessage());
-			}
+			deltaEntries.put(convertAlias(alias), entry);
 		}
 		synchronized (keyEntries) {
 			try {
@@ -267,22 +274,22 @@ public class RangerKeyStore extends KeyStoreSpi {
             logger.debug("Adding entry for alias:" + alias);
         }
         SecretKeyEntry entry = new SecretKeyEntry();
+        try {
+            entry.date = new Date();
+            // seal the key; this is done before taking the lock, so that concurrent writers don't wait on each other's sealing
+            entry.sealedKey = sealKey(key, password);
+
+            entry.cipher_field = cipher;
+            entry.bit_length = bitLength;
+            entry.description = description;
+            entry.version = version;
+            entry.attributes = attributes;
+        } catch (Exception e) {
+            logger.error("==> RangerKeyStore.addKeyEntry() error: ", e);
+            throw new KeyStoreException(e.getMessage());
+        }
         synchronized (deltaEntries) {
-            try {
-                entry.date = new Date();
-                // seal and store the key
-                entry.sealedKey = sealKey(key, password);
-
-                entry.cipher_field = cipher;
-                entry.bit_length = bitLength;
-                entry.description = description;
-                entry.version = version;
-                entry.attributes = attributes;
-                deltaEntries.put(convertAlias(alias), entry);
-            } catch (Exception e) {
-                logger.error("==> RangerKeyStore.addKeyEntry() error: ", e);
-                throw new KeyStoreException(e.getMessage());
-            }
+            deltaEntries.put(convertAlias(alias), entry);
         }
         synchronized (keyEntries) {
             try {
@@ -346,12 +353,40 @@ public class RangerKeyStore extends KeyStoreSpi {
         return (Key) sealedKey.getObject(cipher);
     }
 
+    private SealedObject getSealedKey(SecretKeyEntry entry) throws IOException {
+        SealedObject ret = entry.sealedKey;
+
+        if (ret == null) {
+            synchronized (entry) {
+                ret = entry.sealedKey;
+
+                if (ret == null) {
+                    ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(entry.encodedKey));
+
+                    try {
+                        ret = (SealedObject) ois.readObject();
+                    } catch (ClassNotFoundException cnfe) {
+                        throw new IOException(cnfe.getMessage());
+                    } finally {
+                        ois.close();
+                    }
+
+                    entry.sealedKey  = ret;
+                    entry.encodedKey = null;
+                }
+            }
+        }
+
+        return ret;
+    }
+
     @Override
     public void engineDeleteEntry(String alias)
             throws KeyStoreException {
         synchronized (keyEntries) {
             dbOperationDelete(convertAlias(alias));
             keyEntries.remove(convertAlias(alias));
+            entryStamps.remove(convertAlias(alias));
         }
         synchronized (deltaEntries) {
             deltaEntries.remove(convertAlias(alias));
@@ -395,22 +430,23 @@ public class RangerKeyStore extends KeyStoreSpi {
 		if (logger.isDebugEnabled()) {
 			logger.debug("==> RangerKeyStore.engineStore()");
 		}
-		synchronized (deltaEntries) {
+		synchronized (storeLock) {
+			// entries added while the store is in progress are left in deltaEntries for the next store
+			List<Entry<String, Object>> entries = new ArrayList<>(deltaEntries.entrySet());
+			List<XXRangerKeyStore> xxRangerKeyStores = new ArrayList<>(entries.size());
+
 			if (azureKeyVaultEnabled) {
-				for (Entry<String, Object> entry : deltaEntries.entrySet()) {
-					Long creationDate = ((SecretKeyByteEntry) entry.getValue()).date
-							.getTime();
+				for (Entry<String, Object> entry : entries) {
 					SecretKeyByteEntry secretSecureKey = (SecretKeyByteEntry) entry
 							.getValue();
-					XXRangerKeyStore xxRangerKeyStore = mapObjectToEntity(
-							entry.getKey(), creationDate, secretSecureKey.key,
+					xxRangerKeyStores.add(mapObjectToEntity(
+							entry.getKey(), secretSecureKey.date.getTime(),
+							secretSecureKey.key,
 							secretSecureKey.cipher_field,
 							secretSecureKey.bit_length,
 							secretSecureKey.description,
-							secretSecureKey.version, secretSecureKey.attributes);
-					dbOperationStore(xxRangerKeyStore);
+							secretSecureKey.version, secretSecureKey.attributes));
 				}
-
 			} else {
 				// password is mandatory when storing
 				if (password == null) {
@@ -418,42 +454,42 @@ public class RangerKeyStore extends KeyStoreSpi {
 							"Ranger Master Key can't be null");
 				}
 
-				MessageDigest md = getKeyedMessageDigest(password);
-
-				byte digest[] = md.digest();
-				for (Entry<String, Object> entry : deltaEntries.entrySet()) {
+				byte digest[] = getKeyedMessageDigest(password).digest();
+				for (Entry<String, Object> entry : entries) {
+					SecretKeyEntry secretKey = (SecretKeyEntry) entry.getValue();
 					ByteArrayOutputStream baos = new ByteArrayOutputStream();
-					DataOutputStream dos = new DataOutputStream(
-							new DigestOutputStream(baos, md));
-
-					ObjectOutputStream oos = null;
+					ObjectOutputStream oos = new ObjectOutputStream(baos);
 					try {
-
-						oos = new ObjectOutputStream(dos);
-						oos.writeObject(((SecretKeyEntry) entry.getValue()).sealedKey);
-
-						dos.write(digest);
-						dos.flush();
-						Long creationDate = ((SecretKeyEntry) entry.getValue()).date
-								.getTime();
-						SecretKeyEntry secretKey = (SecretKeyEntry) entry
-								.getValue();
-						XXRangerKeyStore xxRangerKeyStore = mapObjectToEntity(
-								entry.getKey(), creationDate,
-								baos.toByteArray(), secretKey.cipher_field,
-								secretKey.bit_length, secretKey.description,
-								secretKey.version, secretKey.attributes);
-						dbOperationStore(xxRangerKeyStore);
+						oos.writeObject(getSealedKey(secretKey));
+						oos.flush();
+						baos.write(digest);
 					} finally {
-						if (oos != null) {
-							oos.close();
-						} else {
-							dos.close();
-						}
+						oos.close();
 					}
+					xxRangerKeyStores.add(mapObjectToEntity(
+							entry.getKey(), secretKey.date.getTime(),
+							baos.toByteArray(), secretKey.cipher_field,
+							secretKey.bit_length, secretKey.description,
+							secretKey.version, secretKey.attributes));
+				}
+			}
+
+			// each batch is written in a transaction of its own; the entries of the batches written before a failure are not stored again
+			for (int i = 0; i < entries.size(); i += MAX_ALIASES_PER_QUERY) {
+				int batchEnd = Math.min(i + MAX_ALIASES_PER_QUERY, entries.size());
+
+				dbOperationStore(xxRangerKeyStores.subList(i, batchEnd));
+
+				for (int j = i; j < batchEnd; j++) {
+					Entry<String, Object> entry = entries.get(j);
+
+					entryStamps.put(entry.getKey(), xxRangerKeyStores.get(j).getCreatedDate());
+					deltaEntries.remove(entry.getKey(), entry.getValue());
 				}
 			}
-			clearDeltaEntires();
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("<== RangerKeyStore.engineStore()");
 		}
 	}
 
@@ -473,27 +509,56 @@ public class RangerKeyStore extends KeyStoreSpi {
     }
 
     public void dbOperationStore(XXRangerKeyStore rangerKeyStore) {
+        try {
+            dbOperationStore(Collections.singletonList(rangerKeyStore));
+        } catch (IOException e) {
+            // already logged
+        }
+    }
+
+    /**
+     * Adds or updates the given entries, MAX_ALIASES_PER_QUERY at a time: the existing rows of a batch are read with one
+     * query and the batch is written in one transaction.
+     */
+    public void dbOperationStore(List<XXRangerKeyStore> rangerKeyStores) throws IOException {
         if (logger.isDebugEnabled()) {
-            logger.debug("==> RangerKeyStore.dbOperationStore()");
+            logger.debug("==> RangerKeyStore.dbOperationStore(" + rangerKeyStores.size() + ")");
         }
         try {
             if (daoManager != null) {
                 RangerKMSDao rangerKMSDao = new RangerKMSDao(daoManager);
-                XXRangerKeyStore xxRangerKeyStore = rangerKMSDao.findByAlias(rangerKeyStore.getAlias());
-                boolean keyStoreExists = true;
-                if (xxRangerKeyStore == null) {
-                    xxRangerKeyStore = new XXRangerKeyStore();
-                    keyStoreExists = false;
-                }
-                xxRangerKeyStore = mapToEntityBean(rangerKeyStore, xxRangerKeyStore);
-                if (keyStoreExists) {
-                    xxRangerKeyStore = rangerKMSDao.update(xxRangerKeyStore);
-                } else {
-                    xxRangerKeyStore = rangerKMSDao.create(xxRangerKeyStore);
+
+                for (int i = 0; i < rangerKeyStores.size(); i += MAX_ALIASES_PER_QUERY) {
+                    List<XXRangerKeyStore> batch = rangerKeyStores.subList(i, Math.min(i + MAX_ALIASES_PER_QUERY, rangerKeyStores.size()));
+                    Map<String, XXRangerKeyStore> existingKeys = new HashMap<>();
+                    List<String> aliases = new ArrayList<>(batch.size());
+
+                    for (XXRangerKeyStore rangerKeyStore : batch) {
+                        aliases.add(rangerKeyStore.getAlias());
+                    }
+                    for (XXRangerKeyStore xxRangerKeyStore : rangerKMSDao.findByAliases(aliases)) {
+                        existingKeys.put(xxRangerKeyStore.getAlias(), xxRangerKeyStore);
+                    }
+
+                    List<XXRangerKeyStore> xxRangerKeyStores = new ArrayList<>(batch.size());
+
+                    for (XXRangerKeyStore rangerKeyStore : batch) {
+                        XXRangerKeyStore xxRangerKeyStore = existingKeys.get(rangerKeyStore.getAlias());
+                        if (xxRangerKeyStore == null) {
+                            xxRangerKeyStore = new XXRangerKeyStore();
+                        }
+                        xxRangerKeyStores.add(mapToEntityBean(rangerKeyStore, xxRangerKeyStore));
+                    }
+
+                    rangerKMSDao.createOrUpdate(xxRangerKeyStores);
                 }
             }
         } catch (Exception e) {
             logger.error("==> RangerKeyStore.dbOperationStore() error : ", e);
+            throw new IOException("Failed to store keys", e);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("<== RangerKeyStore.dbOperationStore(" + rangerKeyStores.size() + ")");
         }
     }
 
@@ -518,6 +583,8 @@ public class RangerKeyStore extends KeyStoreSpi {
 		}
 
 		synchronized (keyEntries) {
+			// read the stamp before the rows, so that changes made while loading are picked up by the next engineLoadChanges()
+			String stamp = dbOperationGetChangeStamp();
 			List<XXRangerKeyStore> rangerKeyDetails = dbOperationLoad();
 
 			if (rangerKeyDetails == null || rangerKeyDetails.size() < 1) {
@@ -528,109 +595,172 @@ public class RangerKeyStore extends KeyStoreSpi {
 			}
 
 			keyEntries.clear();
-			if (azureKeyVaultEnabled) {
-				for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
-					String encodedStr = rangerKey.getEncoded();
-					byte[] encodedByte = DatatypeConverter
-							.parseBase64Binary(encodedStr);
-					String alias;
-					SecretKeyByteEntry entry = new SecretKeyByteEntry();
-					alias = rangerKey.getAlias();
-					entry.date = new Date(rangerKey.getCreatedDate());
-					entry.cipher_field = rangerKey.getCipher();
-					entry.bit_length = rangerKey.getBitLength();
-					entry.description = rangerKey.getDescription();
-					entry.version = rangerKey.getVersion();
-					entry.attributes = rangerKey.getAttributes();
-					entry.key = encodedByte;
-					keyEntries.put(alias, entry);
+			entryStamps.clear();
+			loadEntries(rangerKeyDetails, password);
+			changeStamp = stamp;
+		}
+	}
+
+    /**
+     * Brings the loaded entries up to date with the database, reading only the rows added or updated since the last load.
+     * A cheap change-stamp query is run first; the rows are not read at all while the table is unchanged. Entries added
+     * but not yet stored are left as they are.
+     *
+     * @return aliases of the entries that were added, updated or removed; null if all entries were reloaded
+     */
+    public Set<String> engineLoadChanges(char[] password)
+			throws IOException, NoSuchAlgorithmException, CertificateException {
+		if (logger.isDebugEnabled()) {
+			logger.debug("==> RangerKeyStore.engineLoadChanges()");
+		}
+
+		Set<String> ret = new HashSet<>();
+
+		synchronized (keyEntries) {
+			if (daoManager == null) {
+				return ret;
+			}
+
+			final String            stamp;
+			final Map<String, Long> dbStamps;
+
+			try {
+				RangerKMSDao rangerKMSDao = new RangerKMSDao(daoManager);
+
+				stamp = rangerKMSDao.getChangeStamp();
+
+				if (changeStamp == null) { // nothing loaded yet
+					engineLoad(null, password);
+
+					return null;
 				}
-			} else {
-				DataInputStream dis;
-				MessageDigest md = null;
-				if (password != null) {
-					md = getKeyedMessageDigest(password);
+
+				if (stamp.equals(changeStamp)) {
+					return ret;
 				}
 
-				byte computed[] = {};
-				if (md != null) {
-					computed = md.digest();
+				dbStamps = rangerKMSDao.getAliasStamps();
+			} catch (RuntimeException e) {
+				logger.error("==> RangerKeyStore.engineLoadChanges() error, reloading all entries: ", e);
+
+				engineLoad(null, password);
+
+				return null;
+			}
+
+			for (String alias : new ArrayList<>(entryStamps.keySet())) {
+				if (!dbStamps.containsKey(alias) && !deltaEntries.containsKey(alias)) {
+					keyEntries.remove(alias);
+					entryStamps.remove(alias);
+					ret.add(alias);
 				}
-				for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
+			}
 
-					String encoded = rangerKey.getEncoded();
-					byte[] data = DatatypeConverter.parseBase64Binary(encoded);
+			List<String> changedAliases = new ArrayList<>();
 
-					if (data != null && data.length > 0) {
-						stream = new ByteArrayInputStream(data);
-					} else {
-						logger.error("No Key found for alias "
-								+ rangerKey.getAlias());
-					}
+			for (Map.Entry<String, Long> dbStamp : dbStamps.entrySet()) {
+				String alias = dbStamp.getKey();
 
-					if (computed != null) {
-						int counter = 0;
-						for (int i = computed.length - 1; i >= 0; i--) {
-							if (computed[i] != data[data.length - (1 + counter)]) {
-								Throwable t = new UnrecoverableKeyException(
-										"Password verification failed");
-								logger.error(
-										"Keystore was tampered with, or password was incorrect.",
-										t);
-								throw (IOException) new IOException(
-										"Keystore was tampered with, or "
-												+ "password was incorrect")
-										.initCause(t);
-							} else {
-								counter++;
-							}
-						}
-					}
+				if (!deltaEntries.containsKey(alias) && !Objects.equals(dbStamp.getValue(), entryStamps.get(alias))) {
+					changedAliases.add(alias);
+				}
+			}
 
-					if (password != null) {
-						dis = new DataInputStream(new DigestInputStream(stream,
-								md));
-					} else {
-						dis = new DataInputStream(stream);
-					}
+			for (int i = 0; i < changedAliases.size(); i += MAX_ALIASES_PER_QUERY) {
+				List<String> aliases = changedAliases.subList(i, Math.min(i + MAX_ALIASES_PER_QUERY, changedAliases.size()));
 
-					ObjectInputStream ois = null;
-					try {
-						String alias;
+				loadEntries(new RangerKMSDao(daoManager).findByAliases(aliases), password);
 
-						SecretKeyEntry entry = new SecretKeyEntry();
+				ret.addAll(aliases);
+			}
 
-						// read the alias
-						alias = rangerKey.getAlias();
-
-						// read the (entry creation) date
-						entry.date = new Date(rangerKey.getCreatedDate());
-						entry.cipher_field = rangerKey.getCipher();
-						entry.bit_length = rangerKey.getBitLength();
-						entry.description = rangerKey.getDescription();
-						entry.version = rangerKey.getVersion();
-						entry.attributes = rangerKey.getAttributes();
-						// read the sealed key
-						try {
-							ois = new ObjectInputStream(dis);
-							entry.sealedKey = (SealedObject) ois.readObject();
-						} catch (ClassNotFoundException cnfe) {
-							throw new IOException(cnfe.getMessage());
-						}
-						// Add the entry to the list
-						keyEntries.put(alias, entry);
-					} finally {
-						if (ois != null) {
-							ois.close();
-						} else {
-							dis.close();
-						}
+			changeStamp = stamp;
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("<== RangerKeyStore.engineLoadChanges(): changedAliases=" + ret);
+		}
+
+		return ret;
+	}
+
+    private void loadEntries(List<XXRangerKeyStore> rangerKeyDetails, char[] password)
+			throws IOException, NoSuchAlgorithmException {
+		if (azureKeyVaultEnabled) {
+			for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
+				String encodedStr = rangerKey.getEncoded();
+				byte[] encodedByte = DatatypeConverter
+						.parseBase64Binary(encodedStr);
+				String alias;
+				SecretKeyByteEntry entry = new SecretKeyByteEntry();
+				alias = rangerKey.getAlias();
+				entry.date = new Date(rangerKey.getCreatedDate());
+				entry.cipher_field = rangerKey.getCipher();
+				entry.bit_length = rangerKey.getBitLength();
+				entry.description = rangerKey.getDescription();
+				entry.version = rangerKey.getVersion();
+				entry.attributes = rangerKey.getAttributes();
+				entry.key = encodedByte;
+				keyEntries.put(alias, entry);
+				entryStamps.put(alias, rangerKey.getCreatedDate());
+			}
+		} else {
+			byte computed[] = {};
+			if (password != null) {
+				computed = getKeyedMessageDigest(password).digest();
+			}
+			for (XXRangerKeyStore rangerKey : rangerKeyDetails) {
+				String alias = rangerKey.getAlias();
+				byte[] data = DatatypeConverter.parseBase64Binary(rangerKey.getEncoded());
+
+				if (data == null || data.length < computed.length) {
+					logger.error("No Key found for alias " + alias);
+					continue;
+				}
+
+				// each entry carries the digest of the master key it was sealed with
+				for (int i = 1; i <= computed.length; i++) {
+					if (computed[computed.length - i] != data[data.length - i]) {
+						Throwable t = new UnrecoverableKeyException(
+								"Password verification failed");
+						logger.error(
+								"Keystore was tampered with, or password was incorrect.",
+								t);
+						throw (IOException) new IOException(
+								"Keystore was tampered with, or "
+										+ "password was incorrect")
+								.initCause(t);
 					}
 				}
+
+				SecretKeyEntry entry = new SecretKeyEntry();
+
+				entry.date = new Date(rangerKey.getCreatedDate());
+				entry.cipher_field = rangerKey.getCipher();
+				entry.bit_length = rangerKey.getBitLength();
+				entry.description = rangerKey.getDescription();
+				entry.version = rangerKey.getVersion();
+				entry.attributes = rangerKey.getAttributes();
+				// the sealed key is deserialized on first access, as most entries are not read soon after a load
+				entry.encodedKey = data;
+
+				keyEntries.put(alias, entry);
+				entryStamps.put(alias, rangerKey.getCreatedDate());
 			}
 		}
 	}
 
+    private String dbOperationGetChangeStamp() {
+        try {
+            if (daoManager != null) {
+                return new RangerKMSDao(daoManager).getChangeStamp();
+            }
+        } catch (Exception e) {
+            logger.error("==> RangerKeyStore.dbOperationGetChangeStamp() error:", e);
+        }
+        return null;
+    }
+
     private List<XXRangerKeyStore> dbOperationLoad() throws IOException {
     	if (logger.isDebugEnabled()) {
             logger.debug("==> RangerKeyStore.dbOperationLoad()");
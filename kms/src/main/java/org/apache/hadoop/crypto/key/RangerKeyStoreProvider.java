@@ -33,9 +33,12 @@ import java.security.cert.CertificateException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -50,6 +53,9 @@ import org.apache.ranger.credentialapi.CredentialReader;
 import org.apache.ranger.kms.dao.DaoManager;
 import org.apache.log4j.Logger;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 @InterfaceAudience.Private
 public class RangerKeyStoreProvider extends KeyProvider {
 
@@ -79,12 +85,27 @@ public class RangerKeyStoreProvider extends KeyProvider {
 	private static final String AZURE_CLIENT_SECRET = "ranger.kms.azure.client.secret";
 	private static final String AZURE_KEYVAULT_CERTIFICATE_PATH = "ranger.kms.azure.keyvault.certificate.path";
 	private static final String AZURE_KEYVAULT_CERTIFICATE_PASSWORD = "ranger.kms.azure.keyvault.certificate.password";
+	private static final String KEY_VERSION_CACHE_SIZE = "ranger.kms.keyversion.cache.size";
+	private static final String KEY_VERSION_CACHE_EXPIRY_MS = "ranger.kms.keyversion.cache.expiry.ms";
+	private static final int KEY_VERSION_CACHE_SIZE_DEFAULT = 1000;
+	private static final String KEY_VERSION_CACHE_SYNC_INTERVAL_MS = "ranger.kms.keyversion.cache.sync.interval.ms";
+	private static final long KEY_VERSION_CACHE_EXPIRY_MS_DEFAULT = 60 * 1000;
+	private static final long KEY_VERSION_CACHE_EXPIRY_MS_MAX = 5 * 60 * 1000;
+	private static final long KEY_VERSION_CACHE_SYNC_INTERVAL_MS_DEFAULT = 5 * 1000;
 	private final RangerKeyStore dbStore;
 	private char[] masterKey;
 	private boolean changed = false;
-	private final Map<String, Metadata> cache = new HashMap<String, Metadata>();
+	private final Map<String, Metadata> cache = new ConcurrentHashMap<String, Metadata>();
+	// names of the keys whose metadata was created or updated in cache, to be written by the next flush()
+	private final Set<String> changedMetadata = ConcurrentHashMap.newKeySet();
+	// unsealed material of recently used key versions, read without taking readLock; null if disabled
+	private final Cache<String, KeyVersion> keyVersionCache;
+	private final long keyVersionCacheSyncIntervalMs;
+	// time of the last check for keys changed in the database, by this or another KMS instance
+	private final AtomicLong keyVersionCacheSyncTime = new AtomicLong();
 	private DaoManager daoManager;
 	private Lock readLock;
+	private Lock writeLock;
 	private boolean azureKeyVaultEnabled = false;
 
 	public RangerKeyStoreProvider(Configuration conf) throws Throwable {
@@ -93,6 +114,22 @@ public class RangerKeyStoreProvider extends KeyProvider {
 			logger.debug("==> RangerKeyStoreProvider.Configuration(conf)");
 		}
 		conf = getDBKSConf();
+		int keyVersionCacheSize = conf.getInt(KEY_VERSION_CACHE_SIZE, KEY_VERSION_CACHE_SIZE_DEFAULT);
+		if (keyVersionCacheSize > 0) {
+			long keyVersionCacheExpiryMs = conf.getLong(KEY_VERSION_CACHE_EXPIRY_MS, KEY_VERSION_CACHE_EXPIRY_MS_DEFAULT);
+			if (keyVersionCacheExpiryMs > KEY_VERSION_CACHE_EXPIRY_MS_MAX) {
+				logger.warn(KEY_VERSION_CACHE_EXPIRY_MS + "=" + keyVersionCacheExpiryMs + " is more than the maximum; using " + KEY_VERSION_CACHE_EXPIRY_MS_MAX);
+				keyVersionCacheExpiryMs = KEY_VERSION_CACHE_EXPIRY_MS_MAX;
+			}
+			keyVersionCache = CacheBuilder.newBuilder()
+					.maximumSize(keyVersionCacheSize)
+					.expireAfterWrite(keyVersionCacheExpiryMs, TimeUnit.MILLISECONDS)
+					.build();
+			keyVersionCacheSyncIntervalMs = Math.min(conf.getLong(KEY_VERSION_CACHE_SYNC_INTERVAL_MS, KEY_VERSION_CACHE_SYNC_INTERVAL_MS_DEFAULT), keyVersionCacheExpiryMs);
+		} else {
+			keyVersionCache = null;
+			keyVersionCacheSyncIntervalMs = 0;
+		}
 		getFromJceks(conf, CREDENTIAL_PATH, MK_CREDENTIAL_ALIAS, ENCRYPTION_KEY);
 		getFromJceks(conf, CREDENTIAL_PATH, DB_CREDENTIAL_ALIAS, DB_PASSWORD);
 		getFromJceks(conf, CREDENTIAL_PATH, HSM_PARTITION_PASSWORD_ALIAS,
@@ -243,6 +280,7 @@ public class RangerKeyStoreProvider extends KeyProvider {
 		reloadKeys();
 		ReadWriteLock lock = new ReentrantReadWriteLock(true);
 		readLock = lock.readLock();
+		writeLock = lock.writeLock();
 	}
 
 	public static Configuration getDBKSConf() {
@@ -299,31 +337,33 @@ public class RangerKeyStoreProvider extends KeyProvider {
 		if (logger.isDebugEnabled()) {
 			logger.debug("==> RangerKeyStoreProvider.createKey()");
 		}
-		reloadKeys();
-		if (dbStore.engineContainsAlias(name) || cache.containsKey(name)) {
-			throw new IOException("Key " + name + " already exists");
-		}
-
-		if (dbStore.engineContainsAlias(name) || cache.containsKey(name)) {
-			throw new IOException("Key " + name + " already exists");
-		}
-		Metadata meta = new Metadata(options.getCipher(),
-				options.getBitLength(), options.getDescription(),
-				options.getAttributes(), new Date(), 1);
-
-		if (options.getBitLength() != 8 * material.length) {
-			throw new IOException("Wrong key length. Required "
-					+ options.getBitLength() + ", but got "
-					+ (8 * material.length));
-		}
-		cache.put(name, meta);
-		String versionName = buildVersionName(name, 0);
-		if (logger.isDebugEnabled()) {
-			logger.debug("<== RangerKeyStoreProvider.createKey()");
+		writeLock.lock();
+		try {
+			loadChangedKeys();
+			if (dbStore.engineContainsAlias(name) || cache.containsKey(name)) {
+				throw new IOException("Key " + name + " already exists");
+			}
+			Metadata meta = new Metadata(options.getCipher(),
+					options.getBitLength(), options.getDescription(),
+					options.getAttributes(), new Date(), 1);
+
+			if (options.getBitLength() != 8 * material.length) {
+				throw new IOException("Wrong key length. Required "
+						+ options.getBitLength() + ", but got "
+						+ (8 * material.length));
+			}
+			cache.put(name, meta);
+			changedMetadata.add(name);
+			String versionName = buildVersionName(name, 0);
+			if (logger.isDebugEnabled()) {
+				logger.debug("<== RangerKeyStoreProvider.createKey()");
+			}
+			return innerSetKeyVersion(name, versionName, material,
+					meta.getCipher(), meta.getBitLength(), meta.getDescription(),
+					meta.getVersions(), meta.getAttributes());
+		} finally {
+			writeLock.unlock();
 		}
-		return innerSetKeyVersion(name, versionName, material,
-				meta.getCipher(), meta.getBitLength(), meta.getDescription(),
-				meta.getVersions(), meta.getAttributes());
 	}
 
 	KeyVersion innerSetKeyVersion(String name, String versionName,
@@ -359,43 +399,54 @@ public class RangerKeyStoreProvider extends KeyProvider {
 		if (logger.isDebugEnabled()) {
 			logger.debug("==> RangerKeyStoreProvider.deleteKey(" + name + ")");
 		}
-		reloadKeys();
-		Metadata meta = getMetadata(name);
-		if (meta == null) {
-			throw new IOException("Key " + name + " does not exist");
-		}
-		for (int v = 0; v < meta.getVersions(); ++v) {
-			String versionName = buildVersionName(name, v);
+		writeLock.lock();
+		try {
+			loadChangedKeys();
+			Metadata meta = getMetadata(name);
+			if (meta == null) {
+				throw new IOException("Key " + name + " does not exist");
+			}
+			for (int v = 0; v < meta.getVersions(); ++v) {
+				String versionName = buildVersionName(name, v);
+				try {
+					if (dbStore.engineContainsAlias(versionName)) {
+						dbStore.engineDeleteEntry(versionName);
+					}
+				} catch (KeyStoreException e) {
+					throw new IOException("Problem removing " + versionName, e);
+				}
+			}
 			try {
-				if (dbStore.engineContainsAlias(versionName)) {
-					dbStore.engineDeleteEntry(versionName);
+				if (dbStore.engineContainsAlias(name)) {
+					dbStore.engineDeleteEntry(name);
 				}
 			} catch (KeyStoreException e) {
-				throw new IOException("Problem removing " + versionName, e);
+				throw new IOException("Problem removing " + name + " from " + this,
+						e);
 			}
+			cache.remove(name);
+			changedMetadata.remove(name);
+			invalidateKeyVersions(name);
+			changed = true;
+		} finally {
+			writeLock.unlock();
 		}
-		try {
-			if (dbStore.engineContainsAlias(name)) {
-				dbStore.engineDeleteEntry(name);
-			}
-		} catch (KeyStoreException e) {
-			throw new IOException("Problem removing " + name + " from " + this,
-					e);
-		}
-		cache.remove(name);
-		changed = true;
 	}
 
 	@Override
 	public void flush() throws IOException {
+		writeLock.lock();
 		try {
 			if (!changed) {
 				return;
 			}
-			// put all of the updates into the db
-			for (Map.Entry<String, Metadata> entry : cache.entrySet()) {
+			// put the updated metadata into the db; the key versions were added to dbStore by innerSetKeyVersion()
+			for (String name : changedMetadata) {
+				Metadata metadata = cache.get(name);
+				if (metadata == null) {
+					continue;
+				}
 				try {
-					Metadata metadata = entry.getValue();
 					String attributes = JsonUtilsV2.mapToJson(metadata
 							.getAttributes());
 					if (azureKeyVaultEnabled) {
@@ -409,12 +460,12 @@ public class RangerKeyStoreProvider extends KeyProvider {
 							ezkey = new SecretKeySpec(key, metadata.getCipher());
 						}
 
-						dbStore.addSecureKeyByteEntry(entry.getKey(), ezkey,
+						dbStore.addSecureKeyByteEntry(name, ezkey,
 								metadata.getCipher(), metadata.getBitLength(),
 								metadata.getDescription(),
 								metadata.getVersions(), attributes);
 					} else {
-						dbStore.addKeyEntry(entry.getKey(), new KeyMetadata(
+						dbStore.addKeyEntry(name, new KeyMetadata(
 								metadata), masterKey, metadata.getAlgorithm(),
 								metadata.getBitLength(), metadata
 										.getDescription(), metadata
@@ -422,90 +473,109 @@ public class RangerKeyStoreProvider extends KeyProvider {
 					}
 				} catch (Exception e) {
 					throw new IOException("Can't set metadata key "
-							+ entry.getKey(), e);
+							+ name, e);
 				}
 			}
 			try {
+				// dbStore already holds the stored entries, so there is no need to load them back
 				dbStore.engineStore(null, masterKey);
-				reloadKeys();
 			} catch (NoSuchAlgorithmException e) {
 				throw new IOException("No such algorithm storing key", e);
 			} catch (CertificateException e) {
 				throw new IOException("Certificate exception storing key", e);
 			}
+			changedMetadata.clear();
 			changed = false;
 		} catch (IOException ioe) {
 			cache.clear();
+			changedMetadata.clear();
 			reloadKeys();
 			throw ioe;
+		} finally {
+			writeLock.unlock();
 		}
 	}
 
 	@Override
 	public KeyVersion getKeyVersion(String versionName) throws IOException {
+		KeyVersion ret = keyVersionCache != null ? keyVersionCache.getIfPresent(versionName) : null;
+
+		if (ret != null && !isKeyVersionCacheSyncDue()) {
+			return ret;
+		}
+
 		readLock.lock();
 
 		try {
-			if (azureKeyVaultEnabled) {
-				byte[] decryptKeyByte = null;
-				try {
-					if (!dbStore.engineContainsAlias(versionName)) {
-						dbStore.engineLoad(null, masterKey);
-						if (!dbStore.engineContainsAlias(versionName)) {
-							return null;
-						}
-					}
-					try {
-						decryptKeyByte = dbStore
-								.engineGetDecryptedZoneKeyByte(versionName);
-					} catch (Exception e) {
-						throw new RuntimeException(
-								"Error while getting decrypted key." + e);
-					}
-					if (decryptKeyByte == null || decryptKeyByte.length == 0) {
-						return null;
-					} else {
-						return new KeyVersion(getBaseName(versionName),
-								versionName, decryptKeyByte);
-					}
+			if (ret != null) {
+				// one caller in a sync interval checks for keys deleted or rolled by another KMS instance
+				loadChangedKeys();
 
-				} catch (NoSuchAlgorithmException e) {
-					throw new IOException("Can't get algorithm for key "
-							+ e.getMessage());
-				} catch (CertificateException e) {
+				ret = keyVersionCache.getIfPresent(versionName);
 
-					throw new IOException("Certificate exception storing key",
-							e);
+				if (ret != null) {
+					return ret;
 				}
+			}
+
+			ret = loadKeyVersion(versionName);
+
+			// cached while holding readLock, so that a concurrent deleteKey() can't be undone
+			if (ret != null && keyVersionCache != null) {
+				keyVersionCache.put(versionName, ret);
+			}
+		} finally {
+			readLock.unlock();
+		}
+
+		return ret;
+	}
+
+	private KeyVersion loadKeyVersion(String versionName) throws IOException {
+		if (azureKeyVaultEnabled) {
+			byte[] decryptKeyByte = null;
+			if (!dbStore.engineContainsAlias(versionName)) {
+				loadChangedKeys();
+				if (!dbStore.engineContainsAlias(versionName)) {
+					return null;
+				}
+			}
+			try {
+				decryptKeyByte = dbStore
+						.engineGetDecryptedZoneKeyByte(versionName);
+			} catch (Exception e) {
+				throw new RuntimeException(
+						"Error while getting decrypted key." + e);
+			}
+			if (decryptKeyByte == null || decryptKeyByte.length == 0) {
+				return null;
 			} else {
-				SecretKeySpec key = null;
-				try {
+				return new KeyVersion(getBaseName(versionName),
+						versionName, decryptKeyByte);
+			}
+		} else {
+			SecretKeySpec key = null;
+			try {
+				if (!dbStore.engineContainsAlias(versionName)) {
+					loadChangedKeys();
 					if (!dbStore.engineContainsAlias(versionName)) {
-						dbStore.engineLoad(null, masterKey);
-						if (!dbStore.engineContainsAlias(versionName)) {
-							return null;
-						}
+						return null;
 					}
-					key = (SecretKeySpec) dbStore.engineGetKey(versionName,
-							masterKey);
-				} catch (NoSuchAlgorithmException e) {
-					throw new IOException("Can't get algorithm for key " + key,
-							e);
-				} catch (UnrecoverableKeyException e) {
-					throw new IOException("Can't recover key " + key, e);
-				} catch (CertificateException e) {
-					throw new IOException("Certificate exception storing key",
-							e);
-				}
-				if (key == null) {
-					return null;
-				} else {
-					return new KeyVersion(getBaseName(versionName),
-							versionName, key.getEncoded());
 				}
+				key = (SecretKeySpec) dbStore.engineGetKey(versionName,
+						masterKey);
+			} catch (NoSuchAlgorithmException e) {
+				throw new IOException("Can't get algorithm for key " + key,
+						e);
+			} catch (UnrecoverableKeyException e) {
+				throw new IOException("Can't recover key " + key, e);
+			}
+			if (key == null) {
+				return null;
+			} else {
+				return new KeyVersion(getBaseName(versionName),
+						versionName, key.getEncoded());
 			}
-		} finally {
-			readLock.unlock();
 		}
 	}
 
@@ -532,14 +602,19 @@ public class RangerKeyStoreProvider extends KeyProvider {
 	public List<String> getKeys() throws IOException {
 		ArrayList<String> list = new ArrayList<String>();
 		String alias = null;
-		reloadKeys();
-		Enumeration<String> e = dbStore.engineAliases();
-		while (e.hasMoreElements()) {
-			alias = e.nextElement();
-			// only include the metadata key names in the list of names
-			if (!alias.contains("@")) {
-				list.add(alias);
+		readLock.lock();
+		try {
+			loadChangedKeys();
+			Enumeration<String> e = dbStore.engineAliases();
+			while (e.hasMoreElements()) {
+				alias = e.nextElement();
+				// only include the metadata key names in the list of names
+				if (!alias.contains("@")) {
+					list.add(alias);
+				}
 			}
+		} finally {
+			readLock.unlock();
 		}
 		return list;
 	}
@@ -554,7 +629,7 @@ public class RangerKeyStoreProvider extends KeyProvider {
 			}
 			try {
 				if (!dbStore.engineContainsAlias(name)) {
-					dbStore.engineLoad(null, masterKey);
+					loadChangedKeys();
 					if (!dbStore.engineContainsAlias(name)) {
 						return null;
 					}
@@ -592,21 +667,28 @@ public class RangerKeyStoreProvider extends KeyProvider {
 		if (logger.isDebugEnabled()) {
 			logger.debug("==> RangerKeyStoreProvider.rollNewVersion()");
 		}
-		reloadKeys();
-		Metadata meta = getMetadata(name);
-		if (meta == null) {
-			throw new IOException("Key " + name + " not found");
-		}
-		if (meta.getBitLength() != 8 * material.length) {
-			throw new IOException("Wrong key length. Required "
-					+ meta.getBitLength() + ", but got "
-					+ (8 * material.length));
-		}
-		int nextVersion = meta.addVersion();
-		String versionName = buildVersionName(name, nextVersion);
-		return innerSetKeyVersion(name, versionName, material,
-				meta.getCipher(), meta.getBitLength(), meta.getDescription(),
-				meta.getVersions(), meta.getAttributes());
+		writeLock.lock();
+		try {
+			loadChangedKeys();
+			Metadata meta = getMetadata(name);
+			if (meta == null) {
+				throw new IOException("Key " + name + " not found");
+			}
+			if (meta.getBitLength() != 8 * material.length) {
+				throw new IOException("Wrong key length. Required "
+						+ meta.getBitLength() + ", but got "
+						+ (8 * material.length));
+			}
+			int nextVersion = meta.addVersion();
+			changedMetadata.add(name);
+			invalidateKeyVersions(name);
+			String versionName = buildVersionName(name, nextVersion);
+			return innerSetKeyVersion(name, versionName, material,
+					meta.getCipher(), meta.getBitLength(), meta.getDescription(),
+					meta.getVersions(), meta.getAttributes());
+		} finally {
+			writeLock.unlock();
+		}
 	}
 
 	private static void getFromJceks(Configuration conf, String path,
@@ -637,6 +719,9 @@ public class RangerKeyStoreProvider extends KeyProvider {
 		}
 		try {
 			cache.clear();
+			if (keyVersionCache != null) {
+				keyVersionCache.invalidateAll();
+			}
 			loadKeys(masterKey);
 		} catch (NoSuchAlgorithmException e) {
 			throw new IOException("Can't load Keys");
@@ -645,6 +730,65 @@ public class RangerKeyStoreProvider extends KeyProvider {
 		}
 	}
 
+	/**
+	 * Picks up the keys added, updated or removed in the database - for example by another KMS instance - since they were
+	 * last loaded; only the changed rows are read. Cached metadata of the changed keys is dropped, unless it has changes
+	 * not yet flushed.
+	 */
+	private void loadChangedKeys() throws IOException {
+		if (logger.isDebugEnabled()) {
+			logger.debug("==> RangerKeyStoreProvider.loadChangedKeys()");
+		}
+		try {
+			keyVersionCacheSyncTime.set(System.currentTimeMillis());
+
+			final Set<String> changedAliases = dbStore.engineLoadChanges(masterKey);
+
+			if (changedAliases == null) {
+				cache.keySet().retainAll(changedMetadata);
+				if (keyVersionCache != null) {
+					keyVersionCache.invalidateAll();
+				}
+			} else if (!changedAliases.isEmpty()) {
+				for (String name : cache.keySet()) {
+					if (changedAliases.contains(dbStore.convertAlias(name)) && !changedMetadata.contains(name)) {
+						cache.remove(name);
+					}
+				}
+				if (keyVersionCache != null) {
+					for (String versionName : keyVersionCache.asMap().keySet()) {
+						if (changedAliases.contains(dbStore.convertAlias(versionName))) {
+							keyVersionCache.invalidate(versionName);
+						}
+					}
+				}
+			}
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException("Can't load Keys");
+		} catch (CertificateException e) {
+			throw new IOException("Can't load Keys");
+		}
+	}
+
+	private boolean isKeyVersionCacheSyncDue() {
+		long lastSyncTime = keyVersionCacheSyncTime.get();
+		long now          = System.currentTimeMillis();
+
+		return now - lastSyncTime >= keyVersionCacheSyncIntervalMs && keyVersionCacheSyncTime.compareAndSet(lastSyncTime, now);
+	}
+
+	private void invalidateKeyVersions(String name) {
+		if (keyVersionCache != null) {
+			String baseName = dbStore.convertAlias(name);
+			for (String versionName : keyVersionCache.asMap().keySet()) {
+				int idx = versionName.lastIndexOf('@');
+				if (idx > 0 && dbStore.convertAlias(versionName.substring(0, idx)).equals(baseName)) {
+					keyVersionCache.invalidate(versionName);
+				}
+			}
+		}
+	}
+
 	/**
 	 * The factory to create JksProviders, which is used by the ServiceLoader.
 	 */
@@ -21,16 +21,34 @@ package org.apache.hadoop.crypto.key.kms.server;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.hadoop.classification.InterfaceAudience;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension;
 import org.apache.hadoop.crypto.key.kms.ValueQueue;
 import org.apache.hadoop.crypto.key.kms.ValueQueue.SyncGenerationPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * A {@link KeyProviderCryptoExtension} that pre-generates and caches encrypted
@@ -59,6 +77,23 @@ public class EagerKeyGeneratorKeyProviderCryptoExtension
       KEY_CACHE_PREFIX + "num.fill.threads";
   public static final int KMS_KEY_CACHE_NUM_REFILL_THREADS_DEFAULT = 2;
 
+  // keys whose queues are filled at startup and kept full, whether or not they are requested
+  public static final String KMS_KEY_CACHE_PREWARM_KEYS =
+      KEY_CACHE_PREFIX + "prewarm.keys";
+
+  // how often the queues of recently requested keys are topped up in the background; 0 disables it
+  public static final String KMS_KEY_CACHE_PREWARM_INTERVAL_MS =
+      KEY_CACHE_PREFIX + "prewarm.interval.ms";
+  public static final long KMS_KEY_CACHE_PREWARM_INTERVAL_MS_DEFAULT = 0;
+
+  // threads generating the encrypted keys of a refill in parallel; 0 generates them in the refilling thread
+  public static final String KMS_KEY_CACHE_PREWARM_NUM_THREADS =
+      KEY_CACHE_PREFIX + "prewarm.num.threads";
+  public static final int KMS_KEY_CACHE_PREWARM_NUM_THREADS_DEFAULT = 2;
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(EagerKeyGeneratorKeyProviderCryptoExtension.class);
+
 
   private static class CryptoExtension
       implements KeyProviderCryptoExtension.CryptoExtension {
@@ -69,26 +104,53 @@ public class EagerKeyGeneratorKeyProviderCryptoExtension
       @Override
       public void fillQueueForKey(String keyName,
           Queue<EncryptedKeyVersion> keyQueue, int numKeys) throws IOException {
-        List<EncryptedKeyVersion> retEdeks =
-            new LinkedList<EncryptedKeyVersion>();
-        for (int i = 0; i < numKeys; i++) {
-          try {
-            retEdeks.add(keyProviderCryptoExtension.generateEncryptedKey(
-                keyName));
-          } catch (GeneralSecurityException e) {
-            throw new IOException(e);
-          }
-        }
-        keyQueue.addAll(retEdeks);
+        // remember the queue, so that the pre-warmer can top it up
+        keyQueues.put(keyName, keyQueue);
+
+        fillQueue(keyName, keyQueue, numKeys);
       }
     }
 
     private KeyProviderCryptoExtension keyProviderCryptoExtension;
     private final ValueQueue<EncryptedKeyVersion> encKeyVersionQueue;
+    private final int queueSize;
+    private final long queueExpiryMs;
+    private final Set<String> prewarmKeys;
+    private final Map<String, Queue<EncryptedKeyVersion>> keyQueues =
+        new ConcurrentHashMap<String, Queue<EncryptedKeyVersion>>();
+    private final Map<String, Long> lastRequestTimes =
+        new ConcurrentHashMap<String, Long>();
+    private final int numPrewarmThreads;
+    private final ExecutorService prewarmWorkers;
+    private final ScheduledExecutorService prewarmScheduler;
+    private final AtomicLong refillCount = new AtomicLong();
+    private final AtomicLong refillTimeNanos = new AtomicLong();
+    private final AtomicLong maxRefillTimeNanos = new AtomicLong();
 
     public CryptoExtension(Configuration conf,
         KeyProviderCryptoExtension keyProviderCryptoExtension) {
       this.keyProviderCryptoExtension = keyProviderCryptoExtension;
+      this.queueSize = conf.getInt(KMS_KEY_CACHE_SIZE,
+          KMS_KEY_CACHE_SIZE_DEFAULT);
+      this.queueExpiryMs = conf.getInt(KMS_KEY_CACHE_EXPIRY_MS,
+          KMS_KEY_CACHE_EXPIRY_DEFAULT);
+      this.prewarmKeys = new HashSet<String>(Arrays.asList(
+          conf.getTrimmedStrings(KMS_KEY_CACHE_PREWARM_KEYS)));
+      this.numPrewarmThreads = conf.getInt(KMS_KEY_CACHE_PREWARM_NUM_THREADS,
+          KMS_KEY_CACHE_PREWARM_NUM_THREADS_DEFAULT);
+
+      long prewarmIntervalMs = conf.getLong(KMS_KEY_CACHE_PREWARM_INTERVAL_MS,
+          KMS_KEY_CACHE_PREWARM_INTERVAL_MS_DEFAULT);
+
+      prewarmWorkers = numPrewarmThreads > 0 ?
+          Executors.newFixedThreadPool(numPrewarmThreads,
+              new ThreadFactoryBuilder().setDaemon(true)
+                  .setNameFormat("EEK prewarm worker #%d").build()) : null;
+      prewarmScheduler = (prewarmIntervalMs > 0 || !prewarmKeys.isEmpty()) ?
+          Executors.newSingleThreadScheduledExecutor(
+              new ThreadFactoryBuilder().setDaemon(true)
+                  .setNameFormat("EEK prewarm scheduler").build()) : null;
+
       encKeyVersionQueue =
           new ValueQueue<KeyProviderCryptoExtension.EncryptedKeyVersion>(
               conf.getInt(KMS_KEY_CACHE_SIZE,
@@ -101,6 +163,163 @@ public class EagerKeyGeneratorKeyProviderCryptoExtension
                   KMS_KEY_CACHE_NUM_REFILL_THREADS_DEFAULT),
               SyncGenerationPolicy.LOW_WATERMARK, new EncryptedQueueRefiller()
           );
+
+      if (prewarmScheduler != null) {
+        Runnable prewarmTask = new Runnable() {
+          @Override
+          public void run() {
+            prewarmQueues();
+          }
+        };
+
+        if (prewarmIntervalMs > 0) {
+          prewarmScheduler.scheduleWithFixedDelay(prewarmTask, 0,
+              prewarmIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+          prewarmScheduler.schedule(prewarmTask, 0, TimeUnit.MILLISECONDS);
+        }
+      }
+    }
+
+    /**
+     * Fills the queues of the pre-warm keys and tops up the queues of keys
+     * requested within the queue expiry time; queues of other keys are left
+     * to ValueQueue, which refills them on demand.
+     */
+    private void prewarmQueues() {
+      try {
+        if (!prewarmKeys.isEmpty()) {
+          encKeyVersionQueue.initializeQueuesForKeys(
+              prewarmKeys.toArray(new String[prewarmKeys.size()]));
+        }
+
+        long now = System.currentTimeMillis();
+
+        for (Map.Entry<String, Queue<EncryptedKeyVersion>> entry :
+            keyQueues.entrySet()) {
+          String keyName = entry.getKey();
+          Long lastRequestTime = lastRequestTimes.get(keyName);
+
+          if (!prewarmKeys.contains(keyName) && (lastRequestTime == null ||
+              now - lastRequestTime > queueExpiryMs)) {
+            keyQueues.remove(keyName);
+            lastRequestTimes.remove(keyName);
+
+            continue;
+          }
+
+          int numKeys = queueSize - entry.getValue().size();
+
+          if (numKeys > 0) {
+            fillQueue(keyName, entry.getValue(), numKeys);
+          }
+        }
+      } catch (Exception e) {
+        LOG.warn("Failed to pre-warm encrypted key queues", e);
+      }
+    }
+
+    private void fillQueue(final String keyName,
+        final Queue<EncryptedKeyVersion> keyQueue, int numKeys)
+        throws IOException {
+      long startTime = System.nanoTime();
+
+      try {
+        if (prewarmWorkers == null || numKeys < 2) {
+          generateIntoQueue(keyName, keyQueue, numKeys);
+        } else {
+          int numTasks = Math.min(numPrewarmThreads, numKeys);
+          List<Future<Void>> results = new ArrayList<Future<Void>>(numTasks);
+
+          for (int i = 0; i < numTasks; i++) {
+            final int numTaskKeys =
+                numKeys / numTasks + (i < numKeys % numTasks ? 1 : 0);
+
+            results.add(prewarmWorkers.submit(new Callable<Void>() {
+              @Override
+              public Void call() throws IOException {
+                generateIntoQueue(keyName, keyQueue, numTaskKeys);
+                return null;
+              }
+            }));
+          }
+
+          for (Future<Void> result : results) {
+            try {
+              result.get();
+            } catch (ExecutionException e) {
+              throw new IOException(e.getCause());
+            } catch (InterruptedException e) {
+              // shutting down: the workers add the keys they generate to the queue
+              Thread.currentThread().interrupt();
+              break;
+            }
+          }
+        }
+      } finally {
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        refillCount.incrementAndGet();
+        refillTimeNanos.addAndGet(elapsedNanos);
+
+        for (long max = maxRefillTimeNanos.get(); elapsedNanos > max;
+             max = maxRefillTimeNanos.get()) {
+          if (maxRefillTimeNanos.compareAndSet(max, elapsedNanos)) {
+            break;
+          }
+        }
+      }
+    }
+
+    private void generateIntoQueue(String keyName,
+        Queue<EncryptedKeyVersion> keyQueue, int numKeys) throws IOException {
+      List<EncryptedKeyVersion> retEdeks =
+          new LinkedList<EncryptedKeyVersion>();
+      for (int i = 0; i < numKeys; i++) {
+        try {
+          retEdeks.add(keyProviderCryptoExtension.generateEncryptedKey(
+              keyName));
+        } catch (GeneralSecurityException e) {
+          throw new IOException(e);
+        }
+      }
+      keyQueue.addAll(retEdeks);
+    }
+
+    Map<String, Integer> getQueueDepths() {
+      Map<String, Integer> ret = new HashMap<String, Integer>();
+
+      for (String keyName : keyQueues.keySet()) {
+        ret.put(keyName, encKeyVersionQueue.getSize(keyName));
+      }
+
+      return ret;
+    }
+
+    long getRefillCount() {
+      return refillCount.get();
+    }
+
+    double getAverageRefillTimeMs() {
+      long count = refillCount.get();
+
+      return count == 0 ? 0 : refillTimeNanos.get() / 1000000.0 / count;
+    }
+
+    double getMaxRefillTimeMs() {
+      return maxRefillTimeNanos.get() / 1000000.0;
+    }
+
+    void shutdown() {
+      if (prewarmScheduler != null) {
+        prewarmScheduler.shutdownNow();
+      }
+
+      if (prewarmWorkers != null) {
+        prewarmWorkers.shutdownNow();
+      }
+
+      encKeyVersionQueue.shutdown();
     }
 
     @Override
@@ -115,12 +334,16 @@ public class EagerKeyGeneratorKeyProviderCryptoExtension
 
     @Override
     public void drain(String keyName) {
+      // the pre-warmer must not top up the drained queue with keys of the previous version
+      keyQueues.remove(keyName);
       encKeyVersionQueue.drain(keyName);
     }
 
     @Override
     public EncryptedKeyVersion generateEncryptedKey(String encryptionKeyName)
         throws IOException, GeneralSecurityException {
+      lastRequestTimes.put(encryptionKeyName, System.currentTimeMillis());
+
       try {
         return encKeyVersionQueue.getNext(encryptionKeyName);
       } catch (ExecutionException e) {
@@ -165,6 +388,33 @@ public class EagerKeyGeneratorKeyProviderCryptoExtension
         new CryptoExtension(conf, keyProviderCryptoExtension));
   }
 
+  /**
+   * @return number of pre-generated encrypted keys in the queue of each key
+   * requested recently or configured for pre-warming
+   */
+  public Map<String, Integer> getEncryptedKeyQueueDepths() {
+    return ((CryptoExtension) getExtension()).getQueueDepths();
+  }
+
+  public long getEncryptedKeyRefillCount() {
+    return ((CryptoExtension) getExtension()).getRefillCount();
+  }
+
+  public double getEncryptedKeyAverageRefillTimeMs() {
+    return ((CryptoExtension) getExtension()).getAverageRefillTimeMs();
+  }
+
+  public double getEncryptedKeyMaxRefillTimeMs() {
+    return ((CryptoExtension) getExtension()).getMaxRefillTimeMs();
+  }
+
+  /**
+   * Stops the pre-warming and refill threads.
+   */
+  public void shutdown() {
+    ((CryptoExtension) getExtension()).shutdown();
+  }
+
   @Override
   public KeyVersion rollNewVersion(String name)
       throws NoSuchAlgorithmException, IOException {
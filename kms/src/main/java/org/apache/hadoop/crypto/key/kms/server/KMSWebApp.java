@@ -17,6 +17,7 @@
  */
 package org.apache.hadoop.crypto.key.kms.server;
 
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
@@ -44,6 +45,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
+import java.util.Map;
 
 @InterfaceAudience.Private
 public class KMSWebApp implements ServletContextListener {
@@ -65,6 +67,14 @@ public class KMSWebApp implements ServletContextListener {
       "generate_eek.calls.meter";
   private static final String DECRYPT_EEK_METER = METRICS_PREFIX +
       "decrypt_eek.calls.meter";
+  private static final String EEK_QUEUE_DEPTH_GAUGE = METRICS_PREFIX +
+      "eek.queue.depth";
+  private static final String EEK_REFILL_COUNT_GAUGE = METRICS_PREFIX +
+      "eek.refill.count";
+  private static final String EEK_REFILL_AVG_TIME_GAUGE = METRICS_PREFIX +
+      "eek.refill.avg.time.ms";
+  private static final String EEK_REFILL_MAX_TIME_GAUGE = METRICS_PREFIX +
+      "eek.refill.max.time.ms";
 
   private static Logger LOG;
   private static MetricRegistry metricRegistry;
@@ -81,6 +91,7 @@ public class KMSWebApp implements ServletContextListener {
   private static Meter invalidCallsMeter;
   private static KMSAudit kmsAudit;
   private static KeyProviderCryptoExtension keyProviderCryptoExtension;
+  private static EagerKeyGeneratorKeyProviderCryptoExtension eagerKeyGenerator;
 
   static {
     SLF4JBridgeHandler.removeHandlersForRootLogger();
@@ -190,9 +201,11 @@ public class KMSWebApp implements ServletContextListener {
 
       keyProviderCryptoExtension = KeyProviderCryptoExtension.
           createKeyProviderCryptoExtension(keyProvider);
-      keyProviderCryptoExtension =
+      eagerKeyGenerator =
           new EagerKeyGeneratorKeyProviderCryptoExtension(kmsConf,
               keyProviderCryptoExtension);
+      keyProviderCryptoExtension = eagerKeyGenerator;
+      registerEEKQueueGauges();
       if (kmsConf.getBoolean(KMSConfiguration.KEY_AUTHORIZATION_ENABLE,
           KMSConfiguration.KEY_AUTHORIZATION_ENABLE_DEFAULT)) {
         keyProviderCryptoExtension =
@@ -222,6 +235,35 @@ public class KMSWebApp implements ServletContextListener {
     }
   }
 
+  // published through the JmxReporter, so these show up in KMSJMXServlet
+  private void registerEEKQueueGauges() {
+    metricRegistry.register(EEK_QUEUE_DEPTH_GAUGE,
+        new Gauge<Map<String, Integer>>() {
+          @Override
+          public Map<String, Integer> getValue() {
+            return eagerKeyGenerator.getEncryptedKeyQueueDepths();
+          }
+        });
+    metricRegistry.register(EEK_REFILL_COUNT_GAUGE, new Gauge<Long>() {
+      @Override
+      public Long getValue() {
+        return eagerKeyGenerator.getEncryptedKeyRefillCount();
+      }
+    });
+    metricRegistry.register(EEK_REFILL_AVG_TIME_GAUGE, new Gauge<Double>() {
+      @Override
+      public Double getValue() {
+        return eagerKeyGenerator.getEncryptedKeyAverageRefillTimeMs();
+      }
+    });
+    metricRegistry.register(EEK_REFILL_MAX_TIME_GAUGE, new Gauge<Double>() {
+      @Override
+      public Double getValue() {
+        return eagerKeyGenerator.getEncryptedKeyMaxRefillTimeMs();
+      }
+    });
+  }
+
   @SuppressWarnings("unchecked")
   private KeyACLs getAcls(String clsStr) throws IOException {
 	  KeyACLs keyAcl = null;
@@ -250,6 +292,9 @@ public class KMSWebApp implements ServletContextListener {
   public void contextDestroyed(ServletContextEvent sce) {
     kmsAudit.shutdown();
     kmsAcls.stopReloader();
+    if (eagerKeyGenerator != null) {
+      eagerKeyGenerator.shutdown();
+    }
     jmxReporter.stop();
     jmxReporter.close();
     metricRegistry = null;
@@ -17,7 +17,12 @@
 
 package org.apache.ranger.kms.dao;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
 
 import org.apache.ranger.entity.XXRangerKeyStore;
 
@@ -39,4 +44,62 @@ public class RangerKMSDao extends BaseDao<XXRangerKeyStore> {
 		List<XXRangerKeyStore> xxr = super.getAllKeys("XXRangerKeyStore.getAllKeys");
 		return xxr;
 	}
+
+	public List<XXRangerKeyStore> findByAliases(Collection<String> aliases){
+		return getEntityManager()
+				.createNamedQuery("XXRangerKeyStore.findByAliases", tClass)
+				.setParameter("aliases", aliases)
+				.setHint("eclipselink.refresh", "true").getResultList();
+	}
+
+	/**
+	 * A cheap summary of the keystore table - row count, highest id and latest kms_createdDate, which is updated on every store
+	 * of a row. It changes whenever a row is added, removed or updated, so callers can skip reading the table while it is unchanged.
+	 */
+	public String getChangeStamp(){
+		Object[] row = (Object[]) getEntityManager()
+				.createNamedQuery("XXRangerKeyStore.getChangeStamp")
+				.setHint("eclipselink.refresh", "true").getSingleResult();
+		return row[0] + ":" + row[1] + ":" + row[2];
+	}
+
+	/**
+	 * @return kms_createdDate of every row, keyed by alias; unlike getAllKeys() this doesn't read the encoded keys
+	 */
+	public Map<String, Long> getAliasStamps(){
+		Map<String, Long> ret = new HashMap<String, Long>();
+		List<?> rows = getEntityManager()
+				.createNamedQuery("XXRangerKeyStore.getAliasStamps")
+				.setHint("eclipselink.refresh", "true").getResultList();
+		for (Object row : rows) {
+			Object[] cols = (Object[]) row;
+			ret.put((String) cols[0], (Long) cols[1]);
+		}
+		return ret;
+	}
+
+	/**
+	 * Adds the rows without id and updates the others, all in one transaction, instead of a transaction per row as with create()/update()
+	 */
+	public void createOrUpdate(List<XXRangerKeyStore> keys){
+		boolean trxBegan = beginTransaction();
+		try {
+			EntityManager em = getEntityManager();
+			for (XXRangerKeyStore key : keys) {
+				if (key.getId() == null) {
+					em.persist(key);
+				} else {
+					em.merge(key);
+				}
+			}
+			if (trxBegan) {
+				commitTransaction();
+			}
+		} catch (RuntimeException e) {
+			if (trxBegan) {
+				rollbackTransaction();
+			}
+			throw e;
+		}
+	}
 }
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.crypto.key.kms;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.Key;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.spec.SecretKeySpec;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+
+import org.apache.hadoop.crypto.key.RangerKeyStore;
+import org.apache.ranger.entity.XXRangerKeyStore;
+import org.apache.ranger.kms.dao.DaoManager;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Stores keys with RangerKeyStore into an in-memory table behind a mocked EntityManager and loads them back.
+ * testLoadPerformance() writes the time taken to load 100k keys, and to read one and all of them after the load,
+ * to target/ranger-kms-keystore-load-performance.csv.
+ */
+public class TestRangerKeyStorePersistence {
+
+        private static final char[] MASTER_KEY = "MasterPassword".toCharArray();
+
+        @Test
+        public void testStoreInBatches() throws Exception {
+                InMemoryKeyTable table = new InMemoryKeyTable();
+                RangerKeyStore rangerKeyStore = new RangerKeyStore(table.getDaoManager());
+
+                addKeys(rangerKeyStore, 1200);
+                rangerKeyStore.engineStore(null, MASTER_KEY);
+
+                // 500 rows per transaction
+                Assert.assertEquals(1200, table.rows.size());
+                Assert.assertEquals(3, table.transactions.get());
+
+                // only the entries added since the last store are written again
+                addKeys(rangerKeyStore, 1);
+                rangerKeyStore.engineStore(null, MASTER_KEY);
+
+                Assert.assertEquals(1200, table.rows.size());
+                Assert.assertEquals(4, table.transactions.get());
+
+                rangerKeyStore.engineStore(null, MASTER_KEY);
+
+                Assert.assertEquals(4, table.transactions.get());
+
+                RangerKeyStore loadedKeyStore = new RangerKeyStore(table.getDaoManager());
+
+                loadedKeyStore.engineLoad(null, MASTER_KEY);
+
+                Assert.assertEquals(1200, loadedKeyStore.engineSize());
+                Assert.assertArrayEquals(createKey(0).getEncoded(), loadedKeyStore.engineGetKey("key0", MASTER_KEY).getEncoded());
+                Assert.assertArrayEquals(createKey(1199).getEncoded(), loadedKeyStore.engineGetKey("key1199", MASTER_KEY).getEncoded());
+        }
+
+        @Test(expected=IOException.class)
+        public void testLoadWithWrongMasterKey() throws Exception {
+                InMemoryKeyTable table = new InMemoryKeyTable();
+                RangerKeyStore rangerKeyStore = new RangerKeyStore(table.getDaoManager());
+
+                addKeys(rangerKeyStore, 10);
+                rangerKeyStore.engineStore(null, MASTER_KEY);
+
+                new RangerKeyStore(table.getDaoManager()).engineLoad(null, "WrongPassword".toCharArray());
+        }
+
+        @Test
+        public void testLoadPerformance() throws Exception {
+                final int keyCount = 100_000;
+
+                InMemoryKeyTable table = new InMemoryKeyTable();
+                RangerKeyStore rangerKeyStore = new RangerKeyStore(table.getDaoManager());
+
+                long startTime = System.nanoTime();
+                addKeys(rangerKeyStore, keyCount);
+                rangerKeyStore.engineStore(null, MASTER_KEY);
+                long storeNanos = System.nanoTime() - startTime;
+
+                RangerKeyStore loadedKeyStore = new RangerKeyStore(table.getDaoManager());
+
+                startTime = System.nanoTime();
+                loadedKeyStore.engineLoad(null, MASTER_KEY);
+                long loadNanos = System.nanoTime() - startTime;
+
+                startTime = System.nanoTime();
+                Assert.assertNotNull(loadedKeyStore.engineGetKey("key" + (keyCount / 2), MASTER_KEY));
+                long firstKeyNanos = System.nanoTime() - startTime;
+
+                startTime = System.nanoTime();
+                for (int i = 0; i < keyCount; i++) {
+                        Assert.assertNotNull(loadedKeyStore.engineGetKey("key" + i, MASTER_KEY));
+                }
+                long allKeysNanos = System.nanoTime() - startTime;
+
+                Assert.assertEquals(keyCount, loadedKeyStore.engineSize());
+
+                String result = String.format("keys;store-ms;load-ms;first-key-ms;all-keys-ms;\n%s;%d;%d;%.3f;%d;\n", keyCount,
+                                storeNanos / 1_000_000, loadNanos / 1_000_000, firstKeyNanos / 1_000_000.0, allKeysNanos / 1_000_000);
+                Files.write(Paths.get("target", "ranger-kms-keystore-load-performance.csv"), result.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static void addKeys(RangerKeyStore rangerKeyStore, int count) throws Exception {
+                for (int i = 0; i < count; i++) {
+                        rangerKeyStore.addKeyEntry("key" + i, createKey(i), MASTER_KEY, "AES", 128, "key" + i, 1, "{}");
+                }
+        }
+
+        private static Key createKey(int i) {
+                byte[] keyBytes = new byte[16];
+
+                keyBytes[0] = (byte) i;
+                keyBytes[1] = (byte) (i >> 8);
+                keyBytes[2] = (byte) (i >> 16);
+
+                return new SecretKeySpec(keyBytes, "AES");
+        }
+
+        /**
+         * The ranger_keystore table, kept in a map by a mocked EntityManager that answers the queries of RangerKMSDao.
+         */
+        private static class InMemoryKeyTable {
+                final Map<String, XXRangerKeyStore> rows = new ConcurrentHashMap<>();
+                final AtomicInteger transactions = new AtomicInteger();
+                final AtomicInteger nextId = new AtomicInteger();
+
+                DaoManager getDaoManager() {
+                        EntityTransaction transaction = Mockito.mock(EntityTransaction.class, invocation -> {
+                                if (invocation.getMethod().getName().equals("begin")) {
+                                        transactions.incrementAndGet();
+                                }
+                                return invocation.getMethod().getReturnType() == boolean.class ? Boolean.FALSE : null;
+                        });
+
+                        EntityManager entityManager = Mockito.mock(EntityManager.class, invocation -> {
+                                switch (invocation.getMethod().getName()) {
+                                        case "getTransaction":
+                                                return transaction;
+                                        case "persist":
+                                                XXRangerKeyStore row = invocation.getArgument(0);
+                                                row.setId((long) nextId.incrementAndGet());
+                                                rows.put(row.getAlias(), row);
+                                                return null;
+                                        case "merge":
+                                                XXRangerKeyStore mergedRow = invocation.getArgument(0);
+                                                rows.put(mergedRow.getAlias(), mergedRow);
+                                                return mergedRow;
+                                        case "createNamedQuery":
+                                                return createQuery(invocation.getArgument(0));
+                                        default:
+                                                return null;
+                                }
+                        });
+
+                        DaoManager daoManager = Mockito.mock(DaoManager.class);
+
+                        Mockito.when(daoManager.getEntityManager()).thenReturn(entityManager);
+
+                        return daoManager;
+                }
+
+                private Query createQuery(String queryName) {
+                        final List<Collection<?>> aliases = new ArrayList<>(1);
+
+                        return Mockito.mock(TypedQuery.class, invocation -> {
+                                switch (invocation.getMethod().getName()) {
+                                        case "setParameter":
+                                                aliases.add(invocation.getArgument(1));
+                                                return invocation.getMock();
+                                        case "setHint":
+                                                return invocation.getMock();
+                                        case "getSingleResult": // XXRangerKeyStore.getChangeStamp
+                                                return new Object[] { (long) rows.size(), (long) nextId.get(), null };
+                                        case "getResultList":
+                                                List<Object> ret = new ArrayList<>();
+                                                if (queryName.equals("XXRangerKeyStore.findByAliases")) {
+                                                        for (Object alias : aliases.get(0)) {
+                                                                if (rows.containsKey(alias)) {
+                                                                        ret.add(rows.get(alias));
+                                                                }
+                                                        }
+                                                } else {
+                                                        ret.addAll(rows.values());
+                                                }
+                                                return ret;
+                                        default:
+                                                return null;
+                                }
+                        });
+                }
+        }
+}
@@ -18,9 +18,12 @@
 package org.apache.hadoop.crypto.key.kms.server;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.List;
 
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
@@ -151,4 +154,88 @@ public class RangerKeyStoreProviderTest {
 
     }
 
+    @Test
+    public void testKeyChangesFromOtherInstance() throws Throwable {
+    	if (!UNRESTRICTED_POLICIES_INSTALLED) {
+    		return;
+    	}
+
+        Path configDir = Paths.get("src/test/resources/kms");
+        System.setProperty(KMSConfiguration.KMS_CONFIG_DIR, configDir.toFile().getAbsolutePath());
+
+        Configuration conf = new Configuration();
+        RangerKeyStoreProvider keyProvider1 = new RangerKeyStoreProvider(conf);
+        RangerKeyStoreProvider keyProvider2 = new RangerKeyStoreProvider(conf);
+
+        Options options = new Options(conf);
+        options.setBitLength(128);
+        options.setCipher("AES");
+
+        // a key created by one instance is seen by the other
+        keyProvider1.createKey("sharedkey1", options);
+        keyProvider1.flush();
+        Assert.assertTrue(keyProvider2.getKeys().contains("sharedkey1"));
+        Assert.assertEquals(1, keyProvider2.getMetadata("sharedkey1").getVersions());
+
+        // a new version rolled by one instance replaces the metadata cached by the other
+        KeyVersion keyVersion = keyProvider1.rollNewVersion("sharedkey1");
+        keyProvider1.flush();
+        Assert.assertTrue(keyProvider2.getKeys().contains("sharedkey1"));
+        Assert.assertEquals(2, keyProvider2.getMetadata("sharedkey1").getVersions());
+        Assert.assertArrayEquals(keyVersion.getMaterial(), keyProvider2.getKeyVersion("sharedkey1@1").getMaterial());
+
+        // a key deleted by one instance is removed from the other
+        keyProvider1.deleteKey("sharedkey1");
+        keyProvider1.flush();
+        Assert.assertFalse(keyProvider2.getKeys().contains("sharedkey1"));
+        Assert.assertNull(keyProvider2.getKeyVersion("sharedkey1@1"));
+    }
+
+    /**
+     * getKeys() used to reload every key from the database; it now runs a change-stamp query and reads only changed rows.
+     * The number of getKeys() calls per second is written to target/ranger-kms-key-cache-performance.csv.
+     */
+    @Test
+    public void testGetKeysThroughput() throws Throwable {
+    	if (!UNRESTRICTED_POLICIES_INSTALLED) {
+    		return;
+    	}
+
+        Path configDir = Paths.get("src/test/resources/kms");
+        System.setProperty(KMSConfiguration.KMS_CONFIG_DIR, configDir.toFile().getAbsolutePath());
+
+        final int keyCount   = 50;
+        final int iterations = 1000;
+
+        Configuration conf = new Configuration();
+        RangerKeyStoreProvider keyProvider = new RangerKeyStoreProvider(conf);
+
+        Options options = new Options(conf);
+        options.setBitLength(128);
+        options.setCipher("AES");
+
+        for (int i = 0; i < keyCount; i++) {
+            keyProvider.createKey("perfkey" + i, options);
+        }
+        keyProvider.flush();
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            List<String> keys = keyProvider.getKeys();
+
+            Assert.assertEquals(keyCount, keys.size());
+            Assert.assertNotNull(keyProvider.getMetadata("perfkey" + (i % keyCount)));
+        }
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        String result = String.format("keys;iterations;getKeys-per-second;\n%s;%s;%.0f;\n", keyCount, iterations, iterations * 1_000_000_000.0 / elapsedNanos);
+        Files.write(Paths.get("target", "ranger-kms-key-cache-performance.csv"), result.getBytes(StandardCharsets.UTF_8));
+
+        for (int i = 0; i < keyCount; i++) {
+            keyProvider.deleteKey("perfkey" + i);
+        }
+        keyProvider.flush();
+        Assert.assertEquals(0, keyProvider.getKeys().size());
+    }
+
 }
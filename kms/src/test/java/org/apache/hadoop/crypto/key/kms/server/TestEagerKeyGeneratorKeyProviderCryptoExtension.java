@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.crypto.key.kms.server;
+
+import java.net.URI;
+import java.util.HashMap;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.crypto.key.KeyProvider;
+import org.apache.hadoop.crypto.key.KeyProvider.Options;
+import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension;
+import org.apache.hadoop.crypto.key.KeyProviderCryptoExtension.EncryptedKeyVersion;
+import org.apache.hadoop.crypto.key.UserProvider;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestEagerKeyGeneratorKeyProviderCryptoExtension {
+
+  @Test
+  public void testPrewarmKeys() throws Exception {
+    Configuration conf = new Configuration();
+    conf.setInt(EagerKeyGeneratorKeyProviderCryptoExtension.KMS_KEY_CACHE_SIZE, 10);
+    conf.set(EagerKeyGeneratorKeyProviderCryptoExtension.KMS_KEY_CACHE_PREWARM_KEYS, "hotkey");
+
+    KeyProvider kp = createProvider(conf, "hotkey", "coldkey");
+    EagerKeyGeneratorKeyProviderCryptoExtension eagerKeyGenerator =
+        new EagerKeyGeneratorKeyProviderCryptoExtension(conf,
+            KeyProviderCryptoExtension.createKeyProviderCryptoExtension(kp));
+
+    try {
+      // the pre-warm key is filled up in the background, without a request
+      waitForQueueDepth(eagerKeyGenerator, "hotkey", 10);
+      Assert.assertFalse(eagerKeyGenerator.getEncryptedKeyQueueDepths().containsKey("coldkey"));
+      Assert.assertTrue(eagerKeyGenerator.getEncryptedKeyRefillCount() > 0);
+      Assert.assertTrue(eagerKeyGenerator.getEncryptedKeyMaxRefillTimeMs() >= eagerKeyGenerator.getEncryptedKeyAverageRefillTimeMs());
+
+      EncryptedKeyVersion eek = eagerKeyGenerator.generateEncryptedKey("hotkey");
+      Assert.assertEquals("hotkey@0", eek.getEncryptionKeyVersionName());
+      Assert.assertEquals(16, eagerKeyGenerator.decryptEncryptedKey(eek).getMaterial().length);
+    } finally {
+      eagerKeyGenerator.shutdown();
+    }
+  }
+
+  @Test
+  public void testTopUpRequestedKeys() throws Exception {
+    Configuration conf = new Configuration();
+    conf.setInt(EagerKeyGeneratorKeyProviderCryptoExtension.KMS_KEY_CACHE_SIZE, 20);
+    conf.setLong(EagerKeyGeneratorKeyProviderCryptoExtension.KMS_KEY_CACHE_PREWARM_INTERVAL_MS, 50);
+    conf.setInt(EagerKeyGeneratorKeyProviderCryptoExtension.KMS_KEY_CACHE_PREWARM_NUM_THREADS, 4);
+
+    KeyProvider kp = createProvider(conf, "key1");
+    EagerKeyGeneratorKeyProviderCryptoExtension eagerKeyGenerator =
+        new EagerKeyGeneratorKeyProviderCryptoExtension(conf,
+            KeyProviderCryptoExtension.createKeyProviderCryptoExtension(kp));
+
+    try {
+      Assert.assertTrue(eagerKeyGenerator.getEncryptedKeyQueueDepths().isEmpty());
+
+      // once requested, the queue is kept full rather than refilled at the low watermark
+      for (int i = 0; i < 15; i++) {
+        Assert.assertEquals("key1@0", eagerKeyGenerator.generateEncryptedKey("key1").getEncryptionKeyVersionName());
+      }
+      waitForQueueDepth(eagerKeyGenerator, "key1", 20);
+
+      // after a roll-over the drained queue is not topped up with keys of the previous version
+      eagerKeyGenerator.rollNewVersion("key1");
+      Assert.assertFalse(eagerKeyGenerator.getEncryptedKeyQueueDepths().containsKey("key1"));
+      Assert.assertEquals("key1@1", eagerKeyGenerator.generateEncryptedKey("key1").getEncryptionKeyVersionName());
+    } finally {
+      eagerKeyGenerator.shutdown();
+    }
+  }
+
+  private static KeyProvider createProvider(Configuration conf, String... keyNames) throws Exception {
+    KeyProvider kp = new UserProvider.Factory().createProvider(new URI("user:///"), conf);
+
+    for (String keyName : keyNames) {
+      Options options = new Options(conf);
+      options.setCipher("AES/CTR/NoPadding");
+      options.setBitLength(128);
+      options.setAttributes(new HashMap<String, String>());
+      kp.createKey(keyName, options);
+    }
+
+    return kp;
+  }
+
+  private static void waitForQueueDepth(EagerKeyGeneratorKeyProviderCryptoExtension eagerKeyGenerator, String keyName, int depth) throws InterruptedException {
+    Integer queueDepth = null;
+
+    for (int i = 0; i < 200; i++) {
+      queueDepth = eagerKeyGenerator.getEncryptedKeyQueueDepths().get(keyName);
+
+      if (queueDepth != null && queueDepth >= depth) {
+        return;
+      }
+
+      Thread.sleep(50);
+    }
+
+    Assert.fail("queue of " + keyName + " has " + queueDepth + " keys, expected " + depth);
+  }
+}
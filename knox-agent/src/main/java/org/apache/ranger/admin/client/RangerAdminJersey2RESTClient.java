@@ -73,6 +73,7 @@ public class RangerAdminJersey2RESTClient extends AbstractRangerAdminClient {
 	String _clusterName = null;
 	String _supportsPolicyDeltas = null;
 	String _supportsTagDeltas = null;
+	String _supportsRoleDeltas = null;
 	String _pluginId = null;
 	int	   _restClientConnTimeOutMs;
 	int	   _restClientReadTimeOutMs;
@@ -103,6 +104,10 @@ public class RangerAdminJersey2RESTClient extends AbstractRangerAdminClient {
 		if (!"true".equalsIgnoreCase(_supportsTagDeltas)) {
 			_supportsTagDeltas = "false";
 		}
+		_supportsRoleDeltas = RangerConfiguration.getInstance().get(configPropertyPrefix + ".role.rest.supports.role.deltas", "false");
+		if (!"true".equalsIgnoreCase(_supportsRoleDeltas)) {
+			_supportsRoleDeltas = "false";
+		}
 
 		configURLs = RangerRESTClient.getURLs(tmpUrl);
 		this.lastKnownActiveUrlIndex = new Random().nextInt(configURLs.size());
@@ -223,6 +228,7 @@ public class RangerAdminJersey2RESTClient extends AbstractRangerAdminClient {
 		queryParams.put(RangerRESTUtils.REST_PARAM_LAST_ACTIVATION_TIME, Long.toString(lastActivationTimeInMillis));
 		queryParams.put(RangerRESTUtils.REST_PARAM_PLUGIN_ID, _pluginId);
 		queryParams.put(RangerRESTUtils.REST_PARAM_CLUSTER_NAME, _clusterName);
+		queryParams.put(RangerRESTUtils.REST_PARAM_SUPPORTS_ROLE_DELTAS, _supportsRoleDeltas);
 
 		if (isSecureMode) {
 			if (LOG.isDebugEnabled()) {
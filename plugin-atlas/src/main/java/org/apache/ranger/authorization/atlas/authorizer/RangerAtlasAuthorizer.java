@@ -42,6 +42,8 @@ import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerChildResourceFilter;
+import org.apache.ranger.plugin.service.RangerAuthContext;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 
@@ -286,27 +288,32 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
                 perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "RangerAtlasAuthorizer.scrubSearchResults(" + request + ")");
             }
 
-            final AtlasSearchResult result = request.getSearchResult();
+            final AtlasSearchResult         result   = request.getSearchResult();
+            final RangerAtlasSearchScrubber scrubber = new RangerAtlasSearchScrubber(request);
 
             if (CollectionUtils.isNotEmpty(result.getEntities())) {
                 for (AtlasEntityHeader entity : result.getEntities()) {
-                    checkAccessAndScrub(entity, request);
+                    scrubber.checkAccessAndScrub(entity);
                 }
             }
 
             if (CollectionUtils.isNotEmpty(result.getFullTextResult())) {
                 for (AtlasSearchResult.AtlasFullTextResult fullTextResult : result.getFullTextResult()) {
                     if (fullTextResult != null) {
-                        checkAccessAndScrub(fullTextResult.getEntity(), request);
+                        scrubber.checkAccessAndScrub(fullTextResult.getEntity());
                     }
                 }
             }
 
             if (MapUtils.isNotEmpty(result.getReferredEntities())) {
                 for (AtlasEntityHeader entity : result.getReferredEntities().values()) {
-                    checkAccessAndScrub(entity, request);
+                    scrubber.checkAccessAndScrub(entity);
                 }
             }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("scrubSearchResults(): " + scrubber);
+            }
         } finally {
             RangerPerfTracer.log(perf);
         }
@@ -419,23 +426,118 @@ public class RangerAtlasAuthorizer implements AtlasAuthorizer {
         return ret;
     }
 
-    private void checkAccessAndScrub(AtlasEntityHeader entity, AtlasSearchResultScrubRequest request) throws AtlasAuthorizationException {
-        if (entity != null && request != null) {
-            final AtlasEntityAccessRequest entityAccessRequest = new AtlasEntityAccessRequest(request.getTypeRegistry(), AtlasPrivilege.ENTITY_READ, entity, request.getUser(), request.getUserGroups());
+    class RangerAtlasPlugin extends RangerBasePlugin {
+        RangerAtlasPlugin() {
+            super("atlas", "atlas");
+        }
+    }
+
+    /*
+     * Checks read access to the entities of one search result. Access of the user to entities of a type having a
+     * classification is decided by a RangerChildResourceFilter, which is created once per (type, classification) and
+     * has only the policies that can affect the user; each entity is then checked by its qualifiedName and owner.
+     * Entities with the same type, classifications, qualifiedName and owner are checked once. When a filter can't be
+     * created (for example, with tag policies or policy conditions) the entity is checked with a full evaluation.
+     */
+    class RangerAtlasSearchScrubber {
+        private final AtlasSearchResultScrubRequest          request;
+        private final RangerAuthContext                      authContext;
+        private final String                                 accessType = AtlasPrivilege.ENTITY_READ.getType();
+        private final Map<String, RangerChildResourceFilter> filters    = new HashMap<>();
+        private final Map<String, Boolean>                   results    = new HashMap<>();
+        private       int                                    entityCount    = 0;
+        private       int                                    evaluatedCount = 0;
+        private       int                                    scrubbedCount  = 0;
+
+        RangerAtlasSearchScrubber(AtlasSearchResultScrubRequest request) {
+            RangerBasePlugin plugin = atlasPlugin;
+
+            this.request     = request;
+            this.authContext = plugin != null ? plugin.getCurrentRangerAuthContext() : null;
+        }
+
+        void checkAccessAndScrub(AtlasEntityHeader entity) throws AtlasAuthorizationException {
+            if (entity != null && request != null) {
+                final AtlasEntityAccessRequest entityAccessRequest = new AtlasEntityAccessRequest(request.getTypeRegistry(), AtlasPrivilege.ENTITY_READ, entity, request.getUser(), request.getUserGroups());
+
+                entityAccessRequest.setClientIPAddress(request.getClientIPAddress());
+                entityAccessRequest.setForwardedAddresses(request.getForwardedAddresses());
+                entityAccessRequest.setRemoteIPAddress(request.getRemoteIPAddress());
+
+                final Collection<String> classifications = entityAccessRequest.getEntityClassifications();
+                final String             entityId        = entityAccessRequest.getEntityId();
+                final String             ownerUser       = (String) entity.getAttribute(RESOURCE_ENTITY_OWNER);
+                final String             key             = entity.getTypeName() + "|" + (classifications == null ? "[]" : new TreeSet<>(classifications).toString()) + "|" + entityId + "|" + ownerUser;
 
-            entityAccessRequest.setClientIPAddress(request.getClientIPAddress());
-            entityAccessRequest.setForwardedAddresses(request.getForwardedAddresses());
-            entityAccessRequest.setRemoteIPAddress(request.getRemoteIPAddress());
+                Boolean isAllowed = results.get(key);
 
-            if (!isAccessAllowed(entityAccessRequest, null)) {
-                scrubEntityHeader(entity);
+                if (isAllowed == null) {
+                    isAllowed = isAccessAllowed(entityAccessRequest, classifications, entityId, ownerUser);
+
+                    results.put(key, isAllowed);
+
+                    evaluatedCount++;
+                }
+
+                if (!isAllowed) {
+                    scrubEntityHeader(entity);
+
+                    scrubbedCount++;
+                }
+
+                entityCount++;
             }
         }
-    }
 
-    class RangerAtlasPlugin extends RangerBasePlugin {
-        RangerAtlasPlugin() {
-            super("atlas", "atlas");
+        private boolean isAccessAllowed(AtlasEntityAccessRequest entityAccessRequest, Collection<String> classifications, String entityId, String ownerUser) throws AtlasAuthorizationException {
+            final List<RangerChildResourceFilter> entityFilters = new ArrayList<>();
+
+            if (CollectionUtils.isNotEmpty(classifications)) {
+                for (String classification : classifications) {
+                    entityFilters.add(getFilter(entityAccessRequest, classification));
+                }
+            } else {
+                entityFilters.add(getFilter(entityAccessRequest, null));
+            }
+
+            if (entityFilters.contains(null)) {
+                return RangerAtlasAuthorizer.this.isAccessAllowed(entityAccessRequest, null);
+            }
+
+            // same as isAccessAllowed(AtlasEntityAccessRequest, ..): access is needed for each classification of the entity
+            for (RangerChildResourceFilter filter : entityFilters) {
+                if (!filter.isAccessible(entityId, ownerUser)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private RangerChildResourceFilter getFilter(AtlasEntityAccessRequest entityAccessRequest, String classification) {
+            final String key = entityAccessRequest.getEntityType() + "|" + classification;
+
+            RangerChildResourceFilter ret = filters.get(key);
+
+            if (ret == null && !filters.containsKey(key)) {
+                if (authContext != null) {
+                    RangerAccessResourceImpl parent = new RangerAccessResourceImpl();
+
+                    parent.setValue(RESOURCE_ENTITY_TYPE, entityAccessRequest.getEntityTypeAndAllSuperTypes());
+                    parent.setValue(RESOURCE_ENTITY_CLASSIFICATION, classification == null ? ENTITY_NOT_CLASSIFIED : entityAccessRequest.getClassificationTypeAndAllSuperTypes(classification));
+
+                    ret = authContext.getChildResourceFilter(parent, RESOURCE_ENTITY_ID, request.getUser(), request.getUserGroups(), accessType);
+                }
+
+                filters.put(key, ret);
+            }
+
+            return ret;
+        }
+
+        @Override
+        public String toString() {
+            return "RangerAtlasSearchScrubber={entityCount=" + entityCount + ", evaluatedCount=" + evaluatedCount + ", scrubbedCount=" + scrubbedCount + ", filterCount=" + filters.size() + "}";
         }
     }
 
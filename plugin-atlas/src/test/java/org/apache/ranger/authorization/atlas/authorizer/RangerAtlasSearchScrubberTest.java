@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.atlas.authorizer;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.atlas.authorize.AtlasEntityAccessRequest;
+import org.apache.atlas.authorize.AtlasPrivilege;
+import org.apache.atlas.authorize.AtlasSearchResultScrubRequest;
+import org.apache.atlas.model.discovery.AtlasSearchResult;
+import org.apache.atlas.model.instance.AtlasClassification;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerPolicyConditionDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.service.RangerAuthContext;
+import org.apache.ranger.plugin.service.RangerBasePlugin;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import static org.apache.ranger.services.atlas.RangerServiceAtlas.RESOURCE_ENTITY_CLASSIFICATION;
+import static org.apache.ranger.services.atlas.RangerServiceAtlas.RESOURCE_ENTITY_ID;
+import static org.apache.ranger.services.atlas.RangerServiceAtlas.RESOURCE_ENTITY_OWNER;
+import static org.apache.ranger.services.atlas.RangerServiceAtlas.RESOURCE_ENTITY_TYPE;
+
+public class RangerAtlasSearchScrubberTest {
+    private static final String      SERVICE_NAME = "dev_atlas";
+    private static final String      USER         = "user1";
+    private static final Set<String> GROUPS       = Collections.singleton("analysts");
+    private static final String      CLIENT_IP    = "10.1.1.1";
+
+    private final AtlasTypeRegistry typeRegistry = new AtlasTypeRegistry();
+
+    private RangerBasePlugin      plugin;
+    private RangerAuthContext     authContext;
+    private RangerAtlasAuthorizer authorizer;
+
+    @After
+    public void tearDown() throws Exception {
+        setAtlasPlugin(null);
+    }
+
+    @Test
+    public void testScrubWithFilters() throws Exception {
+        init(false);
+
+        Map<AtlasEntityHeader, Boolean> expected = new LinkedHashMap<>();
+        AtlasSearchResult               result   = createSearchResult(expected);
+
+        authorizer.scrubSearchResults(createScrubRequest(result));
+
+        // one filter per (entity-type, classification), shared by entities of the search; no per-entity evaluation
+        Mockito.verify(authContext, Mockito.times(5)).getChildResourceFilter(ArgumentMatchers.any(RangerAccessResource.class), ArgumentMatchers.eq(RESOURCE_ENTITY_ID),
+                ArgumentMatchers.eq(USER), ArgumentMatchers.eq(GROUPS), ArgumentMatchers.eq(AtlasPrivilege.ENTITY_READ.getType()));
+        Mockito.verify(plugin, Mockito.never()).isAccessAllowed(ArgumentMatchers.any(RangerAccessRequest.class), ArgumentMatchers.any());
+
+        verifyScrubbed(expected);
+    }
+
+    @Test
+    public void testScrubWithFallback() throws Exception {
+        // a policy condition on hive_table entities: these are evaluated in full, hive_column entities by filter
+        init(true);
+
+        Map<AtlasEntityHeader, Boolean> expected = new LinkedHashMap<>();
+        AtlasSearchResult               result   = createSearchResult(expected);
+
+        authorizer.scrubSearchResults(createScrubRequest(result));
+
+        ArgumentCaptor<RangerAccessRequest> requests = ArgumentCaptor.forClass(RangerAccessRequest.class);
+
+        Mockito.verify(plugin, Mockito.atLeastOnce()).isAccessAllowed(requests.capture(), ArgumentMatchers.any());
+
+        List<Object> evaluatedIds = new ArrayList<>();
+
+        for (RangerAccessRequest request : requests.getAllValues()) {
+            evaluatedIds.add(request.getResource().getValue(RESOURCE_ENTITY_ID));
+        }
+
+        Assert.assertEquals(new HashSet<Object>(Arrays.asList("db1.t1", "db2.t1", "db1.t2", "db1.t3", "db1.t4")), new HashSet<>(evaluatedIds));
+        Assert.assertEquals("entities found more than once are evaluated once", 1, Collections.frequency(evaluatedIds, "db1.t1"));
+
+        verifyScrubbed(expected);
+    }
+
+    // scrubbing, with or without filters, must give the same results as a full evaluation of each entity
+    private void verifyScrubbed(Map<AtlasEntityHeader, Boolean> expected) throws Exception {
+        for (Map.Entry<AtlasEntityHeader, Boolean> entry : expected.entrySet()) {
+            AtlasEntityHeader        entity  = entry.getKey();
+            AtlasEntityAccessRequest request = new AtlasEntityAccessRequest(typeRegistry, AtlasPrivilege.ENTITY_READ, entity, USER, GROUPS);
+
+            request.setClientIPAddress(CLIENT_IP);
+
+            Assert.assertEquals(entity.getTypeName() + ":" + entity.getAttribute("qualifiedName"), entry.getValue(), authorizer.isAccessAllowed(request));
+
+            Mockito.verify(authorizer, Mockito.times(entry.getValue() ? 0 : 1)).scrubEntityHeader(ArgumentMatchers.same(entity));
+        }
+    }
+
+    private void init(boolean withPolicyCondition) throws Exception {
+        RangerServiceDef serviceDef = EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_ATLAS_NAME);
+        RangerPolicy     tables     = createPolicy(1L, "hive_table", "*", "db1.*", policyItem(null, GROUPS));
+
+        if (withPolicyCondition) {
+            serviceDef.getPolicyConditions().add(new RangerPolicyConditionDef(1L, "ip-range", "org.apache.ranger.plugin.conditionevaluator.RangerIpMatcher", null));
+
+            tables.getPolicyItems().get(0).getConditions().add(new RangerPolicyItemCondition("ip-range", Collections.singletonList("10.*")));
+        }
+
+        RangerPolicy pii   = createPolicy(2L, "*", "PII", "*", null);
+        RangerPolicy owned = createPolicy(3L, "hive_column", "*", "*", policyItem(RangerPolicyEngine.RESOURCE_OWNER, null));
+
+        pii.getDenyPolicyItems().add(policyItem(USER, null));
+
+        ServicePolicies servicePolicies = new ServicePolicies();
+
+        servicePolicies.setServiceName(SERVICE_NAME);
+        servicePolicies.setServiceDef(serviceDef);
+        servicePolicies.setPolicyVersion(1L);
+        servicePolicies.setPolicies(Arrays.asList(tables, pii, owned));
+
+        RangerBasePlugin atlasPlugin = new RangerBasePlugin("atlas", "atlas");
+
+        atlasPlugin.setPluginContext(new RangerPluginContext("atlas"));
+        atlasPlugin.setPolicies(servicePolicies);
+
+        plugin      = Mockito.spy(atlasPlugin);
+        authContext = Mockito.spy(atlasPlugin.getCurrentRangerAuthContext());
+        authorizer  = Mockito.spy(new RangerAtlasAuthorizer());
+
+        Mockito.doReturn(authContext).when(plugin).getCurrentRangerAuthContext();
+        Mockito.doNothing().when(authorizer).scrubEntityHeader(ArgumentMatchers.any(AtlasEntityHeader.class)); // keep entities as they were, to evaluate them later
+
+        setAtlasPlugin(plugin);
+    }
+
+    private AtlasSearchResultScrubRequest createScrubRequest(AtlasSearchResult result) {
+        AtlasSearchResultScrubRequest ret = new AtlasSearchResultScrubRequest(typeRegistry, result, USER, GROUPS);
+
+        ret.setClientIPAddress(CLIENT_IP);
+
+        return ret;
+    }
+
+    // entities of a search, each with whether user1 may read it; the same entity may be found more than once in a search
+    private static AtlasSearchResult createSearchResult(Map<AtlasEntityHeader, Boolean> expected) {
+        AtlasSearchResult ret = new AtlasSearchResult();
+
+        ret.setEntities(new ArrayList<AtlasEntityHeader>());
+        ret.setFullTextResult(new ArrayList<AtlasSearchResult.AtlasFullTextResult>());
+        ret.setReferredEntities(new HashMap<String, AtlasEntityHeader>());
+
+        ret.getEntities().add(createEntity(expected, true, "hive_table", "db1.t1", null));
+        ret.getEntities().add(createEntity(expected, false, "hive_table", "db2.t1", null));
+        ret.getEntities().add(createEntity(expected, false, "hive_table", "db1.t2", null, "PII"));
+        ret.getEntities().add(createEntity(expected, true, "hive_table", "db1.t3", null, "Finance"));
+        ret.getEntities().add(createEntity(expected, false, "hive_table", "db1.t4", null, "Finance", "PII"));
+        ret.getEntities().add(createEntity(expected, true, "hive_column", "db1.t1.c1", USER));
+        ret.getEntities().add(createEntity(expected, false, "hive_column", "db1.t1.c2", "user2"));
+        ret.getFullTextResult().add(new AtlasSearchResult.AtlasFullTextResult(createEntity(expected, true, "hive_table", "db1.t1", null), 1.0));
+        ret.getReferredEntities().put("guid-c1", createEntity(expected, true, "hive_column", "db1.t1.c1", USER));
+        ret.getReferredEntities().put("guid-c3", createEntity(expected, false, "hive_column", "db1.t1.c3", "user2", "PII"));
+
+        return ret;
+    }
+
+    private static AtlasEntityHeader createEntity(Map<AtlasEntityHeader, Boolean> expected, boolean isAllowed, String typeName, String qualifiedName, String owner, String... classifications) {
+        AtlasEntityHeader         ret                   = new AtlasEntityHeader(typeName);
+        List<AtlasClassification> entityClassifications = new ArrayList<>();
+
+        for (String classification : classifications) {
+            entityClassifications.add(new AtlasClassification(classification));
+        }
+
+        ret.setGuid("guid-" + expected.size());
+        ret.setAttribute("qualifiedName", qualifiedName);
+        ret.setAttribute(RESOURCE_ENTITY_OWNER, owner);
+        ret.setClassifications(entityClassifications);
+        ret.setClassificationNames(new ArrayList<>(Arrays.asList(classifications)));
+
+        expected.put(ret, isAllowed);
+
+        return ret;
+    }
+
+    private static RangerPolicy createPolicy(long id, String entityType, String classification, String entityId, RangerPolicyItem allowItem) {
+        RangerPolicy                      ret       = new RangerPolicy();
+        Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+        resources.put(RESOURCE_ENTITY_TYPE, new RangerPolicyResource(entityType));
+        resources.put(RESOURCE_ENTITY_CLASSIFICATION, new RangerPolicyResource(classification));
+        resources.put(RESOURCE_ENTITY_ID, new RangerPolicyResource(entityId));
+
+        ret.setId(id);
+        ret.setName("policy-" + id);
+        ret.setService(SERVICE_NAME);
+        ret.setResources(resources);
+
+        if (allowItem != null) {
+            ret.getPolicyItems().add(allowItem);
+        }
+
+        return ret;
+    }
+
+    private static RangerPolicyItem policyItem(String user, Set<String> groups) {
+        RangerPolicyItem ret = new RangerPolicyItem();
+
+        ret.getAccesses().add(new RangerPolicyItemAccess(AtlasPrivilege.ENTITY_READ.getType()));
+
+        if (user != null) {
+            ret.getUsers().add(user);
+        }
+
+        if (groups != null) {
+            ret.getGroups().addAll(groups);
+        }
+
+        return ret;
+    }
+
+    private static void setAtlasPlugin(RangerBasePlugin plugin) throws Exception {
+        Field field = RangerAtlasAuthorizer.class.getDeclaredField("atlasPlugin");
+
+        field.setAccessible(true);
+        field.set(null, plugin);
+    }
+}
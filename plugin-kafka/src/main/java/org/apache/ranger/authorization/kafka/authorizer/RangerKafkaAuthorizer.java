@@ -40,9 +40,11 @@ import org.apache.kafka.common.config.SaslConfigs;
 import org.apache.kafka.common.security.authenticator.LoginManager;
 import org.apache.kafka.common.security.kerberos.KerberosLogin;
 import org.apache.ranger.audit.provider.MiscUtil;
+import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.service.RangerAuthContext;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 
 import org.apache.ranger.plugin.util.RangerPerfTracer;
@@ -71,8 +73,12 @@ public class RangerKafkaAuthorizer implements Authorizer {
 	public static final String ACCESS_TYPE_ALTER_CONFIGS    = "alter_configs";
 	public static final String ACCESS_TYPE_IDEMPOTENT_WRITE = "idempotent_write";
 
+	private static final String RANGER_PLUGIN_KAFKA_DECISION_CACHE_SIZE         = "ranger.plugin.kafka.decision.cache.size";
+	private static final int    RANGER_PLUGIN_KAFKA_DECISION_CACHE_SIZE_DEFAULT = 10000;
+
 	private static volatile RangerBasePlugin rangerPlugin = null;
 	RangerKafkaAuditHandler auditHandler = null;
+	RangerKafkaDecisionCache decisionCache = null;
 
 	public RangerKafkaAuthorizer() {
 	}
@@ -118,6 +124,13 @@ public class RangerKafkaAuthorizer implements Authorizer {
 		rangerPlugin.init();
 		auditHandler = new RangerKafkaAuditHandler();
 		rangerPlugin.setResultProcessor(auditHandler);
+
+		int decisionCacheSize = RangerConfiguration.getInstance().getInt(RANGER_PLUGIN_KAFKA_DECISION_CACHE_SIZE, RANGER_PLUGIN_KAFKA_DECISION_CACHE_SIZE_DEFAULT);
+
+		if (decisionCacheSize > 0) {
+			decisionCache = new RangerKafkaDecisionCache(decisionCacheSize);
+		}
+		logger.info("Decision cache size=" + decisionCacheSize);
 	}
 
 	@Override
@@ -161,15 +174,8 @@ public class RangerKafkaAuthorizer implements Authorizer {
 		}
 		java.util.Set<String> userGroups = MiscUtil
 				.getGroupsForRequestUser(userName);
-		String ip = session.clientAddress().getHostAddress();
-
-		// skip leading slash
-		if (StringUtils.isNotEmpty(ip) && ip.charAt(0) == '/') {
-			ip = ip.substring(1);
-		}
-
-		Date eventTime = new Date();
 		String accessType = mapToRangerAccessType(operation);
+		String resourceKey = mapToRangerResourceKey(resource.resourceType());
 		boolean validationFailed = false;
 		String validationStr = "";
 
@@ -182,60 +188,86 @@ public class RangerKafkaAuthorizer implements Authorizer {
 			validationFailed = true;
 			validationStr += "Unsupported access type. operation=" + operation;
 		}
-		String action = accessType;
-
-		RangerAccessRequestImpl rangerRequest = new RangerAccessRequestImpl();
-		rangerRequest.setUser(userName);
-		rangerRequest.setUserGroups(userGroups);
-		rangerRequest.setClientIPAddress(ip);
-		rangerRequest.setAccessTime(eventTime);
-
-		RangerAccessResourceImpl rangerResource = new RangerAccessResourceImpl();
-		rangerRequest.setResource(rangerResource);
-		rangerRequest.setAccessType(accessType);
-		rangerRequest.setAction(action);
-		rangerRequest.setRequestData(resource.name());
-
-		if (resource.resourceType().equals(Topic$.MODULE$)) {
-			rangerResource.setValue(KEY_TOPIC, resource.name());
-		} else if (resource.resourceType().equals(Cluster$.MODULE$)) {
-			rangerResource.setValue(KEY_CLUSTER, resource.name());
-		} else if (resource.resourceType().equals(Group$.MODULE$)) {
-			rangerResource.setValue(KEY_CONSUMER_GROUP, resource.name());
-		} else if (resource.resourceType().equals(TransactionalId$.MODULE$)) {
-			rangerResource.setValue(KEY_TRANSACTIONALID, resource.name());
-		} else if (resource.resourceType().equals(DelegationToken$.MODULE$)) {
-			rangerResource.setValue(KEY_DELEGATIONTOKEN, resource.name());
-		} else {
+		if (resourceKey == null) {
 			logger.fatal("Unsupported resourceType=" + resource.resourceType());
 			validationFailed = true;
 		}
 
+		// decisions already made for the principal and resource, when not audited, need no request
+		RangerAccessResult decision = null;
+		RangerAuthContext authContext = rangerPlugin.getCurrentRangerAuthContext();
+
+		if (!validationFailed && decisionCache != null) {
+			decision = decisionCache.getDecision(authContext, userName, userGroups, accessType, resourceKey, resource.name());
+		}
+
 		boolean returnValue = false;
-		if (validationFailed) {
-			MiscUtil.logErrorMessageByInterval(logger, validationStr
-					+ ", request=" + rangerRequest);
+		RangerAccessRequestImpl rangerRequest = null;
+
+		if (decision != null && !decision.getIsAudited()) {
+			returnValue = decision.getIsAllowed();
 		} else {
+			String ip = session.clientAddress().getHostAddress();
+
+			// skip leading slash
+			if (StringUtils.isNotEmpty(ip) && ip.charAt(0) == '/') {
+				ip = ip.substring(1);
+			}
+
+			Date eventTime = new Date();
+			String action = accessType;
 
-			try {
-				RangerAccessResult result = rangerPlugin
-						.isAccessAllowed(rangerRequest);
-				if (result == null) {
-					logger.error("Ranger Plugin returned null. Returning false");
-				} else {
-					returnValue = result.getIsAllowed();
+			rangerRequest = new RangerAccessRequestImpl();
+			rangerRequest.setUser(userName);
+			rangerRequest.setUserGroups(userGroups);
+			rangerRequest.setClientIPAddress(ip);
+			rangerRequest.setAccessTime(eventTime);
+
+			RangerAccessResourceImpl rangerResource = new RangerAccessResourceImpl();
+			rangerRequest.setResource(rangerResource);
+			rangerRequest.setAccessType(accessType);
+			rangerRequest.setAction(action);
+			rangerRequest.setRequestData(resource.name());
+
+			if (resourceKey != null) {
+				rangerResource.setValue(resourceKey, resource.name());
+			}
+
+			if (validationFailed) {
+				MiscUtil.logErrorMessageByInterval(logger, validationStr
+						+ ", request=" + rangerRequest);
+			} else {
+
+				try {
+					final RangerAccessResult result;
+
+					if (decision != null) {
+						authContext.preProcess(rangerRequest); // for the client and cluster details in the audit
+
+						result = RangerKafkaDecisionCache.copyResult(decision, rangerRequest);
+
+						auditHandler.processResult(result);
+					} else {
+						result = rangerPlugin.isAccessAllowed(rangerRequest);
+					}
+
+					if (result == null) {
+						logger.error("Ranger Plugin returned null. Returning false");
+					} else {
+						returnValue = result.getIsAllowed();
+					}
+				} catch (Throwable t) {
+					logger.error("Error while calling isAccessAllowed(). request="
+							+ rangerRequest, t);
+				} finally {
+					auditHandler.flushAudit();
 				}
-			} catch (Throwable t) {
-				logger.error("Error while calling isAccessAllowed(). request="
-						+ rangerRequest, t);
-			} finally {
-				auditHandler.flushAudit();
 			}
 		}
 		RangerPerfTracer.log(perf);
 
 		if (logger.isDebugEnabled()) {
-			logger.debug("rangerRequest=" + rangerRequest + ", return="
+			logger.debug("rangerRequest=" + rangerRequest + ", decision=" + decision + ", return="
 					+ returnValue);
 		}
 		return returnValue;
@@ -318,6 +350,21 @@ public class RangerKafkaAuthorizer implements Authorizer {
 		return aclList;
 	}
 
+	private String mapToRangerResourceKey(ResourceType resourceType) {
+		if (resourceType.equals(Topic$.MODULE$)) {
+			return KEY_TOPIC;
+		} else if (resourceType.equals(Cluster$.MODULE$)) {
+			return KEY_CLUSTER;
+		} else if (resourceType.equals(Group$.MODULE$)) {
+			return KEY_CONSUMER_GROUP;
+		} else if (resourceType.equals(TransactionalId$.MODULE$)) {
+			return KEY_TRANSACTIONALID;
+		} else if (resourceType.equals(DelegationToken$.MODULE$)) {
+			return KEY_DELEGATIONTOKEN;
+		}
+		return null;
+	}
+
 	/**
 	 * @param operation
 	 * @return
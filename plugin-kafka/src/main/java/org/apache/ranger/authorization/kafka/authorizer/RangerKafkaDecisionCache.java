@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.kafka.authorizer;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerChildResourceFilter;
+import org.apache.ranger.plugin.service.RangerAuthContext;
+import org.apache.ranger.plugin.util.RangerRoles;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/*
+ * Access decisions of RangerKafkaAuthorizer, per principal (user, groups and access type) and resource, in one cache
+ * of up to maxSize decisions that evicts the least recently used ones.
+ *
+ * A decision for a resource not seen yet is made with RangerChildResourceFilter, for the resource itself: the resource
+ * trie of the policy engine finds the candidate policies for the topic name, including policies for topic prefixes and
+ * wildcards, and only those having items for the user, the groups or roles are evaluated. Decisions are kept until
+ * evicted, or until the policy version or the role version changes.
+ *
+ * Decisions are cached only when they can't depend on anything else, like tags, security zones, policy conditions
+ * (for example on the client IP address) or validity schedules; otherwise getDecision() returns null and the caller
+ * must evaluate the policies.
+ */
+class RangerKafkaDecisionCache {
+	private static final Log LOG = LogFactory.getLog(RangerKafkaDecisionCache.class);
+
+	private final int                          maxSize;
+	private final Cache<DecisionKey, Decision> decisions;
+
+	RangerKafkaDecisionCache(final int maxSize) {
+		this.maxSize   = maxSize;
+		this.decisions = CacheBuilder.newBuilder().maximumSize(Math.max(maxSize, 0)).<DecisionKey, Decision>build();
+	}
+
+	/*
+	 * Returns the decision for the principal to access the resource, without the request it was made for; or null
+	 * when the decision must be made by evaluating the policies.
+	 */
+	RangerAccessResult getDecision(RangerAuthContext authContext, String user, Set<String> groups, String accessType, String resourceKey, String resourceName) {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerKafkaDecisionCache.getDecision(" + user + ", " + groups + ", " + accessType + ", " + resourceKey + "=" + resourceName + ")");
+		}
+
+		RangerAccessResult ret = null;
+
+		if (maxSize > 0 && resourceName != null && authContext != null && authContext.getPolicyEngine() != null) {
+			long        policyVersion = authContext.getPolicyVersion();
+			RangerRoles roles         = authContext.getRangerRoles();
+			Long        roleVersion   = roles != null ? roles.getRoleVersion() : null;
+			DecisionKey key           = new DecisionKey(user, groups, accessType, resourceKey, resourceName);
+			Decision    decision      = decisions.getIfPresent(key);
+
+			if (decision == null || !decision.isForVersion(policyVersion, roleVersion)) {
+				RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+				resource.setValue(resourceKey, resourceName);
+
+				RangerChildResourceFilter filter = authContext.getChildResourceFilter(resource, resourceKey, user, groups, accessType);
+				RangerAccessResult        result = filter != null && filter.isCacheable() ? copyResult(filter.getResult(resourceName), null) : null;
+
+				decision = new Decision(policyVersion, roleVersion, result);
+
+				decisions.put(key, decision);
+			}
+
+			ret = decision.result;
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerKafkaDecisionCache.getDecision(" + user + ", " + groups + ", " + accessType + ", " + resourceKey + "=" + resourceName + "): " + ret);
+		}
+
+		return ret;
+	}
+
+	long size() {
+		return decisions.size();
+	}
+
+	/*
+	 * Returns a copy of the given decision, for the given request; to audit a decision made for an earlier request.
+	 */
+	static RangerAccessResult copyResult(RangerAccessResult result, RangerAccessRequest request) {
+		RangerAccessResult ret = new RangerAccessResult(result.getPolicyType(), result.getServiceName(), result.getServiceDef(), request);
+
+		ret.setAccessResultFrom(result);
+		ret.setAuditResultFrom(result);
+
+		return ret;
+	}
+
+	/*
+	 * Principal and resource of a decision; compared field by field, as user, group and resource names can contain any
+	 * character. Groups are compared as a set, whatever their order.
+	 */
+	private static final class DecisionKey {
+		private final String      user;
+		private final Set<String> groups;
+		private final String      accessType;
+		private final String      resourceKey;
+		private final String      resourceName;
+		private final int         hashCode;
+
+		DecisionKey(String user, Set<String> groups, String accessType, String resourceKey, String resourceName) {
+			this.user         = user;
+			this.groups       = groups == null ? Collections.<String>emptySet() : new HashSet<>(groups);
+			this.accessType   = accessType;
+			this.resourceKey  = resourceKey;
+			this.resourceName = resourceName;
+			this.hashCode     = Objects.hash(user, this.groups, accessType, resourceKey, resourceName);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+
+			if (!(obj instanceof DecisionKey)) {
+				return false;
+			}
+
+			DecisionKey other = (DecisionKey) obj;
+
+			return hashCode == other.hashCode && Objects.equals(user, other.user) && Objects.equals(accessType, other.accessType) && Objects.equals(resourceKey, other.resourceKey)
+					&& Objects.equals(resourceName, other.resourceName) && groups.equals(other.groups);
+		}
+	}
+
+	private static class Decision {
+		private final long               policyVersion;
+		private final Long               roleVersion;
+		private final RangerAccessResult result; // null when the decision can't be cached
+
+		Decision(long policyVersion, Long roleVersion, RangerAccessResult result) {
+			this.policyVersion = policyVersion;
+			this.roleVersion   = roleVersion;
+			this.result        = result;
+		}
+
+		boolean isForVersion(long policyVersion, Long roleVersion) {
+			return this.policyVersion == policyVersion && (this.roleVersion == null ? roleVersion == null : this.roleVersion.equals(roleVersion));
+		}
+	}
+}
@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.kafka.authorizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.service.RangerAuthContext;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link RangerKafkaDecisionCache}, with a synthetic storm of requests from many principals over many
+ * topics; no broker is needed.
+ */
+public class RangerKafkaDecisionCacheTest {
+
+    private static final int      TOPIC_COUNT        = 2000;
+    private static final int      TEAM_POLICY_COUNT  = 300;
+    private static final int      STORM_ROUNDS       = 5;
+    private static final String[] ACCESS_TYPES       = { RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.ACCESS_TYPE_DESCRIBE };
+
+    @Test
+    public void testDecisionsOfRequestStorm() {
+        RangerAuthContext        authContext = createAuthContext(createPolicies(true), 1L);
+        RangerKafkaDecisionCache cache       = new RangerKafkaDecisionCache(10000);
+        Map<String, Set<String>> principals  = getPrincipals();
+        List<String>             topics      = getTopics();
+
+        // decisions, including the audit flag, are the same as from evaluating the policies
+        int allowedCount = 0;
+
+        for (Map.Entry<String, Set<String>> principal : principals.entrySet()) {
+            for (String accessType : ACCESS_TYPES) {
+                for (String topic : topics) {
+                    RangerAccessResult expected = evaluate(authContext, principal.getKey(), principal.getValue(), accessType, RangerKafkaAuthorizer.KEY_TOPIC, topic);
+                    RangerAccessResult decision = cache.getDecision(authContext, principal.getKey(), principal.getValue(), accessType, RangerKafkaAuthorizer.KEY_TOPIC, topic);
+                    String             message  = "user=" + principal.getKey() + ", accessType=" + accessType + ", topic=" + topic;
+
+                    Assert.assertNotNull(message, decision);
+                    Assert.assertEquals(message, expected.getIsAllowed(), decision.getIsAllowed());
+                    Assert.assertEquals(message, expected.getIsAudited(), decision.getIsAudited());
+
+                    if (decision.getIsAllowed()) {
+                        allowedCount++;
+                    }
+                }
+            }
+        }
+
+        Assert.assertTrue(allowedCount > 0);
+
+        RangerAccessResult clusterDecision = cache.getDecision(authContext, "kafka", Collections.<String>emptySet(), RangerKafkaAuthorizer.ACCESS_TYPE_KAFKA_ADMIN, RangerKafkaAuthorizer.KEY_CLUSTER, "kafka-cluster");
+
+        Assert.assertTrue(clusterDecision.getIsAllowed());
+
+        // storm of requests, as from chatty producers and consumers: decisions are served from the cache
+        for (int i = 0; i < STORM_ROUNDS; i++) {
+            for (Map.Entry<String, Set<String>> principal : principals.entrySet()) {
+                for (String topic : topics) {
+                    RangerAccessResult cached = cache.getDecision(authContext, principal.getKey(), principal.getValue(), RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.KEY_TOPIC, topic);
+
+                    Assert.assertSame(cached, cache.getDecision(authContext, principal.getKey(), principal.getValue(), RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.KEY_TOPIC, topic));
+                }
+            }
+        }
+
+        Assert.assertTrue(cache.size() <= 10000);
+    }
+
+    @Test
+    public void testBoundedSize() {
+        RangerAuthContext        authContext = createAuthContext(createPolicies(true), 1L);
+        RangerKafkaDecisionCache cache       = new RangerKafkaDecisionCache(100);
+        Map<String, Set<String>> principals  = getPrincipals();
+        List<String>             topics      = getTopics();
+
+        for (int i = 0; i < 2; i++) {
+            for (Map.Entry<String, Set<String>> principal : principals.entrySet()) {
+                for (String topic : topics) {
+                    RangerAccessResult expected = evaluate(authContext, principal.getKey(), principal.getValue(), RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.KEY_TOPIC, topic);
+                    RangerAccessResult decision = cache.getDecision(authContext, principal.getKey(), principal.getValue(), RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.KEY_TOPIC, topic);
+
+                    Assert.assertEquals("user=" + principal.getKey() + ", topic=" + topic, expected.getIsAllowed(), decision.getIsAllowed());
+                }
+            }
+        }
+
+        // all principals together, not each of them, are limited to the cache size
+        Assert.assertTrue("size=" + cache.size(), cache.size() <= 100);
+    }
+
+    @Test
+    public void testPolicyVersionChange() {
+        RangerKafkaDecisionCache cache  = new RangerKafkaDecisionCache(10000);
+        Set<String>              groups = new HashSet<>(Arrays.asList("orders-readers"));
+
+        RangerAuthContext authContext = createAuthContext(createPolicies(true), 1L);
+
+        Assert.assertFalse(cache.getDecision(authContext, "bob", groups, RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.KEY_TOPIC, "orders_eu_1").getIsAllowed());
+        Assert.assertTrue(cache.getDecision(authContext, "bob", groups, RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.KEY_TOPIC, "orders_us_1").getIsAllowed());
+
+        // without the deny policy for bob
+        authContext = createAuthContext(createPolicies(false), 2L);
+
+        Assert.assertTrue(cache.getDecision(authContext, "bob", groups, RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.KEY_TOPIC, "orders_eu_1").getIsAllowed());
+    }
+
+    @Test
+    public void testNoDecisionsWithConditions() {
+        List<RangerPolicy> policies = createPolicies(true);
+        RangerPolicyItem   item     = createPolicyItem(users("carol"), groups(), RangerKafkaAuthorizer.ACCESS_TYPE_READ);
+
+        item.getConditions().add(new RangerPolicyItemCondition("ip-range", Collections.singletonList("10.1.*")));
+
+        policies.add(createPolicy(1000, RangerKafkaAuthorizer.KEY_TOPIC, "secure_*", true, item, null));
+
+        RangerAuthContext        authContext = createAuthContext(policies, 1L);
+        RangerKafkaDecisionCache cache       = new RangerKafkaDecisionCache(10000);
+
+        // decisions for carol can depend on the client address
+        Assert.assertNull(cache.getDecision(authContext, "carol", groups("admins"), RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.KEY_TOPIC, "secure_1"));
+        Assert.assertNotNull(cache.getDecision(authContext, "alice", groups("orders-readers"), RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.KEY_TOPIC, "secure_1"));
+    }
+
+    @Test
+    public void testNoSharedDecisionsForSimilarNames() {
+        RangerAuthContext        authContext = createAuthContext(createPolicies(true), 1L);
+        RangerKafkaDecisionCache cache       = new RangerKafkaDecisionCache(10000);
+
+        // group "admins,orders-readers", as in an LDAP DN, is not groups "admins" and "orders-readers"
+        Assert.assertTrue(cache.getDecision(authContext, "eve", groups("admins", "orders-readers"), RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.KEY_TOPIC, "payments").getIsAllowed());
+        Assert.assertFalse(cache.getDecision(authContext, "eve", groups("admins,orders-readers"), RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.KEY_TOPIC, "payments").getIsAllowed());
+
+        // the same groups, in any order, share decisions
+        Set<String> groups = new LinkedHashSet<>(Arrays.asList("orders-readers", "admins"));
+
+        Assert.assertSame(cache.getDecision(authContext, "eve", groups, RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.KEY_TOPIC, "payments"),
+                cache.getDecision(authContext, "eve", new LinkedHashSet<>(Arrays.asList("admins", "orders-readers")), RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.KEY_TOPIC, "payments"));
+    }
+
+    private static RangerAccessResult evaluate(RangerAuthContext authContext, String user, Set<String> groups, String accessType, String resourceKey, String resourceName) {
+        RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+        resource.setValue(resourceKey, resourceName);
+
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(resource, accessType, user, groups);
+
+        authContext.preProcess(request);
+
+        return authContext.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+    }
+
+    private static Map<String, Set<String>> getPrincipals() {
+        Map<String, Set<String>> ret = new LinkedHashMap<>();
+
+        ret.put("alice", groups("orders-readers"));
+        ret.put("bob", groups("orders-readers"));
+        ret.put("carol", groups("admins"));
+        ret.put("dave", groups());
+        ret.put("user_7", groups());
+        ret.put("user_250", groups("orders-readers"));
+
+        return ret;
+    }
+
+    private static List<String> getTopics() {
+        List<String> ret = new ArrayList<>();
+
+        ret.add("payments");
+
+        for (int i = 0; ret.size() < TOPIC_COUNT; i++) {
+            ret.add("orders_eu_" + i);
+            ret.add("orders_us_" + i);
+            ret.add("logs_" + i);
+            ret.add("team_" + (i % TEAM_POLICY_COUNT) + "_" + i);
+            ret.add("misc_" + i);
+        }
+
+        return ret;
+    }
+
+    private static List<RangerPolicy> createPolicies(boolean withDenyForBob) {
+        List<RangerPolicy> ret = new ArrayList<>();
+        String[]           all = { RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.ACCESS_TYPE_WRITE, RangerKafkaAuthorizer.ACCESS_TYPE_DESCRIBE };
+
+        ret.add(createPolicy(1, RangerKafkaAuthorizer.KEY_TOPIC, "*", true, createPolicyItem(users(), groups("admins"), all), null));
+        ret.add(createPolicy(2, RangerKafkaAuthorizer.KEY_TOPIC, "orders_*", true, createPolicyItem(users(), groups("orders-readers"), RangerKafkaAuthorizer.ACCESS_TYPE_READ, RangerKafkaAuthorizer.ACCESS_TYPE_DESCRIBE), null));
+        ret.add(createPolicy(4, RangerKafkaAuthorizer.KEY_TOPIC, "payments", false, createPolicyItem(users("alice"), groups(), RangerKafkaAuthorizer.ACCESS_TYPE_WRITE), null));
+        ret.add(createPolicy(5, RangerKafkaAuthorizer.KEY_TOPIC, "logs_*", false, createPolicyItem(users(), groups(RangerPolicyEngine.GROUP_PUBLIC), RangerKafkaAuthorizer.ACCESS_TYPE_READ), null));
+        ret.add(createPolicy(6, RangerKafkaAuthorizer.KEY_CLUSTER, "*", true, createPolicyItem(users("kafka"), groups(), RangerKafkaAuthorizer.ACCESS_TYPE_KAFKA_ADMIN), null));
+
+        if (withDenyForBob) {
+            ret.add(createPolicy(3, RangerKafkaAuthorizer.KEY_TOPIC, "orders_eu_*", true, null, createPolicyItem(users("bob"), groups(), RangerKafkaAuthorizer.ACCESS_TYPE_READ)));
+        }
+
+        for (int i = 0; i < TEAM_POLICY_COUNT; i++) {
+            ret.add(createPolicy(100 + i, RangerKafkaAuthorizer.KEY_TOPIC, "team_" + i + "_*", i % 2 == 0, createPolicyItem(users("user_" + i), groups(), all), null));
+        }
+
+        return ret;
+    }
+
+    private static RangerAuthContext createAuthContext(List<RangerPolicy> policies, long policyVersion) {
+        ServicePolicies           servicePolicies = new ServicePolicies();
+        RangerPolicyEngineOptions options         = new RangerPolicyEngineOptions();
+
+        try {
+            servicePolicies.setServiceDef(EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_KAFKA_NAME));
+        } catch (Exception excp) {
+            throw new RuntimeException(excp);
+        }
+
+        servicePolicies.setServiceName("cl1_kafka");
+        servicePolicies.setPolicyVersion(policyVersion);
+        servicePolicies.setPolicies(policies);
+
+        options.disableTrieLookupPrefilter = false;
+
+        return new RangerAuthContext(new RangerPolicyEngineImpl("test-decision-cache", servicePolicies, options), null, null);
+    }
+
+    private static RangerPolicy createPolicy(long id, String resourceKey, String value, boolean isAuditEnabled, RangerPolicyItem allowItem, RangerPolicyItem denyItem) {
+        RangerPolicy                      ret       = new RangerPolicy();
+        Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+        resources.put(resourceKey, new RangerPolicyResource(value));
+
+        ret.setId(id);
+        ret.setName("policy-" + id);
+        ret.setService("cl1_kafka");
+        ret.setResources(resources);
+        ret.setIsAuditEnabled(isAuditEnabled);
+
+        if (allowItem != null) {
+            ret.getPolicyItems().add(allowItem);
+        }
+
+        if (denyItem != null) {
+            ret.getDenyPolicyItems().add(denyItem);
+        }
+
+        return ret;
+    }
+
+    private static RangerPolicyItem createPolicyItem(List<String> users, Set<String> groups, String... accessTypes) {
+        List<RangerPolicyItemAccess> accesses = new ArrayList<>();
+
+        for (String accessType : accessTypes) {
+            accesses.add(new RangerPolicyItemAccess(accessType));
+        }
+
+        return new RangerPolicyItem(accesses, users, new ArrayList<>(groups), null, new ArrayList<RangerPolicyItemCondition>(), false);
+    }
+
+    private static List<String> users(String... names) {
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    private static Set<String> groups(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+}
@@ -33,6 +33,7 @@ import org.apache.ranger.plugin.audit.RangerDefaultAuditHandler;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerChildResourceFilter;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.slf4j.Logger;
@@ -42,6 +43,8 @@ import java.io.IOException;
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -88,19 +91,10 @@ public class RangerSystemAccessControl
   private boolean checkPermission(RangerPrestoResource resource, Identity identity, PrestoAccessType accessType) {
     boolean ret = false;
 
-    UserGroupInformation ugi = UserGroupInformation.createRemoteUser(identity.getUser());
-
-    String[] groups = ugi != null ? ugi.getGroupNames() : null;
-
-    Set<String> userGroups = null;
-    if (groups != null && groups.length > 0) {
-      userGroups = new HashSet<>(Arrays.asList(groups));
-    }
-
     RangerPrestoAccessRequest request = new RangerPrestoAccessRequest(
       resource,
       identity.getUser(),
-      userGroups,
+      getUserGroups(identity),
       accessType
     );
 
@@ -112,6 +106,59 @@ public class RangerSystemAccessControl
     return ret;
   }
 
+  /*
+   * Returns the names of children of parent the user has any access to; access is not audited. Policies are looked up
+   * once for the whole listing, unless the plugin can't do so - then access is checked for each child.
+   */
+  private Set<String> filterChildResources(RangerPrestoResource parent, String childResourceName, Set<String> childNames, Identity identity) {
+    if (childNames == null || childNames.isEmpty()) {
+      return childNames;
+    }
+
+    Set<String>               ret        = new HashSet<>();
+    Set<String>               userGroups = getUserGroups(identity);
+    String                    accessType = RangerPolicyEngine.ANY_ACCESS;
+    RangerChildResourceFilter filter     = rangerPlugin.getChildResourceFilter(parent, childResourceName, identity.getUser(), userGroups, accessType);
+
+    if (filter != null) {
+      if (!filter.isNoneAccessible()) {
+        for (String childName : childNames) {
+          if (filter.isAccessible(childName)) {
+            ret.add(childName);
+          }
+        }
+      }
+    } else {
+      for (String childName : childNames) {
+        RangerPrestoResource resource = createResource(parent, childResourceName, childName);
+        RangerAccessResult   result   = rangerPlugin.isAccessAllowed(new RangerAccessRequestImpl(resource, accessType, identity.getUser(), userGroups), null);
+
+        if (result != null && result.getIsAllowed()) {
+          ret.add(childName);
+        }
+      }
+    }
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("RangerSystemAccessControl.filterChildResources(" + parent.getAsString() + ", " + childResourceName + "): " + childNames.size() + " listed, " + ret.size() + " accessible, usedFilter=" + (filter != null));
+    }
+
+    return ret;
+  }
+
+  private static Set<String> getUserGroups(Identity identity) {
+    UserGroupInformation ugi = UserGroupInformation.createRemoteUser(identity.getUser());
+
+    String[] groups = ugi != null ? ugi.getGroupNames() : null;
+
+    Set<String> userGroups = null;
+    if (groups != null && groups.length > 0) {
+      userGroups = new HashSet<>(Arrays.asList(groups));
+    }
+
+    return userGroups;
+  }
+
   @Override
   public void checkCanSetUser(Optional<Principal> principal, String userName) {
     if(LOG.isDebugEnabled()) {
@@ -144,7 +191,8 @@ public class RangerSystemAccessControl
 
   @Override
   public Set<String> filterCatalogs(Identity identity, Set<String> catalogs) {
-    return catalogs;
+    LOG.debug("==> RangerSystemAccessControl.filterCatalogs()");
+    return filterChildResources(new RangerPrestoResource(), RangerPrestoResource.KEY_CATALOG, catalogs, identity);
   }
 
   @Override
@@ -183,7 +231,7 @@ public class RangerSystemAccessControl
   @Override
   public Set<String> filterSchemas(Identity identity, String catalogName, Set<String> schemaNames) {
     LOG.debug("==> RangerSystemAccessControl.filterSchemas(" + catalogName + ")");
-    return schemaNames;
+    return filterChildResources(createResource(catalogName), RangerPrestoResource.KEY_SCHEMA, schemaNames, identity);
   }
 
   @Override
@@ -222,7 +270,24 @@ public class RangerSystemAccessControl
   @Override
   public Set<SchemaTableName> filterTables(Identity identity, String catalogName, Set<SchemaTableName> tableNames) {
     LOG.debug("==> RangerSystemAccessControl.filterTables(" + catalogName + ")");
-    return tableNames;
+
+    if (tableNames == null || tableNames.isEmpty()) {
+      return tableNames;
+    }
+
+    Map<String, Set<String>> schemaTables = new HashMap<>();
+    for (SchemaTableName tableName : tableNames) {
+      schemaTables.computeIfAbsent(tableName.getSchemaName(), k -> new HashSet<>()).add(tableName.getTableName());
+    }
+
+    Set<SchemaTableName> ret = new HashSet<>();
+    for (Map.Entry<String, Set<String>> entry : schemaTables.entrySet()) {
+      for (String tableName : filterChildResources(createResource(catalogName, entry.getKey()), RangerPrestoResource.KEY_TABLE, entry.getValue(), identity)) {
+        ret.add(new SchemaTableName(entry.getKey(), tableName));
+      }
+    }
+
+    return ret;
   }
 
   @Override
@@ -346,6 +411,15 @@ public class RangerSystemAccessControl
       catalogSchemaTableName.getSchemaTableName().getTableName());
   }
 
+  private static RangerPrestoResource createResource(RangerPrestoResource parent, String childResourceName, String childName) {
+    RangerPrestoResource res = new RangerPrestoResource();
+    for (String key : parent.getKeys() == null ? Collections.<String>emptySet() : parent.getKeys()) {
+      res.setValue(key, parent.getValue(key));
+    }
+    res.setValue(childResourceName, childName);
+    return res;
+  }
+
   private static RangerPrestoResource createResource(String catalogName) {
     return new RangerPrestoResource(catalogName, Optional.empty(), Optional.empty());
   }
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.authorization.presto.authorizer;
+
+import io.prestosql.spi.connector.SchemaTableName;
+import io.prestosql.spi.security.Identity;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessResource;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.service.RangerBasePlugin;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Listings are filtered with the policies in presto-policies.json, both with a child resource filter and, when the
+ * plugin can't give one, by checking access to each child; the two must give the same result.
+ */
+public class RangerSystemAccessControlTest {
+  private static final Identity USER1 = new Identity("user1", Optional.empty());
+  private static final Identity USER2 = new Identity("user2", Optional.empty());
+  private static final Identity USER3 = new Identity("user3", Optional.empty());
+
+  private static RangerSystemAccessControl accessControl;
+  private static RangerBasePlugin          rangerPlugin;
+
+  @BeforeClass
+  public static void setup() throws Exception {
+    accessControl = new RangerSystemAccessControl(new HashMap<String, String>());
+    rangerPlugin  = (RangerBasePlugin) getPluginField().get(accessControl);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    getPluginField().set(accessControl, rangerPlugin);
+  }
+
+  @Test
+  public void testFilterCatalogs() throws Exception {
+    Set<String> catalogs = set("hive", "system", "tpch");
+
+    for (boolean useFilter : new boolean[] { true, false }) {
+      RangerBasePlugin plugin = usePlugin(useFilter);
+
+      Assert.assertEquals(set("hive", "system"), accessControl.filterCatalogs(USER1, catalogs));
+      Assert.assertEquals(set("hive"), accessControl.filterCatalogs(USER2, catalogs));
+      Assert.assertEquals(set(), accessControl.filterCatalogs(USER3, catalogs));
+
+      verifyAccessChecks(plugin, useFilter);
+    }
+  }
+
+  @Test
+  public void testFilterSchemas() throws Exception {
+    Set<String> schemas = set("sales", "hr", "default");
+
+    for (boolean useFilter : new boolean[] { true, false }) {
+      RangerBasePlugin plugin = usePlugin(useFilter);
+
+      Assert.assertEquals(set("sales"), accessControl.filterSchemas(USER1, "hive", schemas));
+      Assert.assertEquals(set("hr"), accessControl.filterSchemas(USER2, "hive", schemas));
+      Assert.assertEquals(set(), accessControl.filterSchemas(USER3, "hive", schemas));
+      Assert.assertEquals(set(), accessControl.filterSchemas(USER1, "tpch", schemas));
+
+      verifyAccessChecks(plugin, useFilter);
+    }
+  }
+
+  @Test
+  public void testFilterTables() throws Exception {
+    SchemaTableName      orders   = new SchemaTableName("sales", "orders");
+    SchemaTableName      secret   = new SchemaTableName("sales", "secret");
+    SchemaTableName      salaries = new SchemaTableName("hr", "salaries");
+    SchemaTableName      other    = new SchemaTableName("default", "t1");
+    Set<SchemaTableName> tables   = new HashSet<>(Arrays.asList(orders, secret, salaries, other));
+
+    for (boolean useFilter : new boolean[] { true, false }) {
+      RangerBasePlugin plugin = usePlugin(useFilter);
+
+      // sales.secret is denied to user1 by a deny policy
+      Assert.assertEquals(new HashSet<>(Arrays.asList(orders)), accessControl.filterTables(USER1, "hive", tables));
+      Assert.assertEquals(new HashSet<>(Arrays.asList(salaries)), accessControl.filterTables(USER2, "hive", tables));
+      Assert.assertEquals(new HashSet<SchemaTableName>(), accessControl.filterTables(USER3, "hive", tables));
+
+      verifyAccessChecks(plugin, useFilter);
+    }
+  }
+
+  // replaces the plugin of accessControl with a spy; without filter, the spy gives no child resource filter
+  private static RangerBasePlugin usePlugin(boolean useFilter) throws Exception {
+    RangerBasePlugin ret = Mockito.spy(rangerPlugin);
+
+    if (!useFilter) {
+      Mockito.doReturn(null).when(ret).getChildResourceFilter(ArgumentMatchers.any(RangerAccessResource.class), ArgumentMatchers.anyString(), ArgumentMatchers.anyString(),
+          ArgumentMatchers.<Set<String>>any(), ArgumentMatchers.anyString());
+    }
+
+    getPluginField().set(accessControl, ret);
+
+    return ret;
+  }
+
+  // both paths check for any access to each child
+  private static void verifyAccessChecks(RangerBasePlugin plugin, boolean useFilter) {
+    Mockito.verify(plugin, Mockito.atLeastOnce()).getChildResourceFilter(ArgumentMatchers.any(RangerAccessResource.class), ArgumentMatchers.anyString(), ArgumentMatchers.anyString(),
+        ArgumentMatchers.<Set<String>>any(), ArgumentMatchers.eq(RangerPolicyEngine.ANY_ACCESS));
+
+    if (useFilter) {
+      Mockito.verify(plugin, Mockito.never()).isAccessAllowed(ArgumentMatchers.any(RangerAccessRequest.class), ArgumentMatchers.any());
+    } else {
+      ArgumentCaptor<RangerAccessRequest> requests = ArgumentCaptor.forClass(RangerAccessRequest.class);
+
+      Mockito.verify(plugin, Mockito.atLeastOnce()).isAccessAllowed(requests.capture(), ArgumentMatchers.any());
+
+      for (RangerAccessRequest request : requests.getAllValues()) {
+        Assert.assertEquals(RangerPolicyEngine.ANY_ACCESS, request.getAccessType());
+      }
+    }
+  }
+
+  private static Field getPluginField() throws Exception {
+    Field ret = RangerSystemAccessControl.class.getDeclaredField("rangerPlugin");
+
+    ret.setAccessible(true);
+
+    return ret;
+  }
+
+  private static Set<String> set(String... values) {
+    return new HashSet<>(Arrays.asList(values));
+  }
+}
@@ -22,11 +22,15 @@ package org.apache.ranger.authorization.solr.authorizer;
 import java.io.IOException;
 import java.security.Principal;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 import com.google.common.base.Joiner;
 import org.apache.commons.collections.CollectionUtils;
@@ -37,8 +41,10 @@ import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.service.RangerAuthContext;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
@@ -73,6 +79,10 @@ public class RangerSolrAuthorizer extends SearchComponent implements Authorizati
 	public static final String TOKEN_COUNT_PROP = "tokenCountField";
 	public static final String DEFAULT_TOKEN_COUNT_FIELD_PROP = "ranger_auth_count";
 	public static final String QPARSER_PROP = "qParser";
+	public static final String FILTER_QUERY_CACHE_SIZE_PROP = "filterQueryCacheSize";
+	public static final int DEFAULT_FILTER_QUERY_CACHE_SIZE = 10000;
+	public static final String FILTER_QUERY_CACHE_TTL_MS_PROP = "filterQueryCacheTtlMs";
+	public static final long DEFAULT_FILTER_QUERY_CACHE_TTL_MS = 60 * 1000L;
 
 	public static final String PROP_USE_PROXY_IP = "xasecure.solr.use_proxy_ip";
 	public static final String PROP_PROXY_IP_HEADER = "xasecure.solr.proxy_ip_header";
@@ -101,6 +111,8 @@ public class RangerSolrAuthorizer extends SearchComponent implements Authorizati
 	private String tokenCountField;
 	private boolean allowMissingValue;
 	private String qParserName;
+	private long filterQueryCacheTtlMs;
+	private Map<String, UserFilterQuery> filterQueryCache;
 
 	private enum MatchType {
 		DISJUNCTIVE,
@@ -124,9 +136,23 @@ public class RangerSolrAuthorizer extends SearchComponent implements Authorizati
 			this.allowMissingValue = params.getBool(ALLOW_MISSING_VAL_PROP, false);
 			this.tokenCountField = params.get(TOKEN_COUNT_PROP, DEFAULT_TOKEN_COUNT_FIELD_PROP);
 		}
+
+		final int filterQueryCacheSize = params.getInt(FILTER_QUERY_CACHE_SIZE_PROP, DEFAULT_FILTER_QUERY_CACHE_SIZE);
+
+		this.filterQueryCacheTtlMs = params.getLong(FILTER_QUERY_CACHE_TTL_MS_PROP, DEFAULT_FILTER_QUERY_CACHE_TTL_MS);
+
+		if (filterQueryCacheSize > 0 && filterQueryCacheTtlMs > 0) {
+			this.filterQueryCache = Collections.synchronizedMap(new LinkedHashMap<String, UserFilterQuery>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, UserFilterQuery> eldest) {
+					return size() > filterQueryCacheSize;
+				}
+			});
+		}
 		logger.info("RangerSolrAuthorizer.init(): authField={" + authField + "}, allRolesToken={" + allRolesToken +
 				"}, enabled={" + enabled + "}, matchType={" + matchMode + "}, qParserName={" + qParserName +
-				"}, allowMissingValue={" + allowMissingValue + "}, tokenCountField={" + tokenCountField + "}");
+				"}, allowMissingValue={" + allowMissingValue + "}, tokenCountField={" + tokenCountField +
+				"}, filterQueryCacheSize={" + filterQueryCacheSize + "}, filterQueryCacheTtlMs={" + filterQueryCacheTtlMs + "}");
 	}
 
 	/*
@@ -322,19 +348,13 @@ public class RangerSolrAuthorizer extends SearchComponent implements Authorizati
 			return;
 		}
 
-		Set<String> roles = getRolesForUser(userName);
-		if (roles != null && !roles.isEmpty()) {
-			String filterQuery;
-			if (matchMode == MatchType.DISJUNCTIVE) {
-				filterQuery = getDisjunctiveFilterQueryStr(roles);
-			} else {
-				filterQuery = getConjunctiveFilterQueryStr(roles);
-			}
+		String filterQuery = getFilterQuery(userName);
+		if (filterQuery != null) {
 			ModifiableSolrParams newParams = new ModifiableSolrParams(rb.req.getParams());
 			newParams.add("fq", filterQuery);
 			rb.req.setParams(newParams);
 			if (logger.isDebugEnabled()) {
-				logger.debug("Adding filter query {" + filterQuery + "} for user {" + userName + "} with roles {" + roles + "}");
+				logger.debug("Adding filter query {" + filterQuery + "} for user {" + userName + "}");
 			}
 
 		} else {
@@ -556,14 +576,53 @@ public class RangerSolrAuthorizer extends SearchComponent implements Authorizati
 		return filterQuery.toString();
 	}
 
-	private Set<String> getRolesForUser(String name) {
-		if (solrPlugin.getCurrentRangerAuthContext() != null) {
-			return solrPlugin.getCurrentRangerAuthContext().getRolesFromUserAndGroups(name, getGroupsForUser(name));
-		}
-		else {
+	/*
+	 * Returns the filter query for the documents the user can see, or null if the user has no roles. Roles are sorted,
+	 * so that the same roles always give the same filter query, which then hits the same entry in Solr's filterCache.
+	 * Filter queries are kept for filterQueryCacheTtlMs, unless the user's groups or the roles change before.
+	 */
+	private String getFilterQuery(String userName) {
+		RangerAuthContext authContext = solrPlugin.getCurrentRangerAuthContext();
+
+		if (authContext == null) {
 			logger.info("Current Ranger Auth Context is null!!");
 			return null;
 		}
+
+		return getFilterQuery(userName, getGroupsForUser(userName), authContext, System.currentTimeMillis());
+	}
+
+	String getFilterQuery(String userName, Set<String> groups, RangerAuthContext authContext, long now) {
+		RangerRoles     rangerRoles = authContext.getPolicyEngine() != null ? authContext.getRangerRoles() : null;
+		Long            roleVersion = rangerRoles != null ? rangerRoles.getRoleVersion() : null;
+		UserFilterQuery cached      = filterQueryCache != null ? filterQueryCache.get(userName) : null;
+
+		if (cached != null && cached.isValid(groups, roleVersion, now)) {
+			return cached.filterQuery;
+		}
+
+		Set<String> roles = authContext.getRolesFromUserAndGroups(userName, groups);
+		String      ret   = null;
+
+		if (roles != null && !roles.isEmpty()) {
+			Set<String> sortedRoles = new TreeSet<>(roles);
+
+			if (matchMode == MatchType.DISJUNCTIVE) {
+				ret = getDisjunctiveFilterQueryStr(sortedRoles);
+			} else {
+				ret = getConjunctiveFilterQueryStr(sortedRoles);
+			}
+		}
+
+		if (filterQueryCache != null) {
+			filterQueryCache.put(userName, new UserFilterQuery(groups, roleVersion, now + filterQueryCacheTtlMs, ret));
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("getFilterQuery(" + userName + "): groups=" + groups + ", roles=" + roles + ", filterQuery=" + ret);
+		}
+
+		return ret;
 	}
 
 	/**
@@ -597,4 +656,24 @@ public class RangerSolrAuthorizer extends SearchComponent implements Authorizati
 
 		return userName;
 	}
+
+	private static class UserFilterQuery {
+		final Set<String> groups;
+		final Long        roleVersion;
+		final long        expiryTime;
+		final String      filterQuery;
+
+		UserFilterQuery(Set<String> groups, Long roleVersion, long expiryTime, String filterQuery) {
+			this.groups      = groups != null ? new HashSet<>(groups) : Collections.<String>emptySet();
+			this.roleVersion = roleVersion;
+			this.expiryTime  = expiryTime;
+			this.filterQuery = filterQuery;
+		}
+
+		boolean isValid(Set<String> groups, Long roleVersion, long now) {
+			return now < expiryTime
+					&& (roleVersion == null ? this.roleVersion == null : roleVersion.equals(this.roleVersion))
+					&& this.groups.equals(groups != null ? groups : Collections.<String>emptySet());
+		}
+	}
 }
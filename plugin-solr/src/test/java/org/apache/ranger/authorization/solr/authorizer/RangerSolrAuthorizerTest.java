@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.authorization.solr.authorizer;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.service.RangerAuthContext;
+import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class RangerSolrAuthorizerTest {
+
+	private static final long TTL_MS = 60 * 1000L;
+
+	private RangerAuthContext authContext;
+	private RangerRoles       rangerRoles;
+
+	@Before
+	public void setup() {
+		authContext = Mockito.mock(RangerAuthContext.class);
+		rangerRoles = new RangerRoles();
+
+		rangerRoles.setRoleVersion(1L);
+
+		Mockito.when(authContext.getPolicyEngine()).thenReturn(Mockito.mock(RangerPolicyEngine.class));
+		Mockito.when(authContext.getRangerRoles()).thenReturn(rangerRoles);
+	}
+
+	@Test
+	public void testCanonicalFilterQuery() {
+		RangerSolrAuthorizer authorizer = createAuthorizer("DISJUNCTIVE", 0);
+		Set<String>          groups     = Collections.singleton("analysts");
+
+		// the same roles, returned in different orders, give the same filter query
+		Mockito.when(authContext.getRolesFromUserAndGroups("user1", groups)).thenReturn(orderedSet("sales", "hr", "admin"));
+		Mockito.when(authContext.getRolesFromUserAndGroups("user2", groups)).thenReturn(orderedSet("admin", "sales", "hr"));
+
+		String filterQuery = authorizer.getFilterQuery("user1", groups, authContext, 0);
+
+		Assert.assertEquals(" {!raw f=ranger_auth v=admin} {!raw f=ranger_auth v=hr} {!raw f=ranger_auth v=sales}", filterQuery);
+		Assert.assertEquals(filterQuery, authorizer.getFilterQuery("user2", groups, authContext, 0));
+
+		authorizer = createAuthorizer("CONJUNCTIVE", 0);
+
+		Assert.assertEquals(" {!subset set_field=\"ranger_auth\" set_value=\"admin,hr,sales\" count_field=\"ranger_auth_count\" allow_missing_val=false }",
+				authorizer.getFilterQuery("user1", groups, authContext, 0));
+		Assert.assertEquals(authorizer.getFilterQuery("user1", groups, authContext, 0), authorizer.getFilterQuery("user2", groups, authContext, 0));
+
+		// no roles, no filter query
+		Assert.assertNull(authorizer.getFilterQuery("user3", groups, authContext, 0));
+	}
+
+	@Test
+	public void testFilterQueryCache() {
+		RangerSolrAuthorizer authorizer = createAuthorizer("DISJUNCTIVE", TTL_MS);
+		Set<String>          groups     = Collections.singleton("analysts");
+
+		Mockito.when(authContext.getRolesFromUserAndGroups("user1", groups)).thenReturn(orderedSet("hr"));
+		Mockito.when(authContext.getRolesFromUserAndGroups("user2", groups)).thenReturn(orderedSet("sales"));
+
+		String filterQuery = authorizer.getFilterQuery("user1", groups, authContext, 0);
+
+		// hit
+		Assert.assertSame(filterQuery, authorizer.getFilterQuery("user1", groups, authContext, TTL_MS - 1));
+		Mockito.verify(authContext, Mockito.times(1)).getRolesFromUserAndGroups("user1", groups);
+
+		// other users don't share the entry
+		Assert.assertEquals(" {!raw f=ranger_auth v=sales}", authorizer.getFilterQuery("user2", groups, authContext, 1));
+		Mockito.verify(authContext, Mockito.times(1)).getRolesFromUserAndGroups("user2", groups);
+
+		// expiry
+		Assert.assertEquals(filterQuery, authorizer.getFilterQuery("user1", groups, authContext, TTL_MS));
+		Mockito.verify(authContext, Mockito.times(2)).getRolesFromUserAndGroups("user1", groups);
+
+		// change of the roles
+		rangerRoles.setRoleVersion(2L);
+
+		authorizer.getFilterQuery("user1", groups, authContext, TTL_MS + 1);
+		Mockito.verify(authContext, Mockito.times(3)).getRolesFromUserAndGroups("user1", groups);
+
+		// change of the user's groups
+		Set<String> otherGroups = Collections.singleton("admins");
+
+		Mockito.when(authContext.getRolesFromUserAndGroups("user1", otherGroups)).thenReturn(orderedSet("admin"));
+
+		Assert.assertEquals(" {!raw f=ranger_auth v=admin}", authorizer.getFilterQuery("user1", otherGroups, authContext, TTL_MS + 2));
+	}
+
+	@Test
+	public void testFilterQueryCacheDisabled() {
+		RangerSolrAuthorizer authorizer = createAuthorizer("DISJUNCTIVE", 0);
+		Set<String>          groups     = Collections.singleton("analysts");
+
+		Mockito.when(authContext.getRolesFromUserAndGroups("user1", groups)).thenReturn(orderedSet("hr"));
+
+		authorizer.getFilterQuery("user1", groups, authContext, 0);
+		authorizer.getFilterQuery("user1", groups, authContext, 0);
+
+		Mockito.verify(authContext, Mockito.times(2)).getRolesFromUserAndGroups("user1", groups);
+	}
+
+	private static RangerSolrAuthorizer createAuthorizer(String matchMode, long filterQueryCacheTtlMs) {
+		RangerSolrAuthorizer authorizer = new RangerSolrAuthorizer();
+		NamedList<Object>    args       = new NamedList<>();
+
+		args.add(RangerSolrAuthorizer.ENABLED_PROP, "true");
+		args.add(RangerSolrAuthorizer.MODE_PROP, matchMode);
+		args.add(RangerSolrAuthorizer.FILTER_QUERY_CACHE_TTL_MS_PROP, String.valueOf(filterQueryCacheTtlMs));
+
+		authorizer.init(args);
+
+		return authorizer;
+	}
+
+	private static Set<String> orderedSet(String... values) {
+		return new LinkedHashSet<>(Arrays.asList(values));
+	}
+}
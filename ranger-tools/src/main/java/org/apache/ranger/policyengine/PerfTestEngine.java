@@ -26,6 +26,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.model.RangerPolicy;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.policyengine.*;
+import org.apache.ranger.plugin.util.RangerObjectDeduplicator;
 import org.apache.ranger.plugin.util.ServicePolicies;
 
 import java.io.InputStream;
@@ -73,6 +74,11 @@ public class PerfTestEngine {
 			reader = new InputStreamReader(in, Charset.forName("UTF-8"));
 
 			servicePolicies = gsonBuilder.fromJson(reader, ServicePolicies.class);
+
+			if (policyEngineOptions.deduplicateStrings) {
+				RangerObjectDeduplicator.deduplicate(servicePolicies, servicePolicies.getServiceName());
+			}
+
 			RangerServiceDef serviceDef = servicePolicies.getServiceDef();
 			String serviceType = (serviceDef != null) ? serviceDef.getName() : "";
 			rangerPluginContext = new RangerPluginContext(serviceType);
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.policyengine;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.ranger.plugin.geo.BinarySearchTree;
+import org.apache.ranger.plugin.geo.RangerGeolocationData;
+import org.apache.ranger.plugin.geo.RangerGeolocationDatabase;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * A parameterized JUnit test that compares geolocation load time and lookup latency of BinarySearchTree, which RangerGeolocationDatabase used to hold ranges in,
+ * with the array-backed index RangerGeolocationDatabase builds now, and with the same index memory-mapped from its binary form.
+ * Ranges are added in ascending order, as they appear in GeoIP files. Loading into the tree is quadratic in that order, so the tree is measured only up to MAX_TREE_RANGES.
+ * Results are written to target/ranger-geolocation-performance.csv.
+ */
+@RunWith(Parameterized.class)
+public class RangerGeolocationPerformanceTest {
+
+	private static final int MAX_TREE_RANGES = 50_000;
+
+	/* pre-warming unit-under-test's method with this many call iterations, so all possible JIT optimization happen before measuring performance */
+	private static final int WARM_UP__ITERATIONS = 100_000;
+
+	private static final int LOOKUP_ITERATIONS = 1_000_000;
+
+	@Parameter
+	public Integer numberOfRanges;
+
+	@Parameters(name = "{index}: geolocation(ranges: {0})")
+	public static Iterable<Object[]> data() {
+		return Arrays.asList(new Object[][] { { 10_000 }, { 50_000 }, { 1_000_000 } });
+	}
+
+	@BeforeClass
+	public static void init() throws IOException {
+		Files.write("variant;ranges;load-ms;average-lookup-ns;\n", outputFile(), Charsets.UTF_8);
+	}
+
+	@Test
+	public void binarySearchTreeTest() throws Exception {
+		if (numberOfRanges > MAX_TREE_RANGES) {
+			return;
+		}
+
+		List<String[]> ranges    = createRanges(numberOfRanges);
+		long           startTime = System.nanoTime();
+
+		BinarySearchTree<RangerGeolocationData, Long> tree = new BinarySearchTree<>();
+
+		for (int i = 0; i < ranges.size(); i++) {
+			tree.insert(RangerGeolocationData.create(ranges.get(i), i, true));
+		}
+
+		Method rebalance = BinarySearchTree.class.getDeclaredMethod("rebalance");
+
+		rebalance.setAccessible(true);
+		rebalance.invoke(tree);
+
+		long     loadTime = (System.nanoTime() - startTime) / (1000 * 1000);
+		String[] lookups  = createLookups(numberOfRanges);
+
+		for (int i = 0; i < WARM_UP__ITERATIONS + LOOKUP_ITERATIONS; i++) {
+			if (i == WARM_UP__ITERATIONS) {
+				startTime = System.nanoTime();
+			}
+
+			// using return value with a cheap operation: System#identityHashCode so JIT wont remove it as dead code
+			System.identityHashCode(tree.find(RangerGeolocationData.ipAddressToLong(lookups[i % lookups.length])));
+		}
+
+		record("tree", loadTime, System.nanoTime() - startTime);
+	}
+
+	@Test
+	public void indexTest() throws Exception {
+		List<String[]> ranges    = createRanges(numberOfRanges);
+		long           startTime = System.nanoTime();
+
+		RangerGeolocationDatabase database = new RangerGeolocationDatabase();
+
+		for (int i = 0; i < ranges.size(); i++) {
+			database.insert(RangerGeolocationData.create(ranges.get(i), i, true));
+		}
+
+		database.optimize();
+
+		lookup("index", System.nanoTime() - startTime, database);
+	}
+
+	@Test
+	public void mappedIndexTest() throws Exception {
+		List<String[]> ranges   = createRanges(numberOfRanges);
+		File           file     = new File("target", "ranger-geolocation-performance-" + numberOfRanges + ".bin");
+
+		RangerGeolocationDatabase database = new RangerGeolocationDatabase();
+
+		for (int i = 0; i < ranges.size(); i++) {
+			database.insert(RangerGeolocationData.create(ranges.get(i), i, true));
+		}
+
+		database.save(file);
+
+		long startTime = System.nanoTime();
+
+		database = RangerGeolocationDatabase.load(file);
+
+		lookup("mapped-index", System.nanoTime() - startTime, database);
+	}
+
+	private void lookup(String variant, long loadTimeNanos, RangerGeolocationDatabase database) throws IOException {
+		String[] lookups   = createLookups(numberOfRanges);
+		long     startTime = 0;
+
+		for (int i = 0; i < WARM_UP__ITERATIONS + LOOKUP_ITERATIONS; i++) {
+			if (i == WARM_UP__ITERATIONS) {
+				startTime = System.nanoTime();
+			}
+
+			System.identityHashCode(database.find(lookups[i % lookups.length]));
+		}
+
+		record(variant, loadTimeNanos / (1000 * 1000), System.nanoTime() - startTime);
+	}
+
+	private void record(String variant, long loadTimeMs, long lookupTimeNanos) throws IOException {
+		Files.append(String.format("%s;%s;%s;%s;\n", variant, numberOfRanges, loadTimeMs, lookupTimeNanos / LOOKUP_ITERATIONS), outputFile(), Charsets.UTF_8);
+	}
+
+	/* ranges of 16 addresses each, with a gap of 16 after every range, starting at 1.0.0.0 */
+	private static List<String[]> createRanges(int count) {
+		String[][] ret = new String[count][];
+
+		for (int i = 0; i < count; i++) {
+			long start = 0x01000000L + i * 32L;
+
+			ret[i] = new String[] { RangerGeolocationData.unsignedIntToIPAddress(start), RangerGeolocationData.unsignedIntToIPAddress(start + 15), "C" + (i % 200), "Country " + (i % 200), "City " + (i % 5000) };
+		}
+
+		return Arrays.asList(ret);
+	}
+
+	/* addresses inside and outside the ranges, in random order */
+	private static String[] createLookups(int numberOfRanges) {
+		Random   random = new Random(42);
+		String[] ret    = new String[10_000];
+
+		for (int i = 0; i < ret.length; i++) {
+			ret[i] = RangerGeolocationData.unsignedIntToIPAddress(0x01000000L + (long) (random.nextDouble() * numberOfRanges * 32L));
+		}
+
+		return ret;
+	}
+
+	private static File outputFile() {
+		return new File("target", "ranger-geolocation-performance.csv");
+	}
+}
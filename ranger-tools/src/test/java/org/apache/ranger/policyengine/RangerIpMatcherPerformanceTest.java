@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.policyengine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.ranger.plugin.conditionevaluator.RangerIpMatcher;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+/**
+ * A parameterized JUnit test that compares the time taken to match a request ip against an ip-range condition with increasing number of subnets:
+ * by string prefix comparison with each wildcard ip, as RangerIpMatcher used to, and with RangerIpMatcher, which walks a binary prefix trie.
+ * Half the policy ips are wildcards ("10.20.*") and half are single addresses; half the request ips match. The average time per match is
+ * written to target/ranger-ip-matcher-performance.csv.
+ */
+@RunWith(Parameterized.class)
+public class RangerIpMatcherPerformanceTest {
+
+	/* pre-warming unit-under-test's method with this many call iterations, so all possible JIT optimization happen before measuring performance */
+	private static final int WARM_UP__ITERATIONS = 200_000;
+
+	private static final int ITERATIONS = 500_000;
+
+	@Parameter(0)
+	public Integer numberOfSubnets;
+
+	@Parameter(1)
+	public String variant;
+
+	@Parameters(name = "{index}: ip-range(subnets: {0}, variant: {1})")
+	public static Iterable<Object[]> data() {
+		// tree set for maintaining natural ordering
+		Set<Integer> subnets  = Sets.newTreeSet(Lists.newArrayList(10, 100, 1_000));
+		Set<String>  variants = Sets.newTreeSet(Lists.newArrayList("string-prefix", "trie"));
+
+		return Iterables.transform(Sets.cartesianProduct(subnets, variants), new Function<List<? extends Object>, Object[]>() {
+			@Override
+			public Object[] apply(List<? extends Object> input) {
+				return input.toArray();
+			}
+		});
+	}
+
+	@BeforeClass
+	public static void init() throws IOException {
+		Files.write("subnets;variant;iterations;average-ns;\n", outputFile(), Charsets.UTF_8);
+	}
+
+	@Test
+	public void ipMatcherTest() throws Exception {
+		Random       random    = new Random(42);
+		List<String> policyIps = new ArrayList<>();
+
+		for (int i = 0; i < numberOfSubnets; i++) {
+			policyIps.add(i % 2 == 0 ? ("10." + (i / 2 % 256) + "." + (i / 512) + ".*") : ("172.16." + (i / 256) + "." + (i % 256)));
+		}
+
+		RangerAccessRequest[] requests = new RangerAccessRequest[1_000];
+
+		for (int i = 0; i < requests.length; i++) {
+			String policyIp  = policyIps.get(random.nextInt(policyIps.size()));
+			String requestIp = i % 2 == 0 ? policyIp.replace("*", Integer.toString(random.nextInt(256))) : ("192.168." + random.nextInt(256) + "." + random.nextInt(256));
+
+			requests[i] = createRequest(requestIp);
+		}
+
+		RangerIpMatcher ipMatcher     = createMatcher(policyIps);
+		StringMatcher   stringMatcher = new StringMatcher(policyIps);
+		long            startTime     = "trie".equals(variant) ? run(ipMatcher, requests) : run(stringMatcher, requests);
+
+		long averageNs = (System.nanoTime() - startTime) / ITERATIONS;
+
+		Files.append(String.format("%s;%s;%s;%s;\n", numberOfSubnets, variant, ITERATIONS, averageNs), outputFile(), Charsets.UTF_8);
+	}
+
+	private static long run(RangerIpMatcher ipMatcher, RangerAccessRequest[] requests) {
+		long startTime = 0;
+
+		for (int i = 0; i < WARM_UP__ITERATIONS + ITERATIONS; i++) {
+			if (i == WARM_UP__ITERATIONS) {
+				startTime = System.nanoTime();
+			}
+
+			// using return value with a cheap operation: System#identityHashCode so JIT wont remove it as dead code
+			System.identityHashCode(ipMatcher.isMatched(requests[i % requests.length]));
+		}
+
+		return startTime;
+	}
+
+	private static long run(StringMatcher stringMatcher, RangerAccessRequest[] requests) {
+		long startTime = 0;
+
+		for (int i = 0; i < WARM_UP__ITERATIONS + ITERATIONS; i++) {
+			if (i == WARM_UP__ITERATIONS) {
+				startTime = System.nanoTime();
+			}
+
+			System.identityHashCode(stringMatcher.isMatched(requests[i % requests.length].getClientIPAddress()));
+		}
+
+		return startTime;
+	}
+
+	private static RangerIpMatcher createMatcher(List<String> policyIps) {
+		RangerIpMatcher ret = new RangerIpMatcher();
+
+		ret.setPolicyItemCondition(new RangerPolicyItemCondition("ip-range", policyIps));
+		ret.init();
+
+		return ret;
+	}
+
+	private static RangerAccessRequest createRequest(String clientIp) {
+		RangerAccessRequestImpl ret = new RangerAccessRequestImpl(new RangerAccessResourceImpl(), "select", "alice", Collections.<String>emptySet());
+
+		ret.setClientIPAddress(clientIp);
+
+		return ret;
+	}
+
+	/* string lists scanned for every request, as RangerIpMatcher used to */
+	private static class StringMatcher {
+		private final List<String> exactIps    = new ArrayList<>();
+		private final List<String> wildCardIps = new ArrayList<>();
+
+		StringMatcher(List<String> policyIps) {
+			for (String ip : policyIps) {
+				if (ip.endsWith(".*")) {
+					wildCardIps.add(ip.substring(0, ip.length() - 1));
+				} else {
+					exactIps.add(ip);
+				}
+			}
+		}
+
+		boolean isMatched(String requestIp) {
+			for (String ip : wildCardIps) {
+				if (requestIp.contains(".") && requestIp.startsWith(ip)) {
+					return true;
+				} else if (requestIp.toLowerCase().startsWith(ip)) {
+					return true;
+				}
+			}
+
+			return requestIp.contains(".") ? exactIps.contains(requestIp) : exactIps.contains(requestIp.toLowerCase());
+		}
+	}
+
+	private static File outputFile() {
+		return new File("target", "ranger-ip-matcher-performance.csv");
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.policyengine.perftest.v2.RangerPolicyFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+/**
+ * A parameterized JUnit test that measures the time taken to build RangerPolicyEngine, under increasing number of policies,
+ * with policy evaluators built sequentially (parallelism 1) or in a fork-join pool of the given parallelism (0: number of processors).
+ * Each combination is built once to warm up, then BUILD_ITERATIONS times; the minimum and average times are written to target/ranger-policy-engine-startup-performance.csv.
+ */
+@RunWith(Parameterized.class)
+public class RangerPolicyEngineStartupPerformanceTest {
+
+	private static final int BUILD_ITERATIONS = 3;
+
+	private static LoadingCache<Integer, ServicePolicies> servicePoliciesCache = CacheBuilder.newBuilder().maximumSize(1).build(createServicePoliciesCacheLoader());
+
+	@Parameter(0)
+	public Integer numberOfPolicies;
+
+	@Parameter(1)
+	public Integer parallelism;
+
+	/**
+	 * Generates a cross product of number-of-policies X parallelism parameter sets.
+	 * @returns a collection of "tuples" (Object[]) of numberOfPolicies and parallelism for the given test run
+	 */
+	@Parameters(name = "{index}: RangerPolicyEngineImpl(policies: {0}, evaluator build parallelism: {1})")
+	public static Iterable<Object[]> data() {
+		// tree set for maintaining natural ordering
+		Set<Integer> policies    = Sets.newTreeSet(Lists.newArrayList(1_000, 10_000, 50_000, 150_000));
+		Set<Integer> parallelism = Sets.newTreeSet(Lists.newArrayList(0, 1, 2, 4, 8));
+
+		return Iterables.transform(Sets.cartesianProduct(policies, parallelism), new Function<List<Integer>, Object[]>() {
+			@Override
+			public Object[] apply(List<Integer> input) {
+				return input.toArray();
+			}
+		});
+	}
+
+	@BeforeClass
+	public static void init() throws IOException {
+		Files.write("policies;parallelism;processors;min-ms;average-ms;\n", outputFile(), Charsets.UTF_8);
+	}
+
+	@Test
+	public void policyEngineStartupTest() throws IOException {
+		ServicePolicies           servicePolicies = servicePoliciesCache.getUnchecked(numberOfPolicies);
+		RangerPolicyEngineOptions options         = RangerPolicyFactory.createPolicyEngineOption();
+
+		options.policyEvaluatorBuildParallelism = parallelism;
+
+		buildPolicyEngine(servicePolicies, options); // warm-up
+
+		long[] buildTimes = new long[BUILD_ITERATIONS];
+
+		for (int i = 0; i < BUILD_ITERATIONS; i++) {
+			long startTime = System.nanoTime();
+
+			// using the built engine with a cheap operation: System#identityHashCode so JIT wont remove it as dead code
+			System.identityHashCode(buildPolicyEngine(servicePolicies, options));
+
+			buildTimes[i] = (System.nanoTime() - startTime) / (1000 * 1000);
+		}
+
+		Arrays.sort(buildTimes);
+
+		long totalTime = 0;
+
+		for (long buildTime : buildTimes) {
+			totalTime += buildTime;
+		}
+
+		Files.append(String.format("%s;%s;%s;%s;%s;\n", numberOfPolicies, parallelism, Runtime.getRuntime().availableProcessors(), buildTimes[0], totalTime / BUILD_ITERATIONS), outputFile(), Charsets.UTF_8);
+	}
+
+	private static RangerPolicyEngineImpl buildPolicyEngine(ServicePolicies servicePolicies, RangerPolicyEngineOptions options) {
+		RangerPluginContext pluginContext = new RangerPluginContext("hive");
+
+		pluginContext.setClusterName("cl1");
+
+		return new RangerPolicyEngineImpl("perf-test", servicePolicies, options, pluginContext);
+	}
+
+	private static File outputFile() {
+		return new File("target", "ranger-policy-engine-startup-performance.csv");
+	}
+
+	private static CacheLoader<Integer, ServicePolicies> createServicePoliciesCacheLoader() {
+		return new CacheLoader<Integer, ServicePolicies>() {
+			@Override
+			public ServicePolicies load(Integer numberOfPolicies) throws Exception {
+				return RangerPolicyFactory.createServicePolicy(numberOfPolicies);
+			}
+		};
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.policyengine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.script.Bindings;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+
+import org.apache.ranger.plugin.conditionevaluator.RangerScriptConditionEvaluator;
+import org.apache.ranger.plugin.contextenricher.RangerTagForEval;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemCondition;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerPolicyConditionDef;
+import org.apache.ranger.plugin.model.RangerTag;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyresourcematcher.RangerPolicyResourceMatcher;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+
+/**
+ * A JUnit test that compares the time taken to evaluate a tag-based script condition:
+ * with ScriptEngine.eval() of the script text and new bindings on each call, as RangerScriptConditionEvaluator used to,
+ * with RangerScriptConditionEvaluator, which runs a compiled script with new bindings on each call, and with its result cache enabled.
+ * Each variant is warmed up before measurement; the average time per evaluation is written to target/ranger-script-condition-performance.csv.
+ */
+public class RangerScriptConditionPerformanceTest {
+
+	private static final String SCRIPT = "tagAttr.level == 'high' && tagAttr['owner'] != 'hr'";
+
+	/* pre-warming unit-under-test's method with this many call iterations, so all possible JIT optimization happen before measuring performance */
+	private static final int WARM_UP__ITERATIONS = 10_000;
+
+	private static final int ITERATIONS = 50_000;
+
+	private static final RangerAccessRequest[] REQUESTS = new RangerAccessRequest[] { createRequest("high", "finance"), createRequest("low", "finance"), createRequest("high", "hr") };
+
+	@BeforeClass
+	public static void init() throws IOException {
+		Files.write("variant;iterations;average-us;\n", outputFile(), Charsets.UTF_8);
+	}
+
+	@Test
+	public void scriptEngineEvalTest() throws Exception {
+		ScriptEngine scriptEngine = new ScriptEngineManager().getEngineByName("JavaScript");
+
+		measure("eval", () -> {
+			for (int i = 0; i < WARM_UP__ITERATIONS + ITERATIONS; i++) {
+				if (i == WARM_UP__ITERATIONS) {
+					startMeasurement();
+				}
+
+				// the request stands in for RangerScriptExecutionContext, which is not accessible here and not read by the script
+				RangerAccessRequest request    = REQUESTS[i % REQUESTS.length].getReadOnlyCopy();
+				RangerTagForEval    currentTag = (RangerTagForEval) request.getContext().get(RangerAccessRequestUtil.KEY_CONTEXT_TAG_OBJECT);
+				Bindings            bindings   = scriptEngine.createBindings();
+
+				bindings.put("ctx", request);
+				bindings.put("tag", currentTag);
+				bindings.put("tagAttr", currentTag.getAttributes());
+
+				// using return value with a cheap operation: System#identityHashCode so JIT wont remove it as dead code
+				System.identityHashCode(scriptEngine.eval(SCRIPT, bindings));
+			}
+		});
+	}
+
+	@Test
+	public void compiledScriptTest() throws Exception {
+		RangerScriptConditionEvaluator evaluator = createEvaluator(0);
+
+		measure("compiled", () -> evaluate(evaluator));
+	}
+
+	@Test
+	public void compiledScriptWithResultCacheTest() throws Exception {
+		RangerScriptConditionEvaluator evaluator = createEvaluator(100);
+
+		measure("compiled-cached", () -> evaluate(evaluator));
+	}
+
+	private static void evaluate(RangerScriptConditionEvaluator evaluator) {
+		for (int i = 0; i < WARM_UP__ITERATIONS + ITERATIONS; i++) {
+			if (i == WARM_UP__ITERATIONS) {
+				startMeasurement();
+			}
+
+			System.identityHashCode(evaluator.isMatched(REQUESTS[i % REQUESTS.length]));
+		}
+	}
+
+	private static long measurementStartTime;
+
+	private static void startMeasurement() {
+		measurementStartTime = System.nanoTime();
+	}
+
+	private static void measure(String variant, Evaluation evaluation) throws Exception {
+		evaluation.run();
+
+		long   elapsedNanos = System.nanoTime() - measurementStartTime;
+		double averageUs    = elapsedNanos / 1000.0 / ITERATIONS;
+
+		Files.append(String.format("%s;%s;%.2f;\n", variant, ITERATIONS, averageUs), outputFile(), Charsets.UTF_8);
+	}
+
+	private static RangerScriptConditionEvaluator createEvaluator(int resultCacheSize) {
+		RangerScriptConditionEvaluator evaluator    = new RangerScriptConditionEvaluator();
+		RangerPolicyConditionDef       conditionDef = new RangerPolicyConditionDef();
+		Map<String, String>            evalOptions  = new HashMap<>();
+
+		evalOptions.put(RangerScriptConditionEvaluator.OPTION_ENGINE_NAME, "JavaScript");
+		evalOptions.put(RangerScriptConditionEvaluator.OPTION_RESULT_CACHE_SIZE, Integer.toString(resultCacheSize));
+		evalOptions.put(RangerScriptConditionEvaluator.OPTION_RESULT_CACHE_KEY_ATTRIBUTES, "level,owner");
+
+		conditionDef.setName("expression");
+		conditionDef.setEvaluatorOptions(evalOptions);
+
+		evaluator.setConditionDef(conditionDef);
+		evaluator.setPolicyItemCondition(new RangerPolicyItemCondition("expression", Collections.singletonList(SCRIPT)));
+		evaluator.init();
+
+		return evaluator;
+	}
+
+	private static RangerAccessRequest createRequest(String level, String owner) {
+		RangerAccessRequestImpl request    = new RangerAccessRequestImpl(new RangerAccessResourceImpl(), "select", "alice", Collections.<String>emptySet());
+		Map<String, String>     attributes = new HashMap<>();
+
+		attributes.put("level", level);
+		attributes.put("owner", owner);
+
+		RangerAccessRequestUtil.setCurrentTagInContext(request.getContext(), new RangerTagForEval(new RangerTag("PII", attributes), RangerPolicyResourceMatcher.MatchType.SELF));
+
+		return request;
+	}
+
+	private static File outputFile() {
+		return new File("target", "ranger-script-condition-performance.csv");
+	}
+
+	private interface Evaluation {
+		void run() throws Exception;
+	}
+}
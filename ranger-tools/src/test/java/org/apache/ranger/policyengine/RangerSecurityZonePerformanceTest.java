@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.policyengine;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServicePolicies.SecurityZoneInfo;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+/**
+ * A parameterized JUnit test that measures the time taken by RangerPolicyEngine.isAccessAllowed() for a hive service
+ * with increasing number of security zones, with the resolved zone memoized per resource (zone lookup cache size > 0) or resolved on every request.
+ * Zones have no policies, so that the time measured is mostly spent resolving the zone of the resource.
+ * The average time per request is written to target/ranger-security-zone-performance.csv.
+ */
+@RunWith(Parameterized.class)
+public class RangerSecurityZonePerformanceTest {
+
+	/* pre-warming unit-under-test's method with this many call iterations, so all possible JIT optimization happen before measuring performance */
+	private static final int WARM_UP__ITERATIONS = 20_000;
+
+	private static final int ITERATIONS = 200_000;
+
+	private static final int TABLES_PER_ZONE = 20;
+
+	private static final Set<String> USER_GROUPS = Collections.singleton("analysts");
+
+	@Parameter(0)
+	public Integer numberOfZones;
+
+	@Parameter(1)
+	public Integer zoneLookupCacheSize;
+
+	@Parameters(name = "{index}: isAccessAllowed(zones: {0}, zone lookup cache size: {1})")
+	public static Iterable<Object[]> data() {
+		// tree set for maintaining natural ordering
+		Set<Integer> zones     = Sets.newTreeSet(Lists.newArrayList(10, 100, 300, 1_000));
+		Set<Integer> cacheSize = Sets.newTreeSet(Lists.newArrayList(0, 100_000));
+
+		return Iterables.transform(Sets.cartesianProduct(zones, cacheSize), new Function<List<Integer>, Object[]>() {
+			@Override
+			public Object[] apply(List<Integer> input) {
+				return input.toArray();
+			}
+		});
+	}
+
+	@BeforeClass
+	public static void init() throws IOException {
+		Files.write("zones;zone-lookup-cache-size;iterations;average-us;\n", outputFile(), Charsets.UTF_8);
+	}
+
+	@Test
+	public void zoneResolutionTest() throws Exception {
+		RangerPolicyEngineOptions options = new RangerPolicyEngineOptions();
+
+		options.zoneLookupCacheSize = zoneLookupCacheSize;
+
+		RangerPluginContext pluginContext = new RangerPluginContext("hive");
+
+		pluginContext.setClusterName("cl1");
+
+		RangerPolicyEngineImpl     policyEngine = new RangerPolicyEngineImpl("perf-test", createServicePolicies(numberOfZones), options, pluginContext);
+		RangerAccessResourceImpl[] resources    = createResources(numberOfZones);
+		long                       startTime    = 0;
+
+		for (int i = 0; i < WARM_UP__ITERATIONS + ITERATIONS; i++) {
+			if (i == WARM_UP__ITERATIONS) {
+				startTime = System.nanoTime();
+			}
+
+			// copy the resource, so that its cache key is computed for every request, as it is for a new request
+			RangerAccessResourceImpl resource = new RangerAccessResourceImpl(resources[i % resources.length].getAsMap(), resources[i % resources.length].getOwnerUser());
+
+			System.identityHashCode(policyEngine.isAccessAllowed(resource, "alice", USER_GROUPS, "select"));
+		}
+
+		double averageUs = (System.nanoTime() - startTime) / 1000.0 / ITERATIONS;
+
+		Files.append(String.format("%s;%s;%s;%.2f;\n", numberOfZones, zoneLookupCacheSize, ITERATIONS, averageUs), outputFile(), Charsets.UTF_8);
+	}
+
+	/* each zone holds one database and a table prefix in a second, shared database */
+	private static ServicePolicies createServicePolicies(int numberOfZones) throws Exception {
+		ServicePolicies               ret   = new ServicePolicies();
+		Map<String, SecurityZoneInfo> zones = new HashMap<>();
+
+		for (int i = 0; i < numberOfZones; i++) {
+			HashMap<String, List<String>> databaseResource = new HashMap<>();
+			HashMap<String, List<String>> tableResource    = new HashMap<>();
+			SecurityZoneInfo              zone             = new SecurityZoneInfo();
+
+			databaseResource.put("database", Collections.singletonList("db_" + i));
+			tableResource.put("database", Collections.singletonList("shared"));
+			tableResource.put("table", Collections.singletonList("zone_" + i + "_*"));
+
+			zone.setZoneName("zone-" + i);
+			zone.setResources(Arrays.asList(databaseResource, tableResource));
+			zone.setPolicies(new ArrayList<RangerPolicy>());
+			zone.setContainsAssociatedTagService(false);
+
+			zones.put(zone.getZoneName(), zone);
+		}
+
+		ret.setServiceName("perf-test");
+		ret.setServiceDef(EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME));
+		ret.setPolicyVersion(1L);
+		ret.setPolicies(new ArrayList<RangerPolicy>());
+		ret.setSecurityZones(zones);
+
+		return ret;
+	}
+
+	/* resources in the zones' databases, in the shared database, and in no zone, in random order */
+	private static RangerAccessResourceImpl[] createResources(int numberOfZones) {
+		Random                     random = new Random(42);
+		RangerAccessResourceImpl[] ret    = new RangerAccessResourceImpl[10_000];
+
+		for (int i = 0; i < ret.length; i++) {
+			int                      zone     = random.nextInt(numberOfZones);
+			int                      table    = random.nextInt(TABLES_PER_ZONE);
+			RangerAccessResourceImpl resource = new RangerAccessResourceImpl();
+
+			switch (i % 3) {
+				case 0:
+					resource.setValue("database", "db_" + zone);
+					resource.setValue("table", "table_" + table);
+					break;
+				case 1:
+					resource.setValue("database", "shared");
+					resource.setValue("table", "zone_" + zone + "_" + table);
+					break;
+				default:
+					resource.setValue("database", "other");
+					resource.setValue("table", "table_" + table);
+					break;
+			}
+
+			ret[i] = resource;
+		}
+
+		return ret;
+	}
+
+	private static File outputFile() {
+		return new File("target", "ranger-security-zone-performance.csv");
+	}
+}
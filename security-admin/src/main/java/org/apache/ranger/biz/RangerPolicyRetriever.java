@@ -61,6 +61,8 @@ public class RangerPolicyRetriever {
 	private final RangerDaoManager  daoMgr;
 	private final LookupCache       lookupCache = new LookupCache();
 
+	private RetrieverContext        pageContext; // for getPolicies() of pages of a service
+
 	private final PlatformTransactionManager  txManager;
 	private final TransactionTemplate         txTemplate;
 
@@ -204,6 +206,45 @@ public class RangerPolicyRetriever {
 		return ret;
 	}
 
+	public List<RangerPolicy> getPolicies(XXService xService, List<XXPolicy> xPolicies) {
+		String serviceName = xService == null ? null : xService.getName();
+		int    count       = xPolicies == null ? 0 : xPolicies.size();
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerPolicyRetriever.getPolicies(serviceName=" + serviceName + ", count=" + count + ")");
+		}
+
+		List<RangerPolicy> ret  = null;
+		RangerPerfTracer   perf = null;
+
+		if(RangerPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+			perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "RangerPolicyRetriever.getPolicies(serviceName=" + serviceName + ",count=" + count + ")");
+		}
+
+		if(xService != null && xPolicies != null) {
+			// name mappings of the service are read once, for its first page
+			if (pageContext == null || !pageContext.service.getId().equals(xService.getId())) {
+				pageContext = new RetrieverContext(xService, xPolicies);
+			} else {
+				pageContext.setPolicies(xPolicies);
+			}
+
+			ret = pageContext.getAllPolicies();
+		} else {
+			if(LOG.isDebugEnabled()) {
+				LOG.debug("RangerPolicyRetriever.getPolicies(xService=" + xService + "): invalid parameter(s)");
+			}
+		}
+
+		RangerPerfTracer.log(perf);
+
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerPolicyRetriever.getPolicies(serviceName=" + serviceName + ", count=" + count + "): policyCount=" + (ret == null ? 0 : ret.size()));
+		}
+
+		return ret;
+	}
+
 	public RangerPolicy getPolicy(Long policyId) {
 		RangerPolicy ret = null;
 
@@ -471,8 +512,8 @@ public class RangerPolicyRetriever {
 
 	class RetrieverContext {
 		final XXService              service;
-		final ListIterator<XXPolicy> iterPolicy;
-		final ListIterator<XXPolicyLabelMap> iterPolicyLabels;
+		ListIterator<XXPolicy>       iterPolicy;
+		ListIterator<XXPolicyLabelMap> iterPolicyLabels;
 		final XXServiceDef           serviceDef;
 
 		RetrieverContext(XXService xService) {
@@ -499,6 +540,36 @@ public class RangerPolicyRetriever {
 			}
 		}
 
+		RetrieverContext(XXService xService, List<XXPolicy> xPolicies) {
+			Long serviceId = xService.getId();
+
+			lookupCache.setRoleNameMapping(daoMgr.getXXPolicyRefRole().findUpdatedRoleNamesByService(serviceId));
+			lookupCache.setGroupNameMapping(daoMgr.getXXPolicyRefGroup().findUpdatedGroupNamesByService(serviceId));
+			lookupCache.setUserNameMapping(daoMgr.getXXPolicyRefUser().findUpdatedUserNamesByService(serviceId));
+			lookupCache.setAccessNameMapping(daoMgr.getXXPolicyRefAccessType().findUpdatedAccessNamesByService(serviceId));
+			lookupCache.setResourceNameMapping(daoMgr.getXXPolicyRefResource().findUpdatedResourceNamesByService(serviceId));
+			lookupCache.setDataMaskNameMapping(daoMgr.getXXPolicyRefDataMaskType().findUpdatedDataMaskNamesByService(serviceId));
+			lookupCache.setConditionNameMapping(daoMgr.getXXPolicyRefCondition().findUpdatedConditionNamesByService(serviceId));
+
+			this.service    = xService;
+			this.serviceDef = daoMgr.getXXServiceDef().getById(xService.getType());
+
+			setPolicies(xPolicies);
+		}
+
+		void setPolicies(List<XXPolicy> xPolicies) {
+			List<Long> policyIds = new ArrayList<>(xPolicies.size());
+
+			for (XXPolicy xPolicy : xPolicies) {
+				policyIds.add(xPolicy.getId());
+			}
+
+			List<XXPolicyLabelMap> policyLabels = daoMgr.getXXPolicyLabelMap().findByPolicyIds(policyIds);
+
+			this.iterPolicy       = xPolicies.listIterator();
+			this.iterPolicyLabels = policyLabels != null ? policyLabels.listIterator() : null;
+		}
+
 		RetrieverContext(XXPolicy xPolicy, XXService xService) {
 			Long policyId = xPolicy.getId();
 
@@ -278,6 +278,10 @@ public class RoleDBStore implements RoleStore {
     }
 
     public RangerRoles getRangerRoles(String serviceName, Long lastKnownRoleVersion) throws Exception {
+        return getRangerRoles(serviceName, lastKnownRoleVersion, true);
+    }
+
+    public RangerRoles getRangerRoles(String serviceName, Long lastKnownRoleVersion, boolean forceFullRoles) throws Exception {
         RangerRoles ret                   = null;
         Long        rangerRoleVersionInDB = getRoleVersion(serviceName);
 
@@ -286,7 +290,7 @@ public class RoleDBStore implements RoleStore {
         }
 
         if (rangerRoleVersionInDB != null) {
-            ret = RangerRoleCache.getInstance().getLatestRangerRoleOrCached(serviceName, this, lastKnownRoleVersion, rangerRoleVersionInDB);
+            ret = RangerRoleCache.getInstance().getLatestRangerRoleOrCached(serviceName, this, lastKnownRoleVersion, rangerRoleVersionInDB, forceFullRoles);
         }
 
         if (LOG.isDebugEnabled()) {
@@ -301,5 +305,9 @@ public class RoleDBStore implements RoleStore {
         return (xxServiceVersionInfo != null) ? xxServiceVersionInfo.getRoleVersion():null;
     }
 
+    public Long getGlobalRoleVersion() {
+        return daoMgr.getXXGlobalState().getRoleVersion(RANGER_ROLE_GLOBAL_STATE_NAME);
+    }
+
 }
 
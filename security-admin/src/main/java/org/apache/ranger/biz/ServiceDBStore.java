@@ -19,10 +19,13 @@
 
 package org.apache.ranger.biz;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.UnknownHostException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
@@ -157,6 +160,7 @@ import org.apache.ranger.plugin.store.AbstractServiceStore;
 import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
 import org.apache.ranger.plugin.store.PList;
 import org.apache.ranger.plugin.store.ServicePredicateUtil;
+import org.apache.ranger.plugin.util.JsonUtilsV2;
 import org.apache.ranger.plugin.util.RangerPolicyDeltaUtil;
 import org.apache.ranger.plugin.util.SearchFilter;
 import org.apache.ranger.plugin.util.ServicePolicies;
@@ -195,6 +199,10 @@ import org.apache.ranger.view.VXResponse;
 import org.apache.ranger.view.VXString;
 import org.apache.ranger.view.VXUser;
 import org.apache.ranger.view.VXUserList;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.type.TypeReference;
 import org.codehaus.jettison.json.JSONException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -207,6 +215,7 @@ import org.springframework.transaction.support.TransactionTemplate;
 import com.google.common.base.Joiner;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 
 @Component
 public class ServiceDBStore extends AbstractServiceStore {
@@ -222,6 +231,13 @@ public class ServiceDBStore extends AbstractServiceStore {
     private static final String POLICY_TYPE_DATAMASK  = "Masking";
     private static final String POLICY_TYPE_ROWFILTER = "Row Level Filter";
 
+	private static final String CSV_LINE_SEPARATOR = "\n";
+	private static final String CSV_FILE_HEADER    = "ID|Name|Resources|Groups|Users|Accesses|Service Type|Status|Policy Type|Delegate Admin|isRecursive|"
+			+ "isExcludes|Service Name|Description|isAuditEnabled|Policy Conditions|Policy Condition Type|Masking Options|Row Filter Expr|Policy Label Name";
+
+	private static final int POLICY_EXPORT_PAGE_SIZE  = PropertiesUtil.getIntProperty("ranger.admin.policy.export.page.size", 1000);
+	private static final int POLICY_IMPORT_BATCH_SIZE = PropertiesUtil.getIntProperty("ranger.admin.policy.import.batch.size", 1000);
+
 	private static       String LOCAL_HOSTNAME;
 	private static final String HOSTNAME       = "Host name";
 	private static final String USER_NAME      = "Exported by";
@@ -2310,6 +2326,191 @@ public class ServiceDBStore extends AbstractServiceStore {
 		writeJson(policies, jsonFileName, response);
 	}
 
+	/**
+	 * Writes policies of the given services to the response as JSON, in the format of getPoliciesInJson(), reading them
+	 * from the database one page at a time; nothing is written, and 0 is returned, when no policy is found.
+	 */
+	public long streamPoliciesInJson(List<String> serviceNames, String zoneName, boolean fetchAllZonePolicies,
+			HttpServletResponse response) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServiceDBStore.streamPoliciesInJson(" + serviceNames + ", " + zoneName + ")");
+		}
+		String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+		JsonPolicyStreamWriter writer = new JsonPolicyStreamWriter("Ranger_Policies_" + timeStamp + ".json", response);
+		long ret;
+
+		try {
+			ret = forEachPolicyPage(serviceNames, zoneName, fetchAllZonePolicies, writer);
+		} finally {
+			writer.close();
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ServiceDBStore.streamPoliciesInJson(" + serviceNames + ", " + zoneName + "): count=" + ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Writes policies of the given services to the response as CSV, in the format of getPoliciesInCSV(), reading them
+	 * from the database one page at a time; nothing is written, and 0 is returned, when no policy is found.
+	 */
+	public long streamPoliciesInCSV(List<String> serviceNames, String zoneName, boolean fetchAllZonePolicies,
+			HttpServletResponse response) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServiceDBStore.streamPoliciesInCSV(" + serviceNames + ", " + zoneName + ")");
+		}
+		String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+		CsvPolicyStreamWriter writer = new CsvPolicyStreamWriter("Ranger_Policies_" + timeStamp + ".csv", response);
+		long ret;
+
+		try {
+			ret = forEachPolicyPage(serviceNames, zoneName, fetchAllZonePolicies, writer);
+		} finally {
+			writer.close();
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ServiceDBStore.streamPoliciesInCSV(" + serviceNames + ", " + zoneName + "): count=" + ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Passes policies of the given services to the handler in pages of ranger.admin.policy.export.page.size, in the order of
+	 * services and then of policy id. Pages are read by seeking past the last id of the previous page, and are detached
+	 * from the persistence context once handled, so that memory use does not grow with the number of policies.
+	 *
+	 * @return number of policies passed to the handler
+	 */
+	public long forEachPolicyPage(List<String> serviceNames, String zoneName, boolean fetchAllZonePolicies, PolicyBatchHandler handler) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServiceDBStore.forEachPolicyPage(" + serviceNames + ", " + zoneName + ", " + fetchAllZonePolicies + ")");
+		}
+		long ret    = 0;
+		Long zoneId = null;
+
+		if (StringUtils.isNotEmpty(zoneName)) {
+			XXSecurityZone xSecurityZone = daoMgr.getXXSecurityZoneDao().findByZoneName(zoneName);
+
+			if (xSecurityZone == null) {
+				LOG.warn("ServiceDBStore.forEachPolicyPage(): security zone not found - name=" + zoneName);
+				return ret;
+			}
+			zoneId = xSecurityZone.getId();
+		} else if (!fetchAllZonePolicies) {
+			zoneId = RangerSecurityZone.RANGER_UNZONED_SECURITY_ZONE_ID;
+		}
+
+		RangerPolicyRetriever policyRetriever = new RangerPolicyRetriever(daoMgr);
+		XXPolicyDao           policyDao       = daoMgr.getXXPolicy();
+
+		for (String serviceName : serviceNames) {
+			XXService xService = daoMgr.getXXService().findByName(serviceName);
+
+			if (xService == null) {
+				LOG.warn("ServiceDBStore.forEachPolicyPage(): service not found - name=" + serviceName);
+				continue;
+			}
+
+			Long lastPolicyId = null;
+
+			while (true) {
+				List<XXPolicy> xPolicies = policyDao.findByServiceIdAfterId(xService.getId(), zoneId, lastPolicyId, POLICY_EXPORT_PAGE_SIZE);
+
+				if (CollectionUtils.isEmpty(xPolicies)) {
+					break;
+				}
+				lastPolicyId = xPolicies.get(xPolicies.size() - 1).getId();
+
+				List<RangerPolicy> policies = policyRetriever.getPolicies(xService, xPolicies);
+
+				policyDao.clear();
+
+				if (CollectionUtils.isNotEmpty(policies)) {
+					handler.handle(policies);
+
+					ret += policies.size();
+				}
+
+				if (xPolicies.size() < POLICY_EXPORT_PAGE_SIZE) {
+					break;
+				}
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ServiceDBStore.forEachPolicyPage(" + serviceNames + ", " + zoneName + ", " + fetchAllZonePolicies + "): count=" + ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Reads policies from a JSON document in the format written by getPoliciesInJson(), and passes them to the handler in
+	 * batches of ranger.admin.policy.import.batch.size as they are parsed, so that the document is never held in memory.
+	 *
+	 * @return metaDataInfo of the document; empty if the document has none
+	 */
+	public Map<String, Object> forEachPolicyBatch(InputStream policiesStream, PolicyBatchHandler handler) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> ServiceDBStore.forEachPolicyBatch()");
+		}
+		Map<String, Object> ret    = new LinkedHashMap<String, Object>();
+		ObjectMapper        mapper = JsonUtilsV2.getMapper();
+		JsonParser          parser = mapper.getJsonFactory().createJsonParser(policiesStream);
+		long                count  = 0;
+
+		try {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				LOG.error("Provided json file is empty!!");
+				throw restErrorUtil.createRESTException("Provided json file is empty!!");
+			}
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String fieldName = parser.getCurrentName();
+
+				parser.nextToken();
+
+				if ("metaDataInfo".equals(fieldName) && parser.getCurrentToken() == JsonToken.START_OBJECT) {
+					ret = mapper.readValue(parser, new TypeReference<LinkedHashMap<String, Object>>() {});
+				} else if ("policies".equals(fieldName) && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+					List<RangerPolicy> batch = new ArrayList<RangerPolicy>();
+
+					while (parser.nextToken() != JsonToken.END_ARRAY) {
+						batch.add(mapper.readValue(parser, RangerPolicy.class));
+
+						if (batch.size() >= POLICY_IMPORT_BATCH_SIZE) {
+							handler.handle(batch);
+
+							count += batch.size();
+							batch  = new ArrayList<RangerPolicy>();
+						}
+					}
+
+					if (!batch.isEmpty()) {
+						handler.handle(batch);
+
+						count += batch.size();
+					}
+				} else {
+					parser.skipChildren();
+				}
+			}
+		} finally {
+			parser.close();
+		}
+
+		if (count == 0) {
+			LOG.error("Provided json file does not contain any policy!!");
+			throw restErrorUtil.createRESTException("Provided json file does not contain any policy!!");
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== ServiceDBStore.forEachPolicyBatch(): count=" + count);
+		}
+		return ret;
+	}
+
 	public PList<RangerPolicy> getPaginatedPolicies(SearchFilter filter) {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> ServiceDBStore.getPaginatedPolicies(+ " + filter + ")");
@@ -2330,9 +2531,12 @@ public class ServiceDBStore extends AbstractServiceStore {
 		}
 
 
-		return new PList<RangerPolicy>(policyList.getPolicies(), policyList.getStartIndex(), policyList.getPageSize(), policyList.getTotalCount(),
+		PList<RangerPolicy> ret = new PList<RangerPolicy>(policyList.getPolicies(), policyList.getStartIndex(), policyList.getPageSize(), policyList.getTotalCount(),
 				policyList.getResultSize(), policyList.getSortType(), policyList.getSortBy());
 
+		ret.setNextToken(policyList.getNextToken());
+
+		return ret;
 	}
 
 	@Override
@@ -3782,83 +3986,12 @@ public class ServiceDBStore extends AbstractServiceStore {
                         String cSVFileName, HttpServletResponse response) {
 		response.setContentType("text/csv");
 
-		final String LINE_SEPARATOR = "\n";
-                final String FILE_HEADER = "ID|Name|Resources|Groups|Users|Accesses|Service Type|Status|Policy Type|Delegate Admin|isRecursive|"
-                                + "isExcludes|Service Name|Description|isAuditEnabled|Policy Conditions|Policy Condition Type|Masking Options|Row Filter Expr|Policy Label Name";
 		StringBuilder csvBuffer = new StringBuilder();
-		csvBuffer.append(FILE_HEADER);
-		csvBuffer.append(LINE_SEPARATOR);
+		csvBuffer.append(CSV_FILE_HEADER);
+		csvBuffer.append(CSV_LINE_SEPARATOR);
                 if (!CollectionUtils.isEmpty(policies)) {
                         for (RangerPolicy policy : policies) {
-                                List<RangerPolicyItem> policyItems = policy.getPolicyItems();
-                                List<RangerRowFilterPolicyItem> rowFilterPolicyItems = policy
-                                                .getRowFilterPolicyItems();
-                                List<RangerDataMaskPolicyItem> dataMaskPolicyItems = policy
-                                                .getDataMaskPolicyItems();
-                                List<RangerPolicyItem> allowExceptions = policy
-                                                .getAllowExceptions();
-                                List<RangerPolicyItem> denyExceptions = policy
-                                                .getDenyExceptions();
-                                List<RangerPolicyItem> denyPolicyItems = policy
-                                                .getDenyPolicyItems();
-                                XXService xxservice = daoMgr.getXXService().findByName(
-                                                policy.getService());
-                                String serviceType = "";
-                                if (xxservice != null) {
-                                        Long ServiceId = xxservice.getType();
-                                        XXServiceDef xxservDef = daoMgr.getXXServiceDef().getById(
-                                                        ServiceId);
-                                        if (xxservDef != null) {
-                                                serviceType = xxservDef.getName();
-					}
-				}
-                                if (CollectionUtils.isNotEmpty(policyItems)) {
-					for (RangerPolicyItem policyItem : policyItems) {
-                                                writeCSVForPolicyItems(policy, policyItem, null, null,
-                                                                csvBuffer, POLICY_ALLOW_INCLUDE);
-					}
-                                } else if (CollectionUtils.isNotEmpty(dataMaskPolicyItems)) {
-                                        for (RangerDataMaskPolicyItem dataMaskPolicyItem : dataMaskPolicyItems) {
-                                                writeCSVForPolicyItems(policy, null,
-                                                                dataMaskPolicyItem, null, csvBuffer,
-                                                                null);
-                                        }
-                                } else if (CollectionUtils.isNotEmpty(rowFilterPolicyItems)) {
-                                        for (RangerRowFilterPolicyItem rowFilterPolicyItem : rowFilterPolicyItems) {
-                                                writeCSVForPolicyItems(policy, null, null,
-                                                                rowFilterPolicyItem, csvBuffer,
-                                                                null);
-                                        }
-                                } else if (serviceType
-                                                .equalsIgnoreCase(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_TAG_NAME)) {
-                                        if (CollectionUtils.isEmpty(policyItems)) {
-                                                RangerPolicyItem policyItem = new RangerPolicyItem();
-                                                writeCSVForPolicyItems(policy, policyItem, null, null,
-                                                                csvBuffer, POLICY_ALLOW_INCLUDE);
-                                        }
-                                } else if (CollectionUtils.isEmpty(policyItems)) {
-                                        RangerPolicyItem policyItem = new RangerPolicyItem();
-                                        writeCSVForPolicyItems(policy, policyItem, null, null,
-                                                        csvBuffer, POLICY_ALLOW_INCLUDE);
-				}
-                                if (CollectionUtils.isNotEmpty(allowExceptions)) {
-                                        for (RangerPolicyItem policyItem : allowExceptions) {
-                                                writeCSVForPolicyItems(policy, policyItem, null, null,
-                                                                csvBuffer, POLICY_ALLOW_EXCLUDE);
-					}
-				}
-                                if (CollectionUtils.isNotEmpty(denyExceptions)) {
-                                        for (RangerPolicyItem policyItem : denyExceptions) {
-                                                writeCSVForPolicyItems(policy, policyItem, null, null,
-                                                                csvBuffer, POLICY_DENY_EXCLUDE);
-					}
-                                }
-                                if (CollectionUtils.isNotEmpty(denyPolicyItems)) {
-                                        for (RangerPolicyItem policyItem : denyPolicyItems) {
-                                                writeCSVForPolicyItems(policy, policyItem, null, null,
-                                                                csvBuffer, POLICY_DENY_INCLUDE);
-                                        }
-                                }
+                                writeCSVForPolicy(policy, csvBuffer);
                         }
                 }
                 response.setHeader("Content-Disposition", "attachment; filename="
@@ -3867,6 +4000,81 @@ public class ServiceDBStore extends AbstractServiceStore {
 		return csvBuffer;
 	}
 
+        private void writeCSVForPolicy(RangerPolicy policy, StringBuilder csvBuffer) {
+                List<RangerPolicyItem> policyItems = policy.getPolicyItems();
+                List<RangerRowFilterPolicyItem> rowFilterPolicyItems = policy
+                                .getRowFilterPolicyItems();
+                List<RangerDataMaskPolicyItem> dataMaskPolicyItems = policy
+                                .getDataMaskPolicyItems();
+                List<RangerPolicyItem> allowExceptions = policy
+                                .getAllowExceptions();
+                List<RangerPolicyItem> denyExceptions = policy
+                                .getDenyExceptions();
+                List<RangerPolicyItem> denyPolicyItems = policy
+                                .getDenyPolicyItems();
+                String serviceType = policy.getServiceType();
+                if (StringUtils.isEmpty(serviceType)) {
+                        serviceType = "";
+                        XXService xxservice = daoMgr.getXXService().findByName(
+                                        policy.getService());
+                        if (xxservice != null) {
+                                Long ServiceId = xxservice.getType();
+                                XXServiceDef xxservDef = daoMgr.getXXServiceDef().getById(
+                                                ServiceId);
+                                if (xxservDef != null) {
+                                        serviceType = xxservDef.getName();
+                                }
+                        }
+                }
+                if (CollectionUtils.isNotEmpty(policyItems)) {
+                        for (RangerPolicyItem policyItem : policyItems) {
+                                writeCSVForPolicyItems(policy, policyItem, null, null,
+                                                csvBuffer, POLICY_ALLOW_INCLUDE);
+                        }
+                } else if (CollectionUtils.isNotEmpty(dataMaskPolicyItems)) {
+                        for (RangerDataMaskPolicyItem dataMaskPolicyItem : dataMaskPolicyItems) {
+                                writeCSVForPolicyItems(policy, null,
+                                                dataMaskPolicyItem, null, csvBuffer,
+                                                null);
+                        }
+                } else if (CollectionUtils.isNotEmpty(rowFilterPolicyItems)) {
+                        for (RangerRowFilterPolicyItem rowFilterPolicyItem : rowFilterPolicyItems) {
+                                writeCSVForPolicyItems(policy, null, null,
+                                                rowFilterPolicyItem, csvBuffer,
+                                                null);
+                        }
+                } else if (serviceType
+                                .equalsIgnoreCase(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_TAG_NAME)) {
+                        if (CollectionUtils.isEmpty(policyItems)) {
+                                RangerPolicyItem policyItem = new RangerPolicyItem();
+                                writeCSVForPolicyItems(policy, policyItem, null, null,
+                                                csvBuffer, POLICY_ALLOW_INCLUDE);
+                        }
+                } else if (CollectionUtils.isEmpty(policyItems)) {
+                        RangerPolicyItem policyItem = new RangerPolicyItem();
+                        writeCSVForPolicyItems(policy, policyItem, null, null,
+                                        csvBuffer, POLICY_ALLOW_INCLUDE);
+                }
+                if (CollectionUtils.isNotEmpty(allowExceptions)) {
+                        for (RangerPolicyItem policyItem : allowExceptions) {
+                                writeCSVForPolicyItems(policy, policyItem, null, null,
+                                                csvBuffer, POLICY_ALLOW_EXCLUDE);
+                        }
+                }
+                if (CollectionUtils.isNotEmpty(denyExceptions)) {
+                        for (RangerPolicyItem policyItem : denyExceptions) {
+                                writeCSVForPolicyItems(policy, policyItem, null, null,
+                                                csvBuffer, POLICY_DENY_EXCLUDE);
+                        }
+                }
+                if (CollectionUtils.isNotEmpty(denyPolicyItems)) {
+                        for (RangerPolicyItem policyItem : denyPolicyItems) {
+                                writeCSVForPolicyItems(policy, policyItem, null, null,
+                                                csvBuffer, POLICY_DENY_INCLUDE);
+                        }
+                }
+        }
+
         private void writeCSVForPolicyItems(RangerPolicy policy,
                         RangerPolicyItem policyItem,
                         RangerDataMaskPolicyItem dataMaskPolicyItem,
@@ -4138,6 +4346,109 @@ public class ServiceDBStore extends AbstractServiceStore {
 		}
 	}
 
+	public interface PolicyBatchHandler {
+		void handle(List<RangerPolicy> policies) throws Exception;
+	}
+
+	private class JsonPolicyStreamWriter implements PolicyBatchHandler {
+		private final String              jsonFileName;
+		private final HttpServletResponse response;
+		private final Gson                gson = new GsonBuilder().setPrettyPrinting().create();
+		private       JsonWriter          writer;
+		private       long                count;
+
+		JsonPolicyStreamWriter(String jsonFileName, HttpServletResponse response) {
+			this.jsonFileName = jsonFileName;
+			this.response     = response;
+		}
+
+		@Override
+		public void handle(List<RangerPolicy> policies) throws Exception {
+			if (writer == null) {
+				RangerExportPolicyList rangerExportPolicyList = new RangerExportPolicyList();
+				putMetaDataInfo(rangerExportPolicyList);
+
+				response.setContentType("text/json");
+				response.setHeader("Content-Disposition", "attachment; filename=" + jsonFileName);
+				response.setStatus(HttpServletResponse.SC_OK);
+
+				writer = new JsonWriter(new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), "UTF-8")));
+				writer.setIndent("  ");
+				writer.beginObject();
+				writer.name("metaDataInfo");
+				gson.toJson(rangerExportPolicyList.getMetaDataInfo(), Map.class, writer);
+				writer.name("policies");
+				writer.beginArray();
+			}
+
+			for (RangerPolicy policy : policies) {
+				gson.toJson(policy, RangerPolicy.class, writer);
+			}
+			count += policies.size();
+
+			writer.flush();
+		}
+
+		void close() {
+			if (writer != null) {
+				try {
+					writer.endArray();
+					writer.name("startIndex").value(0);
+					writer.name("pageSize").value(0);
+					writer.name("totalCount").value(count);
+					writer.name("resultSize").value(count);
+					writer.endObject();
+					writer.close();
+				} catch (Exception e) {
+					LOG.error("Error while exporting json file " + jsonFileName, e);
+				}
+			}
+		}
+	}
+
+	private class CsvPolicyStreamWriter implements PolicyBatchHandler {
+		private final String              cSVFileName;
+		private final HttpServletResponse response;
+		private       Writer              writer;
+
+		CsvPolicyStreamWriter(String cSVFileName, HttpServletResponse response) {
+			this.cSVFileName = cSVFileName;
+			this.response    = response;
+		}
+
+		@Override
+		public void handle(List<RangerPolicy> policies) throws Exception {
+			if (writer == null) {
+				response.setContentType("text/csv");
+				response.setHeader("Content-Disposition", "attachment; filename=" + cSVFileName);
+				response.setStatus(HttpServletResponse.SC_OK);
+
+				writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), "UTF-8"));
+				writer.write(CSV_FILE_HEADER);
+				writer.write(CSV_LINE_SEPARATOR);
+			}
+
+			StringBuilder csvBuffer = new StringBuilder();
+
+			for (RangerPolicy policy : policies) {
+				writeCSVForPolicy(policy, csvBuffer);
+			}
+
+			writer.write(csvBuffer.toString());
+			writer.flush();
+		}
+
+		void close() {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (Exception e) {
+					LOG.error("Error while generating report file " + cSVFileName, e);
+				}
+			}
+		}
+	}
+
 	public Map<String, String> getMapFromInputStream(InputStream mapStream) throws IOException {
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("==> ServiceDBStore.getMapFromInputStream()");
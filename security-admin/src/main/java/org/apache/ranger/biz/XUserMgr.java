@@ -1652,7 +1652,8 @@ public class XUserMgr extends XUserMgrBase {
 		try{
 			VXUserList vXUserListSort = new VXUserList();
 			
-			if(searchCriteria.getParamList() != null && searchCriteria.getParamList().get("name") != null){
+			// the exact match is not promoted when reading pages with a continuationToken, which are read in the order of id
+			if(searchCriteria.getParamList() != null && searchCriteria.getParamList().get("name") != null && searchCriteria.getContinuationToken() == null){
 				searchCriteria.setSortBy("name");
 				vXUserListSort = xUserService.searchXUsers(searchCriteria);
 				vXUserExactMatch = getXUserByUserName((String)searchCriteria.getParamList().get("name"));
@@ -1791,7 +1792,8 @@ public class XUserMgr extends XUserMgrBase {
 			}
 			
 			VXGroupList vXGroupListSort= new VXGroupList();
-			if(searchCriteria.getParamList() != null && searchCriteria.getParamList().get("name") != null){
+			// the exact match is not promoted when reading pages with a continuationToken, which are read in the order of id
+			if(searchCriteria.getParamList() != null && searchCriteria.getParamList().get("name") != null && searchCriteria.getContinuationToken() == null){
 				searchCriteria.setSortBy("name");
 				vXGroupListSort = xGroupService.searchXGroups(searchCriteria);
 				vXGroupExactMatch = getGroupByGroupName((String) searchCriteria.getParamList().get("name"));
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position of the last row of a page read with keyset pagination: the value of the sort field and the id of the row.
+ * Clients get it as an opaque string in the list response, and pass it back as parameter continuationToken to read
+ * the rows after it; continuationToken=* asks for the first page.
+ */
+public class ContinuationToken {
+	public static final String FIRST_PAGE = "*";
+
+	private static final String SEPARATOR    = "\n";
+	private static final String TYPE_STRING  = "S";
+	private static final String TYPE_LONG    = "L";
+	private static final String TYPE_INTEGER = "I";
+	private static final String TYPE_DATE    = "D";
+	private static final String TYPE_BOOLEAN = "B";
+	private static final String TYPE_NULL    = "N";
+
+	private final String sortBy;
+	private final String sortType;
+	private final Object sortValue;
+	private final Long   lastId;
+
+	public ContinuationToken(String sortBy, String sortType, Object sortValue, Long lastId) {
+		this.sortBy    = sortBy;
+		this.sortType  = sortType;
+		this.sortValue = sortValue;
+		this.lastId    = lastId;
+	}
+
+	public String getSortBy() {
+		return sortBy;
+	}
+
+	public String getSortType() {
+		return sortType;
+	}
+
+	public Object getSortValue() {
+		return sortValue;
+	}
+
+	public Long getLastId() {
+		return lastId;
+	}
+
+	/**
+	 * @return the token as an URL-safe string; null if the sort value is of a type that can't be carried in a token
+	 */
+	public String encode() {
+		final String valueType;
+		final String value;
+
+		if (sortValue == null) {
+			valueType = TYPE_NULL;
+			value     = "";
+		} else if (sortValue instanceof String) {
+			valueType = TYPE_STRING;
+			value     = (String) sortValue;
+		} else if (sortValue instanceof Long) {
+			valueType = TYPE_LONG;
+			value     = sortValue.toString();
+		} else if (sortValue instanceof Integer) {
+			valueType = TYPE_INTEGER;
+			value     = sortValue.toString();
+		} else if (sortValue instanceof Date) {
+			valueType = TYPE_DATE;
+			value     = Long.toString(((Date) sortValue).getTime());
+		} else if (sortValue instanceof Boolean) {
+			valueType = TYPE_BOOLEAN;
+			value     = sortValue.toString();
+		} else {
+			return null;
+		}
+
+		if (lastId == null) {
+			return null;
+		}
+
+		// the value goes last, as it is the only part that can contain the separator
+		String token = (sortBy == null ? "" : sortBy) + SEPARATOR + (sortType == null ? "" : sortType) + SEPARATOR + lastId + SEPARATOR + valueType + SEPARATOR + value;
+
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the token was not created by encode()
+	 */
+	public static ContinuationToken decode(String token) {
+		String   decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+		String[] parts   = decoded.split(SEPARATOR, 5);
+
+		if (parts.length != 5) {
+			throw new IllegalArgumentException("invalid continuation token: " + token);
+		}
+
+		final Object sortValue;
+
+		try {
+			switch (parts[3]) {
+				case TYPE_STRING:
+					sortValue = parts[4];
+				break;
+
+				case TYPE_LONG:
+					sortValue = Long.valueOf(parts[4]);
+				break;
+
+				case TYPE_INTEGER:
+					sortValue = Integer.valueOf(parts[4]);
+				break;
+
+				case TYPE_DATE:
+					sortValue = new Date(Long.parseLong(parts[4]));
+				break;
+
+				case TYPE_BOOLEAN:
+					sortValue = Boolean.valueOf(parts[4]);
+				break;
+
+				case TYPE_NULL:
+					sortValue = null;
+				break;
+
+				default:
+					throw new IllegalArgumentException("invalid continuation token: " + token);
+			}
+
+			return new ContinuationToken(parts[0].isEmpty() ? null : parts[0], parts[1].isEmpty() ? null : parts[1], sortValue, Long.valueOf(parts[2]));
+		} catch (NumberFormatException excp) {
+			throw new IllegalArgumentException("invalid continuation token: " + token, excp);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ContinuationToken={sortBy={" + sortBy + "} sortType={" + sortType + "} sortValue={" + sortValue + "} lastId={" + lastId + "}}";
+	}
+}
@@ -26,14 +26,28 @@ import org.apache.ranger.biz.RoleDBStore;
 import org.apache.ranger.plugin.model.RangerRole;
 
 import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerRolesDeltaUtil;
 import org.apache.ranger.plugin.util.SearchFilter;
 
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
+/*
+ * Roles are global: the same roles are downloaded by all services. They are loaded from the database only when the
+ * global role version differs from the one of the cached roles, and by only one thread at a time. When roles are already
+ * cached for a service and serveStaleWhileReloading is enabled, other threads do not wait for that load and get the
+ * roles cached for the service instead.
+ *
+ * Per service, only the service's role version of the cached roles is kept, along with the difference from the roles
+ * the service had before; it is returned instead of all roles to callers that support role-deltas and already have the
+ * previous version.
+ */
 public class RangerRoleCache {
 	private static final Log LOG = LogFactory.getLog(RangerRoleCache.class);
 
@@ -41,9 +55,11 @@ public class RangerRoleCache {
 
 	public static volatile RangerRoleCache sInstance = null;
 	private final int waitTimeInSeconds;
-	final ReentrantLock lock = new ReentrantLock();
+	private final boolean serveStaleWhileReloading;
 
-	RangerRoleCacheWrapper rangerRoleCacheWrapper = null;
+	private final ReentrantLock             lock = new ReentrantLock();
+	private volatile RolesSnapshot          rolesSnapshot;
+	private final Map<String, ServiceRoles> serviceRolesMap = new ConcurrentHashMap<>();
 
 	public static RangerRoleCache getInstance() {
 		if (sInstance == null) {
@@ -57,86 +73,213 @@ public class RangerRoleCache {
 	}
 
 	private RangerRoleCache() {
-		waitTimeInSeconds = RangerConfiguration.getInstance().getInt("ranger.admin.policy.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
+		waitTimeInSeconds        = RangerConfiguration.getInstance().getInt("ranger.admin.policy.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
+		serveStaleWhileReloading = RangerConfiguration.getInstance().getBoolean("ranger.admin.role.download.cache.serve.stale.while.reloading", true);
 	}
 
 	public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rangerRoleVersionInDB) throws Exception {
+		return getLatestRangerRoleOrCached(serviceName, roleDBStore, lastKnownRoleVersion, rangerRoleVersionInDB, true);
+	}
+
+	public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rangerRoleVersionInDB, boolean forceFullRoles) throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("==> RangerRoleCache.getLatestRangerRoleOrCached(ServiceName= " + serviceName + " lastKnownRoleVersion= " + lastKnownRoleVersion + " rangerRoleVersionInDB= " + rangerRoleVersionInDB + ")");
+		}
+
 		RangerRoles ret = null;
 
 		if (lastKnownRoleVersion == null || !lastKnownRoleVersion.equals(rangerRoleVersionInDB)) {
-			rangerRoleCacheWrapper = new RangerRoleCacheWrapper();
-			ret = rangerRoleCacheWrapper.getLatestRangerRoles(serviceName, roleDBStore, lastKnownRoleVersion, rangerRoleVersionInDB);
-		} else if (lastKnownRoleVersion.equals(rangerRoleVersionInDB)) {
-			ret = null;
-		} else {
-			ret = rangerRoleCacheWrapper.getRangerRoles();
-		}
+			ServiceRoles serviceRoles = serviceRolesMap.get(serviceName);
 
-		return ret;
-	}
+			if (serviceRoles == null) {
+				ServiceRoles newServiceRoles = new ServiceRoles();
 
-	private class RangerRoleCacheWrapper {
-		RangerRoles rangerRoles;
-		Long 			rangerRoleVersion;
+				serviceRoles = serviceRolesMap.putIfAbsent(serviceName, newServiceRoles);
 
-		RangerRoleCacheWrapper() {
-			this.rangerRoles = null;
-			this.rangerRoleVersion = -1L;
-		}
+				if (serviceRoles == null) {
+					serviceRoles = newServiceRoles;
+				}
+			}
+
+			RolesSnapshot latestRoles = getLatestRoles(roleDBStore, serveStaleWhileReloading && serviceRoles.rangerRoles != null);
+
+			if (latestRoles != null) {
+				ret = serviceRoles.setRoles(latestRoles, rangerRoleVersionInDB);
+			} else {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("RangerRoles are being reloaded by another thread, returning cached RangerRoles:[" + serviceRoles.getRoleVersion() + "]");
+				}
+				ret = serviceRoles.rangerRoles;
+			}
 
-		public RangerRoles getRangerRoles() {
-			return this.rangerRoles;
+			if (ret != null && lastKnownRoleVersion != null && lastKnownRoleVersion.equals(ret.getRoleVersion())) {
+				// cached roles are not newer than the caller's
+				ret = null;
+			}
+
+			if (ret != null && !forceFullRoles) {
+				RangerRoles delta = serviceRoles.getDelta(lastKnownRoleVersion, ret.getRoleVersion());
+
+				if (delta != null) {
+					ret = delta;
+				}
+			}
 		}
 
-		public Long getRangerRoleVersion() {
-			return this.rangerRoleVersion;
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("<== RangerRoleCache.getLatestRangerRoleOrCached(ServiceName= " + serviceName + " lastKnownRoleVersion= " + lastKnownRoleVersion + " rangerRoleVersionInDB= " + rangerRoleVersionInDB + " RangerRoles= " + ret + ")");
 		}
 
-		public RangerRoles getLatestRangerRoles(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rangerRoleVersionInDB) throws Exception {
-			RangerRoles ret	 = null;
-			boolean         lockResult   = false;
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("==> RangerRoleCache.getLatestRangerRoles(ServiceName= " + serviceName + " lastKnownRoleVersion= " + lastKnownRoleVersion + " rangerRoleVersionInDB= " + rangerRoleVersionInDB + ")");
-			}
+		return ret;
+	}
+
+	/*
+	 * Returns the roles of the global role version in database, loading them if not cached yet; or null if they are being
+	 * loaded by another thread and serveStale is true, or if the wait for that load timed out.
+	 */
+	private RolesSnapshot getLatestRoles(RoleDBStore roleDBStore, boolean serveStale) throws Exception {
+		final Long    globalRoleVersionInDB = roleDBStore.getGlobalRoleVersion();
+		RolesSnapshot ret                   = rolesSnapshot;
+		boolean       lockResult            = false;
+
+		if (!isLatest(ret, globalRoleVersionInDB)) {
+			ret = null;
 
 			try {
-				lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+				if (serveStale) {
+					lockResult = lock.tryLock();
+				} else {
+					lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+				}
 
 				if (lockResult) {
-					// We are getting all the Roles to be downloaded for now. Should do downloades for each service based on what roles are there in the policies.
-					SearchFilter searchFilter = null;
-					final Set<RangerRole> rangerRoleInDB = new HashSet<>(roleDBStore.getRoles(searchFilter));
-
-					Date updateTime = new Date();
-
-					if (rangerRoleInDB != null) {
-						ret = new RangerRoles();
-						ret.setRangerRoles(rangerRoleInDB);
-						ret.setRoleUpdateTime(updateTime);
-						ret.setRoleVersion(rangerRoleVersionInDB);
-						rangerRoleVersion = rangerRoleVersionInDB;
+					if (isLatest(rolesSnapshot, globalRoleVersionInDB)) { // loaded by another thread while waiting for the lock
+						ret = rolesSnapshot;
 					} else {
-						LOG.error("Could not get Ranger Roles from database ...");
-					}
-				} else {
-					if (LOG.isDebugEnabled()) {
-						LOG.debug("Could not get lock in [" + waitTimeInSeconds + "] seconds, returning cached RangerRoles");
+						// We are getting all the Roles to be downloaded for now. Should do downloades for each service based on what roles are there in the policies.
+						SearchFilter searchFilter = null;
+						final Set<RangerRole> rangerRoleInDB = new HashSet<>(roleDBStore.getRoles(searchFilter));
+
+						ret           = new RolesSnapshot(globalRoleVersionInDB, rangerRoleInDB, new Date(), rolesSnapshot);
+						rolesSnapshot = ret;
 					}
-					ret = getRangerRoles();
 				}
 			} catch (InterruptedException exception) {
-				LOG.error("RangerRoleCache.getLatestRangerRoles:lock got interrupted..", exception);
+				LOG.error("RangerRoleCache.getLatestRoles:lock got interrupted..", exception);
 			} finally {
 				if (lockResult) {
 					lock.unlock();
 				}
 			}
+		}
+
+		return ret;
+	}
+
+	private static boolean isLatest(RolesSnapshot rolesSnapshot, Long globalRoleVersionInDB) {
+		return rolesSnapshot != null && globalRoleVersionInDB != null && globalRoleVersionInDB.equals(rolesSnapshot.globalRoleVersion);
+	}
+
+	/*
+	 * Roles of all services, as of a global role version; and the roles changed since the previously cached version.
+	 */
+	private static class RolesSnapshot {
+		final Long            globalRoleVersion;
+		final Set<RangerRole> roles;
+		final Date            updateTime;
+		final Long            deltaBaseGlobalRoleVersion;
+		final Set<RangerRole> changedRoles;
+		final Set<String>     deletedRoleNames;
+
+		RolesSnapshot(Long globalRoleVersion, Set<RangerRole> roles, Date updateTime, RolesSnapshot previous) {
+			this.globalRoleVersion = globalRoleVersion;
+			this.roles             = roles;
+			this.updateTime        = updateTime;
+
+			RangerRoles delta = previous != null ? RangerRolesDeltaUtil.getRolesDelta(previous.toRangerRoles(null), toRangerRoles(null)) : null;
+
+			this.deltaBaseGlobalRoleVersion = delta != null ? previous.globalRoleVersion : null;
+			this.changedRoles               = delta != null ? delta.getRangerRoles() : null;
+			this.deletedRoleNames           = delta != null ? delta.getDeletedRoleNames() : null;
+		}
 
-			if (LOG.isDebugEnabled()) {
-				LOG.debug("<== RangerRoleCache.getLatestRangerRoles(ServiceName= " + serviceName + " lastKnownRoleVersion= " + lastKnownRoleVersion + " rangerRoleVersionInDB= " + rangerRoleVersionInDB + " RangerRoles= " + ret + ")");
+		RangerRoles toRangerRoles(Long roleVersion) {
+			RangerRoles ret = new RangerRoles();
+
+			ret.setRangerRoles(roles);
+			ret.setRoleUpdateTime(updateTime);
+			ret.setRoleVersion(roleVersion);
+
+			return ret;
+		}
+
+		/*
+		 * Returns the roles changed since the given global role version, or null if not known.
+		 */
+		RangerRoles getDelta(Long fromGlobalRoleVersion, Long roleVersion) {
+			final RangerRoles ret;
+
+			if (fromGlobalRoleVersion == null) {
+				ret = null;
+			} else if (fromGlobalRoleVersion.equals(globalRoleVersion)) {
+				ret = createDelta(Collections.<RangerRole>emptySet(), Collections.<String>emptySet(), roleVersion);
+			} else if (fromGlobalRoleVersion.equals(deltaBaseGlobalRoleVersion)) {
+				ret = createDelta(changedRoles, deletedRoleNames, roleVersion);
+			} else {
+				ret = null;
 			}
+
+			return ret;
+		}
+
+		private RangerRoles createDelta(Set<RangerRole> changedRoles, Set<String> deletedRoleNames, Long roleVersion) {
+			RangerRoles ret = new RangerRoles();
+
+			ret.setRangerRoles(changedRoles);
+			ret.setDeletedRoleNames(deletedRoleNames);
+			ret.setRoleUpdateTime(updateTime);
+			ret.setRoleVersion(roleVersion);
+			ret.setIsDelta(Boolean.TRUE);
+
 			return ret;
 		}
 	}
-}
 
+	/*
+	 * Role versions of a service: the cached roles with the service's role version, and the delta from the service's
+	 * previous role version.
+	 */
+	private static class ServiceRoles {
+		volatile RangerRoles rangerRoles;
+		volatile RangerRoles rangerRolesDelta;
+		volatile Long        rangerRolesDeltaBaseVersion;
+		Long                 globalRoleVersion;
+
+		synchronized RangerRoles setRoles(RolesSnapshot rolesSnapshot, Long roleVersion) {
+			RangerRoles previousRangerRoles = rangerRoles;
+
+			if (previousRangerRoles == null || roleVersion == null || !roleVersion.equals(previousRangerRoles.getRoleVersion()) || !rolesSnapshot.globalRoleVersion.equals(globalRoleVersion)) {
+				RangerRoles delta = previousRangerRoles != null ? rolesSnapshot.getDelta(globalRoleVersion, roleVersion) : null;
+
+				rangerRolesDelta            = delta;
+				rangerRolesDeltaBaseVersion = delta != null ? previousRangerRoles.getRoleVersion() : null;
+				rangerRoles                 = rolesSnapshot.toRangerRoles(roleVersion);
+				globalRoleVersion           = rolesSnapshot.globalRoleVersion;
+			}
+
+			return rangerRoles;
+		}
+
+		Long getRoleVersion() {
+			RangerRoles rangerRoles = this.rangerRoles;
+
+			return rangerRoles != null ? rangerRoles.getRoleVersion() : null;
+		}
+
+		RangerRoles getDelta(Long lastKnownRoleVersion, Long roleVersion) {
+			final RangerRoles delta = rangerRolesDelta;
+
+			return delta != null && lastKnownRoleVersion != null && lastKnownRoleVersion.equals(rangerRolesDeltaBaseVersion) && roleVersion != null && roleVersion.equals(delta.getRoleVersion()) ? delta : null;
+		}
+	}
+}
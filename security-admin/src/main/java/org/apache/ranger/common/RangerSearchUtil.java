@@ -178,6 +178,10 @@ public class RangerSearchUtil extends SearchUtil {
 		ret.setMaxRows(validatePageSize(pageSize));
 
 		ret.setGetCount(restErrorUtil.parseBoolean(request.getParameter("getCount"), true));
+		ret.setApproximateCount(restErrorUtil.parseBoolean(request.getParameter(SearchFilter.APPROXIMATE_COUNT), false));
+		ret.setContinuationToken(restErrorUtil.validateString(request.getParameter(SearchFilter.CONTINUATION_TOKEN),
+				StringUtil.VALIDATION_CONTINUATION_TOKEN, "Invalid value for parameter continuationToken",
+				MessageEnums.INVALID_INPUT_DATA, null, SearchFilter.CONTINUATION_TOKEN));
 		String sortBy = restErrorUtil.validateString(request.getParameter(SearchFilter.SORT_BY),
 				StringUtil.VALIDATION_ALPHA, "Invalid value for parameter sortBy", MessageEnums.INVALID_INPUT_DATA,
 				null, SearchFilter.SORT_BY);
@@ -230,6 +234,21 @@ public class RangerSearchUtil extends SearchUtil {
 		return query;
 	}
 	
+	public Query createKeysetSearchQuery(EntityManager em, String queryStr, SearchFilter searchCriteria,
+			List<SearchField> searchFields, String keysetField, ContinuationToken position) {
+		StringBuilder queryClause = buildWhereClause(searchCriteria, searchFields);
+
+		addKeysetClause(queryClause, keysetField, searchCriteria.getSortType(), position);
+
+		Query query = em.createQuery(queryStr + queryClause);
+
+		resolveQueryParams(query, searchCriteria, searchFields);
+		resolveKeysetParams(query, keysetField, position);
+		updateQueryPageSizeWithLookAhead(query, validatePageSize(searchCriteria.getMaxRows()));
+
+		return query;
+	}
+
 	private StringBuilder buildWhereClause(SearchFilter searchCriteria, List<SearchField> searchFields) {
 		return buildWhereClause(searchCriteria, searchFields, false);
 	}
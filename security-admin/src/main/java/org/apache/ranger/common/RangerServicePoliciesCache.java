@@ -33,10 +33,9 @@ import org.apache.ranger.plugin.util.ServicePolicies;
 
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -47,8 +46,9 @@ public class RangerServicePoliciesCache {
 
 	public static volatile RangerServicePoliciesCache sInstance = null;
 	private final int waitTimeInSeconds;
+	private final boolean serveStaleWhileReloading;
 
-	private final Map<String, ServicePoliciesWrapper> servicePoliciesMap = new HashMap<>();
+	private final Map<String, ServicePoliciesWrapper> servicePoliciesMap = new ConcurrentHashMap<>();
 
 	public static RangerServicePoliciesCache getInstance() {
 		if (sInstance == null) {
@@ -62,27 +62,13 @@ public class RangerServicePoliciesCache {
 	}
 
 	private RangerServicePoliciesCache() {
-		waitTimeInSeconds = RangerConfiguration.getInstance().getInt("ranger.admin.policy.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
+		waitTimeInSeconds        = RangerConfiguration.getInstance().getInt("ranger.admin.policy.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
+		serveStaleWhileReloading = RangerConfiguration.getInstance().getBoolean("ranger.admin.policy.download.cache.serve.stale.while.reloading", true);
 	}
 
 	public void dump() {
-		final Set<String> serviceNames;
-
-		synchronized (this) {
-			serviceNames = servicePoliciesMap.keySet();
-		}
-
-		if (CollectionUtils.isNotEmpty(serviceNames)) {
-
-			for (String serviceName : serviceNames) {
-				final ServicePoliciesWrapper cachedServicePoliciesWrapper;
-
-				synchronized (this) {
-					cachedServicePoliciesWrapper = servicePoliciesMap.get(serviceName);
-				}
-				LOG.debug("serviceName:" + serviceName + ", Cached-MetaData:" + cachedServicePoliciesWrapper);
-
-			}
+		for (Map.Entry<String, ServicePoliciesWrapper> entry : servicePoliciesMap.entrySet()) {
+			LOG.debug("serviceName:" + entry.getKey() + ", Cached-MetaData:" + entry.getValue());
 		}
 	}
 
@@ -96,26 +82,27 @@ public class RangerServicePoliciesCache {
 
 		if (StringUtils.isNotBlank(serviceName) && serviceId != null) {
 
-			ServicePoliciesWrapper servicePoliciesWrapper;
-
-			synchronized (this) {
-				servicePoliciesWrapper = servicePoliciesMap.get(serviceName);
+			ServicePoliciesWrapper servicePoliciesWrapper = servicePoliciesMap.get(serviceName);
 
-				if (servicePoliciesWrapper != null) {
-					if (!serviceId.equals(servicePoliciesWrapper.getServiceId())) {
-						if (LOG.isDebugEnabled()) {
-							LOG.debug("Service [" + serviceName + "] changed service-id from " + servicePoliciesWrapper.getServiceId()
-									+ " to " + serviceId);
-							LOG.debug("Recreating servicePoliciesWrapper for serviceName [" + serviceName + "]");
-						}
-						servicePoliciesMap.remove(serviceName);
-						servicePoliciesWrapper = null;
+			if (servicePoliciesWrapper != null) {
+				if (!serviceId.equals(servicePoliciesWrapper.getServiceId())) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("Service [" + serviceName + "] changed service-id from " + servicePoliciesWrapper.getServiceId()
+								+ " to " + serviceId);
+						LOG.debug("Recreating servicePoliciesWrapper for serviceName [" + serviceName + "]");
 					}
+					servicePoliciesMap.remove(serviceName, servicePoliciesWrapper);
+					servicePoliciesWrapper = null;
 				}
+			}
+
+			if (servicePoliciesWrapper == null) {
+				ServicePoliciesWrapper newServicePoliciesWrapper = new ServicePoliciesWrapper(serviceId);
+
+				servicePoliciesWrapper = servicePoliciesMap.putIfAbsent(serviceName, newServicePoliciesWrapper);
 
 				if (servicePoliciesWrapper == null) {
-					servicePoliciesWrapper = new ServicePoliciesWrapper(serviceId);
-					servicePoliciesMap.put(serviceName, servicePoliciesWrapper);
+					servicePoliciesWrapper = newServicePoliciesWrapper;
 				}
 			}
 
@@ -137,14 +124,18 @@ public class RangerServicePoliciesCache {
 		return ret;
 	}
 
+	/*
+	 * Only one thread per service loads from the database at a time. When the service already has cached policies and
+	 * serveStaleWhileReloading is enabled, other threads do not wait for that load and get the cached policies instead.
+	 */
 	private class ServicePoliciesWrapper {
-		final Long          serviceId;
-		ServicePolicies     servicePolicies;
-		Date                updateTime            = null;
-		long                longestDbLoadTimeInMs = -1;
-		final ReentrantLock lock = new ReentrantLock();
+		final Long               serviceId;
+		volatile ServicePolicies servicePolicies;
+		volatile Date            updateTime            = null;
+		long                     longestDbLoadTimeInMs = -1;
+		final ReentrantLock      lock = new ReentrantLock();
 
-		ServicePolicyDeltasCache deltaCache;
+		volatile ServicePolicyDeltasCache deltaCache;
 
 		class ServicePolicyDeltasCache {
 			final long            fromVersion;
@@ -184,7 +175,11 @@ public class RangerServicePoliciesCache {
 			try {
 				final boolean isCacheReloadedByDQEvent;
 
-				lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+				if (serveStaleWhileReloading && servicePolicies != null) {
+					lockResult = lock.tryLock();
+				} else {
+					lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+				}
 
 				if (lockResult) {
 					isCacheReloadedByDQEvent = getLatest(serviceName, serviceStore, lastKnownVersion);
@@ -227,7 +222,7 @@ public class RangerServicePoliciesCache {
 					}
 				} else {
 					if (LOG.isDebugEnabled()) {
-						LOG.debug("Could not get lock in [" + waitTimeInSeconds + "] seconds, returning cached ServicePolicies");
+						LOG.debug("ServicePolicies are being reloaded by another thread, returning cached ServicePolicies:[" + (servicePolicies != null ? servicePolicies.getPolicyVersion() : -1L) + "]");
 					}
 					ret = this.servicePolicies;
 				}
@@ -285,26 +280,29 @@ public class RangerServicePoliciesCache {
 						if (LOG.isDebugEnabled()) {
 							LOG.debug("Initializing ServicePolicies cache for the first time");
 						}
+						pruneUnusedAttributes(servicePoliciesFromDb);
 						servicePolicies = servicePoliciesFromDb;
-						pruneUnusedAttributes();
 					} else if (servicePoliciesFromDb.getPolicyDeltas() == null) {
 						// service-policies are loaded because service/service-def changed
 						if (LOG.isDebugEnabled()) {
 							LOG.debug("Complete set of policies are loaded from database, because of some disqualifying event");
 						}
+						pruneUnusedAttributes(servicePoliciesFromDb);
 						servicePolicies = servicePoliciesFromDb;
-						pruneUnusedAttributes();
 						isCacheReloadedByDQEvent = true;
 					} else { // Previously cached service policies are still valid - no service/service-def change
 						// Rebuild policies cache from original policies and deltas
 						if (LOG.isDebugEnabled()) {
 							LOG.debug("Retrieved policy-deltas from database. These will be applied on top of ServicePolicy version:[" + cachedServicePoliciesVersion +"], policy-deltas:[" + servicePoliciesFromDb.getPolicyDeltas() + "]");
 						}
-						servicePolicies.setPolicyVersion(servicePoliciesFromDb.getPolicyVersion());
+						// apply deltas on a copy: threads served with the cached policies during this reload may still be reading them
+						final ServicePolicies newServicePolicies = copyOf(servicePolicies);
+
+						newServicePolicies.setPolicyVersion(servicePoliciesFromDb.getPolicyVersion());
 
-						final List<RangerPolicy> policies = servicePolicies.getPolicies() == null ? new ArrayList<>() : servicePolicies.getPolicies();
-						final List<RangerPolicy> newPolicies = RangerPolicyDeltaUtil.applyDeltas(policies, servicePoliciesFromDb.getPolicyDeltas(), servicePolicies.getServiceDef().getName());
-						servicePolicies.setPolicies(newPolicies);
+						final List<RangerPolicy> policies = newServicePolicies.getPolicies() == null ? new ArrayList<>() : newServicePolicies.getPolicies();
+						final List<RangerPolicy> newPolicies = RangerPolicyDeltaUtil.applyDeltas(policies, servicePoliciesFromDb.getPolicyDeltas(), newServicePolicies.getServiceDef().getName());
+						newServicePolicies.setPolicies(newPolicies);
 
 						// Rebuild tag-policies from original tag-policies and deltas
 						if (servicePoliciesFromDb.getTagPolicies() != null) {
@@ -312,15 +310,17 @@ public class RangerServicePoliciesCache {
 								LOG.debug("This service has associated tag service. Will compute tagPolicies from corresponding policy-deltas");
 							}
 
-							final List<RangerPolicy> tagPolicies = (servicePolicies.getTagPolicies() == null || CollectionUtils.isEmpty(servicePolicies.getTagPolicies().getPolicies())) ? new ArrayList<>() : servicePolicies.getTagPolicies().getPolicies();
+							final List<RangerPolicy> tagPolicies = (newServicePolicies.getTagPolicies() == null || CollectionUtils.isEmpty(newServicePolicies.getTagPolicies().getPolicies())) ? new ArrayList<>() : newServicePolicies.getTagPolicies().getPolicies();
 							final List<RangerPolicy> newTagPolicies = RangerPolicyDeltaUtil.applyDeltas(tagPolicies, servicePoliciesFromDb.getPolicyDeltas(), servicePoliciesFromDb.getTagPolicies().getServiceDef().getName());
-							servicePolicies.getTagPolicies().setPolicies(newTagPolicies);
+							newServicePolicies.getTagPolicies().setPolicies(newTagPolicies);
 
 						} else {
 							if (LOG.isDebugEnabled()) {
 								LOG.debug("This service has no associated tag service");
 							}
 						}
+
+						servicePolicies = newServicePolicies;
 					}
 					this.deltaCache = null;
 				} else {
@@ -345,7 +345,38 @@ public class RangerServicePoliciesCache {
 			return isCacheReloadedByDQEvent;
 		}
 
-		private void pruneUnusedAttributes() {
+		private ServicePolicies copyOf(ServicePolicies source) {
+			ServicePolicies ret = new ServicePolicies();
+
+			ret.setServiceName(source.getServiceName());
+			ret.setServiceId(source.getServiceId());
+			ret.setPolicyVersion(source.getPolicyVersion());
+			ret.setPolicyUpdateTime(source.getPolicyUpdateTime());
+			ret.setPolicies(source.getPolicies());
+			ret.setServiceDef(source.getServiceDef());
+			ret.setAuditMode(source.getAuditMode());
+			ret.setSecurityZones(source.getSecurityZones());
+			ret.setPolicyDeltas(source.getPolicyDeltas());
+
+			if (source.getTagPolicies() != null) {
+				ServicePolicies.TagPolicies sourceTagPolicies = source.getTagPolicies();
+				ServicePolicies.TagPolicies tagPolicies       = new ServicePolicies.TagPolicies();
+
+				tagPolicies.setServiceName(sourceTagPolicies.getServiceName());
+				tagPolicies.setServiceId(sourceTagPolicies.getServiceId());
+				tagPolicies.setPolicyVersion(sourceTagPolicies.getPolicyVersion());
+				tagPolicies.setPolicyUpdateTime(sourceTagPolicies.getPolicyUpdateTime());
+				tagPolicies.setPolicies(sourceTagPolicies.getPolicies());
+				tagPolicies.setServiceDef(sourceTagPolicies.getServiceDef());
+				tagPolicies.setAuditMode(sourceTagPolicies.getAuditMode());
+
+				ret.setTagPolicies(tagPolicies);
+			}
+
+			return ret;
+		}
+
+		private void pruneUnusedAttributes(ServicePolicies servicePolicies) {
 			if (servicePolicies != null) {
 				pruneUnusedPolicyAttributes(servicePolicies.getPolicies());
 				if (servicePolicies.getTagPolicies() != null) {
@@ -19,7 +19,6 @@
 
 package org.apache.ranger.common;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.ranger.authorization.hadoop.config.RangerConfiguration;
 import org.apache.ranger.plugin.store.TagStore;
@@ -29,10 +28,11 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.plugin.util.RangerServiceTagsDeltaUtil;
 import org.apache.ranger.plugin.util.ServiceTags;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -44,8 +44,9 @@ public class RangerServiceTagsCache {
 	private static volatile RangerServiceTagsCache sInstance = null;
 	private final boolean useServiceTagsCache;
 	private final int waitTimeInSeconds;
+	private final boolean serveStaleWhileReloading;
 
-	private final Map<String, ServiceTagsWrapper> serviceTagsMap = new HashMap<>();
+	private final Map<String, ServiceTagsWrapper> serviceTagsMap = new ConcurrentHashMap<>();
 
 	public static RangerServiceTagsCache getInstance() {
 		if (sInstance == null) {
@@ -61,26 +62,14 @@ public class RangerServiceTagsCache {
 	private RangerServiceTagsCache() {
 		useServiceTagsCache = RangerConfiguration.getInstance().getBoolean("ranger.admin.tag.download.usecache", true);
 		waitTimeInSeconds = RangerConfiguration.getInstance().getInt("ranger.admin.tag.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
+		serveStaleWhileReloading = RangerConfiguration.getInstance().getBoolean("ranger.admin.tag.download.cache.serve.stale.while.reloading", true);
 	}
 
 	public void dump() {
 
 		if (useServiceTagsCache) {
-			final Set<String> serviceNames;
-
-			synchronized (this) {
-				serviceNames = serviceTagsMap.keySet();
-			}
-
-			if (CollectionUtils.isNotEmpty(serviceNames)) {
-				ServiceTagsWrapper cachedServiceTagsWrapper;
-
-				for (String serviceName : serviceNames) {
-					synchronized (this) {
-						cachedServiceTagsWrapper = serviceTagsMap.get(serviceName);
-					}
-					LOG.debug("serviceName:" + serviceName + ", Cached-MetaData:" + cachedServiceTagsWrapper);
-				}
+			for (Map.Entry<String, ServiceTagsWrapper> entry : serviceTagsMap.entrySet()) {
+				LOG.debug("serviceName:" + entry.getKey() + ", Cached-MetaData:" + entry.getValue());
 			}
 		}
 	}
@@ -110,25 +99,26 @@ public class RangerServiceTagsCache {
 					LOG.error("getServiceTags(" + serviceName + "): failed to get latest tags as tag-store is null!");
 				}
 			} else {
-				ServiceTagsWrapper serviceTagsWrapper;
-
-				synchronized (this) {
-					serviceTagsWrapper = serviceTagsMap.get(serviceName);
+				ServiceTagsWrapper serviceTagsWrapper = serviceTagsMap.get(serviceName);
 
-					if (serviceTagsWrapper != null) {
-						if (!serviceId.equals(serviceTagsWrapper.getServiceId())) {
-							if (LOG.isDebugEnabled()) {
-								LOG.debug("Service [" + serviceName + "] changed service-id from " + serviceTagsWrapper.getServiceId()
-										+ " to " + serviceId);
-								LOG.debug("Recreating serviceTagsWrapper for serviceName [" + serviceName + "]");
-							}
-							serviceTagsMap.remove(serviceName);
-							serviceTagsWrapper = null;
+				if (serviceTagsWrapper != null) {
+					if (!serviceId.equals(serviceTagsWrapper.getServiceId())) {
+						if (LOG.isDebugEnabled()) {
+							LOG.debug("Service [" + serviceName + "] changed service-id from " + serviceTagsWrapper.getServiceId()
+									+ " to " + serviceId);
+							LOG.debug("Recreating serviceTagsWrapper for serviceName [" + serviceName + "]");
 						}
+						serviceTagsMap.remove(serviceName, serviceTagsWrapper);
+						serviceTagsWrapper = null;
 					}
+				}
+				if (serviceTagsWrapper == null) {
+					ServiceTagsWrapper newServiceTagsWrapper = new ServiceTagsWrapper(serviceId);
+
+					serviceTagsWrapper = serviceTagsMap.putIfAbsent(serviceName, newServiceTagsWrapper);
+
 					if (serviceTagsWrapper == null) {
-						serviceTagsWrapper = new ServiceTagsWrapper(serviceId);
-						serviceTagsMap.put(serviceName, serviceTagsWrapper);
+						serviceTagsWrapper = newServiceTagsWrapper;
 					}
 				}
 
@@ -151,13 +141,17 @@ public class RangerServiceTagsCache {
 		return ret;
 	}
 
+	/*
+	 * Only one thread per service loads from the database at a time. When the service already has cached tags and
+	 * serveStaleWhileReloading is enabled, other threads do not wait for that load and get the cached tags instead.
+	 */
 	private class ServiceTagsWrapper {
 		final Long serviceId;
-		ServiceTags serviceTags;
-		Date updateTime = null;
+		volatile ServiceTags serviceTags;
+		volatile Date updateTime = null;
 		long longestDbLoadTimeInMs = -1;
 
-		ServiceTagsDeltasCache deltaCache;
+		volatile ServiceTagsDeltasCache deltaCache;
 
 		class ServiceTagsDeltasCache {
 			final long        		fromVersion;
@@ -198,7 +192,11 @@ public class RangerServiceTagsCache {
 			try {
 				final boolean isCacheCompletelyLoaded;
 
-				lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+				if (serveStaleWhileReloading && serviceTags != null) {
+					lockResult = lock.tryLock();
+				} else {
+					lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+				}
 				if (lockResult) {
 
 					isCacheCompletelyLoaded = getLatest(serviceName, tagStore);
@@ -240,7 +238,7 @@ public class RangerServiceTagsCache {
 					}
 				} else {
 					if (LOG.isDebugEnabled()) {
-						LOG.debug("Could not get lock in [" + waitTimeInSeconds + "] seconds, returning cached ServiceTags");
+						LOG.debug("ServiceTags are being reloaded by another thread, returning cached ServiceTags:[" + (serviceTags != null ? serviceTags.getTagVersion() : -1L) + "]");
 					}
 					ret = this.serviceTags;
 				}
@@ -294,25 +292,26 @@ public class RangerServiceTagsCache {
 						if (LOG.isDebugEnabled()) {
 							LOG.debug("Initializing ServiceTags cache for the first time");
 						}
+						pruneUnusedAttributes(serviceTagsFromDb);
 						serviceTags = serviceTagsFromDb;
 						this.deltaCache = null;
-						pruneUnusedAttributes();
 						isCacheCompletelyLoaded = true;
 					} else if (!serviceTagsFromDb.getIsDelta()) {
 						// service-tags are loaded because of some disqualifying event
 						if (LOG.isDebugEnabled()) {
 							LOG.debug("Complete set of tag are loaded from database, because of some disqualifying event or because tag-delta is not supported");
 						}
+						pruneUnusedAttributes(serviceTagsFromDb);
 						serviceTags = serviceTagsFromDb;
 						this.deltaCache = null;
-						pruneUnusedAttributes();
 						isCacheCompletelyLoaded = true;
 					} else { // Previously cached service tags are still valid - no disqualifying change
 						// Rebuild tags cache from original tags and deltas
 						if (LOG.isDebugEnabled()) {
 							LOG.debug("Retrieved tag-deltas from database. These will be applied on top of ServiceTags version:[" + cachedServiceTagsVersion + "], tag-deltas:[" + serviceTagsFromDb.getTagVersion() + "]");
 						}
-						RangerServiceTagsDeltaUtil.applyDelta(serviceTags, serviceTagsFromDb);
+						// apply delta on a copy: threads served with the cached tags during this reload may still be reading them
+						serviceTags = RangerServiceTagsDeltaUtil.applyDelta(copyOf(serviceTags), serviceTagsFromDb);
 						this.deltaCache = new ServiceTagsDeltasCache(cachedServiceTagsVersion, serviceTagsFromDb);
 					}
 				} else {
@@ -334,8 +333,14 @@ public class RangerServiceTagsCache {
 			return isCacheCompletelyLoaded;
 		}
 
-		private void pruneUnusedAttributes() {
-			RangerServiceTagsDeltaUtil.pruneUnusedAttributes(this.serviceTags);
+		private void pruneUnusedAttributes(ServiceTags serviceTags) {
+			RangerServiceTagsDeltaUtil.pruneUnusedAttributes(serviceTags);
+		}
+
+		private ServiceTags copyOf(ServiceTags source) {
+			return new ServiceTags(source.getOp(), source.getServiceName(), source.getTagVersion(), source.getTagUpdateTime(),
+			                       new HashMap<>(source.getTagDefinitions()), new HashMap<>(source.getTags()), new ArrayList<>(source.getServiceResources()),
+			                       new HashMap<>(source.getResourceToTagIds()), source.getIsDelta(), source.getTagsChangeExtent());
 		}
 
 		StringBuilder toString(StringBuilder sb) {
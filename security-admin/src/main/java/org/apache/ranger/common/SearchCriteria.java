@@ -40,6 +40,8 @@ public class SearchCriteria {
 	String sortBy = null;
 	String sortType = null;
 	boolean getCount = true;
+	boolean approximateCount = false;
+	String continuationToken = null;
 	Number ownerId = null;
 	boolean familyOnly = false;
 	boolean getChildren = false;
@@ -118,6 +120,37 @@ public class SearchCriteria {
 		this.getCount = getCount;
 	}
 
+	public boolean isApproximateCount() {
+		return approximateCount;
+	}
+
+	/**
+	 * @param approximateCount
+	 *            when true, the total count is not queried but estimated
+	 *            from the page read: startIndex + rows read, plus one if
+	 *            there are more rows
+	 */
+	public void setApproximateCount(boolean approximateCount) {
+		this.approximateCount = approximateCount;
+	}
+
+	/**
+	 * @return the continuationToken
+	 */
+	public String getContinuationToken() {
+		return continuationToken;
+	}
+
+	/**
+	 * @param continuationToken
+	 *            when set, rows are read with keyset pagination after the
+	 *            position in the token, instead of from startIndex; see
+	 *            {@link ContinuationToken}
+	 */
+	public void setContinuationToken(String continuationToken) {
+		this.continuationToken = continuationToken;
+	}
+
 	public Number getOwnerId() {
 		return ownerId;
 	}
@@ -32,7 +32,11 @@ import javax.persistence.EntityManager;
 import javax.persistence.Query;
 import javax.servlet.http.HttpServletRequest;
 
+import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
+import org.apache.ranger.biz.RangerBizUtil;
+import org.apache.ranger.entity.XXDBBase;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -53,6 +57,8 @@ public class SearchUtil {
 	@Autowired
 	StringUtil stringUtil;
 
+	public static final String KEYSET_ID_FIELD = "obj.id";
+
 	int minInListLength = 20;
 	String defaultDateFormat="MM/dd/yyyy";
 
@@ -86,6 +92,14 @@ public class SearchUtil {
 		// is count needed
 		searchCriteria.setGetCount(restErrorUtil.parseBoolean(
 				request.getParameter("getCount"), true));
+		searchCriteria.setApproximateCount(restErrorUtil.parseBoolean(
+				request.getParameter("approximateCount"), false));
+
+		// keyset pagination: "*" for the first page, then the token returned with each page
+		searchCriteria.setContinuationToken(restErrorUtil.validateString(
+				request.getParameter("continuationToken"), StringUtil.VALIDATION_CONTINUATION_TOKEN,
+				"Invalid value for parameter continuationToken",
+				MessageEnums.INVALID_INPUT_DATA, null, "continuationToken"));
 
 		searchCriteria.setOwnerId(restErrorUtil.parseLong(
 				request.getParameter("ownerId"), null));
@@ -304,11 +318,31 @@ public class SearchUtil {
 		// Set max records
 		int pageSize = validatePageSize(searchCriteria.getMaxRows());
 
-		query.setMaxResults(pageSize);
+		setQueryMaxRows(query, pageSize);
+	}
+
+	/**
+	 * Sets the query to read one row beyond the page, which tells whether
+	 * there are more rows without counting them.
+	 */
+	public void updateQueryPageSizeWithLookAhead(Query query, int pageSize) {
+		setQueryMaxRows(query, pageSize < Integer.MAX_VALUE ? pageSize + 1 : pageSize);
+	}
+
+	protected void setQueryMaxRows(Query query, int maxRows) {
+		query.setMaxResults(maxRows);
 
 		// Set hint for max records
-		query.setHint("eclipselink.jdbc.max-rows", String.valueOf(pageSize));
+		query.setHint("eclipselink.jdbc.max-rows", String.valueOf(maxRows));
+	}
 
+	/**
+	 * @return lower bound of the number of rows that meet the search
+	 *         criteria, from a page read with
+	 *         updateQueryPageSizeWithLookAhead()
+	 */
+	public long getApproximateCount(int startIndex, int pageSize, int rowsRead) {
+		return startIndex + Math.min(rowsRead, pageSize) + (rowsRead > pageSize ? 1 : 0);
 	}
 
 	public int validatePageSize(int inputPageSize) {
@@ -379,6 +413,153 @@ public class SearchUtil {
 		return null;
 	}
 
+	/**
+	 * @param sortBy
+	 *            sort parameter, as normalized by constructSortClause()
+	 * @return the field to seek on for keyset pagination, when sorting by
+	 *         the given parameter: obj.id when there is no sort, and the
+	 *         sort field when it is a field of the entity itself; null
+	 *         otherwise
+	 */
+	public String getKeysetSortField(String sortBy, List<SortField> sortFields) {
+		if (stringUtil.isEmpty(sortBy)) {
+			return KEYSET_ID_FIELD;
+		}
+
+		for (SortField sortField : sortFields) {
+			if (sortField.getParamName().equalsIgnoreCase(sortBy)) {
+				String fieldName = sortField.getFieldName();
+
+				if (fieldName != null && fieldName.startsWith("obj.") && fieldName.indexOf('.', 4) == -1) {
+					return fieldName;
+				}
+				break;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @return position to read rows after; null to read the first page
+	 */
+	public ContinuationToken parseContinuationToken(String token, String sortBy, String sortType) {
+		if (stringUtil.isEmpty(token) || ContinuationToken.FIRST_PAGE.equals(token)) {
+			return null;
+		}
+
+		ContinuationToken ret;
+
+		try {
+			ret = ContinuationToken.decode(token);
+		} catch (IllegalArgumentException excp) {
+			logger.debug("Invalid continuationToken: " + token, excp);
+
+			ret = null;
+		}
+
+		// a token is valid only for the sort it was created with
+		if (ret == null || !StringUtils.equalsIgnoreCase(ret.getSortBy(), sortBy) || !StringUtils.equalsIgnoreCase(ret.getSortType(), sortType)) {
+			throw restErrorUtil.createRESTException("Invalid value for parameter continuationToken",
+					MessageEnums.INVALID_INPUT_DATA);
+		}
+
+		return ret;
+	}
+
+	/**
+	 * @param lastRow
+	 *            last row of the page read
+	 * @return token for the rows after lastRow; null if the value of the
+	 *         sort field of lastRow can't be read or carried in a token
+	 */
+	public String createContinuationToken(XXDBBase lastRow, String keysetField, String sortBy, String sortType) {
+		Object sortValue;
+
+		if (KEYSET_ID_FIELD.equals(keysetField)) {
+			sortValue = lastRow.getId();
+		} else {
+			try {
+				sortValue = PropertyUtils.getProperty(lastRow, keysetField.substring("obj.".length()));
+			} catch (Exception excp) {
+				logger.warn("Failed to read " + keysetField + " of " + lastRow.getClass().getSimpleName() + ": continuationToken not created", excp);
+
+				return null;
+			}
+		}
+
+		String ret = new ContinuationToken(sortBy, sortType, sortValue, lastRow.getId()).encode();
+
+		if (ret == null) {
+			logger.warn("Can't seek on value '" + sortValue + "' of " + keysetField + ": continuationToken not created");
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Appends, to a where clause, the condition to read the rows after the
+	 * given position and the matching order by clause; ties on the sort
+	 * field, including rows where it is null, are ordered by id. Rows where
+	 * the sort field is null come where the database sorts nulls.
+	 */
+	protected void addKeysetClause(StringBuilder queryClause, String keysetField, String sortType, ContinuationToken position) {
+		boolean isDesc   = "desc".equalsIgnoreCase(sortType);
+		String  operator = isDesc ? " < " : " > ";
+		String  order    = isDesc ? " desc" : " asc";
+
+		if (position != null) {
+			if (KEYSET_ID_FIELD.equals(keysetField)) {
+				queryClause.append(" and obj.id").append(operator).append(":keysetLastId");
+			} else if (position.getSortValue() == null) {
+				queryClause.append(" and ((").append(keysetField).append(" is null and obj.id").append(operator).append(":keysetLastId)");
+
+				if (isNullSortedFirst(isDesc)) {
+					queryClause.append(" or ").append(keysetField).append(" is not null");
+				}
+
+				queryClause.append(")");
+			} else {
+				queryClause.append(" and (").append(keysetField).append(operator).append(":keysetSortValue")
+						.append(" or (").append(keysetField).append(" = :keysetSortValue and obj.id").append(operator).append(":keysetLastId)");
+
+				if (!isNullSortedFirst(isDesc)) {
+					queryClause.append(" or ").append(keysetField).append(" is null");
+				}
+
+				queryClause.append(")");
+			}
+		}
+
+		queryClause.append(" ORDER BY ").append(keysetField).append(order);
+
+		if (!KEYSET_ID_FIELD.equals(keysetField)) {
+			queryClause.append(", obj.id").append(order);
+		}
+	}
+
+	/**
+	 * @return true if the database puts nulls before other values in the
+	 *         given order: Oracle and PostgreSQL sort nulls as the highest
+	 *         value, other databases as the lowest
+	 */
+	protected boolean isNullSortedFirst(boolean isDesc) {
+		int     dbFlavor      = RangerBizUtil.getDBFlavor();
+		boolean isNullHighest = dbFlavor == AppConstants.DB_FLAVOR_ORACLE || dbFlavor == AppConstants.DB_FLAVOR_POSTGRES;
+
+		return isDesc == isNullHighest;
+	}
+
+	protected void resolveKeysetParams(Query query, String keysetField, ContinuationToken position) {
+		if (position != null) {
+			query.setParameter("keysetLastId", position.getLastId());
+
+			if (!KEYSET_ID_FIELD.equals(keysetField) && position.getSortValue() != null) {
+				query.setParameter("keysetSortValue", position.getSortValue());
+			}
+		}
+	}
+
 	protected StringBuilder buildWhereClause(SearchCriteria searchCriteria,
 			List<SearchField> searchFields) {
 		return buildWhereClause(searchCriteria, searchFields, false, false);
@@ -735,6 +916,28 @@ public class SearchUtil {
 		return query;
 	}
 	
+	/**
+	 * Creates the query to read a page with keyset pagination: rows after
+	 * the given position, in the order of keysetField, plus one row to tell
+	 * whether there are more.
+	 */
+	public Query createKeysetSearchQuery(EntityManager em, String queryStr,
+			SearchCriteria searchCriteria, List<SearchField> searchFields,
+			String keysetField, ContinuationToken position) {
+		StringBuilder queryClause = buildWhereClause(searchCriteria,
+				searchFields);
+
+		addKeysetClause(queryClause, keysetField, searchCriteria.getSortType(), position);
+
+		Query query = em.createQuery(queryStr + queryClause);
+
+		resolveQueryParams(query, searchCriteria, searchFields);
+		resolveKeysetParams(query, keysetField, position);
+		updateQueryPageSizeWithLookAhead(query, validatePageSize(searchCriteria.getMaxRows()));
+
+		return query;
+	}
+
 	public List<Integer> extractIntList(HttpServletRequest request,
 			SearchCriteria searchCriteria, String paramName,
 			String userFriendlyParamName, String listName) {
@@ -40,6 +40,7 @@ public class StringUtil implements Serializable {
 
 	static final public String VALIDATION_ALPHA = "[a-z,A-Z]*";
 	static final public String VALIDATION_IP_ADDRESS = "[\\d\\.\\%\\:]*";
+	static final public String VALIDATION_CONTINUATION_TOKEN = "\\*|[A-Za-z0-9_\\-]*";
 	static final public String WILDCARD_ASTERISK = "*";
 
 	static HashMap<String, Pattern> compiledRegEx = new HashMap<String, Pattern>();
@@ -54,6 +54,11 @@ public abstract class VList extends ViewBaseBean implements
      */
     protected String sortBy;
 
+    /**
+     * Token to read the next page with keyset pagination; null on the last page, or when not paginating by token
+     */
+    protected String nextToken;
+
     protected long queryTimeMS = System.currentTimeMillis();
 
     /**
@@ -169,6 +174,11 @@ public abstract class VList extends ViewBaseBean implements
     }
     public String getSortBy() { return sortBy; }
 
+    public void setNextToken(String nextToken) {
+	this.nextToken = nextToken;
+    }
+    public String getNextToken() { return nextToken; }
+
 
 
 
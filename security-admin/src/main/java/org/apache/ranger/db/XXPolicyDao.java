@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import javax.persistence.NoResultException;
+import javax.persistence.TypedQuery;
 
 import org.apache.commons.collections.ListUtils;
 import org.apache.ranger.common.db.BaseDao;
@@ -90,6 +91,32 @@ public class XXPolicyDao extends BaseDao<XXPolicy> {
 		}
 	}
 
+	/**
+	 * Returns up to pageSize policies of the service with id greater than lastId, ordered by id;
+	 * zoneId, when not null, restricts the page to policies of that security zone.
+	 */
+	public List<XXPolicy> findByServiceIdAfterId(Long serviceId, Long zoneId, Long lastId, int pageSize) {
+		if (serviceId == null) {
+			return new ArrayList<XXPolicy>();
+		}
+		try {
+			TypedQuery<XXPolicy> query;
+
+			if (zoneId == null) {
+				query = getEntityManager().createNamedQuery("XXPolicy.findByServiceIdAfterId", tClass);
+			} else {
+				query = getEntityManager().createNamedQuery("XXPolicy.findByServiceIdAndZoneIdAfterId", tClass)
+						.setParameter("zoneId", zoneId);
+			}
+
+			return query.setParameter("serviceId", serviceId)
+					.setParameter("lastId", lastId == null ? Long.valueOf(0L) : lastId)
+					.setMaxResults(pageSize).getResultList();
+		} catch (NoResultException e) {
+			return new ArrayList<XXPolicy>();
+		}
+	}
+
 	public List<Long> findPolicyIdsByServiceId(Long serviceId) {
 		List<Long> ret = new ArrayList<Long>();
 		try {
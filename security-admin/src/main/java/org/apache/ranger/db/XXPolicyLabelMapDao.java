@@ -21,6 +21,7 @@ import java.util.List;
 
 import javax.persistence.NoResultException;
 
+import org.apache.commons.collections.CollectionUtils;
 import org.apache.ranger.common.db.BaseDao;
 import org.apache.ranger.entity.XXPolicyLabelMap;
 import org.springframework.stereotype.Service;
@@ -69,4 +70,16 @@ public class XXPolicyLabelMapDao extends BaseDao<XXPolicyLabelMap> {
                 }
         }
 
+        public List<XXPolicyLabelMap> findByPolicyIds(List<Long> policyIds) {
+                if (CollectionUtils.isEmpty(policyIds)) {
+                        return null;
+                }
+                try {
+                        return getEntityManager().createNamedQuery("XXPolicyLabelMap.findByPolicyIds", tClass)
+                                        .setParameter("policyIds", policyIds).getResultList();
+                } catch (NoResultException e) {
+                        return null;
+                }
+        }
+
 }
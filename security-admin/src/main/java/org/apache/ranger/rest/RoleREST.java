@@ -59,6 +59,7 @@ import org.apache.ranger.plugin.model.RangerService;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
 import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
 import org.apache.ranger.plugin.util.GrantRevokeRoleRequest;
+import org.apache.ranger.plugin.util.RangerRESTUtils;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.SearchFilter;
 import org.apache.ranger.service.RangerRoleService;
@@ -687,6 +688,7 @@ public class RoleREST {
             @DefaultValue("0") @QueryParam("lastActivationTime") Long lastActivationTime,
             @QueryParam("pluginId") String pluginId,
             @DefaultValue("") @QueryParam("clusterName") String clusterName,
+            @DefaultValue("false") @QueryParam(RangerRESTUtils.REST_PARAM_SUPPORTS_ROLE_DELTAS) Boolean supportsRoleDeltas,
             @Context HttpServletRequest request) throws Exception {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> RoleREST.getRangerRolesIfUpdated("
@@ -713,7 +715,7 @@ public class RoleREST {
                 lastKnownRoleVersion = Long.valueOf(-1);
             }
             try {
-                RangerRoles rangerRoles = roleStore.getRangerRoles(serviceName, lastKnownRoleVersion);
+                RangerRoles rangerRoles = roleStore.getRangerRoles(serviceName, lastKnownRoleVersion, !supportsRoleDeltas);
                 if (rangerRoles == null) {
                     downloadedVersion = lastKnownRoleVersion;
                     httpCode = HttpServletResponse.SC_NOT_MODIFIED;
@@ -755,6 +757,7 @@ public class RoleREST {
             @DefaultValue("0") @QueryParam("lastActivationTime") Long lastActivationTime,
             @QueryParam("pluginId") String pluginId,
             @DefaultValue("") @QueryParam("clusterName") String clusterName,
+            @DefaultValue("false") @QueryParam(RangerRESTUtils.REST_PARAM_SUPPORTS_ROLE_DELTAS) Boolean supportsRoleDeltas,
             @Context HttpServletRequest request) throws Exception {
         if (LOG.isDebugEnabled()) {
             LOG.debug("==> RoleREST.getSecureRangerRolesIfUpdated("
@@ -809,7 +812,7 @@ public class RoleREST {
                 }
 
                 if (isAllowed) {
-                    RangerRoles rangerRoles = roleStore.getRangerRoles(serviceName, lastKnownRoleVersion);
+                    RangerRoles rangerRoles = roleStore.getRangerRoles(serviceName, lastKnownRoleVersion, !supportsRoleDeltas);
                     if (rangerRoles == null) {
                         downloadedVersion = lastKnownRoleVersion;
                         httpCode = HttpServletResponse.SC_NOT_MODIFIED;
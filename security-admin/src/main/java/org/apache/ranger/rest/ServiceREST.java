@@ -19,6 +19,8 @@
 
 package org.apache.ranger.rest;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -52,7 +54,7 @@ import javax.ws.rs.core.MediaType;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -64,6 +66,7 @@ import org.apache.ranger.biz.AssetMgr;
 import org.apache.ranger.biz.RangerBizUtil;
 import org.apache.ranger.biz.SecurityZoneDBStore;
 import org.apache.ranger.biz.ServiceDBStore;
+import org.apache.ranger.biz.ServiceDBStore.PolicyBatchHandler;
 import org.apache.ranger.biz.ServiceMgr;
 import org.apache.ranger.biz.TagDBStore;
 import org.apache.ranger.biz.XUserMgr;
@@ -164,6 +167,9 @@ public class ServiceREST {
 	final static public String PARAM_UPDATE_IF_EXISTS = "updateIfExists";
 	final static public String PARAM_MERGE_IF_EXISTS  = "mergeIfExists";
 	final static public String PARAM_DELETE_IF_EXISTS = "deleteIfExists";
+
+	private static final Set<String> STREAMING_EXPORT_PARAMS = new HashSet<String>(Arrays.asList(SearchFilter.SERVICE_NAME, SearchFilter.SERVICE_TYPE,
+			SearchFilter.ZONE_NAME, SearchFilter.FETCH_ZONE_UNZONE_POLICIES, SearchFilter.FETCH_TAG_POLICIES));
 	public static final String Allowed_User_List_For_Download = "policy.download.auth.users";
 	public static final String Allowed_User_List_For_Grant_Revoke = "policy.grantrevoke.auth.users";
 
@@ -1901,6 +1907,12 @@ public class ServiceREST {
 
 				ret = toRangerPolicyList(policies);
 			} else {
+				// policies are filtered after reading, so pages can't be read after a database position
+				if (filter.getContinuationToken() != null) {
+					throw restErrorUtil.createRESTException("continuationToken is supported only when an admin lists policies without filters",
+							MessageEnums.INVALID_INPUT_DATA);
+				}
+
 				// get all policies from the store; pick the page to return after applying filter
 				final int savedStartIndex = filter.getStartIndex();
 				final int savedMaxRows    = filter.getMaxRows();
@@ -2002,20 +2014,32 @@ public class ServiceREST {
 			if (RangerPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
 				perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "ServiceREST.getPoliciesInCsv()");
 			}
-			List<RangerPolicy> policyLists = new ArrayList<RangerPolicy>();
-			
-			policyLists = getAllFilteredPolicyList(filter, request, policyLists);
-			if (CollectionUtils.isNotEmpty(policyLists)){
-                                for (RangerPolicy rangerPolicy : policyLists) {
-                                        if (rangerPolicy != null) {
-                                                ensureAdminAndAuditAccess(rangerPolicy);
-                                        }
-                                }
+			List<String> exportServiceNames = getServiceNamesForStreamingExport(filter, request);
 
-				svcStore.getPoliciesInCSV(policyLists, response);
-			}else{
-				response.setStatus(HttpServletResponse.SC_NO_CONTENT);
-				LOG.error("No policies found to download!");
+			if (exportServiceNames != null) {
+				long policyCount = svcStore.streamPoliciesInCSV(exportServiceNames, filter.getParam(SearchFilter.ZONE_NAME),
+						Boolean.valueOf(filter.getParam(SearchFilter.FETCH_ZONE_UNZONE_POLICIES)), response);
+
+				if (policyCount == 0) {
+					response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+					LOG.error("No policies found to download!");
+				}
+			} else {
+				List<RangerPolicy> policyLists = new ArrayList<RangerPolicy>();
+
+				policyLists = getAllFilteredPolicyList(filter, request, policyLists);
+				if (CollectionUtils.isNotEmpty(policyLists)){
+					for (RangerPolicy rangerPolicy : policyLists) {
+						if (rangerPolicy != null) {
+							ensureAdminAndAuditAccess(rangerPolicy);
+						}
+					}
+
+					svcStore.getPoliciesInCSV(policyLists, response);
+				}else{
+					response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+					LOG.error("No policies found to download!");
+				}
 			}
 			
 			RangerExportPolicyList rangerExportPolicyList = new RangerExportPolicyList();
@@ -2060,22 +2084,37 @@ public class ServiceREST {
 				checkPoliciesExists = false;
 			}
 
-			List<RangerPolicy> policyLists = new ArrayList<RangerPolicy>();
-			
-			policyLists = getAllFilteredPolicyList(filter, request, policyLists);
+			List<String> exportServiceNames = getServiceNamesForStreamingExport(filter, request);
 
-			if (CollectionUtils.isNotEmpty(policyLists)) {
-				for (RangerPolicy rangerPolicy : policyLists) {
-					if (rangerPolicy != null) {
-						ensureAdminAndAuditAccess(rangerPolicy);
-					}
-				}
+			if (exportServiceNames != null) {
 				bizUtil.blockAuditorRoleUser();
-				svcStore.getPoliciesInJson(policyLists, response);
+
+				long policyCount = svcStore.streamPoliciesInJson(exportServiceNames, filter.getParam(SearchFilter.ZONE_NAME),
+						Boolean.valueOf(filter.getParam(SearchFilter.FETCH_ZONE_UNZONE_POLICIES)), response);
+
+				if (policyCount == 0) {
+					checkPoliciesExists = true;
+					response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+					LOG.error("There is no Policy to Export!!");
+				}
 			} else {
-				checkPoliciesExists = true;
-				response.setStatus(HttpServletResponse.SC_NO_CONTENT);
-				LOG.error("There is no Policy to Export!!");
+				List<RangerPolicy> policyLists = new ArrayList<RangerPolicy>();
+
+				policyLists = getAllFilteredPolicyList(filter, request, policyLists);
+
+				if (CollectionUtils.isNotEmpty(policyLists)) {
+					for (RangerPolicy rangerPolicy : policyLists) {
+						if (rangerPolicy != null) {
+							ensureAdminAndAuditAccess(rangerPolicy);
+						}
+					}
+					bizUtil.blockAuditorRoleUser();
+					svcStore.getPoliciesInJson(policyLists, response);
+				} else {
+					checkPoliciesExists = true;
+					response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+					LOG.error("There is no Policy to Export!!");
+				}
 			}
                         
 			if(!checkPoliciesExists){
@@ -2171,78 +2210,42 @@ public class ServiceREST {
 
 			String fileName = fileDetail.getFileName();
 			int totalPolicyCreate = 0;
-			String zoneNameInJson = null;
-			Map<String, RangerPolicy> policiesMap = new LinkedHashMap<String, RangerPolicy>();
-			List<String> dataFileSourceServices = new ArrayList<String>();
 			if (fileName.endsWith("json")) {
+				File policiesFile = null;
 				try {
-					RangerExportPolicyList rangerExportPolicyList = null;
-					List<RangerPolicy> policies = null;
-					rangerExportPolicyList = processPolicyInputJsonForMetaData(uploadedInputStream,rangerExportPolicyList);
-					if (rangerExportPolicyList != null && !CollectionUtils.sizeIsEmpty(rangerExportPolicyList.getMetaDataInfo())) {
-						metaDataInfo = JsonUtilsV2.mapToJson(rangerExportPolicyList.getMetaDataInfo());
+					// policies are read from the uploaded file in batches, once for each pass below, instead of being held in memory
+					policiesFile = File.createTempFile("ranger-policies-import-", ".json");
+					FileUtils.copyInputStreamToFile(uploadedInputStream, policiesFile);
+
+					boolean deleteIfExists=("true".equalsIgnoreCase(StringUtils.trimToEmpty(request.getParameter(PARAM_DELETE_IF_EXISTS)))) ? true : false ;
+					boolean updateIfExists=("true".equalsIgnoreCase(StringUtils.trimToEmpty(request.getParameter(PARAM_UPDATE_IF_EXISTS)))) ? true : false ;
+					String polResource = request.getParameter(SearchFilter.POL_RESOURCE);
+
+					PolicyImportFileScan fileScan = new PolicyImportFileScan(serviceNameList, sourceServices, destinationServices,
+							CollectionUtils.sizeIsEmpty(servicesMappingMap) && isOverride, !CollectionUtils.sizeIsEmpty(servicesMappingMap),
+							updateIfExists && StringUtils.isNotEmpty(polResource));
+
+					Map<String, Object> metaDataInfoInJson = svcStore.forEachPolicyBatch(new FileInputStream(policiesFile), fileScan);
+					if (!CollectionUtils.sizeIsEmpty(metaDataInfoInJson)) {
+						metaDataInfo = JsonUtilsV2.mapToJson(metaDataInfoInJson);
 					} else {
 						LOG.info("metadata info is not provided!!");
 					}
-					policies = getPoliciesFromProvidedJson(rangerExportPolicyList);
-
-					int i = 0;
-					if (CollectionUtils.sizeIsEmpty(servicesMappingMap) && isOverride){
-						if(policies != null && !CollectionUtils.sizeIsEmpty(policies)){
-							for (RangerPolicy policyInJson: policies){
-								if (policyInJson != null ) {
-									if (i == 0 && StringUtils.isNotBlank(policyInJson.getZoneName())) {
-										zoneNameInJson = policyInJson.getZoneName().trim();
-									}
-									if (StringUtils.isNotEmpty(policyInJson.getService().trim())) {
-										String serviceName = policyInJson.getService().trim();
-										if (CollectionUtils.isNotEmpty(serviceNameList) && serviceNameList.contains(serviceName) && !sourceServices.contains(serviceName) && !destinationServices.contains(serviceName)) {
-											sourceServices.add(serviceName);
-											destinationServices.add(serviceName);
-										} else if (CollectionUtils.isEmpty(serviceNameList) && !sourceServices.contains(serviceName) && !destinationServices.contains(serviceName)) {
-											sourceServices.add(serviceName);
-											destinationServices.add(serviceName);
-										}
-									}else{
-										LOG.error("Service Name or Policy Name is not provided!!");
-										throw restErrorUtil.createRESTException("Service Name or Policy Name is not provided!!");
-									}
-								}
-								i++;
-							}
-						}
-					}else if (!CollectionUtils.sizeIsEmpty(servicesMappingMap)) {
-						if (policies != null && !CollectionUtils.sizeIsEmpty(policies)){
-							i = 0;
-							for (RangerPolicy policyInJson: policies){
-								if (policyInJson != null){
-									if (i == 0 && StringUtils.isNotBlank(policyInJson.getZoneName())) {
-										zoneNameInJson = policyInJson.getZoneName().trim();
-									}
-									if (StringUtils.isNotEmpty(policyInJson.getService().trim())) {
-										dataFileSourceServices.add(policyInJson.getService().trim());
-									}else{
-										LOG.error("Service Name or Policy Name is not provided!!");
-										throw restErrorUtil.createRESTException("Service Name or Policy Name is not provided!!");
-									}
-									i++;
-								}
-							}
-							if(!dataFileSourceServices.containsAll(sourceServices)){
-								LOG.error("Json File does not contain sepcified source service name.");
-								throw restErrorUtil.createRESTException("Json File does not contain sepcified source service name.");
-							}
-						}
+					if (!CollectionUtils.sizeIsEmpty(servicesMappingMap) && !fileScan.serviceNamesInFile.containsAll(sourceServices)) {
+						LOG.error("Json File does not contain sepcified source service name.");
+						throw restErrorUtil.createRESTException("Json File does not contain sepcified source service name.");
 					}
-					boolean deleteIfExists=("true".equalsIgnoreCase(StringUtils.trimToEmpty(request.getParameter(PARAM_DELETE_IF_EXISTS)))) ? true : false ;
-					boolean updateIfExists=("true".equalsIgnoreCase(StringUtils.trimToEmpty(request.getParameter(PARAM_UPDATE_IF_EXISTS)))) ? true : false ;
-					String polResource = request.getParameter(SearchFilter.POL_RESOURCE);
 					if (updateIfExists) {
 						isOverride = false;
 					}
-					String destinationZoneName = getDestinationZoneName(destinationZones,zoneNameInJson);
+					final String destinationZoneName = getDestinationZoneName(destinationZones, fileScan.zoneNameInFile);
 					if (deleteIfExists) {
-						deleteExactMatchPolicyForResource(policies, request.getRemoteUser(), destinationZoneName);
+						svcStore.forEachPolicyBatch(new FileInputStream(policiesFile), new PolicyBatchHandler() {
+							@Override
+							public void handle(List<RangerPolicy> policies) throws Exception {
+								deleteExactMatchPolicyForResource(policies, request.getRemoteUser(), destinationZoneName);
+							}
+						});
 					}
 					if (isOverride && !updateIfExists && StringUtils.isEmpty(polResource)) {
 						if (LOG.isDebugEnabled()) {
@@ -2256,27 +2259,51 @@ public class ServiceREST {
 							LOG.debug("Deleting Policy from provided services in servicesMapJson file for specific resource...");
 						}
 						if (CollectionUtils.isNotEmpty(sourceServices) && CollectionUtils.isNotEmpty(destinationServices)){
-							deletePoliciesForResource(sourceServices, destinationServices, request, policies,destinationZoneName);//In order to delete Zone specific policies from service
+							deletePoliciesForResource(sourceServices, destinationServices, request, fileScan.policyNamesInFile, destinationZoneName);//In order to delete Zone specific policies from service
 						}
 					}
-					if (policies != null && !CollectionUtils.sizeIsEmpty(policies)){
-						for (RangerPolicy policyInJson: policies){
-							if (policyInJson != null){
-								if (StringUtils.isNotBlank(destinationZoneName)) {
-									boolean isZoneServiceExistAtDestination = validateDestZoneServiceMapping(destinationZoneName, policyInJson, servicesMappingMap);
-									if(!isZoneServiceExistAtDestination) {
-										LOG.warn("provided service of policy in File is not associated with zone");
-										continue;
+
+					final Map<String, String> zoneMappings     = zoneMappingMap;
+					final Map<String, String> serviceMappings  = servicesMappingMap;
+					final boolean             isUpdateIfExists = updateIfExists;
+					final int[]               policyCreated    = new int[] { 0 };
+					final int[]               policyIndex      = new int[] { 0 };
+					final Map<String, Integer> lastIndexOfKeys = new HashMap<String, Integer>();
+
+					// a policy is created only if no later policy in the file has the same key, as when all policies were put in one map
+					svcStore.forEachPolicyBatch(new FileInputStream(policiesFile), new PolicyBatchHandler() {
+						@Override
+						public void handle(List<RangerPolicy> policies) throws Exception {
+							for (RangerPolicy policyInJson : policies) {
+								for (String policyKey : createImportPolicyMap(policyInJson, destinationZoneName, zoneMappings, sourceZones, serviceMappings, sourceServices, destinationServices).keySet()) {
+									lastIndexOfKeys.put(policyKey, policyIndex[0]);
+								}
+								policyIndex[0]++;
+							}
+						}
+					});
+
+					policyIndex[0] = 0;
+
+					svcStore.forEachPolicyBatch(new FileInputStream(policiesFile), new PolicyBatchHandler() {
+						@Override
+						public void handle(List<RangerPolicy> policies) throws Exception {
+							Map<String, RangerPolicy> policiesMap = new LinkedHashMap<String, RangerPolicy>();
+
+							for (RangerPolicy policyInJson : policies) {
+								for (Entry<String, RangerPolicy> entry : createImportPolicyMap(policyInJson, destinationZoneName, zoneMappings, sourceZones, serviceMappings, sourceServices, destinationServices).entrySet()) {
+									if (lastIndexOfKeys.get(entry.getKey()) == policyIndex[0]) {
+										policiesMap.put(entry.getKey(), entry.getValue());
 									}
 								}
-								policiesMap = svcStore.createPolicyMap(zoneMappingMap, sourceZones, destinationZoneName,
-										servicesMappingMap, sourceServices, destinationServices, policyInJson,
-										policiesMap);// zone Info is also sent for creating policy map
+								policyIndex[0]++;
 							}
+
+							policyCreated[0] = createPolicesBasedOnPolicyMap(request, policiesMap, serviceNameList, isUpdateIfExists, policyCreated[0]);
 						}
-					}
+					});
 
-					totalPolicyCreate = createPolicesBasedOnPolicyMap(request,policiesMap, serviceNameList, updateIfExists, totalPolicyCreate);
+					totalPolicyCreate = policyCreated[0];
 					if(!(totalPolicyCreate > 0)){
 						LOG.error("zero policy is created from provided data file!!");
 						throw restErrorUtil.createRESTException("zero policy is created from provided data file!!");
@@ -2285,6 +2312,8 @@ public class ServiceREST {
 				} catch (IOException e) {
 					LOG.error(e.getMessage());
 					throw restErrorUtil.createRESTException(e.getMessage());
+				} finally {
+					FileUtils.deleteQuietly(policiesFile);
 				}
 			}else{
 				LOG.error("Provided file format is not supported!!");
@@ -2337,6 +2366,25 @@ public class ServiceREST {
 		}
 	}
 	
+	private Map<String, RangerPolicy> createImportPolicyMap(RangerPolicy policyInJson, String destinationZoneName, Map<String, String> zoneMappings,
+			List<String> sourceZones, Map<String, String> serviceMappings, List<String> sourceServices, List<String> destinationServices) {
+		Map<String, RangerPolicy> ret = new LinkedHashMap<String, RangerPolicy>();
+
+		if (policyInJson != null) {
+			if (StringUtils.isNotBlank(destinationZoneName)) {
+				boolean isZoneServiceExistAtDestination = validateDestZoneServiceMapping(destinationZoneName, policyInJson, serviceMappings);
+				if (!isZoneServiceExistAtDestination) {
+					LOG.warn("provided service of policy in File is not associated with zone");
+					return ret;
+				}
+			}
+			ret = svcStore.createPolicyMap(zoneMappings, sourceZones, destinationZoneName, serviceMappings, sourceServices,
+					destinationServices, policyInJson, ret);// zone Info is also sent for creating policy map
+		}
+
+		return ret;
+	}
+
 	private int createPolicesBasedOnPolicyMap(HttpServletRequest request, Map<String, RangerPolicy> policiesMap,
 			List<String> serviceNameList, boolean updateIfExists, int totalPolicyCreate) {
 		boolean mergeIfExists  = "true".equalsIgnoreCase(StringUtils.trimToEmpty(request.getParameter(PARAM_MERGE_IF_EXISTS)))  ? true : false;
@@ -2427,28 +2475,63 @@ public class ServiceREST {
 		return totalPolicyCreate;
 	}
 
-	private List<RangerPolicy> getPoliciesFromProvidedJson(RangerExportPolicyList rangerExportPolicyList) {
-		List<RangerPolicy> policies = null;
-		if (rangerExportPolicyList != null && !CollectionUtils.sizeIsEmpty(rangerExportPolicyList.getPolicies())) {
-			policies = rangerExportPolicyList.getPolicies();
-		} else {
-			LOG.error("Provided json file does not contain any policy!!");
-			throw restErrorUtil.createRESTException("Provided json file does not contain any policy!!");
+	/**
+	 * First pass of importPoliciesFromFile(): collects, one batch at a time, what the later passes need from the whole file -
+	 * zone of the first policy, services of policies and, when existing policies are to be replaced, names of policies.
+	 */
+	private class PolicyImportFileScan implements PolicyBatchHandler {
+		final List<String> serviceNameList;
+		final List<String> sourceServices;
+		final List<String> destinationServices;
+		final boolean      addServicesInFile;
+		final boolean      collectServicesInFile;
+		final boolean      collectPolicyNames;
+		final Set<String>  serviceNamesInFile = new HashSet<String>();
+		final Set<String>  policyNamesInFile  = new HashSet<String>();
+		String             zoneNameInFile;
+		boolean            isFirstPolicy      = true;
+
+		PolicyImportFileScan(List<String> serviceNameList, List<String> sourceServices, List<String> destinationServices,
+				boolean addServicesInFile, boolean collectServicesInFile, boolean collectPolicyNames) {
+			this.serviceNameList       = serviceNameList;
+			this.sourceServices        = sourceServices;
+			this.destinationServices   = destinationServices;
+			this.addServicesInFile     = addServicesInFile;
+			this.collectServicesInFile = collectServicesInFile;
+			this.collectPolicyNames    = collectPolicyNames;
 		}
-		return policies;
-	}
 
-	private RangerExportPolicyList processPolicyInputJsonForMetaData(InputStream uploadedInputStream,
-			RangerExportPolicyList rangerExportPolicyList) throws Exception {
-		String policiesString = IOUtils.toString(uploadedInputStream);
-		policiesString = policiesString.trim();
-		if (StringUtils.isNotEmpty(policiesString)) {
-			rangerExportPolicyList = JsonUtilsV2.jsonToObj(policiesString, RangerExportPolicyList.class);
-		} else {
-			LOG.error("Provided json file is empty!!");
-			throw restErrorUtil.createRESTException("Provided json file is empty!!");
+		@Override
+		public void handle(List<RangerPolicy> policies) {
+			for (RangerPolicy policyInJson : policies) {
+				if (policyInJson == null) {
+					continue;
+				}
+				if (addServicesInFile || collectServicesInFile) {
+					if (isFirstPolicy && StringUtils.isNotBlank(policyInJson.getZoneName())) {
+						zoneNameInFile = policyInJson.getZoneName().trim();
+					}
+					if (StringUtils.isEmpty(policyInJson.getService().trim())) {
+						LOG.error("Service Name or Policy Name is not provided!!");
+						throw restErrorUtil.createRESTException("Service Name or Policy Name is not provided!!");
+					}
+					String serviceName = policyInJson.getService().trim();
+
+					if (addServicesInFile) {
+						if ((CollectionUtils.isEmpty(serviceNameList) || serviceNameList.contains(serviceName)) && !sourceServices.contains(serviceName) && !destinationServices.contains(serviceName)) {
+							sourceServices.add(serviceName);
+							destinationServices.add(serviceName);
+						}
+					} else {
+						serviceNamesInFile.add(serviceName);
+					}
+				}
+				if (collectPolicyNames) {
+					policyNamesInFile.add(policyInJson.getName());
+				}
+				isFirstPolicy = false;
+			}
 		}
-		return rangerExportPolicyList;
 	}
 
 	private void getServiceNameList(HttpServletRequest request, List<String> serviceNameList) {
@@ -2568,6 +2651,87 @@ public class ServiceREST {
 		}
 	}
 
+	/**
+	 * Returns names of the services to export policies of, when the export can stream policies from the database page by
+	 * page: that is, when the request filters only by service name/type and zone, and the user is an admin, auditor or
+	 * key-admin, for whom access is decided per service. Returns null when getAllFilteredPolicyList() must be used instead.
+	 *
+	 * Streamed policies are not passed to ensureAdminAndAuditAccess(), as the list-based export does. For these users, that
+	 * check doesn't look at the policy beyond the type of its service: it rejects policies of KMS services for admins and
+	 * auditors, and policies of other services for key-admins. Services are selected here by the same rule, so every
+	 * policy streamed would pass the check. Users with other roles, whose access is decided per policy, take the list-based
+	 * path.
+	 */
+	private List<String> getServiceNamesForStreamingExport(SearchFilter filter, HttpServletRequest request) {
+		boolean isAdmin         = bizUtil.isAdmin();
+		boolean isAuditAdmin    = bizUtil.isAuditAdmin();
+		boolean isKeyAdmin      = bizUtil.isKeyAdmin();
+		boolean isAuditKeyAdmin = bizUtil.isAuditKeyAdmin();
+
+		if (!isAdmin && !isAuditAdmin && !isKeyAdmin && !isAuditKeyAdmin) {
+			return null;
+		}
+		if (StringUtils.isNotEmpty(request.getParameter("resourceMatch")) || Boolean.valueOf(filter.getParam(SearchFilter.FETCH_TAG_POLICIES))) {
+			return null;
+		}
+		if (filter.getParams() != null) {
+			for (String paramName : filter.getParams().keySet()) {
+				if (!STREAMING_EXPORT_PARAMS.contains(paramName)) {
+					return null;
+				}
+			}
+		}
+
+		String       serviceNames    = request.getParameter(PARAM_SERVICE_NAME);
+		String       serviceTypes    = request.getParameter(PARAM_SERVICE_TYPE);
+		Set<String>  serviceTypeList = new HashSet<String>();
+		List<String> ret             = new ArrayList<String>();
+		List<XXService> xServices;
+
+		if (StringUtils.isNotEmpty(serviceTypes)) {
+			for (String serviceType : serviceTypes.split(",")) {
+				serviceTypeList.add(serviceType.trim());
+			}
+		}
+
+		if (StringUtils.isNotEmpty(serviceNames)) {
+			xServices = new ArrayList<XXService>();
+
+			for (String serviceName : serviceNames.split(",")) {
+				XXService xService = daoManager.getXXService().findByName(serviceName.trim());
+
+				if (xService != null) {
+					xServices.add(xService);
+				}
+			}
+		} else {
+			xServices = daoManager.getXXService().getAll();
+		}
+
+		Long kmsServiceDefId = EmbeddedServiceDefsUtil.instance().getKmsServiceDefId();
+
+		for (XXService xService : xServices) {
+			if (!serviceTypeList.isEmpty()) {
+				XXServiceDef xServiceDef = daoManager.getXXServiceDef().getById(xService.getType());
+
+				if (xServiceDef == null || !serviceTypeList.contains(xServiceDef.getName())) {
+					if (StringUtils.isNotEmpty(serviceNames)) { // as getAllFilteredPolicyList(): no policies unless all given services are of given types
+						return new ArrayList<String>();
+					}
+					continue;
+				}
+			}
+
+			boolean isKmsService = xService.getType().equals(kmsServiceDefId);
+
+			if ((isAdmin || isAuditAdmin) ? !isKmsService : isKmsService) {
+				ret.add(xService.getName());
+			}
+		}
+
+		return ret;
+	}
+
 	private List<RangerPolicy> getAllFilteredPolicyList(SearchFilter filter,
 			HttpServletRequest request, List<RangerPolicy> policyLists) {
 		String serviceNames = null;
@@ -2703,18 +2867,10 @@ public class ServiceREST {
 		}
 	}
 
-	private void deletePoliciesForResource(List<String> sourceServices, List<String> destinationServices, HttpServletRequest request, List<RangerPolicy> exportPolicies, String zoneName)  throws Exception {
+	private void deletePoliciesForResource(List<String> sourceServices, List<String> destinationServices, HttpServletRequest request, Set<String> exportedPolicyNames, String zoneName)  throws Exception {
 		int totalDeletedPolicies = 0;
 		if (CollectionUtils.isNotEmpty(sourceServices)
 				&& CollectionUtils.isNotEmpty(destinationServices)) {
-			Set<String> exportedPolicyNames=new HashSet<String>();
-			if (CollectionUtils.isNotEmpty(exportPolicies)) {
-				for (RangerPolicy rangerPolicy : exportPolicies) {
-					if (rangerPolicy!=null) {
-						exportedPolicyNames.add(rangerPolicy.getName());
-					}
-				}
-			}
 			for (int i = 0; i < sourceServices.size(); i++) {
 				if (!destinationServices.get(i).isEmpty()) {
 					RangerPolicyList servicePolicies = null;
@@ -3735,6 +3891,7 @@ public class ServiceREST {
 			ret.setTotalCount(policyList.getTotalCount());
 			ret.setSortBy(policyList.getSortBy());
 			ret.setSortType(policyList.getSortType());
+			ret.setNextToken(policyList.getNextToken());
 		}
 
 		return ret;
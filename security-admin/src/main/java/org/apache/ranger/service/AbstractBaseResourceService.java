@@ -42,6 +42,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.log4j.Logger;
 import org.apache.ranger.biz.RangerBizUtil;
 import org.apache.ranger.common.ContextUtil;
+import org.apache.ranger.common.ContinuationToken;
 import org.apache.ranger.common.DateUtil;
 import org.apache.ranger.common.MessageEnums;
 import org.apache.ranger.common.RESTErrorUtil;
@@ -550,9 +551,12 @@ public abstract class AbstractBaseResourceService<T extends XXDBBase, V extends
 			List<SearchField> searchFieldList, List<SortField> sortFieldList,
 			VList vList) {
 
+		// with approximateCount, the count is estimated from the page read instead
+		boolean isApproximateCount = searchCriteria.isGetCount() && searchCriteria.isApproximateCount();
+
 		// Get total count of the rows which meet the search criteria
 		long count = -1;
-		if (searchCriteria.isGetCount()) {
+		if (searchCriteria.isGetCount() && !isApproximateCount) {
 			count = getCountForSearchQuery(searchCriteria, searchFieldList);
 			if (count == 0) {
 				return Collections.emptyList();
@@ -566,16 +570,36 @@ public abstract class AbstractBaseResourceService<T extends XXDBBase, V extends
 		if (searchCriteria.isDistinct()) {
 			q = distinctQueryStr;
 		}
+
+		if (searchCriteria.getContinuationToken() != null) {
+			return searchResourcesAfterToken(q, searchCriteria,
+					searchFieldList, sortFieldList, count, vList);
+		}
+
 		// construct the query object for retrieving the data
 		Query query = createQuery(q, sortClause, searchCriteria,
 				searchFieldList, false);
 
+		int pageSize = query.getMaxResults();
+
+		if (isApproximateCount) {
+			searchUtil.updateQueryPageSizeWithLookAhead(query, pageSize);
+		}
+
 		List<T> resultList = getDao().executeQueryInSecurityContext(
 				tEntityClass, query);
 
+		if (isApproximateCount) {
+			count = searchUtil.getApproximateCount(query.getFirstResult(), pageSize, resultList.size());
+
+			if (resultList.size() > pageSize) {
+				resultList = new ArrayList<T>(resultList.subList(0, pageSize));
+			}
+		}
+
 		if (vList != null) {
 			// Set the meta values for the query result
-			vList.setPageSize(query.getMaxResults());
+			vList.setPageSize(pageSize);
 			vList.setSortBy(searchCriteria.getSortBy());
 			vList.setSortType(searchCriteria.getSortType());
 			vList.setStartIndex(query.getFirstResult());
@@ -584,6 +608,50 @@ public abstract class AbstractBaseResourceService<T extends XXDBBase, V extends
 		}
 		return resultList;
 	}
+
+	/**
+	 * Reads the page after the position in the continuation token of the
+	 * search criteria, seeking on the sort field instead of skipping
+	 * startIndex rows; vList gets the token for the next page, if any.
+	 */
+	protected List<T> searchResourcesAfterToken(String queryStr,
+			SearchCriteria searchCriteria, List<SearchField> searchFieldList,
+			List<SortField> sortFieldList, long count, VList vList) {
+		String sortBy      = searchCriteria.getSortBy();
+		String sortType    = searchCriteria.getSortType();
+		String keysetField = searchUtil.getKeysetSortField(sortBy, sortFieldList);
+
+		if (keysetField == null) {
+			throw restErrorUtil.createRESTException("continuationToken is not supported with sortBy=" + sortBy,
+					MessageEnums.INVALID_INPUT_DATA);
+		}
+
+		ContinuationToken position = searchUtil.parseContinuationToken(
+				searchCriteria.getContinuationToken(), sortBy, sortType);
+		Query query = searchUtil.createKeysetSearchQuery(getDao().getEntityManager(),
+				queryStr, searchCriteria, searchFieldList, keysetField, position);
+		int pageSize = searchUtil.validatePageSize(searchCriteria.getMaxRows());
+
+		List<T> resultList = getDao().executeQueryInSecurityContext(
+				tEntityClass, query);
+		String nextToken = null;
+
+		if (resultList.size() > pageSize) {
+			resultList = new ArrayList<T>(resultList.subList(0, pageSize));
+			nextToken  = searchUtil.createContinuationToken(resultList.get(pageSize - 1), keysetField, sortBy, sortType);
+		}
+
+		if (vList != null) {
+			vList.setPageSize(pageSize);
+			vList.setSortBy(sortBy);
+			vList.setSortType(sortType);
+			vList.setStartIndex(0);
+			vList.setTotalCount(count);
+			vList.setResultSize(resultList.size());
+			vList.setNextToken(nextToken);
+		}
+		return resultList;
+	}
 	
 	
 	/**
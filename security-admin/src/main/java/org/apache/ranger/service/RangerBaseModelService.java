@@ -30,6 +30,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ranger.biz.RangerBizUtil;
 import org.apache.ranger.common.ContextUtil;
+import org.apache.ranger.common.ContinuationToken;
 import org.apache.ranger.common.DateUtil;
 import org.apache.ranger.common.MessageEnums;
 import org.apache.ranger.common.RESTErrorUtil;
@@ -339,9 +340,12 @@ public abstract class RangerBaseModelService<T extends XXDBBase, V extends Range
 			List<SearchField> searchFieldList, List<SortField> sortFieldList,
 			VList vList) {
 
+		// with approximateCount, the count is estimated from the page read instead
+		boolean isApproximateCount = searchCriteria.isGetCount() && searchCriteria.isApproximateCount();
+
 		// Get total count of the rows which meet the search criteria
 		long count = -1;
-		if (searchCriteria.isGetCount()) {
+		if (searchCriteria.isGetCount() && !isApproximateCount) {
 			count = getCountForSearchQuery(searchCriteria, searchFieldList);
 			if (count == 0) {
 				return Collections.emptyList();
@@ -351,13 +355,32 @@ public abstract class RangerBaseModelService<T extends XXDBBase, V extends Range
 		String sortClause = searchUtil.constructSortClause(searchCriteria, sortFieldList);
 
 		String q = queryStr;
+
+		if (searchCriteria.getContinuationToken() != null) {
+			return searchResourcesAfterToken(q, searchCriteria, searchFieldList, sortFieldList, count, vList);
+		}
+
 		Query query = createQuery(q, sortClause, searchCriteria, searchFieldList, false);
 
+		int pageSize = query.getMaxResults();
+
+		if (isApproximateCount) {
+			searchUtil.updateQueryPageSizeWithLookAhead(query, pageSize);
+		}
+
 		List<T> resultList = getDao().executeQueryInSecurityContext(tEntityClass, query);		
 
+		if (isApproximateCount) {
+			count = searchUtil.getApproximateCount(query.getFirstResult(), pageSize, resultList.size());
+
+			if (resultList.size() > pageSize) {
+				resultList = new ArrayList<T>(resultList.subList(0, pageSize));
+			}
+		}
+
 		if (vList != null) {
 			vList.setResultSize(resultList.size());
-			vList.setPageSize(query.getMaxResults());
+			vList.setPageSize(pageSize);
 			vList.setSortBy(searchCriteria.getSortBy());
 			vList.setSortType(searchCriteria.getSortType());
 			vList.setStartIndex(query.getFirstResult());
@@ -366,6 +389,44 @@ public abstract class RangerBaseModelService<T extends XXDBBase, V extends Range
 		return resultList;
 	}
 
+	/**
+	 * Reads the page after the position in the continuation token of the search filter, seeking on the sort field
+	 * instead of skipping startIndex rows; vList gets the token for the next page, if any.
+	 */
+	protected List<T> searchResourcesAfterToken(String queryStr, SearchFilter searchCriteria, List<SearchField> searchFieldList,
+			List<SortField> sortFieldList, long count, VList vList) {
+		String sortBy      = searchCriteria.getSortBy();
+		String sortType    = searchCriteria.getSortType();
+		String keysetField = searchUtil.getKeysetSortField(sortBy, sortFieldList);
+
+		if (keysetField == null) {
+			throw restErrorUtil.createRESTException("continuationToken is not supported with sortBy=" + sortBy, MessageEnums.INVALID_INPUT_DATA);
+		}
+
+		ContinuationToken position = searchUtil.parseContinuationToken(searchCriteria.getContinuationToken(), sortBy, sortType);
+		Query             query    = searchUtil.createKeysetSearchQuery(getDao().getEntityManager(), queryStr, searchCriteria, searchFieldList, keysetField, position);
+		int               pageSize = searchUtil.validatePageSize(searchCriteria.getMaxRows());
+
+		List<T> resultList = getDao().executeQueryInSecurityContext(tEntityClass, query);
+		String  nextToken  = null;
+
+		if (resultList.size() > pageSize) {
+			resultList = new ArrayList<T>(resultList.subList(0, pageSize));
+			nextToken  = searchUtil.createContinuationToken(resultList.get(pageSize - 1), keysetField, sortBy, sortType);
+		}
+
+		if (vList != null) {
+			vList.setResultSize(resultList.size());
+			vList.setPageSize(pageSize);
+			vList.setSortBy(sortBy);
+			vList.setSortType(sortType);
+			vList.setStartIndex(0);
+			vList.setTotalCount(count);
+			vList.setNextToken(nextToken);
+		}
+		return resultList;
+	}
+
 	protected List<T> searchRangerObjects(SearchFilter searchCriteria, List<SearchField> searchFieldList, List<SortField> sortFieldList, PList<V> pList) {
 
 		// Get total count of the rows which meet the search criteria
@@ -23,8 +23,11 @@ import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
@@ -46,6 +49,7 @@ import org.apache.ranger.view.VXAccessAudit;
 import org.apache.ranger.view.VXAccessAuditList;
 import org.apache.ranger.view.VXLong;
 import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
@@ -53,11 +57,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 @Service
 @Scope("singleton")
 public class SolrAccessAuditsService {
 	private static final Logger LOGGER = Logger.getLogger(SolrAccessAuditsService.class);
 
+	private static final String UNIQUE_KEY_FIELD = "id";
+
+	// fields read by populateViewBean(); other stored fields of the audit documents are not fetched
+	private static final String[] VIEW_FIELDS = new String[] { "id", "cluster", "zoneName", "agentHost", "policyVersion",
+			"access", "enforcer", "agent", "repo", "sess", "reqUser", "reqData", "resource", "cliIP", "result", "policy",
+			"repoType", "resType", "reason", "action", "evtTime", "seq_num", "event_count", "event_dur_ms", "tags" };
+
 	@Autowired
 	SolrMgr solrMgr;
 
@@ -76,7 +90,22 @@ public class SolrAccessAuditsService {
 	private List<SortField> sortFields = new ArrayList<SortField>();
 	private List<SearchField> searchFields = new ArrayList<SearchField>();
 
+	// auto-refreshing audit pages repeat the same queries: results are kept for a few seconds, keyed by the query sent to Solr
+	private final Cache<String, QueryResponse> queryResultCache;
+	// number of documents found, keyed by the filters of the query; updated by every page read
+	private final Cache<String, Long> countCache;
+
 	public SolrAccessAuditsService() {
+		long cacheTtlMs = PropertiesUtil.getLongProperty("ranger.audit.solr.query.cache.ttl.ms", 10000);
+		int cacheSize = PropertiesUtil.getIntProperty("ranger.audit.solr.query.cache.size", 100);
+
+		if (cacheTtlMs > 0 && cacheSize > 0) {
+			queryResultCache = CacheBuilder.newBuilder().maximumSize(cacheSize).expireAfterWrite(cacheTtlMs, TimeUnit.MILLISECONDS).build();
+			countCache = CacheBuilder.newBuilder().maximumSize(cacheSize).expireAfterWrite(cacheTtlMs, TimeUnit.MILLISECONDS).build();
+		} else {
+			queryResultCache = null;
+			countCache = null;
+		}
 
 		searchFields.add(new SearchField("id", "id",
 				SearchField.DATA_TYPE.STRING, SearchField.SEARCH_TYPE.FULL));
@@ -143,25 +172,32 @@ public class SolrAccessAuditsService {
 	public VXAccessAuditList searchXAccessAudits(SearchCriteria searchCriteria) {
 
 		// Make call to Solr
-		SolrClient solrClient = solrMgr.getSolrClient();
+		SolrClient solrClient = getSolrClient();
 		final boolean hiveQueryVisibility = PropertiesUtil.getBooleanProperty("ranger.audit.hive.query.visibility", true);
-		if (solrClient == null) {
-			LOGGER.warn("Solr client is null, so not running the query.");
-			throw restErrorUtil.createRESTException(
-					"Error connecting to search engine",
-					MessageEnums.ERROR_SYSTEM);
-		}
 		List<VXAccessAudit> xAccessAuditList = new ArrayList<VXAccessAudit>();
 
 		Map<String, Object> paramList = searchCriteria.getParamList();
 		updateUserExclusion(paramList);
 
-		QueryResponse response = solrUtil.searchResources(searchCriteria,
-				searchFields, sortFields, solrClient);
+		SolrQuery query = solrUtil.buildSearchQuery(searchCriteria,
+				searchFields, sortFields);
+		query.setFields(VIEW_FIELDS);
+
+		String continuationToken = searchCriteria.getContinuationToken();
+		if (continuationToken != null) {
+			solrUtil.setCursorMark(query, continuationToken, UNIQUE_KEY_FIELD);
+		}
+
+		QueryResponse response = runQuery(solrClient, query);
 		SolrDocumentList docs = response.getResults();
+		if (countCache != null) {
+			countCache.put(getCountCacheKey(query), docs.getNumFound());
+		}
+
+		Map<Integer, String> serviceTypes = new HashMap<Integer, String>();
 		for (int i = 0; i < docs.size(); i++) {
 			SolrDocument doc = docs.get(i);
-			VXAccessAudit vXAccessAudit = populateViewBean(doc);
+			VXAccessAudit vXAccessAudit = populateViewBean(doc, serviceTypes);
                         if (vXAccessAudit != null) {
                                 if (!hiveQueryVisibility && "hive".equalsIgnoreCase(vXAccessAudit.getServiceType())) {
                                         vXAccessAudit.setRequestData(null);
@@ -187,9 +223,55 @@ public class SolrAccessAuditsService {
 		returnList.setTotalCount((int) docs.getNumFound());
 		returnList.setStartIndex((int) docs.getStart());
 		returnList.setVXAccessAudits(xAccessAuditList);
+
+		if (continuationToken != null) {
+			String nextToken = solrUtil.toContinuationToken(response.getNextCursorMark());
+
+			// Solr returns the same cursorMark once there are no more documents
+			if (docs.size() >= searchCriteria.getMaxRows() && !StringUtils.equals(nextToken, continuationToken)) {
+				returnList.setNextToken(nextToken);
+			}
+		}
+
 		return returnList;
 	}
 
+	private SolrClient getSolrClient() {
+		SolrClient solrClient = solrMgr.getSolrClient();
+		if (solrClient == null) {
+			LOGGER.warn("Solr client is null, so not running the query.");
+			throw restErrorUtil.createRESTException(
+					"Error connecting to search engine",
+					MessageEnums.ERROR_SYSTEM);
+		}
+		return solrClient;
+	}
+
+	private QueryResponse runQuery(SolrClient solrClient, SolrQuery query) {
+		String cacheKey = query.toString();
+		QueryResponse ret = queryResultCache != null ? queryResultCache.getIfPresent(cacheKey) : null;
+
+		if (ret == null) {
+			ret = solrUtil.searchResources(query, solrClient);
+
+			if (queryResultCache != null) {
+				queryResultCache.put(cacheKey, ret);
+			}
+		} else if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Found solr query result in cache. Query = " + query);
+		}
+
+		return ret;
+	}
+
+	private String getCountCacheKey(SolrQuery query) {
+		List<String> filterQueries = new ArrayList<String>();
+		if (query.getFilterQueries() != null) {
+			filterQueries.addAll(Arrays.asList(query.getFilterQueries()));
+		}
+		Collections.sort(filterQueries);
+		return query.getQuery() + "\n" + StringUtils.join(filterQueries, "\n");
+	}
 
 	private void updateUserExclusion(Map<String, Object> paramList) {
 		String val = (String) paramList.get("excludeServiceUser");
@@ -242,9 +324,11 @@ public class SolrAccessAuditsService {
 
 	/**
 	 * @param doc
+	 * @param serviceTypes
+	 *            names of the service-defs looked up for the previous documents, by id
 	 * @return
 	 */
-	private VXAccessAudit populateViewBean(SolrDocument doc) {
+	private VXAccessAudit populateViewBean(SolrDocument doc, Map<Integer, String> serviceTypes) {
 		VXAccessAudit accessAudit = new VXAccessAudit();
 
 		Object value = null;
@@ -331,10 +415,11 @@ public class SolrAccessAuditsService {
 		value = doc.getFieldValue("repoType");
 		if (value != null) {
 			accessAudit.setRepoType(solrUtil.toInt(value));
-			XXServiceDef xServiceDef = daoManager.getXXServiceDef().getById((long) accessAudit.getRepoType());
-			if (xServiceDef != null) {
-				accessAudit.setServiceType(xServiceDef.getName());
+			if (!serviceTypes.containsKey(accessAudit.getRepoType())) {
+				XXServiceDef xServiceDef = daoManager.getXXServiceDef().getById((long) accessAudit.getRepoType());
+				serviceTypes.put(accessAudit.getRepoType(), xServiceDef != null ? xServiceDef.getName() : null);
 			}
+			accessAudit.setServiceType(serviceTypes.get(accessAudit.getRepoType()));
 		}
 		value = doc.getFieldValue("resType");
 		if (value != null) {
@@ -373,10 +458,29 @@ public class SolrAccessAuditsService {
 
 	/**
 	 * @param searchCriteria
-	 * @return
+	 * @return number of audits found by the last page read with the same filters, or by a query for no rows
 	 */
 	public VXLong getXAccessAuditSearchCount(SearchCriteria searchCriteria) {
-		long count = 100;
+		SolrClient solrClient = getSolrClient();
+
+		updateUserExclusion(searchCriteria.getParamList());
+
+		SolrQuery query = solrUtil.buildSearchQuery(searchCriteria,
+				searchFields, sortFields);
+		String countCacheKey = getCountCacheKey(query);
+		Long count = countCache != null ? countCache.getIfPresent(countCacheKey) : null;
+
+		if (count == null) {
+			query.clearSorts();
+			query.setStart(0);
+			query.setRows(0);
+
+			count = solrUtil.searchResources(query, solrClient).getResults().getNumFound();
+
+			if (countCache != null) {
+				countCache.put(countCacheKey, count);
+			}
+		}
 
 		VXLong vXLong = new VXLong();
 		vXLong.setValue(count);
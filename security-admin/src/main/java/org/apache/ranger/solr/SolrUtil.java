@@ -25,7 +25,9 @@ import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
+import org.apache.ranger.common.ContinuationToken;
 import org.apache.ranger.common.MessageEnums;
 import org.apache.ranger.common.PropertiesUtil;
 import org.apache.ranger.common.RESTErrorUtil;
@@ -37,10 +39,12 @@ import org.apache.ranger.common.SearchField.SEARCH_TYPE;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrQuery.ORDER;
+import org.apache.solr.client.solrj.SolrQuery.SortClause;
 import org.apache.solr.client.solrj.SolrRequest.METHOD;
 import org.apache.solr.client.solrj.request.QueryRequest;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.util.ClientUtils;
+import org.apache.solr.common.params.CursorMarkParams;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -91,6 +95,11 @@ public class SolrUtil {
 	public QueryResponse searchResources(SearchCriteria searchCriteria,
 			List<SearchField> searchFields, List<SortField> sortFieldList,
 			SolrClient solrClient) {
+		return searchResources(buildSearchQuery(searchCriteria, searchFields, sortFieldList), solrClient);
+	}
+
+	public SolrQuery buildSearchQuery(SearchCriteria searchCriteria,
+			List<SearchField> searchFields, List<SortField> sortFieldList) {
 		SolrQuery query = new SolrQuery();
 		query.setQuery("*:*");
 		if (searchCriteria.getParamList() != null) {
@@ -155,8 +164,10 @@ public class SolrUtil {
 		query.setStart(searchCriteria.getStartIndex());
 		query.setRows(searchCriteria.getMaxRows());
 
-		// Fields to get
-		// query.setFields("myClassType", "id", "score", "globalId");
+		return query;
+	}
+
+	public QueryResponse searchResources(SolrQuery query, SolrClient solrClient) {
 		if (logger.isDebugEnabled()) {
                         logger.debug("SOLR QUERY = " + query);
                 }
@@ -180,6 +191,49 @@ public class SolrUtil {
 		return response;
 	}
 
+	/**
+	 * Sets the query to read the page at the given position with Solr's cursorMark, instead of from the start index.
+	 * cursorMark needs a sort that ends with the uniqueKey field, which is added as tie-breaker.
+	 *
+	 * @param continuationToken "*" for the first page, or the nextToken returned with the previous page
+	 */
+	public void setCursorMark(SolrQuery query, String continuationToken, String uniqueKeyField) {
+		List<SortClause> sorts = query.getSorts();
+		ORDER order = ORDER.asc;
+		boolean isSortedOnUniqueKey = false;
+
+		for (SortClause sort : sorts) {
+			order = sort.getOrder();
+			isSortedOnUniqueKey = sort.getItem().equals(uniqueKeyField);
+		}
+
+		if (!isSortedOnUniqueKey) {
+			query.addSort(uniqueKeyField, order);
+		}
+
+		query.setStart(0);
+		query.set(CursorMarkParams.CURSOR_MARK_PARAM, toCursorMark(continuationToken));
+	}
+
+	// cursorMark is Base64, while continuationToken allows only the URL-safe alphabet, without padding
+	public String toContinuationToken(String cursorMark) {
+		if (cursorMark == null) {
+			return null;
+		}
+		return StringUtils.stripEnd(cursorMark.replace('+', '-').replace('/', '_'), "=");
+	}
+
+	public String toCursorMark(String continuationToken) {
+		if (ContinuationToken.FIRST_PAGE.equals(continuationToken)) {
+			return CursorMarkParams.CURSOR_MARK_START;
+		}
+		StringBuilder ret = new StringBuilder(continuationToken.replace('-', '+').replace('_', '/'));
+		while (ret.length() % 4 != 0) {
+			ret.append('=');
+		}
+		return ret.toString();
+	}
+
 	private String setFieldForPartialSearch(String fieldName, Object value) {
 		if (value == null || value.toString().trim().length() == 0) {
 			return null;
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.store.ServiceStore;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class TestRangerServicePoliciesCache {
+	private static final Log LOG = LogFactory.getLog(TestRangerServicePoliciesCache.class);
+
+	private static final String SLOW_SERVICE   = "cachetest_slow";
+	private static final String OTHER_SERVICE  = "cachetest_other_";
+	private static final int    OTHER_SERVICES = 50;
+
+	@Test
+	public void testReloadDoesNotBlockOtherReaders() throws Exception {
+		final RangerServicePoliciesCache cache            = RangerServicePoliciesCache.getInstance();
+		final ServiceStore               serviceStore     = mock(ServiceStore.class);
+		final AtomicLong                 slowVersionInDb  = new AtomicLong(1);
+		final CountDownLatch             slowLoadStarted  = new CountDownLatch(1);
+		final CountDownLatch             slowLoadRelease  = new CountDownLatch(1);
+
+		when(serviceStore.getServicePolicyVersion(SLOW_SERVICE)).thenAnswer(new Answer<Long>() {
+			@Override
+			public Long answer(InvocationOnMock invocation) {
+				return slowVersionInDb.get();
+			}
+		});
+		when(serviceStore.getServicePolicyDeltasOrPolicies(eq(SLOW_SERVICE), anyLong())).thenAnswer(new Answer<ServicePolicies>() {
+			@Override
+			public ServicePolicies answer(InvocationOnMock invocation) throws Exception {
+				long version = slowVersionInDb.get();
+
+				if (version > 1) { // simulate a slow database load for every version after the first
+					slowLoadStarted.countDown();
+					slowLoadRelease.await();
+				}
+
+				return createServicePolicies(SLOW_SERVICE, version);
+			}
+		});
+		for (int i = 0; i < OTHER_SERVICES; i++) {
+			final String serviceName = OTHER_SERVICE + i;
+
+			when(serviceStore.getServicePolicyVersion(serviceName)).thenReturn(1L);
+			when(serviceStore.getServicePolicyDeltasOrPolicies(eq(serviceName), anyLong())).thenReturn(createServicePolicies(serviceName, 1L));
+		}
+		when(serviceStore.getOnlyServicePolicyDeltas(anyString(), anyLong())).thenReturn(null);
+
+		assertEquals(Long.valueOf(1), cache.getServicePolicies(SLOW_SERVICE, 1L, -1L, true, serviceStore).getPolicyVersion());
+
+		slowVersionInDb.set(2);
+
+		ExecutorService executor = Executors.newFixedThreadPool(9);
+
+		try {
+			Future<ServicePolicies> reloader = executor.submit(() -> cache.getServicePolicies(SLOW_SERVICE, 1L, -1L, true, serviceStore));
+
+			assertTrue("slow reload did not start", slowLoadStarted.await(10, TimeUnit.SECONDS));
+
+			// while the slow service reloads, its pollers get the previous version and other services are unaffected
+			long            startTimeMs = System.currentTimeMillis();
+			ServicePolicies stale       = cache.getServicePolicies(SLOW_SERVICE, 1L, -1L, true, serviceStore);
+
+			assertEquals(Long.valueOf(1), stale.getPolicyVersion());
+			assertTrue("stale read waited for the reload", System.currentTimeMillis() - startTimeMs < 5000);
+
+			final int             callsPerThread = 20000;
+			List<Future<Long>>    futures        = new ArrayList<>();
+
+			startTimeMs = System.currentTimeMillis();
+
+			for (int t = 0; t < 8; t++) {
+				final int threadIdx = t;
+
+				futures.add(executor.submit(() -> {
+					long count = 0;
+
+					for (int i = 0; i < callsPerThread; i++) {
+						String serviceName = (i % 10 == 0) ? SLOW_SERVICE : (OTHER_SERVICE + ((i + threadIdx) % OTHER_SERVICES));
+
+						if (cache.getServicePolicies(serviceName, 1L, -1L, true, serviceStore) != null) {
+							count++;
+						}
+					}
+
+					return count;
+				}));
+			}
+
+			long totalCalls = 0;
+
+			for (Future<Long> future : futures) {
+				totalCalls += future.get(60, TimeUnit.SECONDS);
+			}
+
+			long timeTakenMs = System.currentTimeMillis() - startTimeMs;
+
+			LOG.info("RangerServicePoliciesCache contention: calls=" + totalCalls + ", timeTakenMs=" + timeTakenMs + ", while one service reload was blocked");
+
+			assertEquals(8L * callsPerThread, totalCalls);
+
+			slowLoadRelease.countDown();
+
+			assertEquals(Long.valueOf(2), reloader.get(10, TimeUnit.SECONDS).getPolicyVersion());
+			assertEquals(Long.valueOf(2), cache.getServicePolicies(SLOW_SERVICE, 1L, 1L, true, serviceStore).getPolicyVersion());
+		} finally {
+			slowLoadRelease.countDown();
+			executor.shutdownNow();
+		}
+	}
+
+	private static ServicePolicies createServicePolicies(String serviceName, long version) {
+		ServicePolicies    ret        = new ServicePolicies();
+		RangerServiceDef   serviceDef = new RangerServiceDef();
+		List<RangerPolicy> policies   = new ArrayList<>();
+		RangerPolicy       policy     = new RangerPolicy();
+
+		serviceDef.setName("hive");
+		policy.setId(version);
+		policy.setService(serviceName);
+		policies.add(policy);
+
+		ret.setServiceName(serviceName);
+		ret.setPolicyVersion(version);
+		ret.setServiceDef(serviceDef);
+		ret.setPolicies(policies);
+
+		return ret;
+	}
+}
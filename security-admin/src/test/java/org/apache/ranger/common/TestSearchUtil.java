@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.ranger.common;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.ws.rs.WebApplicationException;
+
+import org.apache.ranger.entity.XXAccessAudit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestSearchUtil {
+
+	SearchUtil searchUtil = Mockito.spy(new SearchUtil());
+
+	RESTErrorUtil restErrorUtil = Mockito.mock(RESTErrorUtil.class);
+
+	List<SortField> sortFields = new ArrayList<SortField>();
+
+	@Before
+	public void setup() {
+		searchUtil.restErrorUtil = restErrorUtil;
+		searchUtil.stringUtil    = new StringUtil();
+
+		// nulls sort as the lowest value, as in MySQL
+		Mockito.doReturn(true).when(searchUtil).isNullSortedFirst(false);
+		Mockito.doReturn(false).when(searchUtil).isNullSortedFirst(true);
+
+		sortFields.add(new SortField("eventTime", "obj.eventTime", true, SortField.SORT_ORDER.DESC));
+		sortFields.add(new SortField("id", "obj.id"));
+		sortFields.add(new SortField("groupName", "xxGroup.name"));
+	}
+
+	@Test
+	public void testContinuationTokenEncodeDecode() {
+		Date              eventTime = new Date();
+		ContinuationToken token     = ContinuationToken.decode(new ContinuationToken("eventTime", "desc", eventTime, 42L).encode());
+
+		Assert.assertEquals("eventTime", token.getSortBy());
+		Assert.assertEquals("desc", token.getSortType());
+		Assert.assertEquals(eventTime, token.getSortValue());
+		Assert.assertEquals(Long.valueOf(42L), token.getLastId());
+
+		token = ContinuationToken.decode(new ContinuationToken("name", null, "user\nname", 7L).encode());
+
+		Assert.assertNull(token.getSortType());
+		Assert.assertEquals("user\nname", token.getSortValue());
+
+		token = ContinuationToken.decode(new ContinuationToken("name", "asc", null, 7L).encode());
+
+		Assert.assertNull(token.getSortValue());
+		Assert.assertEquals(Long.valueOf(7L), token.getLastId());
+
+		Assert.assertNull(new ContinuationToken("name", "asc", new Object(), 7L).encode());
+	}
+
+	@Test
+	public void testParseContinuationToken() {
+		String token = new ContinuationToken("eventTime", "desc", new Date(), 42L).encode();
+
+		Assert.assertNull(searchUtil.parseContinuationToken(ContinuationToken.FIRST_PAGE, "eventTime", "desc"));
+		Assert.assertEquals(Long.valueOf(42L), searchUtil.parseContinuationToken(token, "eventTime", "desc").getLastId());
+
+		Mockito.when(restErrorUtil.createRESTException(Mockito.anyString(), Mockito.any(MessageEnums.class))).thenReturn(new WebApplicationException());
+
+		assertInvalidToken(token, "eventTime", "asc");
+		assertInvalidToken(token, "id", "desc");
+		assertInvalidToken("bm90LWEtdG9rZW4", "eventTime", "desc");
+	}
+
+	@Test
+	public void testGetKeysetSortField() {
+		Assert.assertEquals("obj.eventTime", searchUtil.getKeysetSortField("eventTime", sortFields));
+		Assert.assertEquals("obj.id", searchUtil.getKeysetSortField("id", sortFields));
+		Assert.assertEquals("obj.id", searchUtil.getKeysetSortField(null, sortFields));
+		Assert.assertNull(searchUtil.getKeysetSortField("groupName", sortFields));
+	}
+
+	@Test
+	public void testCreateKeysetSearchQuery() {
+		EntityManager     em       = Mockito.mock(EntityManager.class);
+		Query             query    = Mockito.mock(Query.class);
+		SearchCriteria    criteria = new SearchCriteria();
+		Date              lastTime = new Date();
+		ContinuationToken position = new ContinuationToken("eventTime", "desc", lastTime, 42L);
+
+		criteria.setMaxRows(25);
+		criteria.setSortType("desc");
+
+		Mockito.when(em.createQuery(Mockito.anyString())).thenReturn(query);
+
+		searchUtil.createKeysetSearchQuery(em, "SELECT obj FROM XXAccessAudit obj ", criteria, new ArrayList<SearchField>(), "obj.eventTime", position);
+
+		Mockito.verify(em).createQuery("SELECT obj FROM XXAccessAudit obj WHERE 1 = 1 "
+				+ " and (obj.eventTime < :keysetSortValue or (obj.eventTime = :keysetSortValue and obj.id < :keysetLastId) or obj.eventTime is null)"
+				+ " ORDER BY obj.eventTime desc, obj.id desc");
+		Mockito.verify(query).setParameter("keysetSortValue", lastTime);
+		Mockito.verify(query).setParameter("keysetLastId", 42L);
+		Mockito.verify(query).setMaxResults(26);
+		Mockito.verify(query, Mockito.never()).setFirstResult(Mockito.anyInt());
+	}
+
+	@Test
+	public void testKeysetWithNullSortValues() {
+		XXAccessAudit lastRow = new XXAccessAudit();
+
+		lastRow.setId(42L);
+		lastRow.setEventTime(null);
+
+		// a page that ends on a row without a value of the sort field has a next page
+		String            nextToken = searchUtil.createContinuationToken(lastRow, "obj.eventTime", "eventTime", "asc");
+		ContinuationToken position  = searchUtil.parseContinuationToken(nextToken, "eventTime", "asc");
+
+		Assert.assertNull(position.getSortValue());
+		Assert.assertEquals(Long.valueOf(42L), position.getLastId());
+
+		// nulls first: after the null rows, by id, come all rows with a value
+		Assert.assertEquals(" and ((obj.eventTime is null and obj.id > :keysetLastId) or obj.eventTime is not null) ORDER BY obj.eventTime asc, obj.id asc",
+				getKeysetClause(searchUtil, "asc", position));
+
+		// nulls last: only the null rows after the last id are left
+		Assert.assertEquals(" and ((obj.eventTime is null and obj.id < :keysetLastId)) ORDER BY obj.eventTime desc, obj.id desc",
+				getKeysetClause(searchUtil, "desc", position));
+
+		// a position on a value is followed by the null rows when they come last, as in Oracle and PostgreSQL
+		Mockito.doReturn(false).when(searchUtil).isNullSortedFirst(false);
+
+		Assert.assertEquals(" and (obj.eventTime > :keysetSortValue or (obj.eventTime = :keysetSortValue and obj.id > :keysetLastId) or obj.eventTime is null) ORDER BY obj.eventTime asc, obj.id asc",
+				getKeysetClause(searchUtil, "asc", new ContinuationToken("eventTime", "asc", new Date(), 42L)));
+
+		Query query = Mockito.mock(Query.class);
+
+		searchUtil.resolveKeysetParams(query, "obj.eventTime", position);
+
+		Mockito.verify(query).setParameter("keysetLastId", 42L);
+		Mockito.verify(query, Mockito.never()).setParameter(Mockito.eq("keysetSortValue"), Mockito.any());
+	}
+
+	@Test
+	public void testCreateContinuationToken() {
+		XXAccessAudit lastRow = new XXAccessAudit();
+		Date          lastTime = new Date();
+
+		lastRow.setId(42L);
+		lastRow.setEventTime(lastTime);
+
+		ContinuationToken token = ContinuationToken.decode(searchUtil.createContinuationToken(lastRow, "obj.eventTime", "eventTime", "desc"));
+
+		Assert.assertEquals(lastTime, token.getSortValue());
+		Assert.assertEquals(Long.valueOf(42L), token.getLastId());
+
+		token = ContinuationToken.decode(searchUtil.createContinuationToken(lastRow, "obj.id", null, "asc"));
+
+		Assert.assertEquals(Long.valueOf(42L), token.getSortValue());
+	}
+
+	@Test
+	public void testGetApproximateCount() {
+		Assert.assertEquals(125L, searchUtil.getApproximateCount(100, 25, 25));
+		Assert.assertEquals(126L, searchUtil.getApproximateCount(100, 25, 26));
+		Assert.assertEquals(110L, searchUtil.getApproximateCount(100, 25, 10));
+	}
+
+	private void assertInvalidToken(String token, String sortBy, String sortType) {
+		try {
+			searchUtil.parseContinuationToken(token, sortBy, sortType);
+
+			Assert.fail("continuationToken accepted: " + token);
+		} catch (WebApplicationException excp) {
+			// expected
+		}
+	}
+
+	private static String getKeysetClause(SearchUtil searchUtil, String sortType, ContinuationToken position) {
+		StringBuilder queryClause = new StringBuilder();
+
+		searchUtil.addKeysetClause(queryClause, "obj.eventTime", sortType, position);
+
+		return queryClause.toString();
+	}
+}
@@ -21,6 +21,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -40,6 +41,7 @@ import org.apache.ranger.biz.AssetMgr;
 import org.apache.ranger.biz.RangerBizUtil;
 import org.apache.ranger.biz.SecurityZoneDBStore;
 import org.apache.ranger.biz.ServiceDBStore;
+import org.apache.ranger.biz.ServiceDBStore.PolicyBatchHandler;
 import org.apache.ranger.biz.ServiceMgr;
 import org.apache.ranger.biz.TagDBStore;
 import org.apache.ranger.biz.XUserMgr;
@@ -121,6 +123,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import com.sun.jersey.core.header.FormDataContentDisposition;
 
@@ -1545,6 +1549,33 @@ public class TestServiceREST {
 	public void test45exportPoliciesInJSON() throws Exception {
 		HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
 
+		XXService xService = xService();
+		List<XXService> xServiceList = new ArrayList<XXService>();
+		xServiceList.add(xService);
+
+		XXServiceDao xServiceDao = Mockito.mock(XXServiceDao.class);
+
+		HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+		SearchFilter filter = new SearchFilter();
+		filter.setParam("zoneName", "zone1");
+		List<String> serviceNames = new ArrayList<String>();
+		serviceNames.add(xService.getName());
+
+		Mockito.when(searchUtil.getSearchFilter(request, policyService.sortFields)).thenReturn(filter);
+		Mockito.when(bizUtil.isAdmin()).thenReturn(true);
+		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
+		Mockito.when(xServiceDao.getAll()).thenReturn(xServiceList);
+		Mockito.when(svcStore.streamPoliciesInJson(serviceNames, "zone1", false, response)).thenReturn(1L);
+		serviceREST.getPoliciesInJson(request, response, false);
+
+		Mockito.verify(svcStore).streamPoliciesInJson(serviceNames, "zone1", false, response);
+		Mockito.verify(svcStore, Mockito.never()).getPoliciesInJson(Mockito.anyList(), Mockito.any(HttpServletResponse.class));
+	}
+
+	@Test
+	public void test45exportPoliciesInJSONWithPolicyFilter() throws Exception {
+		HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+
 		List<RangerPolicy> rangerPolicyList = new ArrayList<RangerPolicy>();
 
 		RangerPolicy rangerPolicy = rangerPolicy();
@@ -1555,10 +1586,10 @@ public class TestServiceREST {
 		XXServiceDef xServiceDef = serviceDef();
 		XXServiceDefDao xServiceDefDao = Mockito.mock(XXServiceDefDao.class);
 
-		request.setAttribute("serviceType", "hdfs,hbase,hive,yarn,knox,storm,solr,kafka,nifi,atlas,sqoop");
 		HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
 		SearchFilter filter = new SearchFilter();
 		filter.setParam("zoneName", "zone1");
+		filter.setParam("policyName", rangerPolicy.getName());
 		Mockito.when(searchUtil.getSearchFilter(request, policyService.sortFields)).thenReturn(filter);
 		Mockito.when(svcStore.getPolicies(filter)).thenReturn(rangerPolicyList);
 		Mockito.when(bizUtil.isAdmin()).thenReturn(true);
@@ -1577,39 +1608,74 @@ public class TestServiceREST {
 	}
 
 	@Test
-	public void test46exportPoliciesInCSV() throws Exception {
+	public void test46exportPoliciesInCSVWithNoPolicies() throws Exception {
 		HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
 
-		List<RangerPolicy> rangerPolicyList = new ArrayList<RangerPolicy>();
-
-		RangerPolicy rangerPolicy = rangerPolicy();
-		rangerPolicyList.add(rangerPolicy);
 		XXService xService = xService();
-
 		XXServiceDao xServiceDao = Mockito.mock(XXServiceDao.class);
-		XXServiceDef xServiceDef = serviceDef();
-		XXServiceDefDao xServiceDefDao = Mockito.mock(XXServiceDefDao.class);
 
-		request.setAttribute("serviceType", "hdfs,hbase,hive,yarn,knox,storm,solr,kafka,nifi,atlas,sqoop");
 		HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
 		SearchFilter filter = new SearchFilter();
+		List<String> serviceNames = new ArrayList<String>();
+		serviceNames.add(xService.getName());
 
 		Mockito.when(searchUtil.getSearchFilter(request, policyService.sortFields)).thenReturn(filter);
-		Mockito.when(svcStore.getPolicies(filter)).thenReturn(rangerPolicyList);
+		Mockito.when(request.getParameter("serviceName")).thenReturn(xService.getName());
 		Mockito.when(bizUtil.isAdmin()).thenReturn(true);
-		Mockito.when(bizUtil.isKeyAdmin()).thenReturn(false);
-		Mockito.when(bizUtil.getCurrentUserLoginId()).thenReturn("admin");
-		Mockito.when(bizUtil.isAuditAdmin()).thenReturn(false);
-		Mockito.when(bizUtil.isAuditKeyAdmin()).thenReturn(false);
 		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
+		Mockito.when(xServiceDao.findByName(xService.getName())).thenReturn(xService);
+		serviceREST.getPoliciesInCsv(request, response);
+
+		Mockito.verify(svcStore).streamPoliciesInCSV(serviceNames, null, false, response);
+		Mockito.verify(response).setStatus(HttpServletResponse.SC_NO_CONTENT);
+	}
 
+	@Test
+	public void test46exportPoliciesInCSVStreamsPolicies() throws Exception {
+		HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+
+		final RangerPolicy rangerPolicy = rangerPolicy();
+		XXService xService = xService();
+		XXServiceDef xServiceDef = serviceDef();
+		XXServiceDao xServiceDao = Mockito.mock(XXServiceDao.class);
+		XXServiceDefDao xServiceDefDao = Mockito.mock(XXServiceDefDao.class);
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		SearchFilter filter = new SearchFilter();
+		List<String> serviceNames = new ArrayList<String>();
+		serviceNames.add(xService.getName());
+		rangerPolicy.setPolicyType(RangerPolicy.POLICY_TYPE_ACCESS);
+
+		Mockito.when(searchUtil.getSearchFilter(request, policyService.sortFields)).thenReturn(filter);
+		Mockito.when(request.getParameter("serviceName")).thenReturn(xService.getName());
+		Mockito.when(bizUtil.isAdmin()).thenReturn(true);
+		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
 		Mockito.when(daoManager.getXXServiceDef()).thenReturn(xServiceDefDao);
+		Mockito.when(xServiceDao.findByName(xService.getName())).thenReturn(xService);
+		Mockito.when(xServiceDao.findByName(rangerPolicy.getService())).thenReturn(xService);
+		Mockito.when(xServiceDefDao.getById(xService.getType())).thenReturn(xServiceDef);
+
+		// the export writes the pages of policies read by the store to the response, as they are read
+		ReflectionTestUtils.setField(svcStore, "daoMgr", daoManager);
+		Mockito.when(svcStore.streamPoliciesInCSV(serviceNames, null, false, response)).thenCallRealMethod();
+		Mockito.doAnswer(invocation -> {
+			PolicyBatchHandler handler = invocation.getArgument(3);
+
+			handler.handle(Collections.singletonList(rangerPolicy));
+
+			return 1L;
+		}).when(svcStore).forEachPolicyPage(Mockito.eq(serviceNames), Mockito.isNull(), Mockito.eq(false), Mockito.any(PolicyBatchHandler.class));
 
-		Mockito.when(daoManager.getXXService().findByName("HDFS_1-1-20150316062453")).thenReturn(xService);
-		Mockito.when(daoManager.getXXServiceDef().getById(xService.getType())).thenReturn(xServiceDef);
 		serviceREST.getPoliciesInCsv(request, response);
 
-		Mockito.verify(svcStore).getPoliciesInCSV(rangerPolicyList, response);
+		String[] lines = response.getContentAsString().split("\n");
+
+		Assert.assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		Assert.assertEquals("text/csv", response.getContentType());
+		Assert.assertEquals(2, lines.length);
+		Assert.assertTrue(lines[0].startsWith("ID|Name|Resources|Groups|Users|Accesses|Service Type|Status|"));
+		Assert.assertTrue(lines[1].startsWith(rangerPolicy.getId() + "|" + rangerPolicy.getName() + "|"));
+		Assert.assertTrue(lines[1].contains("|" + xServiceDef.getName() + "|Enabled|"));
 	}
 
       /*  @Test
@@ -1710,6 +1776,7 @@ public class TestServiceREST {
 		Mockito.when(request.getParameter(PARAM_SERVICE_TYPE)).thenReturn(serviceTypeList);
 		Mockito.when(svcStore.createPolicyMap(Mockito.any(Map.class), Mockito.any(List.class),Mockito.anyString(),Mockito.any(Map.class), Mockito.any(List.class), Mockito.any(List.class),
 				Mockito.any(RangerPolicy.class), Mockito.any(Map.class))).thenReturn(policiesMap);
+		Mockito.when(svcStore.forEachPolicyBatch(Mockito.any(InputStream.class), Mockito.any(PolicyBatchHandler.class))).thenCallRealMethod();
 		Mockito.when(validatorFactory.getPolicyValidator(svcStore)).thenReturn(policyValidator);
 		Mockito.when(bizUtil.isAdmin()).thenReturn(true);
 		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
@@ -1775,6 +1842,7 @@ public class TestServiceREST {
 		Mockito.when(request.getParameter(PARAM_SERVICE_TYPE)).thenReturn(serviceTypeList);
 		Mockito.when(svcStore.createPolicyMap(Mockito.any(Map.class), Mockito.any(List.class),Mockito.anyString(),Mockito.any(Map.class), Mockito.any(List.class), Mockito.any(List.class),
 				Mockito.any(RangerPolicy.class), Mockito.any(Map.class))).thenReturn(policiesMap);
+		Mockito.when(svcStore.forEachPolicyBatch(Mockito.any(InputStream.class), Mockito.any(PolicyBatchHandler.class))).thenCallRealMethod();
 		Mockito.when(validatorFactory.getPolicyValidator(svcStore)).thenReturn(policyValidator);
 		Mockito.when(bizUtil.isAdmin()).thenReturn(true);
 		Mockito.when(daoManager.getXXService()).thenReturn(xServiceDao);
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.solr;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.ranger.common.SearchCriteria;
+import org.apache.ranger.common.StringUtil;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.db.XXServiceDefDao;
+import org.apache.ranger.entity.XXServiceDef;
+import org.apache.ranger.view.VXAccessAuditList;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestSolrAccessAuditsService {
+
+	SolrAccessAuditsService auditsService = new SolrAccessAuditsService();
+
+	SolrUtil solrUtil = Mockito.spy(new SolrUtil());
+
+	XXServiceDefDao xServiceDefDao = Mockito.mock(XXServiceDefDao.class);
+
+	List<SolrQuery> queries = new ArrayList<SolrQuery>();
+
+	@Before
+	public void setup() throws Throwable {
+		SolrMgr          solrMgr    = Mockito.mock(SolrMgr.class);
+		RangerDaoManager daoManager = Mockito.mock(RangerDaoManager.class);
+		XXServiceDef     serviceDef = new XXServiceDef();
+
+		serviceDef.setName("hdfs");
+
+		solrUtil.stringUtil = new StringUtil();
+
+		auditsService.solrMgr    = solrMgr;
+		auditsService.solrUtil   = solrUtil;
+		auditsService.daoManager = daoManager;
+
+		Mockito.when(solrMgr.getSolrClient()).thenReturn(Mockito.mock(SolrClient.class));
+		Mockito.when(daoManager.getXXServiceDef()).thenReturn(xServiceDefDao);
+		Mockito.when(xServiceDefDao.getById(1L)).thenReturn(serviceDef);
+
+		// Solr finds 42 audits; a page has 2 of them
+		Mockito.doAnswer(invocation -> {
+			SolrQuery query = invocation.getArgument(1);
+
+			queries.add(query.getCopy());
+
+			return createResponse(query.getRows() == 0 ? 0 : 2, 42, "AoE/+x==");
+		}).when(solrUtil).runQuery(Mockito.any(SolrClient.class), Mockito.any(SolrQuery.class));
+	}
+
+	@Test
+	public void testSearchWithResultCache() {
+		VXAccessAuditList audits = auditsService.searchXAccessAudits(createSearchCriteria("hdfs-svc", 2));
+
+		Assert.assertEquals(2, audits.getResultSize());
+		Assert.assertEquals(42, audits.getTotalCount());
+		Assert.assertEquals("hdfs", audits.getVXAccessAudits().get(0).getServiceType());
+		Assert.assertNull(audits.getNextToken());
+		Assert.assertTrue(queries.get(0).getFields().startsWith("id,cluster,zoneName"));
+		Assert.assertFalse(queries.get(0).getFields().contains("logType"));
+
+		// the service-def of the audits is looked up once per page
+		Mockito.verify(xServiceDefDao, Mockito.times(1)).getById(1L);
+
+		// the same page again, and the count of its filters, are served from the cache
+		auditsService.searchXAccessAudits(createSearchCriteria("hdfs-svc", 2));
+
+		Assert.assertEquals(42L, auditsService.getXAccessAuditSearchCount(createSearchCriteria("hdfs-svc", 25)).getValue());
+		Assert.assertEquals(1, queries.size());
+
+		// the count for other filters is read without documents
+		Assert.assertEquals(42L, auditsService.getXAccessAuditSearchCount(createSearchCriteria("hive-svc", 25)).getValue());
+		Assert.assertEquals(2, queries.size());
+		Assert.assertEquals(Integer.valueOf(0), queries.get(1).getRows());
+		Assert.assertTrue(queries.get(1).getSorts().isEmpty());
+	}
+
+	@Test
+	public void testSearchWithCursorMark() {
+		SearchCriteria searchCriteria = createSearchCriteria("hdfs-svc", 2);
+
+		searchCriteria.setStartIndex(10);
+		searchCriteria.setContinuationToken("*");
+
+		VXAccessAuditList audits = auditsService.searchXAccessAudits(searchCriteria);
+
+		Assert.assertEquals("AoE_-x", audits.getNextToken());
+		Assert.assertEquals(CursorMarkParams.CURSOR_MARK_START, queries.get(0).get(CursorMarkParams.CURSOR_MARK_PARAM));
+		Assert.assertEquals("evtTime desc,id desc", queries.get(0).get(CommonParams.SORT));
+		Assert.assertEquals(Integer.valueOf(0), queries.get(0).getStart());
+
+		searchCriteria = createSearchCriteria("hdfs-svc", 2);
+		searchCriteria.setContinuationToken(audits.getNextToken());
+
+		audits = auditsService.searchXAccessAudits(searchCriteria);
+
+		Assert.assertEquals("AoE/+x==", queries.get(1).get(CursorMarkParams.CURSOR_MARK_PARAM));
+		// Solr returned the cursorMark it was sent: no more pages
+		Assert.assertNull(audits.getNextToken());
+
+		// a short page is the last one
+		searchCriteria = createSearchCriteria("hdfs-svc", 5);
+		searchCriteria.setContinuationToken("*");
+
+		Assert.assertNull(auditsService.searchXAccessAudits(searchCriteria).getNextToken());
+	}
+
+	private static SearchCriteria createSearchCriteria(String repoName, int maxRows) {
+		SearchCriteria searchCriteria = new SearchCriteria();
+
+		searchCriteria.setMaxRows(maxRows);
+		searchCriteria.getParamList().put("repoName", repoName);
+		searchCriteria.getParamList().put("startDate", new Date(0));
+
+		return searchCriteria;
+	}
+
+	private static QueryResponse createResponse(int docCount, long numFound, String nextCursorMark) {
+		SolrDocumentList    docs     = new SolrDocumentList();
+		NamedList<Object>   header   = new NamedList<Object>();
+		NamedList<Object>   response = new NamedList<Object>();
+		QueryResponse       ret      = new QueryResponse();
+
+		for (int i = 0; i < docCount; i++) {
+			SolrDocument doc = new SolrDocument();
+
+			doc.setField("id", "audit-" + i);
+			doc.setField("repoType", 1);
+			doc.setField("evtTime", new Date());
+
+			docs.add(doc);
+		}
+
+		docs.setNumFound(numFound);
+		header.add("status", 0);
+		response.add("responseHeader", header);
+		response.add("response", docs);
+		response.add(CursorMarkParams.CURSOR_MARK_NEXT, nextCursorMark);
+
+		ret.setResponse(response);
+
+		return ret;
+	}
+}